@@ -0,0 +1,549 @@
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.LongUnaryOperator;
+import java.util.function.ObjLongConsumer;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * Entry points of application code used by JMH benchmarks.
+ * <p>JMH doesn't allow benchmarks in default package and classes from other packages can't use classes of
+ * application directly. Benchmarks get application code from here as standard functional interfaces,
+ * through reflection in setup only. Interface calls with one implementation are inlined by JIT,
+ * so they don't change measured time.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class BenchmarkTargets {
+
+    //Time of first entry written by writeJournal()
+    static final Instant JOURNAL_START = Instant.parse("2022-01-28T16:00:00Z");
+
+    //The same currencies as in ECB daily file
+    static final String[] CURRENCIES = {"AUD", "BGN", "BRL", "CAD", "CHF", "CNY", "CZK", "DKK",
+            "GBP", "HKD", "HUF", "IDR", "ILS", "INR", "ISK", "JPY", "KRW", "MXN", "MYR", "NOK",
+            "NZD", "PHP", "PLN", "RON", "SEK", "SGD", "THB", "TRY", "USD", "ZAR"};
+
+    private BenchmarkTargets() {
+    }
+
+    /**
+     * @return {@link XMLParser#getCurrencies(String)}
+     */
+    public static Function<String, Object> getCurrencies() {
+        return XMLParser::getCurrencies;
+    }
+
+    /**
+     * @return {@link XMLParser#getCurrenciesDom(String)}, parser used before StAX, for comparison
+     */
+    public static Function<String, Object> getCurrenciesDom() {
+        return XMLParser::getCurrenciesDom;
+    }
+
+    /**
+     * @return {@link XMLParser#getRateHistory(String)}
+     */
+    public static Function<String, Object> getRateHistory() {
+        return XMLParser::getRateHistory;
+    }
+
+    /**
+     * @return {@link RateCache#loadRateHistory(String)}, which maps cache file once it's written
+     */
+    public static Function<String, Object> loadRateHistoryWithCache() {
+        return filePath -> {
+            try {
+                return RateCache.loadRateHistory(filePath);
+            } catch (RateLoadException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Creates source of rates shared by many calculators.
+     *
+     * @param filePath Path to xml file
+     * @return Supplier of {@link RateSnapshot}
+     */
+    public static Supplier<?> rateSource(String filePath) throws RateLoadException {
+        return new RateReloader(filePath, CrossRateTable.DEFAULT_SCALE, CrossRateTable.DEFAULT_ROUNDING);
+    }
+
+    /**
+     * Creates new calculator which sets currency and converts BigDecimal euros to it.
+     *
+     * @param rateSource Source from {@link #rateSource(String)}
+     * @return Function of currency and amount returning converted amount
+     */
+    @SuppressWarnings("unchecked")
+    public static BiFunction<String, BigDecimal, BigDecimal> setCurrencyAndConvert(Supplier<?> rateSource) {
+        Calculator calculator = new Calculator((Supplier<RateSnapshot>) rateSource);
+        return (currency, amount) -> {
+            calculator.setCurrentCurrency(currency);
+            return calculator.convertEuros(amount);
+        };
+    }
+
+    /**
+     * Creates new calculator which sets currency and converts the same amount in euro cents to it.
+     *
+     * @param rateSource Source from {@link #rateSource(String)}
+     * @param amountInEuroCents Amount converted on every call
+     * @return Function of currency returning converted amount in minor units
+     */
+    @SuppressWarnings("unchecked")
+    public static ToLongFunction<String> setCurrencyAndConvertCents(Supplier<?> rateSource, long amountInEuroCents) {
+        Calculator calculator = new Calculator((Supplier<RateSnapshot>) rateSource);
+        return currency -> {
+            calculator.setCurrentCurrency(currency);
+            return calculator.convertEuros(amountInEuroCents);
+        };
+    }
+
+    /**
+     * Creates new calculator converting whole arrays of euro cents to currency.
+     *
+     * @param filePath Path to xml file
+     * @param currency Target currency
+     * @param parallel If true, {@link Calculator#convertEurosParallel(long[])} is used
+     * @return Function of amounts in euro cents returning converted amounts
+     */
+    public static UnaryOperator<long[]> convertCentsBatch(String filePath, String currency, boolean parallel) {
+        Calculator calculator = new Calculator(filePath);
+        calculator.setCurrentCurrency(currency);
+        return parallel ? calculator::convertEurosParallel : calculator::convertEurosBatch;
+    }
+
+    /**
+     * Creates new calculator converting arrays of BigDecimal euros to currency.
+     *
+     * @param filePath Path to xml file
+     * @param currency Target currency
+     * @param parallel If true, {@link Calculator#convertEurosParallel(BigDecimal[])} is used
+     * @return Function of amounts in euros returning converted amounts
+     */
+    public static UnaryOperator<BigDecimal[]> convertBatch(String filePath, String currency, boolean parallel) {
+        Calculator calculator = new Calculator(filePath);
+        calculator.setCurrentCurrency(currency);
+        return parallel ? calculator::convertEurosParallel : calculator::convertEurosBatch;
+    }
+
+    /**
+     * Creates new calculator converting one amount of euro cents to currency.
+     *
+     * @param filePath Path to xml file
+     * @param currency Target currency
+     * @return {@link Calculator#convertEuros(long)}
+     */
+    public static LongUnaryOperator convertCents(String filePath, String currency) {
+        Calculator calculator = new Calculator(filePath);
+        calculator.setCurrentCurrency(currency);
+        return calculator::convertEuros;
+    }
+
+    /**
+     * @param filePath Path to xml file used by menu's calculator
+     * @return {@link Menu#checkInputEuros(String)}
+     */
+    public static Function<String, Optional<BigDecimal>> checkInputEuros(String filePath) {
+        return new Menu(new Calculator(filePath))::checkInputEuros;
+    }
+
+    /**
+     * @return {@link AmountParser#parseCents(CharSequence)}
+     */
+    public static ToLongFunction<String> parseCents() {
+        return AmountParser::parseCents;
+    }
+
+    /**
+     * @return Function building {@link RateStatistics} of history loaded from xml file
+     */
+    public static Function<Object, Object> buildRateStatistics() {
+        return rateHistory -> new RateStatistics((RateHistory) rateHistory);
+    }
+
+    /**
+     * @param filePath Path to history xml file
+     * @param currency Currency of statistics
+     * @return Function of range of dates returning statistics from {@link RateStatistics}
+     */
+    public static BiFunction<LocalDate, LocalDate, Object> rangeStatistics(String filePath, String currency) {
+        RateStatistics rateStatistics = new RateStatistics(XMLParser.getRateHistory(filePath));
+        return (from, to) -> rateStatistics.getStatistics(currency, from, to);
+    }
+
+    /**
+     * Statistics computed without helper structures, by scanning every publication in range.
+     *
+     * @param filePath Path to history xml file
+     * @param currency Currency of statistics
+     * @return Function of range of dates returning count, min, max, average, standard deviation and volatility
+     */
+    public static BiFunction<LocalDate, LocalDate, Object> scanStatistics(String filePath, String currency) {
+        RateHistory rateHistory = XMLParser.getRateHistory(filePath);
+        int currencyIndex = rateHistory.indexOfCurrency(currency);
+        return (from, to) -> {
+            int first = rateHistory.publicationIndex(from.toEpochDay() - 1) + 1;
+            int last = rateHistory.publicationIndex(to);
+            int count = 0;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            long sum = 0;
+            double squareSum = 0;
+            double returnSum = 0;
+            double returnSquareSum = 0;
+            long previous = RateHistory.NO_RATE;
+            for (int i = first; i <= last; i++) {
+                long rate = rateHistory.getScaledRate(currencyIndex, i);
+                if (rate == RateHistory.NO_RATE) {
+                    continue;
+                }
+                count++;
+                min = Math.min(min, rate);
+                max = Math.max(max, rate);
+                sum += rate;
+                squareSum += (double) rate * rate;
+                if (previous != RateHistory.NO_RATE) {
+                    double logReturn = Math.log((double) rate / previous);
+                    returnSum += logReturn;
+                    returnSquareSum += logReturn * logReturn;
+                }
+                previous = rate;
+            }
+            double mean = (double) sum / count;
+            double returnMean = returnSum / (count - 1);
+            return new double[]{count, min, max, mean, Math.sqrt(squareSum / count - mean * mean),
+                    Math.sqrt((returnSquareSum - (count - 1) * returnMean * returnMean) / (count - 2))};
+        };
+    }
+
+    /**
+     * @return {@link CurrencyAggregator#add(long, CharSequence)} of new aggregator of all daily currencies
+     */
+    public static ObjLongConsumer<String> aggregator() {
+        CurrencyAggregator aggregator = new CurrencyAggregator(new CurrencyRegistry(Arrays.asList(CURRENCIES)));
+        return (currency, amountMinor) -> aggregator.add(amountMinor, currency);
+    }
+
+    /**
+     * Totals kept the usual way, in synchronized map of BigDecimal, for comparison with {@link #aggregator()}.
+     *
+     * @return Function adding amount in minor units to total of currency
+     */
+    public static ObjLongConsumer<String> synchronizedTotals() {
+        Map<String, BigDecimal> totals = new HashMap<>();
+        return (currency, amountMinor) -> {
+            synchronized (totals) {
+                totals.merge(currency, BigDecimal.valueOf(amountMinor, 2), BigDecimal::add);
+            }
+        };
+    }
+
+    /**
+     * Loading of many rate files with {@link RateMerge}.
+     *
+     * @param pool Pool parsing files, e.g. pool with parallelism 1 for sequential loading
+     * @return Function of paths of files returning merged {@link RateHistory}
+     */
+    public static Function<List<Path>, Object> mergeRateFiles(ForkJoinPool pool) {
+        return files -> {
+            try {
+                return RateMerge.load(files, false, pool).getRateHistory();
+            } catch (RateLoadException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Calculator converting Euros with cache of results.
+     *
+     * @param filePath Path to xml file
+     * @param currency Target currency
+     * @param cacheSize Capacity of {@link ConversionCache}, 0 for calculator without cache
+     * @return {@link Calculator#convertEuros(BigDecimal)}
+     */
+    public static UnaryOperator<BigDecimal> cachedConversion(String filePath, String currency, int cacheSize) {
+        RateSnapshot snapshot = new RateSnapshot(1, XMLParser.getRateHistory(filePath),
+                CrossRateTable.DEFAULT_SCALE, CrossRateTable.DEFAULT_ROUNDING);
+        Calculator calculator = new Calculator(() -> snapshot, cacheSize > 0 ? new ConversionCache(cacheSize) : null);
+        calculator.setCurrentCurrency(currency);
+        return calculator::convertEuros;
+    }
+
+    /**
+     * Builds history with rates like in ECB files - 5 significant digits, changing a little every working day.
+     *
+     * @param days Number of publications, each with all {@link #CURRENCIES}
+     * @param compressed If true, history is {@link CompressedRateHistory}
+     * @return {@link RateStore} with history
+     */
+    public static Object realisticHistory(int days, boolean compressed) {
+        Random random = new Random(42);
+        RateHistory.Builder builder = new RateHistory.Builder();
+        LocalDate date = LocalDate.of(1999, 1, 4);
+        double[] rates = new double[CURRENCIES.length];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = Math.pow(10, random.nextInt(5)) * (1 + random.nextDouble());
+        }
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < rates.length; i++) {
+                rates[i] *= 1 + random.nextGaussian() * 0.005;
+                builder.add(date, CURRENCIES[i], new BigDecimal(rates[i], new MathContext(5)));
+            }
+            date = date.plusDays(date.getDayOfWeek().getValue() == 5 ? 3 : 1);
+        }
+        RateHistory rateHistory = builder.build();
+        return compressed ? new CompressedRateHistory(rateHistory) : rateHistory;
+    }
+
+    /**
+     * @param store {@link RateStore} from {@link #realisticHistory(int, boolean)}
+     * @param currency Currency of rates
+     * @return {@link RateStore#getRate(String, LocalDate)} of currency
+     */
+    public static Function<LocalDate, Object> rateLookup(Object store, String currency) {
+        RateStore rateStore = (RateStore) store;
+        return date -> rateStore.getRate(currency, date);
+    }
+
+    /**
+     * @param filePath Path to xml file
+     * @param currency Target currency
+     * @param lazy If true, rate is read by {@link LazyRates}, in other case whole file is loaded by {@link Calculator}
+     * @return One-off conversion of euros, reading file again on every call
+     */
+    public static UnaryOperator<BigDecimal> oneOffConversion(String filePath, String currency, boolean lazy) {
+        if (lazy) {
+            return amount -> {
+                try (LazyRates lazyRates = new LazyRates(filePath)) {
+                    return lazyRates.convertEuros(amount, currency);
+                } catch (RateLoadException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+        return amount -> {
+            Calculator calculator = new Calculator(filePath);
+            calculator.setCurrentCurrency(currency);
+            return calculator.convertEuros(amount);
+        };
+    }
+
+    /**
+     * Writes journal of rate sets from daily file, one entry a minute from 2022-01-28 16:00 UTC, USD rate
+     * changed in every entry.
+     *
+     * @param file Path of created journal
+     * @param filePath Path to daily xml file
+     * @param entries Number of journal entries
+     * @return {@link RateJournal} with entries
+     */
+    public static Object writeJournal(Path file, String filePath, int entries) throws IOException {
+        Files.deleteIfExists(file);
+        RateJournal journal = new RateJournal(file);
+        SortedMap<String, BigDecimal> rates = new TreeMap<>(XMLParser.getCurrencies(filePath));
+        for (int entry = 0; entry < entries; entry++) {
+            rates.put("USD", BigDecimal.valueOf(100_000L + entry % 50_000, 5));
+            journal.append(entry + 1, JOURNAL_START.plusSeconds(entry * 60L), rates);
+        }
+        return journal;
+    }
+
+    /**
+     * @param journal {@link RateJournal} from {@link #writeJournal(Path, String, int)}
+     * @param epochMillis Moments of logged conversions
+     * @param amountsInEuroCents Amounts of logged conversions
+     * @param currencies Target currencies of logged conversions
+     * @return {@link RateJournal#replay(long[], long[], String[])} of logged conversions
+     */
+    public static Supplier<long[]> journalReplay(Object journal, long[] epochMillis, long[] amountsInEuroCents,
+                                                 String[] currencies) {
+        RateJournal rateJournal = (RateJournal) journal;
+        return () -> rateJournal.replay(epochMillis, amountsInEuroCents, currencies);
+    }
+
+    /**
+     * @param journal {@link RateJournal} from {@link #writeJournal(Path, String, int)}
+     * @param currency Target currency
+     * @return {@link RateJournal#convert(BigDecimal, String, Instant)} of amount at moment in epoch milliseconds
+     */
+    public static BiFunction<BigDecimal, Long, BigDecimal> journalConvert(Object journal, String currency) {
+        RateJournal rateJournal = (RateJournal) journal;
+        return (amount, millis) -> rateJournal.convert(amount, currency, Instant.ofEpochMilli(millis));
+    }
+
+    /**
+     * Starts HTTP server with rates of file on any free port.
+     *
+     * @param filePath Path to xml file
+     * @return Started {@link ConversionServer}, closed by benchmark
+     */
+    public static AutoCloseable startServer(String filePath) throws IOException, RateLoadException {
+        ConversionServer server = new ConversionServer(new RateReloader(filePath,
+                CrossRateTable.DEFAULT_SCALE, CrossRateTable.DEFAULT_ROUNDING), 0);
+        server.start();
+        return server;
+    }
+
+    /**
+     * @param server Server from {@link #startServer(String)}
+     * @return Port of server
+     */
+    public static int serverPort(Object server) {
+        return ((ConversionServer) server).getPort();
+    }
+
+    /**
+     * Input of pipe mode, lines like {@code 1234.56 USD} with random amounts and currencies of daily file.
+     *
+     * @param lines Number of lines
+     * @return ASCII bytes of lines
+     */
+    public static byte[] pipeInput(int lines) {
+        Random random = new Random(42);
+        StringBuilder input = new StringBuilder(lines * 14);
+        for (int i = 0; i < lines; i++) {
+            input.append(BigDecimal.valueOf(random.nextInt(10_000_000) + 1, 2).toPlainString())
+                    .append(' ').append(CURRENCIES[i % CURRENCIES.length]).append('\n');
+        }
+        return input.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param filePath Path to xml file
+     * @return {@link PipeConverter#convert(java.io.InputStream, OutputStream, PrintStream)} of input bytes to
+     * stream which drops them, returning number of converted lines
+     */
+    public static ToLongFunction<byte[]> pipeConversion(String filePath) {
+        RateSnapshot snapshot = new RateSnapshot(1, XMLParser.getRateHistory(filePath),
+                CrossRateTable.DEFAULT_SCALE, CrossRateTable.DEFAULT_ROUNDING);
+        PipeConverter pipeConverter = new PipeConverter(() -> snapshot);
+        OutputStream nowhere = new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        };
+        PrintStream errors = new PrintStream(nowhere);
+        return input -> {
+            try {
+                pipeConverter.convert(new ByteArrayInputStream(input), nowhere, errors);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return pipeConverter.getConvertedLines();
+        };
+    }
+
+    /**
+     * Writes CSV file with transactions ({@code amount,currency,date}) from days of history file written
+     * by {@link #writeHistoryFile(Path, int)}, mostly with cents, some with more decimal places or negative.
+     *
+     * @param path Path of created file
+     * @param rows Number of transactions
+     * @param days Number of days of history file, dates are from them
+     * @return Path of created file
+     */
+    public static Path writeLedger(Path path, int rows, int days) throws IOException {
+        Random random = new Random(42);
+        LocalDate lastDay = LocalDate.of(2022, 1, 28);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            writer.write("amount,currency,date\n");
+            for (int row = 0; row < rows; row++) {
+                int kind = random.nextInt(100);
+                long value = random.nextInt(100_000_000);
+                writer.write(kind < 5 ? BigDecimal.valueOf(value, 4).toPlainString()
+                        : BigDecimal.valueOf(kind < 15 ? -value : value, 2).toPlainString());
+                writer.write(',');
+                writer.write(kind < 3 ? CrossRateTable.EURO : CURRENCIES[random.nextInt(CURRENCIES.length)]);
+                writer.write(',');
+                writer.write(lastDay.minusDays(random.nextInt(days)).toString());
+                writer.write('\n');
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @param historyFilePath Path to history xml file
+     * @param currency Reporting currency
+     * @return {@link CsvConversionEngine#convert(Path, Path, PrintStream)} on common pool from first path
+     * to second one, returning number of converted rows
+     */
+    public static BiFunction<Path, Path, Long> csvConversion(String historyFilePath, String currency)
+            throws RateLoadException {
+        CsvConversionEngine engine = new CsvConversionEngine(XMLParser.loadRateHistory(historyFilePath), currency);
+        PrintStream errors = new PrintStream(new ByteArrayOutputStream());
+        return (input, output) -> {
+            try {
+                return engine.convert(input, output, errors).getConvertedRows();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+    }
+
+    /**
+     * Writes history file in ECB format (newest day first) with random rates.
+     *
+     * @param path Path of created file
+     * @param days Number of days in file, each with all {@link #CURRENCIES}
+     * @return Path of created file
+     */
+    public static Path writeHistoryFile(Path path, int days) throws IOException {
+        Random random = new Random(42);
+        LocalDate date = LocalDate.of(2022, 1, 28);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<gesmes:Envelope xmlns:gesmes=\"http://www.gesmes.org/xml/2002-08-01\" " +
+                    "xmlns=\"http://www.ecb.int/vocabulary/2002-08-01/eurofxref\">\n");
+            writer.write("\t<Cube>\n");
+            for (int day = 0; day < days; day++) {
+                writer.write("\t\t<Cube time='" + date.minusDays(day) + "'>\n");
+                for (String currency : CURRENCIES) {
+                    BigDecimal rate = BigDecimal.valueOf(random.nextInt(100_000_000) + 1, 5);
+                    writer.write("\t\t\t<Cube currency='" + currency + "' rate='"
+                            + rate.setScale(5, RoundingMode.UNNECESSARY).toPlainString() + "'/>\n");
+                }
+                writer.write("\t\t</Cube>\n");
+            }
+            writer.write("\t</Cube>\n");
+            writer.write("</gesmes:Envelope>\n");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,105 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * Time of converting whole arrays of amounts compared with converting them one by one.
+ * <p>Arrays of 100M amounts need about 1.6 GB for input and output, so benchmark runs with bigger heap.
+ * BigDecimal batches stop at 1M amounts, 100M of BigDecimal objects doesn't fit in memory of usual machine.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class BatchConversionBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class CentsBatch {
+        @Param({"1000", "1000000", "100000000"})
+        int size;
+
+        long[] amounts;
+        LongUnaryOperator convertOne;
+        UnaryOperator<long[]> convertBatch;
+        UnaryOperator<long[]> convertParallel;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(2022);
+            amounts = new long[size];
+            for (int i = 0; i < size; i++) {
+                amounts[i] = random.nextInt(100_000_000);
+            }
+            convertOne = Targets.call("convertCents", Targets.DAILY_FILE, "USD");
+            convertBatch = Targets.call("convertCentsBatch", Targets.DAILY_FILE, "USD", false);
+            convertParallel = Targets.call("convertCentsBatch", Targets.DAILY_FILE, "USD", true);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class DecimalBatch {
+        @Param({"1000", "1000000"})
+        int size;
+
+        BigDecimal[] amounts;
+        UnaryOperator<BigDecimal[]> convertBatch;
+        UnaryOperator<BigDecimal[]> convertParallel;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(2022);
+            amounts = new BigDecimal[size];
+            for (int i = 0; i < size; i++) {
+                amounts[i] = BigDecimal.valueOf(random.nextInt(100_000_000), 2);
+            }
+            convertBatch = Targets.call("convertBatch", Targets.DAILY_FILE, "USD", false);
+            convertParallel = Targets.call("convertBatch", Targets.DAILY_FILE, "USD", true);
+        }
+    }
+
+    @Benchmark
+    public void centsOneByOne(CentsBatch batch, Blackhole blackhole) {
+        long[] amounts = batch.amounts;
+        for (long amount : amounts) {
+            blackhole.consume(batch.convertOne.applyAsLong(amount));
+        }
+    }
+
+    @Benchmark
+    public long[] centsBatch(CentsBatch batch) {
+        return batch.convertBatch.apply(batch.amounts);
+    }
+
+    @Benchmark
+    public long[] centsBatchParallel(CentsBatch batch) {
+        return batch.convertParallel.apply(batch.amounts);
+    }
+
+    @Benchmark
+    public BigDecimal[] decimalBatch(DecimalBatch batch) {
+        return batch.convertBatch.apply(batch.amounts);
+    }
+
+    @Benchmark
+    public BigDecimal[] decimalBatchParallel(DecimalBatch batch) {
+        return batch.convertParallel.apply(batch.amounts);
+    }
+}
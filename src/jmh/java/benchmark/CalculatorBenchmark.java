@@ -0,0 +1,82 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Throughput of selecting currency and converting euros to it.
+ * <p>Every thread has its own calculator, all of them share one source of rate snapshots,
+ * like users of one application. Contended variants run the same code on 4 threads.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CalculatorBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "JPY", "GBP", "PLN", "CHF", "IDR", "SEK", "HUF"};
+
+    @State(Scope.Benchmark)
+    public static class SharedRates {
+        Supplier<?> rateSource;
+
+        @Setup
+        public void setUp() {
+            rateSource = Targets.call("rateSource", Targets.DAILY_FILE);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class UserCalculator {
+        BiFunction<String, BigDecimal, BigDecimal> convert;
+        ToLongFunction<String> convertCents;
+        BigDecimal amount = new BigDecimal("123.45");
+        int next;
+
+        @Setup
+        public void setUp(SharedRates rates) {
+            convert = Targets.call("setCurrencyAndConvert", rates.rateSource);
+            convertCents = Targets.call("setCurrencyAndConvertCents", rates.rateSource, 12345L);
+        }
+
+        String nextCurrency() {
+            next = (next + 1) & (CURRENCIES.length - 1);
+            return CURRENCIES[next];
+        }
+    }
+
+    @Benchmark
+    public BigDecimal convertEuros(UserCalculator calculator) {
+        return calculator.convert.apply(calculator.nextCurrency(), calculator.amount);
+    }
+
+    @Benchmark
+    public long convertEuroCents(UserCalculator calculator) {
+        return calculator.convertCents.applyAsLong(calculator.nextCurrency());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public BigDecimal convertEurosContended(UserCalculator calculator) {
+        return calculator.convert.apply(calculator.nextCurrency(), calculator.amount);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long convertEuroCentsContended(UserCalculator calculator) {
+        return calculator.convertCents.applyAsLong(calculator.nextCurrency());
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time of rate lookup by random date in 25 years of history, compressed store compared with plain columns.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CompressedRateHistoryBenchmark {
+
+    private static final int PUBLICATIONS = 6500;
+    private static final int DATES = 1024;
+
+    @Param({"false", "true"})
+    public boolean compressed;
+
+    private Function<LocalDate, Object> rateLookup;
+    private LocalDate[] dates;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        rateLookup = Targets.call("rateLookup", Targets.call("realisticHistory", PUBLICATIONS, compressed), "USD");
+
+        //Publications are on working days from 1999-01-04, about 9100 calendar days
+        Random random = new Random(7);
+        dates = new LocalDate[DATES];
+        for (int i = 0; i < DATES; i++) {
+            dates[i] = LocalDate.of(1999, 1, 4).plusDays(random.nextInt(9100));
+        }
+    }
+
+    @Benchmark
+    public Object lookup() {
+        next = (next + 1) & (DATES - 1);
+        return rateLookup.apply(dates[next]);
+    }
+}
@@ -0,0 +1,73 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Time of {@code Calculator.convertEuros(BigDecimal)} with and without result cache, on amounts drawn from
+ * Zipf distribution over 100 000 price points (9.99, 19.99...). Exponent 0 is uniform traffic, where cache
+ * of 4096 results almost never hits, bigger exponents are more skewed traffic.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ConversionCacheBenchmark {
+
+    private static final int PRICE_POINTS = 100_000;
+    private static final int SAMPLES = 1 << 16;
+
+    @Param({"0", "4096"})
+    public int cacheSize;
+
+    @Param({"0.0", "0.8", "1.1"})
+    public double exponent;
+
+    private UnaryOperator<BigDecimal> convertEuros;
+    private BigDecimal[] amounts;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        convertEuros = Targets.call("cachedConversion", Targets.DAILY_FILE, "USD", cacheSize);
+
+        //Price point of rank k is drawn with probability proportional to 1 / k^exponent
+        double[] cumulative = new double[PRICE_POINTS];
+        double sum = 0;
+        for (int rank = 0; rank < PRICE_POINTS; rank++) {
+            sum += 1 / Math.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+
+        Random random = new Random(42);
+        amounts = new BigDecimal[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+            rank = rank < 0 ? -rank - 1 : rank;
+
+            //Ranks are spread over prices, so the most popular prices aren't the smallest ones
+            long price = (rank * 7919L % PRICE_POINTS) * 1000 + 999;
+            amounts[i] = BigDecimal.valueOf(price, 2);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal convert() {
+        next = (next + 1) & (SAMPLES - 1);
+        return convertEuros.apply(amounts[next]);
+    }
+}
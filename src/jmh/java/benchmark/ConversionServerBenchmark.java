@@ -0,0 +1,74 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of {@code GET /convert} with 16 clients sending requests at once over kept-alive connections.
+ * <p>Sample time mode reports percentiles (p50, p99) next to average, throughput is number of clients
+ * divided by average time.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+public class ConversionServerBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "JPY", "GBP", "PLN", "CHF", "EUR"};
+
+    private AutoCloseable server;
+    private String convertUrl;
+
+    @State(Scope.Thread)
+    public static class Client {
+        private int request;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        //The same as server mode of Main, JDK server reads it when first server is created
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        server = Targets.call("startServer", Targets.DAILY_FILE);
+        convertUrl = "http://localhost:" + Targets.call("serverPort", server) + "/convert?amount=";
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        server.close();
+    }
+
+    @Benchmark
+    public int convert(Client client) throws IOException {
+        int i = client.request++;
+        HttpURLConnection connection = (HttpURLConnection) new URL(convertUrl + (i % 1000) + ".99&from="
+                + CURRENCIES[i % 6] + "&to=" + CURRENCIES[(i + 1) % 6]).openConnection();
+
+        //Reading whole body lets connection be reused by next request
+        byte[] buffer = new byte[256];
+        int length = 0;
+        try (InputStream inputStream = connection.getInputStream()) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                length += read;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+
+/**
+ * Time of converting one row of CSV file with transactions (about 25 bytes) on common fork-join pool,
+ * measured on file of a few chunks. Rows per second and MB/s follow from it.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CsvConversionEngineBenchmark {
+
+    private static final int ROWS = 1_000_000;
+    private static final int HISTORY_DAYS = 400;
+
+    private BiFunction<Path, Path, Long> csvConversion;
+    private Path directory;
+    private Path input;
+    private Path output;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("csv-engine");
+        Path historyFile = Targets.call("writeHistoryFile", directory.resolve("hist.xml"), HISTORY_DAYS);
+        input = Targets.call("writeLedger", directory.resolve("ledger.csv"), ROWS, HISTORY_DAYS);
+        output = directory.resolve("ledger-converted.csv");
+        csvConversion = Targets.call("csvConversion", historyFile.toString(), "USD");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(output);
+        Files.deleteIfExists(input);
+        Files.deleteIfExists(directory.resolve("hist.xml"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public long convertRows() {
+        return csvConversion.apply(input, output);
+    }
+}
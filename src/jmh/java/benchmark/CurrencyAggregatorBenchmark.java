@@ -0,0 +1,72 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Throughput of adding payments to totals per currency, striped aggregator compared with synchronized map.
+ * <p>All threads add to one shared aggregator, each thread goes through currencies in its own order.
+ * Scaling can be seen by comparing 1 and 4 threads on machine with at least 4 cores.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CurrencyAggregatorBenchmark {
+
+    private static final String[] CURRENCIES = {"USD", "JPY", "GBP", "PLN", "CHF", "IDR", "SEK", "HUF"};
+
+    @State(Scope.Benchmark)
+    public static class Totals {
+        ObjLongConsumer<String> aggregator;
+        ObjLongConsumer<String> synchronizedTotals;
+
+        @Setup
+        public void setUp() {
+            aggregator = Targets.call("aggregator");
+            synchronizedTotals = Targets.call("synchronizedTotals");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Payments {
+        int next = (int) Thread.currentThread().getId();
+
+        String nextCurrency() {
+            next = (next + 1) & (CURRENCIES.length - 1);
+            return CURRENCIES[next];
+        }
+    }
+
+    @Benchmark
+    public void aggregator(Totals totals, Payments payments) {
+        totals.aggregator.accept(payments.nextCurrency(), 12345L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void aggregatorContended(Totals totals, Payments payments) {
+        totals.aggregator.accept(payments.nextCurrency(), 12345L);
+    }
+
+    @Benchmark
+    public void synchronizedMap(Totals totals, Payments payments) {
+        totals.synchronizedTotals.accept(payments.nextCurrency(), 12345L);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void synchronizedMapContended(Totals totals, Payments payments) {
+        totals.synchronizedTotals.accept(payments.nextCurrency(), 12345L);
+    }
+}
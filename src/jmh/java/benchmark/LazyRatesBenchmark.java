@@ -0,0 +1,66 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+/**
+ * Time of one-off conversion of euros to USD, reading rates file from the beginning every time - whole file
+ * loaded by calculator compared with lazy reading until USD rate of the newest day is found. Daily file has
+ * one day, history file 6500 days (like ECB history).
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class LazyRatesBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("100.00");
+
+    @Param({"1", "6500"})
+    public int days;
+
+    @Param({"false", "true"})
+    public boolean lazy;
+
+    private Path historyFile;
+    private UnaryOperator<BigDecimal> convert;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        String filePath = Targets.DAILY_FILE;
+        if (days > 1) {
+            historyFile = Targets.call("writeHistoryFile", Files.createTempFile("hist", ".xml"), days);
+            filePath = historyFile.toString();
+        }
+        convert = Targets.call("oneOffConversion", filePath, "USD", lazy);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (historyFile != null) {
+            Files.deleteIfExists(historyFile);
+        }
+    }
+
+    @Benchmark
+    public BigDecimal convert() {
+        return convert.apply(AMOUNT);
+    }
+}
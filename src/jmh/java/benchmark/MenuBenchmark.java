@@ -0,0 +1,82 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Time of checking user input, for valid amounts and for rejected ones.
+ * <p>Parser used by checkInputEuros is compared with BigDecimal, which rejects input with exception.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MenuBenchmark {
+
+    private Function<String, Optional<BigDecimal>> checkInputEuros;
+    private ToLongFunction<String> parseCents;
+
+    //Not final, so JIT can't treat inputs as constants
+    private String validInput = "1234.567";
+    private String invalidInput = "12a4.56";
+    private String negativeInput = "-100.00";
+
+    @Setup
+    public void setUp() {
+        checkInputEuros = Targets.call("checkInputEuros", Targets.DAILY_FILE);
+        parseCents = Targets.call("parseCents");
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> checkInputEurosValid() {
+        return checkInputEuros.apply(validInput);
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> checkInputEurosInvalid() {
+        return checkInputEuros.apply(invalidInput);
+    }
+
+    @Benchmark
+    public Optional<BigDecimal> checkInputEurosNegative() {
+        return checkInputEuros.apply(negativeInput);
+    }
+
+    @Benchmark
+    public long parseCentsValid() {
+        return parseCents.applyAsLong(validInput);
+    }
+
+    @Benchmark
+    public long parseCentsInvalid() {
+        return parseCents.applyAsLong(invalidInput);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalValid() {
+        return new BigDecimal(validInput).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalInvalid() {
+        try {
+            return new BigDecimal(invalidInput);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
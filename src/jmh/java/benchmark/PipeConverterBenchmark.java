@@ -0,0 +1,42 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Time of converting one line in pipe mode, measured on input of many lines like {@code 1234.56 USD}.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PipeConverterBenchmark {
+
+    private static final int LINES = 100_000;
+
+    private ToLongFunction<byte[]> pipeConversion;
+    private byte[] input;
+
+    @Setup
+    public void setUp() {
+        pipeConversion = Targets.call("pipeConversion", Targets.DAILY_FILE);
+        input = Targets.call("pipeInput", LINES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LINES)
+    public long convertLines() {
+        return pipeConversion.applyAsLong(input);
+    }
+}
@@ -0,0 +1,62 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time of loading synthetic history from binary cache, to compare with parsing in
+ * {@link XMLParserBenchmark#getRateHistoryHistory()}.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RateCacheBenchmark {
+
+    //Days in synthetic history file, 6500 is about 25 years of ECB publications
+    @Param({"6500"})
+    public int historyDays;
+
+    private Function<String, Object> loadRateHistory;
+    private Path historyDirectory;
+    private Path historyFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        loadRateHistory = Targets.call("loadRateHistoryWithCache");
+        historyDirectory = Files.createTempDirectory("rate-cache");
+        historyFile = Targets.call("writeHistoryFile", historyDirectory.resolve("eurofxref-hist.xml"), historyDays);
+
+        //First load parses xml file and writes cache next to it
+        loadRateHistory.apply(historyFile.toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        //Cache is written next to xml file as <xml file>.rates
+        Files.deleteIfExists(historyDirectory.resolve(historyFile.getFileName() + ".rates"));
+        Files.deleteIfExists(historyFile);
+        Files.deleteIfExists(historyDirectory);
+    }
+
+    @Benchmark
+    public Object loadFromCache() {
+        return loadRateHistory.apply(historyFile.toString());
+    }
+}
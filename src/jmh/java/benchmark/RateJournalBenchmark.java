@@ -0,0 +1,94 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Time of conversions with rates used at their moments, from journal of 10 000 rate sets (a week of reloads
+ * every minute). Replay converts one million logged conversions at once, sorted by time like real logs or
+ * shuffled, as-of conversion finds rate set of one conversion.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+public class RateJournalBenchmark {
+
+    private static final int ENTRIES = 10_000;
+    private static final int CONVERSIONS = 1_000_000;
+    private static final long START_MILLIS = 1643385600000L;
+    private static final String[] CURRENCIES = {"USD", "GBP", "JPY", "PLN", "CHF"};
+
+    @Param({"true", "false"})
+    public boolean sorted;
+
+    private Path file;
+    private Supplier<long[]> replay;
+    private BiFunction<BigDecimal, Long, BigDecimal> convert;
+    private long[] epochMillis;
+    private BigDecimal[] amounts;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("rates", ".journal");
+        Object journal = Targets.call("writeJournal", file, Targets.DAILY_FILE, ENTRIES);
+
+        Random random = new Random(42);
+        epochMillis = new long[CONVERSIONS];
+        long[] amountsInEuroCents = new long[CONVERSIONS];
+        String[] currencies = new String[CONVERSIONS];
+        for (int i = 0; i < CONVERSIONS; i++) {
+            epochMillis[i] = START_MILLIS + (long) (random.nextDouble() * ENTRIES * 60_000L);
+            amountsInEuroCents[i] = 1 + random.nextInt(1_000_000);
+            currencies[i] = CURRENCIES[random.nextInt(CURRENCIES.length)];
+        }
+        if (sorted) {
+            Arrays.sort(epochMillis);
+        }
+        amounts = new BigDecimal[1024];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = BigDecimal.valueOf(amountsInEuroCents[i], 2);
+        }
+
+        replay = Targets.call("journalReplay", journal, epochMillis, amountsInEuroCents, currencies);
+        convert = Targets.call("journalConvert", journal, "USD");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long[] replay() {
+        return replay.get();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public BigDecimal convertAsOf() {
+        next = (next + 1) & 1023;
+        return convert.apply(amounts[next], epochMillis[next * 977]);
+    }
+}
@@ -0,0 +1,71 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time of loading directory of rate files, parsed by one thread and by pool of many threads.
+ * <p>Files are 64 histories of 100 days each, with the same rates, so every rate after first file
+ * is duplicate and merge does its full work too.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RateMergeBenchmark {
+
+    private static final int FILES = 64;
+    private static final int DAYS = 100;
+
+    @Param({"1", "4"})
+    public int parallelism;
+
+    private Path directory;
+    private List<Path> files;
+    private ForkJoinPool pool;
+    private Function<List<Path>, Object> mergeRateFiles;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("rates");
+        files = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            files.add(Targets.call("writeHistoryFile", directory.resolve(i + ".xml"), DAYS));
+        }
+        pool = new ForkJoinPool(parallelism);
+        mergeRateFiles = Targets.call("mergeRateFiles", pool);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        pool.shutdown();
+        for (Path file : files) {
+            Files.deleteIfExists(file);
+        }
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    public Object load() {
+        return mergeRateFiles.apply(files);
+    }
+}
@@ -0,0 +1,78 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Time of range statistics of 25 years of rates, precomputed structures compared with scan of publications.
+ * <p>Ranges are a quarter, 5 years and whole history, ending on last day of history.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class RateStatisticsBenchmark {
+
+    //25 years of publications on every day
+    private static final int HISTORY_DAYS = 9131;
+    private static final LocalDate LAST_DAY = LocalDate.of(2022, 1, 28);
+
+    @Param({"92", "1826", "9131"})
+    public int rangeDays;
+
+    private Path historyFile;
+    private Object rateHistory;
+    private Function<Object, Object> buildRateStatistics;
+    private BiFunction<LocalDate, LocalDate, Object> rangeStatistics;
+    private BiFunction<LocalDate, LocalDate, Object> scanStatistics;
+    private LocalDate from;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        historyFile = Targets.call("writeHistoryFile", Files.createTempFile("eurofxref-hist", ".xml"), HISTORY_DAYS);
+        rateHistory = Targets.<Function<String, Object>>call("getRateHistory").apply(historyFile.toString());
+        buildRateStatistics = Targets.call("buildRateStatistics");
+        rangeStatistics = Targets.call("rangeStatistics", historyFile.toString(), "USD");
+        scanStatistics = Targets.call("scanStatistics", historyFile.toString(), "USD");
+        from = LAST_DAY.minusDays(rangeDays - 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(historyFile);
+    }
+
+    @Benchmark
+    public Object precomputed() {
+        return rangeStatistics.apply(from, LAST_DAY);
+    }
+
+    @Benchmark
+    public Object scan() {
+        return scanStatistics.apply(from, LAST_DAY);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object build() {
+        return buildRateStatistics.apply(rateHistory);
+    }
+}
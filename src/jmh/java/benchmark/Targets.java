@@ -0,0 +1,42 @@
+package benchmark;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Access to BenchmarkTargets from default package, used only during benchmark setup.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+final class Targets {
+
+    //Path to daily xml file, benchmarks should be run from main folder of project
+    static final String DAILY_FILE = "src/main/resources/eurofxref-daily.xml";
+
+    private Targets() {
+    }
+
+    /**
+     * Calls static method of BenchmarkTargets.
+     *
+     * @param name Name of method
+     * @param args Arguments of method, there must be only one method with this name
+     * @return Value returned by method
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T call(String name, Object... args) {
+        try {
+            for (Method method : Class.forName("BenchmarkTargets").getMethods()) {
+                if (method.getName().equals(name)) {
+                    return (T) method.invoke(null, args);
+                }
+            }
+            throw new IllegalArgumentException("No benchmark target " + name);
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Time of loading rates from daily file and from synthetic history file, StAX parser compared with DOM one.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class XMLParserBenchmark {
+
+    //Days in synthetic history file, 6500 is about 25 years of ECB publications
+    @Param({"6500"})
+    public int historyDays;
+
+    private Function<String, Object> getCurrencies;
+    private Function<String, Object> getCurrenciesDom;
+    private Function<String, Object> getRateHistory;
+    private Path historyFile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        getCurrencies = Targets.call("getCurrencies");
+        getCurrenciesDom = Targets.call("getCurrenciesDom");
+        getRateHistory = Targets.call("getRateHistory");
+        historyFile = Targets.call("writeHistoryFile", Files.createTempFile("eurofxref-hist", ".xml"), historyDays);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(historyFile);
+    }
+
+    @Benchmark
+    public Object getCurrenciesDaily() {
+        return getCurrencies.apply(Targets.DAILY_FILE);
+    }
+
+    @Benchmark
+    public Object getCurrenciesHistory() {
+        return getCurrencies.apply(historyFile.toString());
+    }
+
+    @Benchmark
+    public Object getCurrenciesDomHistory() {
+        return getCurrenciesDom.apply(historyFile.toString());
+    }
+
+    @Benchmark
+    public Object getRateHistoryHistory() {
+        return getRateHistory.apply(historyFile.toString());
+    }
+}
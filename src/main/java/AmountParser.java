@@ -0,0 +1,233 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Parser of decimal amounts into longs in minor units (cents), which doesn't create objects or throw exceptions.
+ * <p>It accepts the same text as {@link java.math.BigDecimal#BigDecimal(String)} - optional sign, digits
+ * with optional decimal point and optional exponent, e.g. {@code -12.345}, {@code .5}, {@code 1E+3}.
+ * Result is the same as {@code new BigDecimal(text).setScale(2, RoundingMode.HALF_UP)} in minor units.</p>
+ * <p>Bad text is reported with {@link #INVALID} instead of exception, because building stack trace for every
+ * rejected row of noisy input costs much more than parsing. Valid amounts which can't be returned as long
+ * (too big, or written with non-ASCII digits) give {@link #UNSUPPORTED}, then caller should use BigDecimal.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class AmountParser {
+
+    //Returned for text which isn't a number
+    public static final long INVALID = Long.MIN_VALUE;
+
+    //Returned for amounts which must be parsed by BigDecimal
+    public static final long UNSUPPORTED = Long.MIN_VALUE + 1;
+
+    //Amounts with more digits before decimal point are rejected by bulk conversions, BigDecimal would need
+    //very long time to convert amounts like 1E999999999
+    public static final int MAX_INTEGER_DIGITS = 100;
+
+    //Amounts with more digits after decimal point are rejected too, rounding of 1E-999999999 takes as long
+    public static final int MAX_FRACTION_DIGITS = 100;
+
+    //Biggest absolute value of result, so it never equals sentinels
+    private static final long MAX_RESULT = Long.MAX_VALUE - 2;
+
+    //Exponent digits aren't added after this value, BigDecimal rejects such exponents anyway
+    private static final long EXPONENT_LIMIT = 10_000_000_000L;
+
+    private AmountParser() {
+    }
+
+    /**
+     * @param text Amount, e.g. {@code 100.005}
+     * @return Amount rounded HALF_UP to minor units, {@link #INVALID} or {@link #UNSUPPORTED}
+     */
+    public static long parseCents(CharSequence text) {
+        return text == null ? INVALID : parse(text, null, 0, text.length(), false);
+    }
+
+    /**
+     * Parses amount for single conversions, which need BigDecimal.
+     * <p>Amounts which can't be returned as long are parsed by BigDecimal only if they have at most
+     * {@link #MAX_INTEGER_DIGITS} digits before and {@link #MAX_FRACTION_DIGITS} digits after decimal point,
+     * so text from user or client can't make rounding run for minutes.</p>
+     *
+     * @param text Amount, e.g. {@code 100.005}
+     * @return Amount rounded HALF_UP to 2nd decimal place, null if text isn't a number or amount is out of range
+     */
+    public static BigDecimal parseAmount(String text) {
+        long cents = parseCents(text);
+        if (cents == INVALID) {
+            return null;
+        }
+        if (cents != UNSUPPORTED) {
+            return BigDecimal.valueOf(cents, FixedPoint.AMOUNT_SCALE);
+        }
+
+        BigDecimal amount;
+        try {
+            amount = new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (amount.precision() - amount.scale() > MAX_INTEGER_DIGITS || amount.scale() > MAX_FRACTION_DIGITS) {
+            return null;
+        }
+        return amount.setScale(FixedPoint.AMOUNT_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @param text Text containing amount
+     * @param start Index of first character of amount
+     * @param end Index after last character of amount
+     * @return Amount rounded HALF_UP to minor units, {@link #INVALID} or {@link #UNSUPPORTED}
+     */
+    public static long parseCents(CharSequence text, int start, int end) {
+        return parse(text, null, start, end, false);
+    }
+
+    /**
+     * @param bytes Bytes containing amount in ASCII
+     * @param start Index of first byte of amount
+     * @param end Index after last byte of amount
+     * @return Amount rounded HALF_UP to minor units, {@link #INVALID} or {@link #UNSUPPORTED}
+     */
+    public static long parseCents(byte[] bytes, int start, int end) {
+        return parse(null, bytes, start, end, false);
+    }
+
+    /**
+     * Parses amount only when it can be written in minor units without rounding.
+     *
+     * @param bytes Bytes containing amount in ASCII
+     * @param start Index of first byte of amount
+     * @param end Index after last byte of amount
+     * @return Amount in minor units, {@link #INVALID}, or {@link #UNSUPPORTED} also for amounts which need rounding
+     */
+    public static long parseExactCents(byte[] bytes, int start, int end) {
+        return parse(null, bytes, start, end, true);
+    }
+
+    /**
+     * Parses amount from text or bytes, the other one is null.
+     * <p>First pass checks format and reads exponent, second one computes value when it's known how many
+     * digits are dropped by rounding.</p>
+     */
+    private static long parse(CharSequence text, byte[] bytes, int start, int end, boolean exact) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (charAt(text, bytes, i) == '-' || charAt(text, bytes, i) == '+')) {
+            negative = charAt(text, bytes, i) == '-';
+            i++;
+        }
+
+        //Mantissa - digits with at most one decimal point
+        int mantissaStart = i;
+        int dot = -1;
+        int digits = 0;
+        for (; i < end; i++) {
+            int character = charAt(text, bytes, i);
+            if (character >= '0' && character <= '9') {
+                digits++;
+            } else if (character == '.' && dot < 0) {
+                dot = i;
+            } else if (character > 127 && Character.isDigit(character)) {
+                return UNSUPPORTED;
+            } else {
+                break;
+            }
+        }
+        int mantissaEnd = i;
+        if (digits == 0) {
+            return INVALID;
+        }
+
+        //Exponent - e or E, optional sign and at least one digit
+        long exponent = 0;
+        if (i < end) {
+            int character = charAt(text, bytes, i);
+            if (character != 'e' && character != 'E') {
+                return INVALID;
+            }
+            i++;
+
+            boolean negativeExponent = false;
+            if (i < end && (charAt(text, bytes, i) == '-' || charAt(text, bytes, i) == '+')) {
+                negativeExponent = charAt(text, bytes, i) == '-';
+                i++;
+            }
+            if (i == end) {
+                return INVALID;
+            }
+            for (; i < end; i++) {
+                character = charAt(text, bytes, i);
+                if (character >= '0' && character <= '9') {
+                    if (exponent < EXPONENT_LIMIT) {
+                        exponent = exponent * 10 + (character - '0');
+                    }
+                } else if (character > 127 && Character.isDigit(character)) {
+                    return UNSUPPORTED;
+                } else {
+                    return INVALID;
+                }
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+
+        //BigDecimal keeps exponent and scale in int
+        long fractionDigits = dot < 0 ? 0 : mantissaEnd - dot - 1;
+        if ((int) exponent != exponent || (int) (fractionDigits - exponent) != fractionDigits - exponent) {
+            return INVALID;
+        }
+
+        //Amount is digits * 10^shift in minor units, digits after shift below 0 are rounded
+        long shift = exponent - fractionDigits + FixedPoint.AMOUNT_SCALE;
+        long kept = 0;
+        int keptDigits = shift >= 0 ? digits : (int) Math.max(-1, digits + shift);
+        int digit = 0;
+        boolean roundUp = false;
+        for (int j = mantissaStart; j < mantissaEnd; j++) {
+            int character = charAt(text, bytes, j);
+            if (character == '.') {
+                continue;
+            }
+
+            int value = character - '0';
+            if (digit < keptDigits) {
+                if (kept > (MAX_RESULT - value) / 10) {
+                    return UNSUPPORTED;
+                }
+                kept = kept * 10 + value;
+            } else if (digit == keptDigits) {
+                roundUp = value >= 5;
+                if (exact && value != 0) {
+                    return UNSUPPORTED;
+                }
+            } else if (exact && value != 0) {
+                return UNSUPPORTED;
+            }
+            digit++;
+        }
+
+        if (shift > 0 && kept != 0) {
+            for (long j = 0; j < shift; j++) {
+                if (kept > MAX_RESULT / 10) {
+                    return UNSUPPORTED;
+                }
+                kept *= 10;
+            }
+        }
+        if (roundUp) {
+            if (kept == MAX_RESULT) {
+                return UNSUPPORTED;
+            }
+            kept++;
+        }
+        return negative ? -kept : kept;
+    }
+
+    private static int charAt(CharSequence text, byte[] bytes, int index) {
+        return bytes != null ? bytes[index] & 0xFF : text.charAt(index);
+    }
+}
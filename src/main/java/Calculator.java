@@ -1,28 +1,110 @@
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.time.LocalDate;
 import java.util.Set;
-import java.util.SortedMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Calculator class for converting euros to other currencies.
- * <p>It also storing currency selected by user and map with all currencies and their rates.</p>
+ * <p>It also storing currency selected by user. Rates are taken from immutable {@link RateSnapshot},
+ * which can be replaced with newer one at any time (see {@link RateReloader}). Each conversion uses
+ * one snapshot, so it never mixes old and new rates.</p>
+ * <p>Calculator keeps selection of one user, so it shouldn't be shared between threads.
+ * Many calculators can share the same source of snapshots.</p>
+ * <p>Arrays of amounts can be converted at once by batch methods. Whole batch uses rates of one snapshot and
+ * every element gives the same result as converting it alone.</p>
+ * <p>Calculator can use {@link ConversionCache} shared with other calculators, then results of
+ * {@link #convertEuros(BigDecimal)} for repeated amounts are taken from cache instead of being computed.</p>
  *
  * @author Mateusz Prill
  * @version 1.0
  */
 public class Calculator {
 
+    //Smallest part of batch converted by one task of parallel conversion
+    static final int PARALLEL_CHUNK_SIZE = 16 * 1024;
+
+    //Only every n-th conversion in minor units is timed, reading clock twice takes longer than conversion itself
+    static final int TIMED_CONVERSION_INTERVAL = 64;
+
+    private final Supplier<RateSnapshot> snapshots;
+    private final ConversionCache cache;
     private String currentCurrency;
-    private final SortedMap<String, BigDecimal> currencyRates;
+
+    //Ordinal of current currency in registry of selected snapshot
+    private int currentOrdinal;
+
+    //Snapshot from which rates of current currency were taken
+    private RateSnapshot selectedSnapshot;
+
+    //Rate of current currency, kept to not search registry on every conversion. Null if snapshot doesn't have it
+    private BigDecimal currentRate;
+
+    //Rate of current currency scaled for fixed-point conversions and biggest amount it can convert without overflow
+    private long currentScaledRate;
+    private long currentAmountLimit;
+
+    //Counter of conversions to current currency, taken once so recording metrics doesn't search map
+    private LongAdder currentConversions;
+
+    //Conversions in minor units left until next timed one, the first one is timed
+    private int conversionsUntilTimed;
 
     /**
      * Constructor initializing map of currency rates and set current currency for first key in map.
+     * <p>Map contains rates from the latest date in file, older rates are available
+     * through {@link #convertEuros(BigDecimal, String, LocalDate)}.</p>
      *
      * @param filePath File path to xml file with currencies and their rates
      */
     public Calculator(String filePath) {
-        this.currencyRates = XMLParser.getCurrencies(filePath);
-        this.currentCurrency = currencyRates.firstKey();
+        this(filePath, CrossRateTable.DEFAULT_SCALE, CrossRateTable.DEFAULT_ROUNDING);
+    }
+
+    /**
+     * Constructor initializing map of currency rates and table of rates between all currencies.
+     *
+     * @param filePath File path to xml file with currencies and their rates
+     * @param crossRateScale Number of decimal places of rates between two currencies other than Euro
+     * @param crossRateRounding Rounding of rates between two currencies other than Euro
+     */
+    public Calculator(String filePath, int crossRateScale, RoundingMode crossRateRounding) {
+        this(new RateSnapshot(1, XMLParser.getRateHistory(filePath), crossRateScale, crossRateRounding));
+    }
+
+    /**
+     * Constructor for calculator using always the same rates.
+     *
+     * @param snapshot Rates used for conversions
+     */
+    public Calculator(RateSnapshot snapshot) {
+        this(() -> snapshot);
+    }
+
+    /**
+     * Constructor for calculator using the latest snapshot from given source, e.g. {@link RateReloader}.
+     * <p>Current currency is set for first currency of current snapshot.</p>
+     *
+     * @param snapshots Source of rates, called before every conversion so it must be fast and non-blocking
+     */
+    public Calculator(Supplier<RateSnapshot> snapshots) {
+        this(snapshots, null);
+    }
+
+    /**
+     * Constructor for calculator using the latest snapshot from given source and cache of results.
+     *
+     * @param snapshots Source of rates, called before every conversion so it must be fast and non-blocking
+     * @param cache Cache of converted amounts shared by calculators of the same source, null for no cache
+     */
+    public Calculator(Supplier<RateSnapshot> snapshots, ConversionCache cache) {
+        this.snapshots = snapshots;
+        this.cache = cache;
+        RateSnapshot snapshot = snapshots.get();
+        selectCurrency(snapshot, snapshot.getCurrencyRegistry().getCode(0), 0);
     }
 
     /**
@@ -34,6 +116,28 @@ public class Calculator {
      * If bad value given, return BigDecimal.ZERO
      */
     public BigDecimal convertEuros(BigDecimal amountInEuros){
+        long start = System.nanoTime();
+        BigDecimal converted = convertEurosWithoutMetrics(amountInEuros);
+        Metrics.INSTANCE.recordConversion(currentConversions, System.nanoTime() - start);
+        return converted;
+    }
+
+    private BigDecimal convertEurosWithoutMetrics(BigDecimal amountInEuros) {
+        BigDecimal rate = refreshSelection().currentRate;
+        if (cache == null || amountInEuros == null || rate == null) {
+            return convertEuros(amountInEuros, rate);
+        }
+
+        long version = selectedSnapshot.getVersion();
+        BigDecimal converted = cache.get(amountInEuros, currentOrdinal, version);
+        if (converted == null) {
+            converted = convertEuros(amountInEuros, rate);
+            cache.put(amountInEuros, currentOrdinal, version, converted);
+        }
+        return converted;
+    }
+
+    private static BigDecimal convertEuros(BigDecimal amountInEuros, BigDecimal rate) {
         //If given null object return 0
         if (amountInEuros == null) {
             return BigDecimal.ZERO;
@@ -44,11 +148,198 @@ public class Calculator {
             return BigDecimal.ZERO;
         }
 
-        //Get rate for current currency from map
-        BigDecimal returnCurrencyRate = currencyRates.get(currentCurrency);
+        //If current currency isn't in new rates there's nothing to convert
+        if (rate == null) {
+            return BigDecimal.ZERO;
+        }
 
         //returning amount in target currency, also setting precision and rounding up to 2nd decimal place
-        return amountInEuros.multiply(returnCurrencyRate).setScale(2, RoundingMode.HALF_UP);
+        return amountInEuros.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts euros in minor units (cents) to other currency selected by user.
+     * <p>Calculation is done on longs without creating any objects. Only when amount is so big that
+     * multiplying it by rate would overflow, it falls back to BigDecimal calculation.
+     * Result is always the same as from BigDecimal version of this method.</p>
+     * <p>Every conversion is counted in {@link Metrics}, but only every {@value #TIMED_CONVERSION_INTERVAL}-th
+     * one is recorded in latency histogram.</p>
+     *
+     * @param amountInEuroCents Amount of Euros in cents, e.g. 10050 for 100.50 EUR
+     * @return Converted value in minor units of other currency. If amount is less than 0, return 0
+     * @throws ArithmeticException If converted value is too big for long
+     */
+    public long convertEuros(long amountInEuroCents) {
+        if (--conversionsUntilTimed > 0) {
+            long converted = convertEurosWithoutMetrics(amountInEuroCents);
+            Metrics.INSTANCE.recordConversions(currentConversions, 1);
+            return converted;
+        }
+
+        conversionsUntilTimed = TIMED_CONVERSION_INTERVAL;
+        long start = System.nanoTime();
+        long converted = convertEurosWithoutMetrics(amountInEuroCents);
+        Metrics.INSTANCE.recordConversion(currentConversions, System.nanoTime() - start);
+        return converted;
+    }
+
+    private long convertEurosWithoutMetrics(long amountInEuroCents) {
+        refreshSelection();
+        return convertEuros(amountInEuroCents, currentScaledRate, currentAmountLimit, currentRate);
+    }
+
+    /**
+     * Converts euros in cents with given rate, the same way as {@link #convertEuros(long)}.
+     *
+     * @param amountInEuroCents Amount of Euros in cents
+     * @param scaledRate Rate scaled for {@link FixedPoint}, or {@link FixedPoint#NOT_SCALABLE}
+     * @param amountLimit Biggest amount which can be converted with scaled rate, -1 if rate is not scalable
+     * @param rate Rate used when amount is too big for scaled rate, null if there is no rate
+     * @return Converted value in minor units, 0 if amount is less than 0 or there is no rate
+     */
+    static long convertEuros(long amountInEuroCents, long scaledRate, long amountLimit, BigDecimal rate) {
+        if (amountInEuroCents < 0) {
+            return 0;
+        }
+
+        //amountLimit is -1 for rates that can't be stored as scaled long, so they always use BigDecimal
+        if (amountInEuroCents <= amountLimit) {
+            return FixedPoint.multiply(amountInEuroCents, scaledRate);
+        }
+
+        //Fallback uses the same snapshot as check above, so result can't mix rates of two snapshots
+        if (rate == null) {
+            return 0;
+        }
+        return BigDecimal.valueOf(amountInEuroCents, FixedPoint.AMOUNT_SCALE).multiply(rate)
+                .setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Converts array of amounts in euro cents to currency selected by user.
+     * <p>Rates are taken once for whole batch, then amounts are converted in one loop on longs.</p>
+     *
+     * @param amountsInEuroCents Amounts of Euros in cents, not null
+     * @return New array with converted values in minor units, every element the same as from
+     * {@link #convertEuros(long)}
+     * @throws ArithmeticException If any converted value is too big for long
+     */
+    public long[] convertEurosBatch(long[] amountsInEuroCents) {
+        refreshSelection();
+        long[] converted = new long[amountsInEuroCents.length];
+        convertRange(amountsInEuroCents, converted, 0, amountsInEuroCents.length,
+                currentScaledRate, currentAmountLimit, currentRate);
+        Metrics.INSTANCE.recordConversions(currentConversions, amountsInEuroCents.length);
+        return converted;
+    }
+
+    /**
+     * Converts array of amounts in euros to currency selected by user.
+     *
+     * @param amountsInEuros Amounts of Euros, not null. Elements can be null or negative
+     * @return New array with converted values, every element the same as from {@link #convertEuros(BigDecimal)}
+     */
+    public BigDecimal[] convertEurosBatch(BigDecimal[] amountsInEuros) {
+        BigDecimal rate = refreshSelection().currentRate;
+        BigDecimal[] converted = new BigDecimal[amountsInEuros.length];
+        convertRange(amountsInEuros, converted, 0, amountsInEuros.length, rate);
+        Metrics.INSTANCE.recordConversions(currentConversions, amountsInEuros.length);
+        return converted;
+    }
+
+    /**
+     * Converts array of amounts in euro cents like {@link #convertEurosBatch(long[])}, but parts of big arrays
+     * are converted in parallel in common {@link ForkJoinPool}.
+     *
+     * @param amountsInEuroCents Amounts of Euros in cents, not null
+     * @return New array with converted values in minor units
+     * @throws ArithmeticException If any converted value is too big for long
+     */
+    public long[] convertEurosParallel(long[] amountsInEuroCents) {
+        refreshSelection();
+        long[] converted = new long[amountsInEuroCents.length];
+
+        //Rates are copied to locals, tasks must not read fields of calculator
+        long scaledRate = currentScaledRate;
+        long amountLimit = currentAmountLimit;
+        BigDecimal rate = currentRate;
+        ForkJoinPool.commonPool().invoke(new BatchTask(0, amountsInEuroCents.length,
+                (from, to) -> convertRange(amountsInEuroCents, converted, from, to, scaledRate, amountLimit, rate)));
+        Metrics.INSTANCE.recordConversions(currentConversions, amountsInEuroCents.length);
+        return converted;
+    }
+
+    /**
+     * Converts array of amounts in euros like {@link #convertEurosBatch(BigDecimal[])}, but parts of big arrays
+     * are converted in parallel in common {@link ForkJoinPool}.
+     *
+     * @param amountsInEuros Amounts of Euros, not null. Elements can be null or negative
+     * @return New array with converted values
+     */
+    public BigDecimal[] convertEurosParallel(BigDecimal[] amountsInEuros) {
+        BigDecimal rate = refreshSelection().currentRate;
+        BigDecimal[] converted = new BigDecimal[amountsInEuros.length];
+        ForkJoinPool.commonPool().invoke(new BatchTask(0, amountsInEuros.length,
+                (from, to) -> convertRange(amountsInEuros, converted, from, to, rate)));
+        Metrics.INSTANCE.recordConversions(currentConversions, amountsInEuros.length);
+        return converted;
+    }
+
+    private static void convertRange(long[] amounts, long[] converted, int from, int to,
+                                     long scaledRate, long amountLimit, BigDecimal rate) {
+        for (int i = from; i < to; i++) {
+            converted[i] = convertEuros(amounts[i], scaledRate, amountLimit, rate);
+        }
+    }
+
+    private static void convertRange(BigDecimal[] amounts, BigDecimal[] converted, int from, int to,
+                                     BigDecimal rate) {
+        for (int i = from; i < to; i++) {
+            converted[i] = convertEuros(amounts[i], rate);
+        }
+    }
+
+    /**
+     * Converts amount between any two currencies, Euro included.
+     * <p>Rate is taken from table computed when rates were loaded, so there's no division here.</p>
+     *
+     * @param amount Amount of source currency in BigDecimal format. Should be greater than 0 and not null.
+     * @param from Currency tag of source currency
+     * @param to Currency tag of target currency
+     * @return Converted value in target currency rounded up to 2nd decimal place.
+     * If bad value or unknown currency given, return BigDecimal.ZERO
+     */
+    public BigDecimal convert(BigDecimal amount, String from, String to) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) < 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal converted = snapshots.get().getCrossRateTable().convert(amount, from, to);
+        return converted == null ? BigDecimal.ZERO : converted;
+    }
+
+    /**
+     * Converts euros to given currency using rate valid on given date.
+     * <p>For days without published rates (weekends, holidays) rate from last publication before is used.</p>
+     *
+     * @param amountInEuros Amount of Euros to convert to other currency in BigDecimal format.
+     *                      Should be greater than 0 and not null.
+     * @param currency Currency tag of target currency
+     * @param date Date of rate used for conversion
+     * @return Converted value of Euros in other currency in BigDecimal format.
+     * If bad value given or there is no rate for currency on that date, return BigDecimal.ZERO
+     */
+    public BigDecimal convertEuros(BigDecimal amountInEuros, String currency, LocalDate date) {
+        if (amountInEuros == null || amountInEuros.compareTo(BigDecimal.ZERO) < 0) {
+            return BigDecimal.ZERO;
+        }
+
+        BigDecimal rate = snapshots.get().getRateHistory().getRate(currency, date);
+        if (rate == null) {
+            return BigDecimal.ZERO;
+        }
+
+        return amountInEuros.multiply(rate).setScale(2, RoundingMode.HALF_UP);
     }
 
     /**
@@ -72,8 +363,10 @@ public class Calculator {
             return 0;
         }
 
-        if (currencyRates.containsKey(currentCurrency)) {
-            this.currentCurrency = currentCurrency;
+        RateSnapshot snapshot = snapshots.get();
+        int ordinal = snapshot.getCurrencyRegistry().ordinalOf(currentCurrency);
+        if (ordinal != CurrencyRegistry.NOT_FOUND) {
+            selectCurrency(snapshot, snapshot.getCurrencyRegistry().getCode(ordinal), ordinal);
             return 1;
         } else {
             System.out.println("Key doesn't exist!");
@@ -87,6 +380,74 @@ public class Calculator {
      * @return Set of Strings with currencies tags
      */
     public Set<String> getCurrenciesSet() {
-        return currencyRates.keySet();
+        return snapshots.get().getCurrencyRegistry().getCodes();
+    }
+
+    /**
+     * Takes rates of current currency again if snapshot was replaced since they were selected.
+     *
+     * @return This calculator
+     */
+    private Calculator refreshSelection() {
+        RateSnapshot snapshot = snapshots.get();
+        if (snapshot != selectedSnapshot) {
+            selectCurrency(snapshot, currentCurrency, snapshot.getCurrencyRegistry().ordinalOf(currentCurrency));
+        }
+        return this;
+    }
+
+    /**
+     * Set current currency and keep its rates ready for conversions.
+     *
+     * @param snapshot Snapshot from which rates are taken
+     * @param currency Currency tag
+     * @param ordinal Ordinal of currency in registry of snapshot, {@link CurrencyRegistry#NOT_FOUND} if it isn't there
+     */
+    private void selectCurrency(RateSnapshot snapshot, String currency, int ordinal) {
+        this.selectedSnapshot = snapshot;
+        this.currentCurrency = currency;
+        this.currentOrdinal = ordinal;
+        if (ordinal == CurrencyRegistry.NOT_FOUND) {
+            this.currentRate = null;
+            this.currentScaledRate = FixedPoint.NOT_SCALABLE;
+            this.currentAmountLimit = -1;
+        } else {
+            this.currentRate = snapshot.getRate(ordinal);
+            this.currentScaledRate = snapshot.getScaledRate(ordinal);
+            this.currentAmountLimit = snapshot.getAmountLimit(ordinal);
+        }
+        this.currentConversions = Metrics.INSTANCE.conversionCounter(currency);
+    }
+
+    //Conversion of elements from index to index (exclusive)
+    private interface RangeConversion {
+        void convert(int from, int to);
+    }
+
+    /**
+     * Task splitting range of batch in halves until it's not bigger than {@link #PARALLEL_CHUNK_SIZE}.
+     */
+    private static final class BatchTask extends RecursiveAction {
+
+        private final int from;
+        private final int to;
+        private final RangeConversion conversion;
+
+        BatchTask(int from, int to, RangeConversion conversion) {
+            this.from = from;
+            this.to = to;
+            this.conversion = conversion;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_CHUNK_SIZE) {
+                conversion.convert(from, to);
+                return;
+            }
+
+            int middle = (from + to) >>> 1;
+            invokeAll(new BatchTask(from, middle, conversion), new BatchTask(middle, to, conversion));
+        }
     }
 }
@@ -0,0 +1,129 @@
+import java.util.Arrays;
+
+/**
+ * History of currency rates compressed for small heap, with the same lookups as {@link RateHistory}.
+ * <p>Every currency column is split into blocks of {@link #BLOCK_SIZE} publications. Block starts with
+ * number of trailing decimal zeros common to all its rates (ECB rates have 4-5 significant digits, so scaled
+ * rates usually end with zeros) and first rate without them, next rates are differences from previous one.
+ * Numbers are zigzag variable-length integers, so daily change of rate takes 1-2 bytes instead of 8.</p>
+ * <p>Offset of every block is kept in index, so lookup of one date decodes only part of one block.
+ * Currencies and publication days are shared with history which was compressed.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class CompressedRateHistory extends RateStore {
+
+    //Publications in one block, power of 2
+    static final int BLOCK_SIZE = 32;
+    private static final int BLOCK_SHIFT = Integer.numberOfTrailingZeros(BLOCK_SIZE);
+
+    private static final long[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000};
+
+    //Encoded blocks of every currency, blocks[currency]
+    private final byte[][] blocks;
+
+    //Start of every block in bytes of currency, offsets[currency][block]
+    private final int[][] offsets;
+
+    /**
+     * Constructor compressing all rates of store.
+     *
+     * @param store Rates to compress, e.g. history loaded by {@link XMLParser}
+     */
+    public CompressedRateHistory(RateStore store) {
+        super(store);
+        int currencyCount = store.getCurrencyCount();
+        int publications = store.getPublicationCount();
+        int blockCount = (publications + BLOCK_SIZE - 1) >>> BLOCK_SHIFT;
+        this.blocks = new byte[currencyCount][];
+        this.offsets = new int[currencyCount][blockCount];
+
+        long[] column = new long[publications];
+        for (int currency = 0; currency < currencyCount; currency++) {
+            for (int publication = 0; publication < publications; publication++) {
+                column[publication] = store.getScaledRate(currency, publication);
+            }
+
+            //Usual rate takes 1-2 bytes, buffer grows when block could need more
+            byte[] encoded = new byte[Math.max(16, 2 * publications)];
+            int position = 0;
+            for (int block = 0; block < blockCount; block++) {
+                int start = block << BLOCK_SHIFT;
+                int end = Math.min(start + BLOCK_SIZE, publications);
+                if (encoded.length - position < (end - start) * 10 + 1) {
+                    encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, position + (end - start) * 10 + 1));
+                }
+                offsets[currency][block] = position;
+                position = encodeBlock(column, start, end, encoded, position);
+            }
+            blocks[currency] = Arrays.copyOf(encoded, position);
+        }
+    }
+
+    @Override
+    long getScaledRate(int currencyIndex, int publication) {
+        byte[] bytes = blocks[currencyIndex];
+        int position = offsets[currencyIndex][publication >>> BLOCK_SHIFT];
+        int exponent = bytes[position++];
+
+        //Values are read inline, without objects for position
+        long value = 0;
+        for (int i = 0; i <= (publication & (BLOCK_SIZE - 1)); i++) {
+            long encoded = 0;
+            int shift = 0;
+            byte current;
+            do {
+                current = bytes[position++];
+                encoded |= (long) (current & 0x7F) << shift;
+                shift += 7;
+            } while (current < 0);
+            value += (encoded >>> 1) ^ -(encoded & 1);
+        }
+        return value * POWERS_OF_TEN[exponent];
+    }
+
+    /**
+     * @return Bytes taken by encoded rates and their block index, without days index
+     */
+    public long getEncodedBytes() {
+        long bytes = 0;
+        for (int i = 0; i < blocks.length; i++) {
+            bytes += blocks[i].length + 4L * offsets[i].length;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return Average bytes per rate of currency in publication, with days index
+     */
+    public double getBytesPerRate() {
+        long rates = (long) getCurrencyCount() * getPublicationCount();
+        return rates == 0 ? 0 : (double) (getEncodedBytes() + getIndexBytes()) / rates;
+    }
+
+    private static int encodeBlock(long[] column, int start, int end, byte[] encoded, int position) {
+        int exponent = POWERS_OF_TEN.length - 1;
+        for (int i = start; i < end && exponent > 0; i++) {
+            while (exponent > 0 && column[i] % POWERS_OF_TEN[exponent] != 0) {
+                exponent--;
+            }
+        }
+        encoded[position++] = (byte) exponent;
+
+        long previous = 0;
+        for (int i = start; i < end; i++) {
+            long value = column[i] / POWERS_OF_TEN[exponent];
+            long delta = value - previous;
+            previous = value;
+
+            long zigzag = (delta << 1) ^ (delta >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                encoded[position++] = (byte) ((zigzag & 0x7F) | 0x80);
+                zigzag >>>= 7;
+            }
+            encoded[position++] = (byte) zigzag;
+        }
+        return position;
+    }
+}
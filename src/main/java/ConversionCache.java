@@ -0,0 +1,226 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of converted amounts, for traffic where the same price points (9.99, 19.99, 100.00...)
+ * are converted to the same currencies over and over.
+ * <p>Result is kept for amount, key of conversion and version of rate snapshot, so results of old
+ * rates are never returned - when new snapshot is loaded, old entries become free places. Because of that
+ * one cache should be shared only by users of the same source of snapshots. Key of Euro conversion
+ * ({@link Calculator}, {@link PipeConverter}) is ordinal of target currency, conversions between any two
+ * currencies ({@link #convert(RateSnapshot, BigDecimal, CharSequence, CharSequence)}) use negative keys of
+ * currency pairs, so all of them can share one cache. Amounts are kept in minor units, so 100, 100.0 and 100.00
+ * share one entry. Amounts with more decimal places aren't cached, their results depend on every digit.</p>
+ * <p>Cache is an array of two-entry sets, amount and currency decide the set. Eviction is CLOCK inside a set:
+ * hit marks entry as used, new entry replaces free, stale or not used entry, and when both were used they
+ * get second chance and the first one is replaced. Lookup is two array reads and no locks or objects,
+ * entries are immutable except for used mark, so they're safely shared without synchronization.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class ConversionCache {
+
+    private final Entry[] slots;
+    private final int setMask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * @param capacity Biggest number of results kept, rounded up to power of 2, at least 2
+     * @throws IllegalArgumentException If capacity is less than 1 or greater than 2^29
+     */
+    public ConversionCache(int capacity) {
+        if (capacity < 1 || capacity > 1 << 29) {
+            throw new IllegalArgumentException("Capacity of cache must be between 1 and 2^29: " + capacity);
+        }
+        int size = Math.max(2, Integer.highestOneBit(capacity * 2 - 1));
+        this.slots = new Entry[size];
+        this.setMask = size / 2 - 1;
+    }
+
+    /**
+     * Finds converted amount.
+     *
+     * @param amount Amount before conversion, not null
+     * @param key Key of conversion, e.g. ordinal of target currency in registry of snapshot
+     * @param version Version of snapshot with rates
+     * @return Converted amount, or null if it isn't in cache or amount isn't cached
+     */
+    public BigDecimal get(BigDecimal amount, int key, long version) {
+        amount = toMinorUnits(amount);
+        if (amount == null) {
+            return null;
+        }
+
+        int first = firstSlot(amount, key);
+        Entry entry = slots[first];
+        if (entry == null || !entry.matches(amount, key, version)) {
+            entry = slots[first + 1];
+            if (entry == null || !entry.matches(amount, key, version)) {
+                misses.increment();
+                return null;
+            }
+        }
+
+        //Mark is written only when it changes, so hot entries don't make cache line dirty on every hit
+        if (!entry.used) {
+            entry.used = true;
+        }
+        hits.increment();
+        return entry.converted;
+    }
+
+    /**
+     * Keeps converted amount, replacing other entry of its set if needed.
+     *
+     * @param amount Amount before conversion, not null
+     * @param key Key of conversion, e.g. ordinal of target currency in registry of snapshot
+     * @param version Version of snapshot with rates
+     * @param converted Converted amount
+     */
+    public void put(BigDecimal amount, int key, long version, BigDecimal converted) {
+        amount = toMinorUnits(amount);
+        if (amount == null) {
+            return;
+        }
+
+        int first = firstSlot(amount, key);
+        Entry firstEntry = slots[first];
+        Entry secondEntry = slots[first + 1];
+
+        int victim;
+        if (isFree(firstEntry, version)) {
+            victim = first;
+        } else if (isFree(secondEntry, version)) {
+            victim = first + 1;
+        } else if (!firstEntry.used) {
+            victim = first;
+        } else if (!secondEntry.used) {
+            victim = first + 1;
+        } else {
+            secondEntry.used = false;
+            victim = first;
+        }
+        slots[victim] = new Entry(amount, key, version, converted);
+    }
+
+    /**
+     * Converts amount between any two currencies with cross rates of snapshot, taking result from cache when
+     * it's there. Result is the same as from {@link CrossRateTable#convert(BigDecimal, CharSequence, CharSequence)}.
+     *
+     * @param snapshot Snapshot with rates
+     * @param amount Amount of source currency, not null
+     * @param from Tag of source currency
+     * @param to Tag of target currency
+     * @return Converted amount rounded HALF_UP to 2nd decimal place, null if any currency is unknown
+     */
+    public BigDecimal convert(RateSnapshot snapshot, BigDecimal amount, CharSequence from, CharSequence to) {
+        CrossRateTable crossRateTable = snapshot.getCrossRateTable();
+        int fromIndex = crossRateTable.indexOf(from);
+        int toIndex = crossRateTable.indexOf(to);
+        if (fromIndex < 0 || toIndex < 0) {
+            return null;
+        }
+
+        //Keys of currency pairs are negative, so they never match ordinals of currencies of Euro conversions
+        int key = -1 - (fromIndex * crossRateTable.size() + toIndex);
+        BigDecimal converted = get(amount, key, snapshot.getVersion());
+        if (converted == null) {
+            converted = amount.multiply(crossRateTable.getRate(fromIndex, toIndex)).setScale(2, RoundingMode.HALF_UP);
+            put(amount, key, snapshot.getVersion(), converted);
+        }
+        return converted;
+    }
+
+    /**
+     * Removes all results, statistics are kept.
+     */
+    public void clear() {
+        Arrays.fill(slots, null);
+    }
+
+    /**
+     * @return Biggest number of results kept
+     */
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    /**
+     * @return Number of lookups which found result
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Number of lookups which didn't find result
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Part of lookups which found result, 0 if there were no lookups
+     */
+    public double getHitRate() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * @return Amount with {@link FixedPoint#AMOUNT_SCALE} decimal places, null if it can't be written in minor
+     * units without rounding or is out of limits of {@link AmountParser}
+     */
+    private static BigDecimal toMinorUnits(BigDecimal amount) {
+        //Usual amount is already scaled, e.g. parsed by AmountParser
+        if (amount.scale() == FixedPoint.AMOUNT_SCALE) {
+            return amount;
+        }
+        if (amount.scale() > AmountParser.MAX_FRACTION_DIGITS
+                || amount.precision() - amount.scale() > AmountParser.MAX_INTEGER_DIGITS) {
+            return null;
+        }
+        BigDecimal stripped = amount.scale() < FixedPoint.AMOUNT_SCALE ? amount : amount.stripTrailingZeros();
+        return stripped.scale() > FixedPoint.AMOUNT_SCALE ? null : stripped.setScale(FixedPoint.AMOUNT_SCALE);
+    }
+
+    private int firstSlot(BigDecimal amount, int key) {
+        //Hash of BigDecimal with long value is computed without creating objects
+        int hash = (amount.hashCode() * 31 + key) * 0x9E3779B9;
+        return ((hash ^ (hash >>> 16)) & setMask) << 1;
+    }
+
+    private static boolean isFree(Entry entry, long version) {
+        return entry == null || entry.version != version;
+    }
+
+    /**
+     * Converted amount with its key.
+     */
+    private static final class Entry {
+        private final BigDecimal amount;
+        private final int key;
+        private final long version;
+        private final BigDecimal converted;
+
+        //Set on hit and cleared by eviction, races only change which entry is evicted
+        private boolean used;
+
+        Entry(BigDecimal amount, int key, long version, BigDecimal converted) {
+            this.amount = amount;
+            this.key = key;
+            this.version = version;
+            this.converted = converted;
+        }
+
+        boolean matches(BigDecimal amount, int key, long version) {
+            return this.version == version && this.key == key && this.amount.equals(amount);
+        }
+    }
+}
@@ -0,0 +1,417 @@
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Reactive stage converting requests from message consumers into results, with backpressure.
+ * <p>It's Reactive Streams {@link Processor}, the same contract as {@code java.util.concurrent.Flow.Processor}
+ * (which doesn't exist on Java 8). On Java 9+ it can be adapted with {@code org.reactivestreams.FlowAdapters}.</p>
+ * <ul>
+ *     <li>Bounded buffering - at most {@code capacity} requests and results are held at once. Upstream gets demand
+ *     only for free places, so fast producer can't make memory grow, it waits for slow subscriber.</li>
+ *     <li>Parallelism - requests are spread by key over lanes, converted on executor. Requests with the same key
+ *     go to the same lane, so their results are emitted in order in which they came. Order between
+ *     different keys is not kept.</li>
+ *     <li>Micro-batching - lane converts up to {@code batchSize} waiting requests with one rate snapshot
+ *     before it gives thread back. Demand is sent upstream in batches too, when a quarter of buffer is free.
+ *     Under light load batches have one request, so there's no waiting for batch to fill.</li>
+ * </ul>
+ * <p>Request which can't be converted (unknown currency, negative amount or amount with more digits than
+ * {@link AmountParser} allows) gives result without converted amount, stream goes on. Processor has one
+ * subscriber, it's used once.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class ConversionProcessor implements Processor<ConversionProcessor.Request, ConversionProcessor.Result> {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final Supplier<RateSnapshot> snapshots;
+    private final ConversionCache cache;
+    private final Executor executor;
+    private final int capacity;
+    private final int batchSize;
+    private final Lane[] lanes;
+
+    //Converted results waiting for demand of subscriber, in order of conversion
+    private final Queue<Result> results = new ConcurrentLinkedQueue<>();
+
+    //Requests received and not yet delivered as results, never more than capacity
+    private final AtomicInteger buffered = new AtomicInteger();
+
+    //Places freed by delivered results and not yet requested from upstream
+    private final AtomicInteger freed = new AtomicInteger();
+
+    private final AtomicReference<Subscription> upstream = new AtomicReference<>();
+    private final AtomicReference<Subscriber<? super Result>> subscriber = new AtomicReference<>();
+    private final AtomicLong demand = new AtomicLong();
+
+    //Counter of drain() calls, only the one which increments it from 0 emits, so signals are never concurrent
+    private final AtomicInteger emitting = new AtomicInteger();
+
+    private volatile boolean upstreamDone;
+    private volatile Throwable upstreamError;
+    private volatile Throwable protocolError;
+    private volatile boolean cancelled;
+    private final AtomicBoolean terminated = new AtomicBoolean();
+
+    /**
+     * Constructor for processor with default capacity and batches, lanes for all processors of common pool.
+     *
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     */
+    public ConversionProcessor(Supplier<RateSnapshot> snapshots) {
+        this(snapshots, ForkJoinPool.getCommonPoolParallelism(), DEFAULT_CAPACITY, DEFAULT_BATCH_SIZE,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     * @param parallelism Number of lanes converting requests at the same time
+     * @param capacity Biggest number of requests and results held by processor
+     * @param batchSize Biggest number of requests converted by lane at once
+     * @param executor Executor running lanes
+     * @throws IllegalArgumentException If any number is less than 1
+     */
+    public ConversionProcessor(Supplier<RateSnapshot> snapshots, int parallelism, int capacity, int batchSize,
+                               Executor executor) {
+        this(snapshots, parallelism, capacity, batchSize, executor, null);
+    }
+
+    /**
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     * @param parallelism Number of lanes converting requests at the same time
+     * @param capacity Biggest number of requests and results held by processor
+     * @param batchSize Biggest number of requests converted by lane at once
+     * @param executor Executor running lanes
+     * @param cache Cache of converted amounts shared by users of the same source, null for no cache
+     * @throws IllegalArgumentException If any number is less than 1
+     */
+    public ConversionProcessor(Supplier<RateSnapshot> snapshots, int parallelism, int capacity, int batchSize,
+                               Executor executor, ConversionCache cache) {
+        if (parallelism < 1 || capacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Parallelism, capacity and batch size must be greater than zero.");
+        }
+        this.snapshots = snapshots;
+        this.cache = cache;
+        this.executor = executor;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.lanes = new Lane[parallelism];
+        for (int i = 0; i < parallelism; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * @return Number of requests received and not yet delivered as results
+     */
+    public int getBuffered() {
+        return buffered.get();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        Objects.requireNonNull(subscription);
+        if (!upstream.compareAndSet(null, subscription) || cancelled) {
+            subscription.cancel();
+            return;
+        }
+        subscription.request(capacity);
+    }
+
+    @Override
+    public void onNext(Request request) {
+        Objects.requireNonNull(request);
+        if (upstreamDone || cancelled) {
+            return;
+        }
+
+        //Publisher which doesn't respect demand would fill memory, so it's stopped
+        if (buffered.incrementAndGet() > capacity) {
+            protocolError = new IllegalStateException("Publisher sent more requests than demanded.");
+            cancelUpstream();
+            drain();
+            return;
+        }
+
+        Lane lane = lanes[(request.getKey().hashCode() & Integer.MAX_VALUE) % lanes.length];
+        lane.requests.offer(request);
+        lane.schedule();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Objects.requireNonNull(throwable);
+        upstreamError = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Result> subscriber) {
+        Objects.requireNonNull(subscriber);
+        if (!this.subscriber.compareAndSet(null, subscriber)) {
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("Conversion processor allows only one subscriber."));
+            return;
+        }
+
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    protocolError = new IllegalArgumentException("Demand must be greater than zero: " + n);
+                    cancelUpstream();
+                } else {
+                    demand.getAndUpdate(current -> current + n < 0 ? Long.MAX_VALUE : current + n);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                cancelUpstream();
+                results.clear();
+                for (Lane lane : lanes) {
+                    lane.requests.clear();
+                }
+            }
+        });
+        drain();
+    }
+
+    /**
+     * Emits waiting results as long as subscriber wants them, and completes stream when everything is delivered.
+     */
+    private void drain() {
+        if (emitting.getAndIncrement() != 0) {
+            return;
+        }
+
+        int missed = 1;
+        do {
+            Subscriber<? super Result> downstream = subscriber.get();
+            if (downstream != null && !cancelled && !terminated.get()) {
+                if (protocolError != null) {
+                    terminated.set(true);
+                    downstream.onError(protocolError);
+                } else {
+                    long requested = demand.get();
+                    long emitted = 0;
+                    Result result;
+                    while (emitted != requested && !cancelled && (result = results.poll()) != null) {
+                        downstream.onNext(result);
+                        emitted++;
+                    }
+                    if (emitted > 0) {
+                        long delivered = emitted;
+                        demand.getAndUpdate(current -> current == Long.MAX_VALUE ? current : current - delivered);
+                        release((int) delivered);
+                    }
+
+                    if (upstreamDone && buffered.get() == 0 && !cancelled && terminated.compareAndSet(false, true)) {
+                        if (upstreamError != null) {
+                            downstream.onError(upstreamError);
+                        } else {
+                            downstream.onComplete();
+                        }
+                    }
+                }
+            }
+            missed = emitting.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * Frees places of delivered results and requests more from upstream when enough of them is free.
+     */
+    private void release(int count) {
+        buffered.addAndGet(-count);
+        int free = freed.addAndGet(count);
+        if (free >= Math.max(1, capacity / 4) && !upstreamDone) {
+            Subscription subscription = upstream.get();
+            if (subscription != null) {
+                subscription.request(freed.getAndSet(0));
+            }
+        }
+    }
+
+    private void cancelUpstream() {
+        Subscription subscription = upstream.get();
+        if (subscription != null) {
+            subscription.cancel();
+        }
+    }
+
+    private Result convert(RateSnapshot snapshot, Request request) {
+        //The same limits as amounts of /convert, rounding of 1E999999999 would block lane for minutes
+        BigDecimal amount = request.getAmount();
+        if (amount.signum() < 0 || amount.precision() - amount.scale() > AmountParser.MAX_INTEGER_DIGITS
+                || amount.scale() > AmountParser.MAX_FRACTION_DIGITS) {
+            return new Result(request, null, snapshot.getVersion());
+        }
+        try {
+            BigDecimal converted = cache == null
+                    ? snapshot.getCrossRateTable().convert(amount, request.getFrom(), request.getTo())
+                    : cache.convert(snapshot, amount, request.getFrom(), request.getTo());
+            return new Result(request, converted, snapshot.getVersion());
+        } catch (RuntimeException e) {
+            return new Result(request, null, snapshot.getVersion());
+        }
+    }
+
+    /**
+     * Queue of requests converted by at most one thread at once, so they leave lane in order.
+     */
+    private final class Lane implements Runnable {
+
+        private final Queue<Request> requests = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            //One batch uses one snapshot, so requests of batch are converted with the same rates
+            RateSnapshot snapshot = snapshots.get();
+            Request request;
+            for (int i = 0; i < batchSize && !cancelled && (request = requests.poll()) != null; i++) {
+                results.offer(convert(snapshot, request));
+            }
+            drain();
+
+            //Lane gives thread back after every batch, so busy lane doesn't starve others
+            scheduled.set(false);
+            if (!requests.isEmpty() && !cancelled) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Request of converting amount between two currencies.
+     */
+    public static final class Request {
+        private final String key;
+        private final BigDecimal amount;
+        private final String from;
+        private final String to;
+
+        /**
+         * Constructor for request ordered with other requests of the same currencies.
+         *
+         * @param amount Amount of source currency, not null
+         * @param from Currency tag of source currency
+         * @param to Currency tag of target currency
+         */
+        public Request(BigDecimal amount, String from, String to) {
+            this(from + to, amount, from, to);
+        }
+
+        /**
+         * @param key Key of ordering, e.g. account, results of requests with the same key keep their order
+         * @param amount Amount of source currency, not null
+         * @param from Currency tag of source currency
+         * @param to Currency tag of target currency
+         */
+        public Request(String key, BigDecimal amount, String from, String to) {
+            this.key = Objects.requireNonNull(key);
+            this.amount = Objects.requireNonNull(amount);
+            this.from = from;
+            this.to = to;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public BigDecimal getAmount() {
+            return amount;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public String getTo() {
+            return to;
+        }
+    }
+
+    /**
+     * Result of conversion request.
+     */
+    public static final class Result {
+        private final Request request;
+        private final BigDecimal converted;
+        private final long version;
+
+        Result(Request request, BigDecimal converted, long version) {
+            this.request = request;
+            this.converted = converted;
+            this.version = version;
+        }
+
+        /**
+         * @return Converted request
+         */
+        public Request getRequest() {
+            return request;
+        }
+
+        /**
+         * @return Converted amount rounded to 2nd decimal place, null if request couldn't be converted
+         */
+        public BigDecimal getConverted() {
+            return converted;
+        }
+
+        /**
+         * @return True if request was converted
+         */
+        public boolean isConverted() {
+            return converted != null;
+        }
+
+        /**
+         * @return Version of rate snapshot used for conversion
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+/**
+ * HTTP service converting currencies for other applications.
+ * <p>Endpoints:</p>
+ * <ul>
+ *     <li>{@code GET /convert?amount=100.00&from=USD&to=JPY} - converted amount</li>
+ *     <li>{@code GET /currencies} - list of all currencies, Euro included</li>
+ *     <li>{@code GET /statistics?currency=USD&from=2022-07-01&to=2022-09-30} - {@link RateStatistics} of rates
+ *     in range of dates</li>
+ *     <li>{@code GET /metrics} - {@link Metrics} of application in Prometheus text format</li>
+ * </ul>
+ * <p>Responses other than metrics are JSON. Requests are stateless - every one uses the latest rate snapshot and doesn't
+ * change anything, so they can be handled in parallel. Each request gets its own virtual thread when Java
+ * supports them (21+), on older Java requests are handled by fixed pool of threads.</p>
+ * <p>JDK server sends headers and body separately, so without system property {@code sun.net.httpserver.nodelay}
+ * set to true every response waits about 40 ms for delayed ACK. Server mode of {@link Main} sets it.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class ConversionServer implements AutoCloseable {
+
+    private final Supplier<RateSnapshot> snapshots;
+    private final ConversionCache cache;
+    private final HttpServer httpServer;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor binding server to port, requests are handled after {@link #start()}.
+     *
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     * @param port Port of server, 0 for any free port
+     * @throws IOException If port can't be used
+     */
+    public ConversionServer(Supplier<RateSnapshot> snapshots, int port) throws IOException {
+        this(snapshots, port, null);
+    }
+
+    /**
+     * Constructor binding server to port, with cache of converted amounts for popular price points.
+     *
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     * @param port Port of server, 0 for any free port
+     * @param cache Cache of converted amounts shared by users of the same source, null for no cache
+     * @throws IOException If port can't be used
+     */
+    public ConversionServer(Supplier<RateSnapshot> snapshots, int port, ConversionCache cache) throws IOException {
+        this.snapshots = snapshots;
+        this.cache = cache;
+        this.httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+        this.executor = createExecutor();
+
+        httpServer.createContext("/convert", exchange -> handle(exchange, this::convert));
+        httpServer.createContext("/currencies", exchange -> handle(exchange, this::currencies));
+        httpServer.createContext("/statistics", exchange -> handle(exchange, this::statistics));
+        httpServer.createContext("/metrics", exchange -> handle(exchange,
+                parameters -> new Response(200, Metrics.INSTANCE.dump(), "text/plain; version=0.0.4; charset=utf-8")));
+        httpServer.setExecutor(executor);
+    }
+
+    /**
+     * Starts handling requests in background.
+     */
+    public void start() {
+        httpServer.start();
+    }
+
+    /**
+     * @return Port on which server listens
+     */
+    public int getPort() {
+        return httpServer.getAddress().getPort();
+    }
+
+    /**
+     * Stops server, requests in progress can finish for up to 1 second.
+     */
+    @Override
+    public void close() {
+        httpServer.stop(1);
+        executor.shutdown();
+    }
+
+    private Response convert(Map<String, String> parameters) {
+        String amountParameter = parameters.get("amount");
+        String from = parameters.get("from");
+        String to = parameters.get("to");
+        if (amountParameter == null || from == null || to == null) {
+            return Response.error(400, "Parameters amount, from and to are required.");
+        }
+
+        //Amount from any client is bounded before BigDecimal rounds it, e.g. 1E-99999999 would block thread
+        BigDecimal amount = AmountParser.parseAmount(amountParameter);
+        if (amount == null) {
+            return Response.error(400, "Amount is not a number or is out of range.");
+        }
+        if (amount.signum() < 0) {
+            return Response.error(400, "Amount can't be less than zero.");
+        }
+
+        RateSnapshot snapshot = snapshots.get();
+        BigDecimal converted = cache == null ? snapshot.getCrossRateTable().convert(amount, from, to)
+                : cache.convert(snapshot, amount, from, to);
+        if (converted == null) {
+            return Response.error(404, "Currency doesn't exist.");
+        }
+
+        return new Response(200, "{\"amount\":\"" + amount.toPlainString() + "\",\"from\":\"" + from
+                + "\",\"to\":\"" + to + "\",\"result\":\"" + converted.toPlainString()
+                + "\",\"version\":" + snapshot.getVersion() + "}");
+    }
+
+    private Response currencies(Map<String, String> parameters) {
+        CrossRateTable crossRateTable = snapshots.get().getCrossRateTable();
+
+        StringBuilder json = new StringBuilder("{\"currencies\":[");
+        for (int i = 0; i < crossRateTable.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('"').append(crossRateTable.getCurrency(i)).append('"');
+        }
+        return new Response(200, json.append("]}").toString());
+    }
+
+    private Response statistics(Map<String, String> parameters) {
+        String currency = parameters.get("currency");
+        String fromParameter = parameters.get("from");
+        String toParameter = parameters.get("to");
+        if (currency == null || fromParameter == null || toParameter == null) {
+            return Response.error(400, "Parameters currency, from and to are required.");
+        }
+
+        LocalDate from;
+        LocalDate to;
+        try {
+            from = LocalDate.parse(fromParameter);
+            to = LocalDate.parse(toParameter);
+        } catch (DateTimeParseException e) {
+            return Response.error(400, "Dates must be in format yyyy-MM-dd.");
+        }
+        if (from.isAfter(to)) {
+            return Response.error(400, "Date from can't be after date to.");
+        }
+
+        RateSnapshot snapshot = snapshots.get();
+        RateStatistics.Range range = snapshot.getRateStatistics().getStatistics(currency, from, to);
+        if (range == null) {
+            return Response.error(404, "There are no rates of currency in this range.");
+        }
+
+        return new Response(200, "{\"currency\":\"" + currency + "\",\"from\":\"" + from + "\",\"to\":\"" + to
+                + "\",\"count\":" + range.getCount() + ",\"min\":\"" + range.getMin().toPlainString()
+                + "\",\"max\":\"" + range.getMax().toPlainString() + "\",\"average\":\""
+                + range.getAverage().toPlainString() + "\",\"standardDeviation\":" + range.getStandardDeviation()
+                + ",\"volatility\":" + range.getVolatility() + ",\"version\":" + snapshot.getVersion() + "}");
+    }
+
+    private static void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        Response response;
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                response = Response.error(405, "Only GET is supported.");
+            } else {
+                response = endpoint.handle(parseQuery(exchange.getRequestURI().getRawQuery()));
+            }
+        } catch (RuntimeException e) {
+            response = Response.error(500, "Internal error.");
+        }
+
+        byte[] body = response.body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", response.contentType);
+        exchange.sendResponseHeaders(response.status, body.length);
+        try (OutputStream outputStream = exchange.getResponseBody()) {
+            outputStream.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+
+        for (String parameter : query.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                parameters.put(decode(parameter.substring(0, separator)), decode(parameter.substring(separator + 1)));
+            }
+        }
+        return parameters;
+    }
+
+    private static String decode(String value) {
+        try {
+            return URLDecoder.decode(value, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            //UTF-8 is always supported
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Creates executor with virtual thread per request when Java supports it.
+     * <p>It's looked up by reflection, because application is still compiled for Java 8.</p>
+     *
+     * @return Executor for requests
+     */
+    private static ExecutorService createExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            //Handlers only compute, so there is no need for more threads than processors
+            return Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors() * 2);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        Response handle(Map<String, String> parameters);
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+        private final String contentType;
+
+        private Response(int status, String body) {
+            this(status, body, "application/json; charset=utf-8");
+        }
+
+        private Response(int status, String body, String contentType) {
+            this.status = status;
+            this.body = body;
+            this.contentType = contentType;
+        }
+
+        private static Response error(int status, String message) {
+            return new Response(status, "{\"error\":\"" + message + "\"}");
+        }
+    }
+}
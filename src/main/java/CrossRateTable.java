@@ -0,0 +1,143 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Table of rates between every pair of currencies, including Euro.
+ * <p>Table is computed once from Euro rates, so converting between any two currencies needs only one
+ * read from array and one multiplication. Rates are stored in flat array indexed by
+ * {@code from * size + to}, where index of currency is its ordinal in {@link CurrencyRegistry}
+ * (position in sorted list of tags).</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class CrossRateTable {
+
+    //Currency tag of base currency of ECB rates
+    public static final String EURO = "EUR";
+
+    //Precision of computed rates used when configuration doesn't specify it
+    public static final int DEFAULT_SCALE = 10;
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_UP;
+
+    //Sorted tags of all currencies, Euro included
+    private final String[] currencies;
+    private final CurrencyRegistry currencyRegistry;
+
+    //Rates from currency to currency, crossRates[from * currencies.length + to]
+    private final BigDecimal[] crossRates;
+
+    /**
+     * Constructor computing rates for all pairs of currencies.
+     * <p>Rates from Euro and between the same currencies are exact, other ones are rounded.</p>
+     *
+     * @param euroRates Map of currencies and their rates to Euro, rates must be greater than 0
+     * @param scale Number of decimal places of computed rates
+     * @param roundingMode Rounding of computed rates
+     */
+    public CrossRateTable(SortedMap<String, BigDecimal> euroRates, int scale, RoundingMode roundingMode) {
+        //Euro rate is always 1, it isn't given in xml file
+        SortedMap<String, BigDecimal> rates = new TreeMap<>(euroRates);
+        rates.put(EURO, BigDecimal.ONE);
+
+        this.currencies = rates.keySet().toArray(new String[0]);
+        this.currencyRegistry = new CurrencyRegistry(rates.keySet());
+        BigDecimal[] rateArray = rates.values().toArray(new BigDecimal[0]);
+
+        int size = currencies.length;
+        this.crossRates = new BigDecimal[size * size];
+
+        for (int from = 0; from < size; from++) {
+            for (int to = 0; to < size; to++) {
+                BigDecimal crossRate;
+                if (from == to) {
+                    crossRate = BigDecimal.ONE;
+                } else if (currencies[from].equals(EURO)) {
+                    crossRate = rateArray[to];
+                } else {
+                    crossRate = rateArray[to].divide(rateArray[from], scale, roundingMode);
+                }
+                crossRates[from * size + to] = crossRate;
+            }
+        }
+    }
+
+    /**
+     * Find index of currency in table.
+     *
+     * @param currency Currency tag
+     * @return Index of currency, or {@link CurrencyRegistry#NOT_FOUND} if currency is unknown
+     */
+    public int indexOf(CharSequence currency) {
+        return currencyRegistry.ordinalOf(currency);
+    }
+
+    /**
+     * Get rate for converting between currencies of given indexes.
+     *
+     * @param from Index of source currency
+     * @param to Index of target currency
+     * @return Amount of target currency for one unit of source currency
+     */
+    public BigDecimal getRate(int from, int to) {
+        return crossRates[from * currencies.length + to];
+    }
+
+    /**
+     * Get rate for converting between currencies.
+     *
+     * @param from Tag of source currency
+     * @param to Tag of target currency
+     * @return Amount of target currency for one unit of source currency, null if any currency is unknown
+     */
+    public BigDecimal getRate(CharSequence from, CharSequence to) {
+        int fromIndex = indexOf(from);
+        int toIndex = indexOf(to);
+        if (fromIndex < 0 || toIndex < 0) {
+            return null;
+        }
+        return getRate(fromIndex, toIndex);
+    }
+
+    /**
+     * Converts amount between currencies.
+     *
+     * @param amount Amount of source currency, not null
+     * @param from Tag of source currency
+     * @param to Tag of target currency
+     * @return Converted amount rounded HALF_UP to 2nd decimal place, null if any currency is unknown
+     */
+    public BigDecimal convert(BigDecimal amount, CharSequence from, CharSequence to) {
+        BigDecimal crossRate = getRate(from, to);
+        if (crossRate == null) {
+            return null;
+        }
+        return amount.multiply(crossRate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return Number of currencies in table, Euro included
+     */
+    public int size() {
+        return currencies.length;
+    }
+
+    /**
+     * @return Index of currencies in table, Euro included
+     */
+    public CurrencyRegistry getCurrencyRegistry() {
+        return currencyRegistry;
+    }
+
+    /**
+     * Get tag of currency with given index.
+     *
+     * @param index Index of currency
+     * @return Currency tag
+     */
+    public String getCurrency(int index) {
+        return currencies[index];
+    }
+}
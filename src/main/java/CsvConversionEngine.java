@@ -0,0 +1,506 @@
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Engine converting big CSV files with transactions to one reporting currency, using rates from their dates.
+ * <p>Every row is {@code amount,currency,date[,other columns]}, e.g. {@code 125.40,USD,2022-01-27}, and
+ * is written to output with converted amount added as last column. Amount is converted with rates of
+ * its date (or last publication before it) and rounded HALF_UP to 2nd decimal place. Rows which can't be
+ * converted are written with empty last column and reported with their line number. First line is
+ * treated as header when it doesn't start with a number. Quoted fields are not supported.</p>
+ * <p>Input file is split into line-aligned chunks converted in parallel on {@link ForkJoinPool}. Every worker
+ * thread reads its chunk with positional {@link FileChannel#read(ByteBuffer, long)} into its own buffer, reused
+ * for all chunks, and parses rows straight from it. Chunks are written in original order and only a few of them
+ * are in memory at once, so memory use doesn't depend on size of file.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class CsvConversionEngine {
+
+    //Default size of chunk converted by one task
+    public static final int DEFAULT_CHUNK_SIZE = 8 * 1024 * 1024;
+
+    //Chunks read so much after their end to finish last row, longer rows are read again with bigger margin
+    static final int LINE_MARGIN = 64 * 1024;
+
+    //Scaled rate of Euro, which isn't in ECB files
+    private static final long EURO_SCALED_RATE = 1_000_000L;
+    private static final int EURO_PACKED = CurrencyRegistry.pack(CrossRateTable.EURO);
+
+    private final RateStore rateHistory;
+    private final String targetCurrency;
+    private final int targetIndex;
+    private final ForkJoinPool pool;
+    private final int chunkSize;
+
+    //Input buffer of every worker thread, it grows only for rows longer than margin
+    private final ThreadLocal<byte[]> readBuffers = new ThreadLocal<>();
+
+    /**
+     * Constructor for engine using common fork-join pool and default chunk size.
+     *
+     * @param rateHistory Rates for all dates used in files
+     * @param targetCurrency Currency tag of reporting currency, Euro included
+     * @throws IllegalArgumentException If target currency isn't in history
+     */
+    public CsvConversionEngine(RateStore rateHistory, String targetCurrency) {
+        this(rateHistory, targetCurrency, ForkJoinPool.commonPool(), DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param rateHistory Rates for all dates used in files
+     * @param targetCurrency Currency tag of reporting currency, Euro included
+     * @param pool Pool converting chunks
+     * @param chunkSize Number of bytes of one chunk, rows are never split between chunks
+     * @throws IllegalArgumentException If target currency isn't in history or chunk size is less than 1
+     */
+    public CsvConversionEngine(RateStore rateHistory, String targetCurrency, ForkJoinPool pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be greater than zero: " + chunkSize);
+        }
+
+        this.rateHistory = rateHistory;
+        this.targetCurrency = targetCurrency;
+        this.targetIndex = CrossRateTable.EURO.equals(targetCurrency)
+                ? CurrencyRegistry.NOT_FOUND : rateHistory.getCurrencyRegistry().ordinalOf(targetCurrency);
+        if (targetIndex == CurrencyRegistry.NOT_FOUND && !CrossRateTable.EURO.equals(targetCurrency)) {
+            throw new IllegalArgumentException("Currency " + targetCurrency + " doesn't exist.");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Converts whole input file.
+     *
+     * @param input Path to CSV file with transactions
+     * @param output Path to written CSV file, replaced if it exists
+     * @param errors Stream for reports about rows which can't be converted
+     * @return Numbers of converted and rejected rows
+     * @throws IOException If input can't be read or output can't be written
+     */
+    public Summary convert(Path input, Path output, PrintStream errors) throws IOException {
+        Summary summary = new Summary();
+
+        try (FileChannel inputChannel = FileChannel.open(input, StandardOpenOption.READ);
+             FileChannel outputChannel = FileChannel.open(output, StandardOpenOption.WRITE,
+                     StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long size = inputChannel.size();
+
+            //Chunk for every thread and one more, so threads don't wait while the oldest chunk is written
+            int maxInFlight = pool.getParallelism() + 1;
+            ArrayDeque<ForkJoinTask<Chunk>> inFlight = new ArrayDeque<>();
+
+            long nextStart = 0;
+            while (nextStart < size || !inFlight.isEmpty()) {
+                while (nextStart < size && inFlight.size() < maxInFlight) {
+                    long start = nextStart;
+                    long end = Math.min(size, start + chunkSize);
+                    inFlight.add(pool.submit(() -> convertChunk(inputChannel, size, start, end)));
+                    nextStart = end;
+                }
+
+                Chunk chunk = join(inFlight.poll());
+                ByteBuffer bytes = ByteBuffer.wrap(chunk.output, 0, chunk.outputSize);
+                while (bytes.hasRemaining()) {
+                    outputChannel.write(bytes);
+                }
+                summary.add(chunk, errors);
+            }
+        } finally {
+            errors.flush();
+        }
+        return summary;
+    }
+
+    private static Chunk join(ForkJoinTask<Chunk> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Conversion was interrupted.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Converts rows starting between start and end of chunk.
+     * <p>Row which starts before chunk belongs to previous chunk, so conversion begins after first new line
+     * character at or after {@code start - 1}. The last row can end after chunk.</p>
+     */
+    private Chunk convertChunk(FileChannel channel, long size, long start, long end) throws IOException {
+        long readStart = Math.max(0, start - 1);
+        long readEnd = Math.min(size, end + LINE_MARGIN);
+        byte[] bytes = read(channel, readStart, readEnd);
+        int length = (int) (readEnd - readStart);
+
+        int chunkEnd = (int) (end - readStart);
+        int lineStart = 0;
+        if (start > 0) {
+            while (lineStart < length && bytes[lineStart] != '\n') {
+                lineStart++;
+            }
+            lineStart++;
+        }
+
+        //Output is input with one more column, usually shorter than half of row
+        Chunk chunk = new Chunk(Math.max(0, chunkEnd - lineStart) * 3 / 2 + 64);
+        RowConverter rowConverter = new RowConverter(chunk);
+        boolean header = start == 0;
+
+        while (lineStart < chunkEnd) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && bytes[lineEnd] != '\n') {
+                lineEnd++;
+            }
+
+            //Row doesn't end within read bytes, so chunk is read again with bigger margin
+            if (lineEnd == length && readEnd < size) {
+                readEnd = Math.min(size, readEnd + length);
+                bytes = read(channel, readStart, readEnd);
+                length = (int) (readEnd - readStart);
+                continue;
+            }
+
+            if (header && lineEnd > lineStart && !startsAmount(bytes[lineStart])) {
+                chunk.copyLine(bytes, lineStart, trimLineEnd(bytes, lineStart, lineEnd));
+                chunk.appendText(",converted_" + targetCurrency);
+                chunk.endLine();
+            } else {
+                rowConverter.convert(bytes, lineStart, trimLineEnd(bytes, lineStart, lineEnd));
+            }
+            header = false;
+            chunk.lines++;
+            lineStart = lineEnd + 1;
+        }
+        return chunk;
+    }
+
+    /**
+     * Reads part of file into buffer of current thread, bytes after {@code to - from} are left from earlier reads.
+     */
+    private byte[] read(FileChannel channel, long from, long to) throws IOException {
+        int length = Math.toIntExact(to - from);
+        byte[] bytes = readBuffers.get();
+        if (bytes == null || bytes.length < length) {
+            bytes = new byte[Math.max(length, chunkSize + LINE_MARGIN)];
+            readBuffers.set(bytes);
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                throw new IOException("File was truncated while it was converted.");
+            }
+        }
+        return bytes;
+    }
+
+    private static int trimLineEnd(byte[] bytes, int lineStart, int lineEnd) {
+        return lineEnd > lineStart && bytes[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+    }
+
+    private static boolean startsAmount(byte character) {
+        return (character >= '0' && character <= '9') || character == '-' || character == '+' || character == '.';
+    }
+
+    /**
+     * Converter of rows of one chunk, it keeps publication of last date because files are usually sorted by date.
+     */
+    private class RowConverter {
+        private final Chunk chunk;
+        private int lastDateKey = -1;
+        private int lastPublication;
+
+        private RowConverter(Chunk chunk) {
+            this.chunk = chunk;
+        }
+
+        private void convert(byte[] bytes, int start, int end) {
+            chunk.copyLine(bytes, start, end);
+            if (start == end) {
+                chunk.endLine();
+                return;
+            }
+            chunk.appendByte((byte) ',');
+
+            int currencyStart = indexOf(bytes, start, end, ',') + 1;
+            int dateStart = currencyStart == 0 ? -1 : indexOf(bytes, currencyStart, end, ',') + 1;
+            if (dateStart <= 0) {
+                chunk.rejectRow("expected amount, currency and date");
+                return;
+            }
+            int dateEnd = indexOf(bytes, dateStart, end, ',');
+            if (dateEnd < 0) {
+                dateEnd = end;
+            }
+
+            int publication = publicationOf(bytes, dateStart, dateEnd);
+            if (publication < 0) {
+                chunk.rejectRow("date is not valid or is before first rates");
+                return;
+            }
+
+            long sourceRate = scaledRateOf(bytes, currencyStart, dateStart - 1, publication);
+            if (sourceRate == RateStore.NO_RATE) {
+                chunk.rejectRow("currency is unknown or has no rate on that date");
+                return;
+            }
+            long targetRate = targetIndex == CurrencyRegistry.NOT_FOUND
+                    ? EURO_SCALED_RATE : rateHistory.getScaledRate(targetIndex, publication);
+            if (targetRate == RateStore.NO_RATE) {
+                chunk.rejectRow("no rate of " + targetCurrency + " on that date");
+                return;
+            }
+
+            //Amounts with at most 2 decimal places are converted on longs, others exactly with BigDecimal
+            long minor = AmountParser.parseExactCents(bytes, start, currencyStart - 1);
+            if (minor == AmountParser.INVALID) {
+                chunk.rejectRow("amount is not a number");
+                return;
+            }
+            long converted = minor == AmountParser.UNSUPPORTED ? Long.MIN_VALUE
+                    : convertOnLongs(minor, sourceRate, targetRate);
+            if (converted != Long.MIN_VALUE) {
+                chunk.ensureSpace(FixedPoint.MAX_AMOUNT_LENGTH);
+                chunk.outputSize = FixedPoint.writeAmount(converted, chunk.output, chunk.outputSize);
+            } else {
+                BigDecimal amount = new BigDecimal(new String(bytes, start, currencyStart - 1 - start,
+                        StandardCharsets.US_ASCII));
+                if (amount.precision() - amount.scale() > AmountParser.MAX_INTEGER_DIGITS) {
+                    chunk.rejectRow("amount is too big");
+                    return;
+                }
+
+                //Exponent like 1E-99999999 would make division rescale divisor to enormous number
+                if (amount.scale() > AmountParser.MAX_FRACTION_DIGITS) {
+                    chunk.rejectRow("amount has too many decimal places");
+                    return;
+                }
+                chunk.appendText(convertExactly(amount, sourceRate, targetRate).toPlainString());
+            }
+            chunk.endLine();
+            chunk.converted++;
+        }
+
+        /**
+         * @return Index of publication valid on date, -1 if date is not valid or is before first publication
+         */
+        private int publicationOf(byte[] bytes, int start, int end) {
+            if (end - start != 10 || bytes[start + 4] != '-' || bytes[start + 7] != '-') {
+                return -1;
+            }
+            int year = digits(bytes, start, 4);
+            int month = digits(bytes, start + 5, 2);
+            int day = digits(bytes, start + 8, 2);
+            if (year < 0 || month < 0 || day < 0) {
+                return -1;
+            }
+
+            int dateKey = (year * 100 + month) * 100 + day;
+            if (dateKey != lastDateKey) {
+                try {
+                    lastPublication = rateHistory.publicationIndex(LocalDate.of(year, month, day).toEpochDay());
+                } catch (DateTimeException e) {
+                    return -1;
+                }
+                lastDateKey = dateKey;
+            }
+            return lastPublication;
+        }
+
+        private long scaledRateOf(byte[] bytes, int start, int end, int publication) {
+            if (end - start != 3) {
+                return RateStore.NO_RATE;
+            }
+            if (CurrencyRegistry.pack(bytes, start) == EURO_PACKED) {
+                return EURO_SCALED_RATE;
+            }
+
+            int currencyIndex = rateHistory.getCurrencyRegistry().ordinalOf(bytes, start);
+            return currencyIndex == CurrencyRegistry.NOT_FOUND
+                    ? RateStore.NO_RATE : rateHistory.getScaledRate(currencyIndex, publication);
+        }
+    }
+
+    /**
+     * Converts amount in minor units on longs, when result can't overflow.
+     *
+     * @return Converted amount in minor units, {@link Long#MIN_VALUE} if amount needs {@link #convertExactly}
+     */
+    static long convertOnLongs(long minor, long sourceRate, long targetRate) {
+        if (sourceRate == targetRate) {
+            return minor;
+        }
+
+        //HALF_UP of n / d is floor((2n + d) / 2d), computed on absolute value so negative amounts round away from 0
+        long absolute = Math.abs(minor);
+        if (absolute > (Long.MAX_VALUE - sourceRate) / 2 / targetRate) {
+            return Long.MIN_VALUE;
+        }
+        long rounded = (2 * absolute * targetRate + sourceRate) / (2 * sourceRate);
+        return minor < 0 ? -rounded : rounded;
+    }
+
+    /**
+     * Converts amount with BigDecimal, result is the same as from {@link #convertOnLongs(long, long, long)}.
+     */
+    static BigDecimal convertExactly(BigDecimal amount, long sourceRate, long targetRate) {
+        return amount.multiply(BigDecimal.valueOf(targetRate, FixedPoint.RATE_SCALE))
+                .divide(BigDecimal.valueOf(sourceRate, FixedPoint.RATE_SCALE), FixedPoint.AMOUNT_SCALE,
+                        RoundingMode.HALF_UP);
+    }
+
+    private static int indexOf(byte[] bytes, int start, int end, char character) {
+        for (int i = start; i < end; i++) {
+            if (bytes[i] == character) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Value of decimal digits, -1 if any of them isn't digit
+     */
+    private static int digits(byte[] bytes, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Converted rows of one chunk, waiting to be written.
+     */
+    private static class Chunk {
+        private byte[] output;
+        private int outputSize;
+        private int lines;
+        private long converted;
+        private long rejected;
+
+        //Rejected rows, null when all rows were converted
+        private List<Rejection> rejections;
+
+        private Chunk(int capacity) {
+            this.output = new byte[capacity];
+        }
+
+        private void copyLine(byte[] bytes, int start, int end) {
+            ensureSpace(end - start + 1);
+            System.arraycopy(bytes, start, output, outputSize, end - start);
+            outputSize += end - start;
+        }
+
+        private void appendText(String text) {
+            byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+            ensureSpace(bytes.length + 1);
+            System.arraycopy(bytes, 0, output, outputSize, bytes.length);
+            outputSize += bytes.length;
+        }
+
+        private void appendByte(byte character) {
+            ensureSpace(2);
+            output[outputSize++] = character;
+        }
+
+        private void endLine() {
+            ensureSpace(1);
+            output[outputSize++] = '\n';
+        }
+
+        /**
+         * Ends row without converted amount and records reason.
+         */
+        private void rejectRow(String reason) {
+            endLine();
+            reject(reason);
+        }
+
+        private void reject(String reason) {
+            if (rejections == null) {
+                rejections = new ArrayList<>();
+            }
+            rejections.add(new Rejection(lines, reason));
+            rejected++;
+        }
+
+        private void ensureSpace(int length) {
+            if (outputSize + length > output.length) {
+                output = Arrays.copyOf(output, Math.max(output.length * 2, outputSize + length));
+            }
+        }
+    }
+
+    private static class Rejection {
+        //Line in chunk, counted from 0
+        private final int line;
+        private final String reason;
+
+        private Rejection(int line, String reason) {
+            this.line = line;
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * Numbers of rows of converted file.
+     */
+    public static class Summary {
+        private long lines;
+        private long convertedRows;
+        private long rejectedRows;
+
+        private void add(Chunk chunk, PrintStream errors) {
+            if (chunk.rejections != null) {
+                for (Rejection rejection : chunk.rejections) {
+                    errors.println("Line " + (lines + rejection.line + 1) + ": " + rejection.reason);
+                }
+            }
+            lines += chunk.lines;
+            convertedRows += chunk.converted;
+            rejectedRows += chunk.rejected;
+        }
+
+        /**
+         * @return Number of rows written with converted amount
+         */
+        public long getConvertedRows() {
+            return convertedRows;
+        }
+
+        /**
+         * @return Number of rows written without converted amount
+         */
+        public long getRejectedRows() {
+            return rejectedRows;
+        }
+    }
+}
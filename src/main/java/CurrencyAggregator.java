@@ -0,0 +1,289 @@
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Running totals of amounts per currency, updated by many threads at once, e.g. totals of converted payments
+ * per target currency (and second aggregator per source currency).
+ * <p>Totals are exact longs in minor units, indexed by ordinal of currency in {@link CurrencyRegistry}, so adding
+ * doesn't look up map or create objects. Like {@link java.util.concurrent.atomic.LongAdder}, every currency has
+ * one cell per stripe and threads are spread over stripes, so they don't fight for the same cache line.
+ * Rows of stripes are padded, so cells of different stripes never share cache line.</p>
+ * <p>Cell is updated with CAS. When sum wouldn't fit in long, cell value is moved to exact BigInteger carry of
+ * currency, so totals never overflow and never lose precision.</p>
+ * <p>Adding takes no lock. Every row of stripe has counters of started and finished adds, so add is CAS of its
+ * own cell between increments of two counters in the same cache line. {@link #snapshot()} is consistent - totals
+ * of all currencies are from one moment, like seqlock it reads counters of all stripes, sums cells and accepts
+ * the sums only when no add started or was in progress meanwhile. After few failed attempts snapshot asks adds
+ * to wait until it's done, so it isn't starved by constant adding. Moving of overflowing cell to carry is part
+ * of add, so it's never counted twice or missed.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class CurrencyAggregator {
+
+    //Longs in one cache line, rows of stripes are separated by at least one line
+    private static final int LINE_LONGS = 8;
+
+    //Snapshots which failed so many times make adds wait
+    private static final int OPTIMISTIC_ATTEMPTS = 16;
+
+    private final CurrencyRegistry currencyRegistry;
+    private final int stripeMask;
+    private final int rowLength;
+
+    //Counters of started and finished adds of stripe, placed in row after cells of currencies
+    private final int startedIndex;
+    private final int finishedIndex;
+    private final AtomicLongArray cells;
+
+    //Snapshots waiting for adds to stop, zero almost all the time, so adds only read it
+    private final AtomicInteger waitingSnapshots = new AtomicInteger();
+
+    //Parts of totals which didn't fit in cells, null until first overflow of currency
+    private final AtomicReferenceArray<BigInteger> carries;
+
+    /**
+     * Constructor for aggregator with stripes for twice as many threads as processors.
+     *
+     * @param currencyRegistry Currencies of totals, e.g. from {@link CrossRateTable#getCurrencyRegistry()},
+     *                         which has Euro too
+     */
+    public CurrencyAggregator(CurrencyRegistry currencyRegistry) {
+        this(currencyRegistry, 2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param currencyRegistry Currencies of totals
+     * @param stripes Number of stripes, rounded up to power of 2
+     */
+    public CurrencyAggregator(CurrencyRegistry currencyRegistry, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of stripes must be greater than zero.");
+        }
+        int stripeCount = Integer.highestOneBit(Math.min(stripes, 1 << 16) * 2 - 1);
+        this.currencyRegistry = currencyRegistry;
+        this.stripeMask = stripeCount - 1;
+        this.rowLength = (currencyRegistry.size() + 2 + LINE_LONGS - 1) / LINE_LONGS * LINE_LONGS + LINE_LONGS;
+        this.startedIndex = currencyRegistry.size();
+        this.finishedIndex = currencyRegistry.size() + 1;
+        this.cells = new AtomicLongArray(stripeCount * rowLength);
+        this.carries = new AtomicReferenceArray<>(currencyRegistry.size());
+    }
+
+    /**
+     * Adds amount to total of currency.
+     *
+     * @param amount Amount with at most {@link FixedPoint#AMOUNT_SCALE} decimal places, can be negative
+     * @param currency Currency tag
+     * @throws IllegalArgumentException If currency isn't in registry
+     * @throws ArithmeticException If amount has more decimal places
+     */
+    public void add(BigDecimal amount, CharSequence currency) {
+        int ordinal = ordinalOf(currency);
+        BigInteger minor = amount.setScale(FixedPoint.AMOUNT_SCALE, RoundingMode.UNNECESSARY).unscaledValue();
+        if (minor.bitLength() < 64) {
+            add(minor.longValue(), ordinal);
+            return;
+        }
+
+        int row = startAdd();
+        try {
+            addCarry(ordinal, minor);
+        } finally {
+            cells.incrementAndGet(row + finishedIndex);
+        }
+    }
+
+    /**
+     * Adds amount in minor units to total of currency.
+     *
+     * @param amountMinor Amount in minor units, e.g. 10050 for 100.50, can be negative
+     * @param currency Currency tag
+     * @throws IllegalArgumentException If currency isn't in registry
+     */
+    public void add(long amountMinor, CharSequence currency) {
+        add(amountMinor, ordinalOf(currency));
+    }
+
+    /**
+     * Adds amount in minor units to total of currency, without looking up currency tag.
+     *
+     * @param amountMinor Amount in minor units, can be negative
+     * @param ordinal Ordinal of currency in registry
+     * @throws IndexOutOfBoundsException If ordinal isn't in registry
+     */
+    public void add(long amountMinor, int ordinal) {
+        if (ordinal < 0 || ordinal >= currencyRegistry.size()) {
+            throw new IndexOutOfBoundsException("No currency with ordinal " + ordinal);
+        }
+
+        int row = startAdd();
+        try {
+            int index = row + ordinal;
+            while (true) {
+                long current = cells.get(index);
+                long sum = current + amountMinor;
+
+                //Overflow when both values have the same sign and sum has the other one
+                if (((current ^ sum) & (amountMinor ^ sum)) < 0) {
+                    if (moveToCarry(index, ordinal, current, amountMinor)) {
+                        return;
+                    }
+                } else if (cells.compareAndSet(index, current, sum)) {
+                    return;
+                }
+            }
+        } finally {
+            cells.incrementAndGet(row + finishedIndex);
+        }
+    }
+
+    /**
+     * Get totals of all currencies from one moment - adds finished before it are counted, adds started after it
+     * aren't.
+     *
+     * @return Unmodifiable sorted map of currencies of registry and their totals with
+     * {@link FixedPoint#AMOUNT_SCALE} decimal places
+     */
+    public SortedMap<String, BigDecimal> snapshot() {
+        BigInteger[] totals = new BigInteger[currencyRegistry.size()];
+        long[] finished = new long[stripeMask + 1];
+        boolean consistent = false;
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS && !consistent; attempt++) {
+            consistent = sumTotals(totals, finished);
+        }
+        if (!consistent) {
+            waitingSnapshots.incrementAndGet();
+            try {
+                while (!sumTotals(totals, finished)) {
+                    Thread.yield();
+                }
+            } finally {
+                waitingSnapshots.decrementAndGet();
+            }
+        }
+
+        SortedMap<String, BigDecimal> snapshot = new TreeMap<>();
+        for (int ordinal = 0; ordinal < totals.length; ordinal++) {
+            snapshot.put(currencyRegistry.getCode(ordinal), new BigDecimal(totals[ordinal], FixedPoint.AMOUNT_SCALE));
+        }
+        return Collections.unmodifiableSortedMap(snapshot);
+    }
+
+    /**
+     * @return Registry of currencies of totals
+     */
+    public CurrencyRegistry getCurrencyRegistry() {
+        return currencyRegistry;
+    }
+
+    /**
+     * Sums totals of all currencies, like reader of seqlock.
+     *
+     * @param totals Array for totals of currencies
+     * @param finished Array for counters of finished adds of stripes
+     * @return False if any add was in progress or started meanwhile, then totals must be summed again
+     */
+    private boolean sumTotals(BigInteger[] totals, long[] finished) {
+        //Finished adds are read before started ones, so equal counters mean that no add was in progress
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            finished[stripe] = cells.get(stripe * rowLength + finishedIndex);
+            if (cells.get(stripe * rowLength + startedIndex) != finished[stripe]) {
+                return false;
+            }
+        }
+        for (int ordinal = 0; ordinal < totals.length; ordinal++) {
+            totals[ordinal] = total(ordinal);
+        }
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            if (cells.get(stripe * rowLength + startedIndex) != finished[stripe]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Counts add as started in stripe of thread, waits first if snapshot asked for it.
+     *
+     * @return Index of first cell of row of stripe
+     */
+    private int startAdd() {
+        int row = stripeOfThread() * rowLength;
+        while (true) {
+            cells.incrementAndGet(row + startedIndex);
+            if (waitingSnapshots.get() == 0) {
+                return row;
+            }
+
+            //Snapshot waits until started adds are finished, so this one is given up until snapshot is done
+            cells.incrementAndGet(row + finishedIndex);
+            while (waitingSnapshots.get() != 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Sums cells and carry of currency, caller checks that no add was in progress meanwhile.
+     */
+    private BigInteger total(int ordinal) {
+        long sum = 0;
+        BigInteger total = carries.get(ordinal) == null ? BigInteger.ZERO : carries.get(ordinal);
+        for (int stripe = 0; stripe <= stripeMask; stripe++) {
+            long cell = cells.get(stripe * rowLength + ordinal);
+            long next = sum + cell;
+            if (((sum ^ next) & (cell ^ next)) < 0) {
+                total = total.add(BigInteger.valueOf(sum));
+                next = cell;
+            }
+            sum = next;
+        }
+        return total.add(BigInteger.valueOf(sum));
+    }
+
+    /**
+     * Replaces overflowing cell with zero and adds its value with amount to carry.
+     *
+     * @return False if cell was changed by other thread and adding must be tried again
+     */
+    private boolean moveToCarry(int index, int ordinal, long current, long amountMinor) {
+        if (!cells.compareAndSet(index, current, 0)) {
+            return false;
+        }
+        addCarry(ordinal, BigInteger.valueOf(current).add(BigInteger.valueOf(amountMinor)));
+        return true;
+    }
+
+    private void addCarry(int ordinal, BigInteger amountMinor) {
+        BigInteger current;
+        do {
+            current = carries.get(ordinal);
+        } while (!carries.compareAndSet(ordinal, current, current == null ? amountMinor : current.add(amountMinor)));
+    }
+
+    private int ordinalOf(CharSequence currency) {
+        int ordinal = currencyRegistry.ordinalOf(currency);
+        if (ordinal == CurrencyRegistry.NOT_FOUND) {
+            throw new IllegalArgumentException("Currency " + currency + " doesn't exist.");
+        }
+        return ordinal;
+    }
+
+    /**
+     * Threads of pools have consecutive ids, so mixed id spreads them evenly over stripes.
+     */
+    private int stripeOfThread() {
+        long id = Thread.currentThread().getId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+}
@@ -0,0 +1,172 @@
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Immutable index of currency codes, mapping every code to dense ordinal.
+ * <p>ISO 4217 codes are exactly 3 uppercase ASCII letters, so every code is packed into int below 26^3
+ * and ordinal is read from table indexed by packed code. Lookup is O(1), doesn't compare Strings and doesn't
+ * create objects, also when code is read straight from {@link CharSequence}, byte array or {@link ByteBuffer}.</p>
+ * <p>Ordinals follow alphabetical order of codes, so arrays indexed by ordinal are sorted by code too.
+ * Codes which don't look like ISO 4217 are still accepted, but they are found through ordinary map.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class CurrencyRegistry {
+
+    //Returned by lookups when code isn't in registry
+    public static final int NOT_FOUND = -1;
+
+    //Returned by pack() when code isn't 3 uppercase ASCII letters
+    public static final int NOT_PACKABLE = -1;
+
+    private static final int CODE_LENGTH = 3;
+    private static final int LETTERS = 26;
+    private static final int PACKED_CODES = LETTERS * LETTERS * LETTERS;
+
+    //Sorted codes, index is ordinal
+    private final String[] codes;
+    private final SortedSet<String> codeSet;
+
+    //Ordinal for every packed code, NOT_FOUND for unknown codes. 17576 shorts, as there are never more codes
+    private final short[] ordinalByPackedCode = new short[PACKED_CODES];
+
+    //Ordinals of codes which can't be packed, empty for ECB files
+    private final Map<String, Integer> unpackedOrdinals = new HashMap<>();
+
+    /**
+     * Constructor giving ordinals to codes in alphabetical order.
+     *
+     * @param codes Currency codes, duplicates are ignored
+     */
+    public CurrencyRegistry(Collection<String> codes) {
+        this.codeSet = Collections.unmodifiableSortedSet(new TreeSet<>(codes));
+        this.codes = codeSet.toArray(new String[0]);
+
+        Arrays.fill(ordinalByPackedCode, (short) NOT_FOUND);
+        for (int ordinal = 0; ordinal < this.codes.length; ordinal++) {
+            int packed = pack(this.codes[ordinal]);
+            if (packed == NOT_PACKABLE) {
+                unpackedOrdinals.put(this.codes[ordinal], ordinal);
+            } else {
+                ordinalByPackedCode[packed] = (short) ordinal;
+            }
+        }
+    }
+
+    /**
+     * Packs currency code into int.
+     *
+     * @param code Currency code
+     * @return Number between 0 and 26^3 - 1, or {@link #NOT_PACKABLE} if code isn't 3 uppercase ASCII letters
+     */
+    public static int pack(CharSequence code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            return NOT_PACKABLE;
+        }
+        return pack(code.charAt(0), code.charAt(1), code.charAt(2));
+    }
+
+    /**
+     * Packs currency code written in ASCII.
+     *
+     * @param bytes Bytes containing code
+     * @param offset Index of first letter of code
+     * @return Number between 0 and 26^3 - 1, or {@link #NOT_PACKABLE} if bytes aren't 3 uppercase ASCII letters
+     */
+    public static int pack(byte[] bytes, int offset) {
+        return pack(bytes[offset], bytes[offset + 1], bytes[offset + 2]);
+    }
+
+    /**
+     * Packs currency code written in ASCII, without changing position of buffer.
+     *
+     * @param buffer Buffer containing code
+     * @param index Absolute index of first letter of code
+     * @return Number between 0 and 26^3 - 1, or {@link #NOT_PACKABLE} if bytes aren't 3 uppercase ASCII letters
+     */
+    public static int pack(ByteBuffer buffer, int index) {
+        return pack(buffer.get(index), buffer.get(index + 1), buffer.get(index + 2));
+    }
+
+    private static int pack(int first, int second, int third) {
+        int a = first - 'A';
+        int b = second - 'A';
+        int c = third - 'A';
+
+        //Negative values (below 'A') and values above 'Z' are rejected with one check
+        if ((a | b | c) < 0 || a >= LETTERS || b >= LETTERS || c >= LETTERS) {
+            return NOT_PACKABLE;
+        }
+        return (a * LETTERS + b) * LETTERS + c;
+    }
+
+    /**
+     * @param code Currency code
+     * @return Ordinal of code, or {@link #NOT_FOUND} if code isn't in registry
+     */
+    public int ordinalOf(CharSequence code) {
+        int packed = pack(code);
+        if (packed != NOT_PACKABLE) {
+            return ordinalByPackedCode[packed];
+        }
+        if (code == null || unpackedOrdinals.isEmpty()) {
+            return NOT_FOUND;
+        }
+        return unpackedOrdinals.getOrDefault(code.toString(), NOT_FOUND);
+    }
+
+    /**
+     * @param bytes Bytes containing code in ASCII
+     * @param offset Index of first letter of code
+     * @return Ordinal of code, or {@link #NOT_FOUND} if code isn't in registry
+     */
+    public int ordinalOf(byte[] bytes, int offset) {
+        return ordinalOfPacked(pack(bytes, offset));
+    }
+
+    /**
+     * @param buffer Buffer containing code in ASCII
+     * @param index Absolute index of first letter of code
+     * @return Ordinal of code, or {@link #NOT_FOUND} if code isn't in registry
+     */
+    public int ordinalOf(ByteBuffer buffer, int index) {
+        return ordinalOfPacked(pack(buffer, index));
+    }
+
+    /**
+     * @param packedCode Code from one of pack() methods
+     * @return Ordinal of code, or {@link #NOT_FOUND} if code isn't in registry
+     */
+    public int ordinalOfPacked(int packedCode) {
+        return packedCode == NOT_PACKABLE ? NOT_FOUND : ordinalByPackedCode[packedCode];
+    }
+
+    /**
+     * @param ordinal Ordinal of code
+     * @return Currency code
+     */
+    public String getCode(int ordinal) {
+        return codes[ordinal];
+    }
+
+    /**
+     * @return Number of codes in registry
+     */
+    public int size() {
+        return codes.length;
+    }
+
+    /**
+     * @return Unmodifiable set of all codes, iterated in order of ordinals
+     */
+    public SortedSet<String> getCodes() {
+        return codeSet;
+    }
+}
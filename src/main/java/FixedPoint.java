@@ -0,0 +1,140 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point arithmetic used by fast conversion paths.
+ * <p>Rates are kept as longs scaled by 10^{@link #RATE_SCALE} and amounts as longs in minor units
+ * (cents), so conversions don't create any objects. Results are the same as multiplying
+ * BigDecimal values and rounding them HALF_UP to 2nd decimal place.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+final class FixedPoint {
+
+    //Number of decimal places kept in scaled rates, ECB publishes at most 5 of them
+    static final int RATE_SCALE = 6;
+
+    //Number of decimal places of minor units amounts
+    static final int AMOUNT_SCALE = 2;
+
+    //Returned by toScaledRate() for rates which can't be stored exactly as scaled long
+    static final long NOT_SCALABLE = -1;
+
+    //Longest text written by writeAmount(), sign and dot included
+    static final int MAX_AMOUNT_LENGTH = 21;
+
+    private static final long RATE_ONE = 1_000_000L;
+    private static final long RATE_HALF = RATE_ONE / 2;
+
+    //Scaled rates have at most 18 digits
+    private static final long MAX_SCALED_RATE = 1_000_000_000_000_000_000L;
+
+    private FixedPoint() {
+    }
+
+    /**
+     * Converts rate to long scaled by 10^{@link #RATE_SCALE}.
+     *
+     * @param rate Rate greater than zero
+     * @return Scaled rate or {@link #NOT_SCALABLE} if rate has more decimal places or is too big
+     */
+    static long toScaledRate(BigDecimal rate) {
+        if (rate == null || rate.signum() <= 0) {
+            return NOT_SCALABLE;
+        }
+
+        //Scaled value must fit in 18 digits, so it's always less than Long.MAX_VALUE
+        BigDecimal stripped = rate.stripTrailingZeros();
+        if (stripped.scale() > RATE_SCALE || stripped.precision() - stripped.scale() > 18 - RATE_SCALE) {
+            return NOT_SCALABLE;
+        }
+        return stripped.setScale(RATE_SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValue();
+    }
+
+    /**
+     * Converts rate given as unscaled value and scale to long scaled by 10^{@link #RATE_SCALE}, without
+     * creating BigDecimal.
+     *
+     * @param unscaled Unscaled value of rate
+     * @param scale Scale of rate
+     * @return The same as {@link #toScaledRate(BigDecimal)} of {@code BigDecimal.valueOf(unscaled, scale)}
+     */
+    static long toScaledRate(long unscaled, int scale) {
+        if (unscaled <= 0) {
+            return NOT_SCALABLE;
+        }
+
+        //Trailing zeros don't change rate, so they're removed like by stripTrailingZeros()
+        while (scale > RATE_SCALE && unscaled % 10 == 0) {
+            unscaled /= 10;
+            scale--;
+        }
+        if (scale > RATE_SCALE || RATE_SCALE - scale > 18) {
+            return NOT_SCALABLE;
+        }
+        for (int i = scale; i < RATE_SCALE; i++) {
+            if (unscaled >= MAX_SCALED_RATE / 10) {
+                return NOT_SCALABLE;
+            }
+            unscaled *= 10;
+        }
+        return unscaled < MAX_SCALED_RATE ? unscaled : NOT_SCALABLE;
+    }
+
+    /**
+     * Biggest amount in minor units which can be multiplied by rate without overflow.
+     *
+     * @param scaledRate Rate from {@link #toScaledRate(BigDecimal)}
+     * @return Limit of amount for {@link #multiply(long, long)}, -1 if rate is not scalable
+     */
+    static long amountLimit(long scaledRate) {
+        if (scaledRate <= 0) {
+            return -1;
+        }
+        return (Long.MAX_VALUE - RATE_HALF) / scaledRate;
+    }
+
+    /**
+     * Multiplies amount by rate and rounds result HALF_UP to minor units.
+     * <p>Caller must check that amount is between 0 and {@link #amountLimit(long)}.</p>
+     *
+     * @param amountMinor Amount in minor units, not negative
+     * @param scaledRate Rate from {@link #toScaledRate(BigDecimal)}
+     * @return Converted amount in minor units
+     */
+    static long multiply(long amountMinor, long scaledRate) {
+        return (amountMinor * scaledRate + RATE_HALF) / RATE_ONE;
+    }
+
+    /**
+     * Writes amount in minor units as ASCII decimal number with {@link #AMOUNT_SCALE} decimal places, e.g. 12.05.
+     *
+     * @param amountMinor Amount in minor units
+     * @param bytes Array for text, must have at least {@link #MAX_AMOUNT_LENGTH} bytes free from offset
+     * @param offset Index of first written byte
+     * @return Index after last written byte
+     */
+    static int writeAmount(long amountMinor, byte[] bytes, int offset) {
+        if (amountMinor < 0) {
+            bytes[offset++] = '-';
+        }
+
+        //Digits are written from the end, at least 3 of them (0.05 is written as 005 with dot added)
+        int digits = 3;
+        for (long rest = Math.abs(amountMinor / 1000); rest > 0; rest /= 10) {
+            digits++;
+        }
+
+        int position = offset + digits;
+        long rest = amountMinor;
+        for (int i = 0; i < digits; i++) {
+            if (i == AMOUNT_SCALE) {
+                bytes[position--] = '.';
+            }
+            bytes[position--] = (byte) ('0' + Math.abs(rest % 10));
+            rest /= 10;
+        }
+        return offset + digits + 1;
+    }
+}
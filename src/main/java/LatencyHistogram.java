@@ -0,0 +1,112 @@
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations with buckets growing by powers of two.
+ * <p>Duration is put into bucket by number of its significant bits, so recording is just one bit operation
+ * and increment of striped counter. It never locks and doesn't create objects, so it can be used on every
+ * conversion. Percentiles are reported as upper bound of bucket, so they are accurate up to factor of 2.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+final class LatencyHistogram {
+
+    //Bucket i holds durations up to 2^i - 1 ns, the last one (~9 minutes and more) holds everything above
+    static final int BUCKET_COUNT = 40;
+
+    private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    LatencyHistogram() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param nanos Measured duration in nanoseconds, negative durations are recorded as 0
+     */
+    void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        buckets[Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKET_COUNT - 1)].increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    /**
+     * @return Number of recorded durations in every bucket
+     */
+    long[] getBucketCounts() {
+        long[] counts = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] = buckets[i].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * @param bucket Index of bucket
+     * @return The biggest duration in nanoseconds which falls into bucket
+     */
+    static long upperBound(int bucket) {
+        return bucket == BUCKET_COUNT - 1 ? Long.MAX_VALUE : (1L << bucket) - 1;
+    }
+
+    /**
+     * @return Number of recorded durations
+     */
+    long getCount() {
+        long count = 0;
+        for (LongAdder bucket : buckets) {
+            count += bucket.sum();
+        }
+        return count;
+    }
+
+    /**
+     * @return Sum of recorded durations in nanoseconds
+     */
+    long getSum() {
+        return sum.sum();
+    }
+
+    /**
+     * @return The longest recorded duration in nanoseconds
+     */
+    long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Estimates percentile of recorded durations.
+     * <p>Counters are read while other threads may record, so result is approximate under load.</p>
+     *
+     * @param percentile Percentile between 0 and 100, e.g. 99.9
+     * @return Upper bound of bucket containing percentile in nanoseconds (never more than max), 0 if nothing
+     * was recorded
+     */
+    long getPercentile(double percentile) {
+        long[] counts = getBucketCounts();
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), getMax());
+            }
+        }
+        return getMax();
+    }
+}
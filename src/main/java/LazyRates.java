@@ -0,0 +1,251 @@
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.channels.FileChannel;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Latest rates read from xml file only as far as they are needed, for one-off conversions from command line.
+ * <p>ECB files (daily and history) have the newest day first, so latest rates are in the first Cube element with
+ * time attribute. Reading stops as soon as asked currency is found, and continues from that place when other
+ * currency is asked for. After the first day file is closed, the rest of history is never read.</p>
+ * <p>Rates are the same as {@link RateStore#getLatestRates()} of files with the newest day first. Like in history,
+ * rates without date (before the first Cube element with time attribute) are rates of the newest day, unless
+ * that day has its own rate of currency, and file without any date is read whole. Only read part of file
+ * is checked, so broken file can give rates before its problem is found. Files with other order of days should
+ * be loaded whole by {@link XMLParser}.</p>
+ * <p>Reading is not thread safe, one instance should be used by one thread.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class LazyRates implements AutoCloseable {
+
+    //Smaller than buffer of XMLParser, so one-off conversion doesn't read much more than it needs
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final String filePath;
+    private final SortedMap<String, BigDecimal> rates = new TreeMap<>();
+
+    //Rates before the first date, used when the newest day doesn't have currency
+    private final SortedMap<String, BigDecimal> undatedRates = new TreeMap<>();
+
+    private FileChannel channel;
+    private XMLStreamReader reader;
+    private long bytesRead;
+    private LocalDate date;
+    private boolean complete;
+
+    /**
+     * Constructor which doesn't read file yet.
+     *
+     * @param filePath String with path to xml file
+     */
+    public LazyRates(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Get the latest rate of currency, reading file only until it's found.
+     *
+     * @param currency Currency tag
+     * @return Rate of currency from the newest day of file or without date, null if file doesn't have it
+     * @throws RateLoadException If file can't be read or its read part isn't formatted properly
+     */
+    public BigDecimal getRate(String currency) throws RateLoadException {
+        BigDecimal rate = rates.get(currency);
+        if (rate == null && !complete) {
+            readUntil(currency);
+            rate = rates.get(currency);
+        }
+
+        //Reading stopped before currency only if the newest day has it, so here whole day was read
+        return rate != null ? rate : undatedRates.get(currency);
+    }
+
+    /**
+     * Get the latest rates of some currencies, reading file only until all of them are found.
+     *
+     * @param currencies Currency tags
+     * @return Sorted map of found currencies and their rates from the newest day of file
+     * @throws RateLoadException If file can't be read or its read part isn't formatted properly
+     */
+    public SortedMap<String, BigDecimal> getRates(Collection<String> currencies) throws RateLoadException {
+        SortedMap<String, BigDecimal> found = new TreeMap<>();
+        for (String currency : currencies) {
+            BigDecimal rate = getRate(currency);
+            if (rate != null) {
+                found.put(currency, rate);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get all rates of the newest day, reading file until end of that day.
+     *
+     * @return Unmodifiable sorted map of currencies and their rates from the newest day of file
+     * @throws RateLoadException If file can't be read or its read part isn't formatted properly
+     */
+    public SortedMap<String, BigDecimal> getLatestRates() throws RateLoadException {
+        if (!complete) {
+            readUntil(null);
+        }
+        if (undatedRates.isEmpty()) {
+            return Collections.unmodifiableSortedMap(rates);
+        }
+
+        SortedMap<String, BigDecimal> latestRates = new TreeMap<>(undatedRates);
+        latestRates.putAll(rates);
+        return Collections.unmodifiableSortedMap(latestRates);
+    }
+
+    /**
+     * Converts euros to other currency, like {@link Calculator#convertEuros(BigDecimal)} with the latest rates.
+     *
+     * @param amountInEuros Amount of Euros to convert, should be greater than 0 and not null
+     * @param currency Currency tag of target currency, Euro is converted with rate 1 without reading file
+     * @return Converted value rounded up to 2nd decimal place, or null if there is no rate of currency.
+     * If bad value given, return BigDecimal.ZERO
+     * @throws RateLoadException If file can't be read or its read part isn't formatted properly
+     */
+    public BigDecimal convertEuros(BigDecimal amountInEuros, String currency) throws RateLoadException {
+        BigDecimal rate = CrossRateTable.EURO.equals(currency) ? BigDecimal.ONE : getRate(currency);
+        if (rate == null) {
+            return null;
+        }
+        if (amountInEuros == null || amountInEuros.compareTo(BigDecimal.ZERO) < 0) {
+            return BigDecimal.ZERO;
+        }
+        return amountInEuros.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return Date of the newest day, null if it wasn't read yet or file doesn't have dated rates
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * @return True if all rates of the newest day were read and file is closed
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return Number of bytes read from file so far, with read buffer
+     */
+    public long getBytesRead() {
+        return channel == null ? bytesRead : position();
+    }
+
+    /**
+     * Closes file if it's still open. Rates read before stay available, others are not read anymore.
+     */
+    @Override
+    public void close() {
+        if (channel == null) {
+            complete = true;
+            return;
+        }
+
+        bytesRead = position();
+        try {
+            if (reader != null) {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            //Channel is closed below anyway
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("There was a problem with closing xml file.");
+        }
+        channel = null;
+        reader = null;
+        complete = true;
+    }
+
+    /**
+     * Reads rates of the newest day until currency is found or day ends.
+     *
+     * @param currency Currency tag to stop at, null to read whole day
+     */
+    private void readUntil(String currency) throws RateLoadException {
+        try {
+            if (reader == null) {
+                FileInputStream inputStream = new FileInputStream(filePath);
+                channel = inputStream.getChannel();
+                reader = XMLParser.createXMLInputFactory()
+                        .createXMLStreamReader(new BufferedInputStream(inputStream, BUFFER_SIZE));
+            }
+
+            while (reader.hasNext()) {
+                //Only start of Cube element can contain date, currency and rate
+                if (reader.next() != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals("Cube")) {
+                    continue;
+                }
+
+                String time = reader.getAttributeValue(null, "time");
+                if (time != null) {
+                    //Second day is older than the first one, so nothing more is needed
+                    if (date != null) {
+                        break;
+                    }
+                    date = LocalDate.parse(time);
+                    continue;
+                }
+
+                String cubeCurrency = reader.getAttributeValue(null, "currency");
+                if (cubeCurrency == null || cubeCurrency.equals("")) {
+                    continue;
+                }
+
+                //Missing rate attribute is treated the same way as in XMLParser - as empty String
+                String rate = reader.getAttributeValue(null, "rate");
+                BigDecimal cubeRate = new BigDecimal(rate == null ? "" : rate);
+                RateHistory.scaledRateOf(cubeCurrency, cubeRate);
+                if (date == null) {
+                    undatedRates.put(cubeCurrency, cubeRate);
+                    continue;
+                }
+                rates.putIfAbsent(cubeCurrency, cubeRate);
+                if (cubeCurrency.equals(currency)) {
+                    return;
+                }
+            }
+            close();
+        } catch (XMLStreamException e) {
+            close();
+            throw new RateLoadException("There was a problem during parsing xml file. Check XML file.", 3, e);
+        } catch (IOException e) {
+            close();
+            throw new RateLoadException("There was a problem with a file. Check if XML file exist.", 4, e);
+        } catch (NumberFormatException | ArithmeticException | DateTimeParseException e) {
+            close();
+            throw new RateLoadException("Error during parsing data from xml file. Is it formatted properly?", 5, e);
+        }
+    }
+
+    private long position() {
+        try {
+            return channel.position();
+        } catch (IOException e) {
+            return bytesRead;
+        }
+    }
+}
@@ -1,11 +1,21 @@
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Paths;
 import java.util.Properties;
 
 /**
  * Main class for Currency Calculator.
  * <p>Starts program after obtaining configuration data.</p>
  * <p>If app exit with code 1 there was a problem with config.properties file.</p>
+ * <p>Depending on app.mode property it shows interactive menu, starts HTTP server or converts lines from
+ * standard input (pipe mode, also selected by {@code --pipe} argument).</p>
+ * <p>With arguments {@code --csv input.csv output.csv [currency]} it converts CSV file with transactions
+ * to given currency (Euro by default) and quits.</p>
+ * <p>With arguments {@code --convert amount currency} it converts one amount of euros with the latest rates
+ * and quits. Xml file is read only until rate of currency is found (see {@link LazyRates}).</p>
  *
  * @author Mateusz Prill
  * @version 1.0
@@ -18,9 +28,19 @@ public class Main {
      * Main function that starts app running.
      * <p>It also gets properties from config.properties file and set them.</p>
      *
-     * @param args Optional arguments, not used by app
+     * @param args Optional arguments, {@code --pipe} selects pipe mode regardless of configuration,
+     *             {@code --csv input output [currency]} converts CSV file,
+     *             {@code --convert amount currency} converts one amount
      */
     public static void main(String[] args) {
+        boolean pipeArgument = args.length > 0 && args[0].equals("--pipe");
+
+        //In pipe mode standard output is only for results, all messages go to standard error
+        PrintStream standardOutput = System.out;
+        if (pipeArgument) {
+            System.setOut(System.err);
+        }
+
         Properties properties = new Properties();
         try (FileInputStream fis = new FileInputStream(FILEPATH)) {
             properties.load(fis);
@@ -32,13 +52,198 @@ public class Main {
             }
             String xmlFilePath = properties.getProperty("app.xml.path");
 
-            //Property xmlFilePath is used by Calculator object to get (currencies,rates) map from xml file
-            Menu menu = new Menu(new Calculator(xmlFilePath));
+            //One-off conversion doesn't need history, watcher nor any other configuration
+            if (args.length >= 3 && args[0].equals("--convert")) {
+                convertOnce(xmlFilePath, args);
+                return;
+            }
+
+            //Optional precision of rates between two currencies other than Euro
+            int crossRateScale = CrossRateTable.DEFAULT_SCALE;
+            RoundingMode crossRateRounding = CrossRateTable.DEFAULT_ROUNDING;
+            try {
+                crossRateScale = Integer.parseInt(properties.getProperty("app.cross.scale",
+                        String.valueOf(CrossRateTable.DEFAULT_SCALE)).trim());
+                crossRateRounding = RoundingMode.valueOf(properties.getProperty("app.cross.rounding",
+                        CrossRateTable.DEFAULT_ROUNDING.name()).trim());
+            } catch (IllegalArgumentException e) {
+                System.out.println("Configuration of cross rates is not valid: " + e.getMessage());
+                System.exit(1);
+            }
+
+            //Mode of application - interactive menu (default), HTTP server for other services or pipe
+            String mode = pipeArgument ? "pipe" : properties.getProperty("app.mode", "menu").trim();
+            boolean serverMode = mode.equals("server");
+            boolean pipeMode = mode.equals("pipe");
+            if (pipeMode) {
+                System.setOut(System.err);
+            }
+            int serverPort = 0;
+            try {
+                serverPort = Integer.parseInt(properties.getProperty("app.server.port", "8080").trim());
+            } catch (NumberFormatException e) {
+                System.out.println("Configuration of server port is not valid: " + e.getMessage());
+                System.exit(1);
+            }
+
+            //Optional cache of converted amounts, 0 turns it off
+            ConversionCache conversionCache = null;
+            try {
+                int cacheSize = Integer.parseInt(properties.getProperty("app.conversion.cache", "0").trim());
+                conversionCache = cacheSize > 0 ? new ConversionCache(cacheSize) : null;
+                Metrics.INSTANCE.setConversionCache(conversionCache);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Configuration of conversion cache is not valid: " + e.getMessage());
+                System.exit(1);
+            }
+
+            //Metrics are available in JMX clients (e.g. JConsole) as CurrencyCalculator:type=Metrics
+            Metrics.register();
+
+            //Property xmlFilePath is used by reloader to get (currencies,rates) map from xml file every time it changes
+            boolean useCache = Boolean.parseBoolean(properties.getProperty("app.xml.cache", "true").trim());
+            boolean compress = Boolean.parseBoolean(properties.getProperty("app.xml.compressed", "false").trim());
+
+            //Optional journal of every loaded rate set, for checking later which rates were used
+            String journalPath = properties.getProperty("app.journal.path", "").trim();
+            RateJournal rateJournal = null;
+            if (!journalPath.isEmpty()) {
+                try {
+                    rateJournal = new RateJournal(Paths.get(journalPath));
+                } catch (IOException e) {
+                    System.out.println("Rate journal can't be opened: " + e.getMessage());
+                    System.exit(1);
+                }
+            }
+            RateReloader rateReloader = new RateReloader(xmlFilePath, crossRateScale, crossRateRounding, useCache,
+                    compress, rateJournal);
+
+            //Server keeps running after main ends, so journal is closed when JVM stops in every mode
+            if (rateJournal != null) {
+                RateJournal journal = rateJournal;
+                Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                    rateReloader.close();
+                    journal.close();
+                }, "rate-journal-close"));
+            }
+
+            if (args.length >= 3 && args[0].equals("--csv")) {
+                convertCsv(rateReloader.get().getRateHistory(), args);
+                return;
+            }
+
+            //Whole input of pipe is converted with the same rates, so file isn't watched
+            if (pipeMode) {
+                PipeConverter pipeConverter = new PipeConverter(rateReloader, conversionCache);
+                try {
+                    pipeConverter.convert(System.in, standardOutput, System.err);
+                } catch (IOException e) {
+                    System.out.println("Pipe can't be read or written: " + e.getMessage());
+                    System.exit(7);
+                }
+                if (pipeConverter.getRejectedLines() > 0) {
+                    System.out.println("Rejected lines: " + pipeConverter.getRejectedLines() + ".");
+                }
+                return;
+            }
+
+            try {
+                rateReloader.start();
+            } catch (IOException e) {
+                System.out.println("Can't watch XML file for changes, rates will be loaded only once.");
+            }
+
+            if (serverMode) {
+                //JDK server reads this property once, so it must be set before server is created
+                if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+                    System.setProperty("sun.net.httpserver.nodelay", "true");
+                }
+                try {
+                    ConversionServer server = new ConversionServer(rateReloader, serverPort, conversionCache);
+                    server.start();
+                    System.out.println("Currency Calculator server is listening on port " + server.getPort() + ".");
+                } catch (IOException e) {
+                    System.out.println("Server can't listen on port " + serverPort + ": " + e.getMessage());
+                    System.exit(6);
+                }
+                return;
+            }
+
+            Menu menu = new Menu(new Calculator(rateReloader, conversionCache));
             menu.showMenu();
+            rateReloader.close();
+        } catch (RateLoadException e) {
+            System.out.println(e.getMessage());
+            e.getCause().printStackTrace();
+            System.exit(e.getExitCode());
         } catch (IOException e) {
             System.out.println("No configuration file detected.");
             System.out.println("App will close.");
         }
     }
 
+    /**
+     * Converts one amount given in arguments and prints result.
+     * <p>Single xml file is read lazily, directory or glob pattern of files is loaded whole.</p>
+     *
+     * @param xmlFilePath Path to xml file, directory of xml files or glob pattern
+     * @param args Arguments {@code --convert amount currency}
+     * @throws RateLoadException If rates can't be loaded
+     */
+    private static void convertOnce(String xmlFilePath, String[] args) throws RateLoadException {
+        //The same limits as other inputs, so huge exponent is rejected instead of being expanded
+        BigDecimal amount = AmountParser.parseAmount(args[1]);
+        if (amount == null) {
+            System.out.println("Amount " + args[1] + " is not a valid number.");
+            System.exit(1);
+            return;
+        }
+        if (amount.signum() <= 0) {
+            System.out.println("Amount " + args[1] + " must be greater than zero.");
+            System.exit(1);
+            return;
+        }
+
+        BigDecimal converted;
+        RateSource source = RateSource.of(xmlFilePath);
+        if (source.isSingleFile()) {
+            try (LazyRates lazyRates = new LazyRates(source.getSingleFile().toString())) {
+                converted = lazyRates.convertEuros(amount, args[2]);
+            }
+        } else {
+            //Table of rates has Euro too, so Euro is converted with rate 1
+            RateSnapshot snapshot = new RateReloader(xmlFilePath, CrossRateTable.DEFAULT_SCALE,
+                    CrossRateTable.DEFAULT_ROUNDING).get();
+            converted = snapshot.getCrossRateTable().convert(amount, CrossRateTable.EURO, args[2]);
+        }
+
+        if (converted == null) {
+            System.out.println("There is no rate of " + args[2] + " in xml file.");
+            System.exit(1);
+        }
+        System.out.println(converted.toPlainString());
+    }
+
+    /**
+     * Converts CSV file given in arguments and prints summary.
+     *
+     * @param rateHistory Rates for dates of transactions
+     * @param args Arguments {@code --csv input output [currency]}
+     */
+    private static void convertCsv(RateStore rateHistory, String[] args) {
+        String targetCurrency = args.length > 3 ? args[3] : CrossRateTable.EURO;
+        try {
+            long start = System.nanoTime();
+            CsvConversionEngine.Summary summary = new CsvConversionEngine(rateHistory, targetCurrency)
+                    .convert(Paths.get(args[1]), Paths.get(args[2]), System.err);
+            System.out.println("Converted rows: " + summary.getConvertedRows() + ", rejected rows: "
+                    + summary.getRejectedRows() + ", time: " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.out.println("CSV file can't be read or written: " + e.getMessage());
+            System.exit(7);
+        }
+    }
 }
@@ -1,5 +1,4 @@
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -211,30 +210,26 @@ public class Menu {
     /**
      * Method for checking if user input can be converted to BigDecimal.
      * <p>It also cheks if the value is greater than zero.</p>
+     * <p>Input is parsed by {@link AmountParser}, so rejecting bad input doesn't throw any exception.</p>
      *
      * @param euros String given by user, it should contains amount of euros in correct data
      * @return If data can't be converted to BigDecimal or is less than 0 - returns empty Optional. In other cases it returns Big Decimal value wrapped by Optional object.
      */
     public Optional<BigDecimal> checkInputEuros(String euros){
 
-        Optional<BigDecimal> returnValue;
-        BigDecimal eurosBigDecimal;
-
-        try {
-            //Rounding up given value to 2nd decimal part
-            eurosBigDecimal = new BigDecimal(euros).setScale(2, RoundingMode.HALF_UP);
-
-        } catch (NumberFormatException e) {
+        //Rounding up given value to 2nd decimal part, amounts like 1E999999999 are rejected as bad format
+        BigDecimal eurosBigDecimal = AmountParser.parseAmount(euros);
+        if (eurosBigDecimal == null) {
+            Metrics.INSTANCE.recordInvalidInput();
             return Optional.empty();
         }
 
         //If euros after conversion are positive value - write it as returning value
         if(eurosBigDecimal.compareTo(BigDecimal.ZERO) > 0) {
-            returnValue = Optional.of(eurosBigDecimal);
+            return Optional.of(eurosBigDecimal);
         } else {
-            returnValue = Optional.empty();
+            Metrics.INSTANCE.recordNonPositiveInput();
+            return Optional.empty();
         }
-
-        return returnValue;
     }
 }
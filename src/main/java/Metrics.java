@@ -0,0 +1,265 @@
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import java.lang.management.ManagementFactory;
+import java.time.Instant;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of conversions, xml loading and user input, shared by whole application.
+ * <p>Counters on hot paths are striped ({@link LongAdder}), so recording doesn't lock and doesn't create objects.
+ * Counter of currency is looked up once when currency is selected, not on every conversion.</p>
+ * <p>Metrics are available through platform MBean server after {@link #register()} and as text
+ * from {@link #dump()}.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class Metrics implements MetricsMXBean {
+
+    //Name under which metrics are visible in JMX clients
+    public static final String OBJECT_NAME = "CurrencyCalculator:type=Metrics";
+
+    //Metrics of whole application
+    public static final Metrics INSTANCE = new Metrics();
+
+    private final ConcurrentHashMap<String, LongAdder> conversionsByCurrency = new ConcurrentHashMap<>();
+    private final LatencyHistogram conversionLatency = new LatencyHistogram();
+
+    private final LongAdder parseCount = new LongAdder();
+    private final LongAdder parseFailureCount = new LongAdder();
+    private volatile long lastParseNanos;
+    private volatile long lastParseRateCount;
+    private volatile Instant lastSuccessfulLoad;
+
+    private final LongAdder invalidInputCount = new LongAdder();
+    private final LongAdder nonPositiveInputCount = new LongAdder();
+
+    //Cache of converted amounts used by application, null if it's turned off
+    private volatile ConversionCache conversionCache;
+
+    private Metrics() {
+    }
+
+    /**
+     * Registers metrics in platform MBean server. Next calls do nothing.
+     * <p>Application works also without metrics, so problem with registration is only printed.</p>
+     */
+    public static void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE, new ObjectName(OBJECT_NAME));
+        } catch (InstanceAlreadyExistsException e) {
+            //Already registered
+        } catch (JMException e) {
+            System.out.println("Metrics can't be registered in JMX: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Get counter of conversions to currency, it should be kept by caller and passed to
+     * {@link #recordConversion(LongAdder, long)}.
+     *
+     * @param currency Currency tag
+     * @return Counter of conversions to currency
+     */
+    LongAdder conversionCounter(String currency) {
+        return conversionsByCurrency.computeIfAbsent(currency, key -> new LongAdder());
+    }
+
+    /**
+     * @param counter Counter of target currency from {@link #conversionCounter(String)}
+     * @param nanos Duration of conversion
+     */
+    void recordConversion(LongAdder counter, long nanos) {
+        counter.increment();
+        conversionLatency.record(nanos);
+    }
+
+    /**
+     * Counts conversions which aren't timed. Batches are not recorded in latency histogram, because it keeps times
+     * of single conversions, and single conversions in minor units are timed only from time to time.
+     *
+     * @param counter Counter of target currency from {@link #conversionCounter(String)}
+     * @param count Number of converted amounts
+     */
+    void recordConversions(LongAdder counter, long count) {
+        counter.add(count);
+    }
+
+    /**
+     * @param nanos Duration of loading rates, from xml file or its cache
+     * @param rateCount Number of loaded rates
+     */
+    void recordParse(long nanos, long rateCount) {
+        lastParseNanos = nanos;
+        lastParseRateCount = rateCount;
+        lastSuccessfulLoad = Instant.now();
+        parseCount.increment();
+    }
+
+    void recordParseFailure() {
+        parseFailureCount.increment();
+    }
+
+    /**
+     * @param cache Cache of converted amounts whose hits and misses are reported, null if there is no cache
+     */
+    void setConversionCache(ConversionCache cache) {
+        conversionCache = cache;
+    }
+
+    void recordInvalidInput() {
+        invalidInputCount.increment();
+    }
+
+    void recordNonPositiveInput() {
+        nonPositiveInputCount.increment();
+    }
+
+    @Override
+    public long getConversionCount() {
+        //Counters of currencies include batches, which histogram doesn't have
+        long count = 0;
+        for (LongAdder counter : conversionsByCurrency.values()) {
+            count += counter.sum();
+        }
+        return count;
+    }
+
+    @Override
+    public Map<String, Long> getConversionCountByCurrency() {
+        Map<String, Long> counts = new TreeMap<>();
+        conversionsByCurrency.forEach((currency, counter) -> counts.put(currency, counter.sum()));
+        return counts;
+    }
+
+    @Override
+    public long getConversionLatencyP50Nanos() {
+        return conversionLatency.getPercentile(50);
+    }
+
+    @Override
+    public long getConversionLatencyP99Nanos() {
+        return conversionLatency.getPercentile(99);
+    }
+
+    @Override
+    public long getConversionLatencyP999Nanos() {
+        return conversionLatency.getPercentile(99.9);
+    }
+
+    @Override
+    public long getConversionLatencyMaxNanos() {
+        return conversionLatency.getMax();
+    }
+
+    @Override
+    public long getParseCount() {
+        return parseCount.sum();
+    }
+
+    @Override
+    public long getParseFailureCount() {
+        return parseFailureCount.sum();
+    }
+
+    @Override
+    public double getLastParseMillis() {
+        return lastParseNanos / 1e6;
+    }
+
+    @Override
+    public long getLastParseRateCount() {
+        return lastParseRateCount;
+    }
+
+    @Override
+    public String getLastSuccessfulLoad() {
+        Instant loaded = lastSuccessfulLoad;
+        return loaded == null ? "" : loaded.toString();
+    }
+
+    @Override
+    public long getInvalidInputCount() {
+        return invalidInputCount.sum();
+    }
+
+    @Override
+    public long getNonPositiveInputCount() {
+        return nonPositiveInputCount.sum();
+    }
+
+    @Override
+    public long getConversionCacheHitCount() {
+        ConversionCache cache = conversionCache;
+        return cache == null ? 0 : cache.getHitCount();
+    }
+
+    @Override
+    public long getConversionCacheMissCount() {
+        ConversionCache cache = conversionCache;
+        return cache == null ? 0 : cache.getMissCount();
+    }
+
+    @Override
+    public String dump() {
+        StringBuilder text = new StringBuilder();
+
+        text.append("# TYPE currency_conversions_total counter\n");
+        getConversionCountByCurrency().forEach((currency, count) -> text
+                .append("currency_conversions_total{currency=\"").append(currency).append("\"} ").append(count)
+                .append('\n'));
+
+        //Prometheus buckets are cumulative, empty buckets at the end are skipped
+        text.append("# TYPE currency_conversion_latency_seconds histogram\n");
+        long[] counts = conversionLatency.getBucketCounts();
+        int lastBucket = counts.length - 2;
+        while (lastBucket > 0 && counts[lastBucket] == 0) {
+            lastBucket--;
+        }
+        long cumulative = 0;
+        for (int i = 0; i <= lastBucket; i++) {
+            cumulative += counts[i];
+            text.append("currency_conversion_latency_seconds_bucket{le=\"")
+                    .append(LatencyHistogram.upperBound(i) / 1e9).append("\"} ").append(cumulative).append('\n');
+        }
+        for (int i = lastBucket + 1; i < counts.length; i++) {
+            cumulative += counts[i];
+        }
+        text.append("currency_conversion_latency_seconds_bucket{le=\"+Inf\"} ").append(cumulative).append('\n');
+        text.append("currency_conversion_latency_seconds_sum ").append(conversionLatency.getSum() / 1e9).append('\n');
+        text.append("currency_conversion_latency_seconds_count ").append(cumulative).append('\n');
+
+        text.append("# TYPE currency_xml_loads_total counter\n");
+        text.append("currency_xml_loads_total{result=\"success\"} ").append(getParseCount()).append('\n');
+        text.append("currency_xml_loads_total{result=\"failure\"} ").append(getParseFailureCount()).append('\n');
+        text.append("# TYPE currency_xml_last_load_seconds gauge\n");
+        text.append("currency_xml_last_load_seconds ").append(lastParseNanos / 1e9).append('\n');
+        text.append("# TYPE currency_xml_last_load_rates gauge\n");
+        text.append("currency_xml_last_load_rates ").append(getLastParseRateCount()).append('\n');
+        Instant loaded = lastSuccessfulLoad;
+        if (loaded != null) {
+            text.append("# TYPE currency_xml_last_success_timestamp_seconds gauge\n");
+            text.append("currency_xml_last_success_timestamp_seconds ").append(loaded.getEpochSecond()).append('\n');
+        }
+
+        if (conversionCache != null) {
+            text.append("# TYPE currency_conversion_cache_lookups_total counter\n");
+            text.append("currency_conversion_cache_lookups_total{result=\"hit\"} ")
+                    .append(getConversionCacheHitCount()).append('\n');
+            text.append("currency_conversion_cache_lookups_total{result=\"miss\"} ")
+                    .append(getConversionCacheMissCount()).append('\n');
+        }
+
+        text.append("# TYPE currency_input_rejections_total counter\n");
+        text.append("currency_input_rejections_total{reason=\"not_a_number\"} ")
+                .append(getInvalidInputCount()).append('\n');
+        text.append("currency_input_rejections_total{reason=\"not_positive\"} ")
+                .append(getNonPositiveInputCount()).append('\n');
+        return text.toString();
+    }
+}
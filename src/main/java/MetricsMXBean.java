@@ -0,0 +1,91 @@
+import java.util.Map;
+
+/**
+ * Management interface of {@link Metrics}, available in JMX clients (e.g. JConsole) as
+ * {@value Metrics#OBJECT_NAME}.
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return Number of Euro conversions done by all calculators
+     */
+    long getConversionCount();
+
+    /**
+     * @return Number of Euro conversions for every target currency
+     */
+    Map<String, Long> getConversionCountByCurrency();
+
+    /**
+     * @return Median time of Euro conversion in nanoseconds (upper bound of histogram bucket)
+     */
+    long getConversionLatencyP50Nanos();
+
+    /**
+     * @return 99th percentile of time of Euro conversion in nanoseconds (upper bound of histogram bucket)
+     */
+    long getConversionLatencyP99Nanos();
+
+    /**
+     * @return 99.9th percentile of time of Euro conversion in nanoseconds (upper bound of histogram bucket)
+     */
+    long getConversionLatencyP999Nanos();
+
+    /**
+     * @return The longest Euro conversion in nanoseconds
+     */
+    long getConversionLatencyMaxNanos();
+
+    /**
+     * @return Number of successful loads of rates, from xml file or its cache
+     */
+    long getParseCount();
+
+    /**
+     * @return Number of loads of rates that failed
+     */
+    long getParseFailureCount();
+
+    /**
+     * @return Duration of the last successful load of rates in milliseconds
+     */
+    double getLastParseMillis();
+
+    /**
+     * @return Number of rates in the last successful load
+     */
+    long getLastParseRateCount();
+
+    /**
+     * @return Time of the last successful load of rates in ISO-8601 format, empty if there was none
+     */
+    String getLastSuccessfulLoad();
+
+    /**
+     * @return Number of user inputs rejected because they were not numbers
+     */
+    long getInvalidInputCount();
+
+    /**
+     * @return Number of user inputs rejected because they were not greater than zero
+     */
+    long getNonPositiveInputCount();
+
+    /**
+     * @return Number of lookups which found result in cache of converted amounts, 0 if cache is turned off
+     */
+    long getConversionCacheHitCount();
+
+    /**
+     * @return Number of lookups which didn't find result in cache of converted amounts, 0 if cache is turned off
+     */
+    long getConversionCacheMissCount();
+
+    /**
+     * @return All metrics in Prometheus text format
+     */
+    String dump();
+}
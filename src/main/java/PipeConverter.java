@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * Non-interactive converter for shell pipelines.
+ * <p>Reads lines like {@code 100.00 USD} (amount of Euros and target currency) and writes one line with
+ * converted amount and currency for every one of them, e.g. {@code 110.35 USD}. Amounts are rounded up to
+ * 2nd decimal place, like in {@link Menu}. Empty lines are omitted, bad lines are reported with their
+ * number and stream goes on.</p>
+ * <p>Input is read and output is written as ASCII bytes in big buffers. Currency is looked up straight from
+ * input bytes, amounts are parsed by {@link AmountParser} and typical amounts are converted on longs, so there are
+ * no objects created per line.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class PipeConverter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    //Space needed in output buffer for one result converted on longs
+    private static final int MAX_LONG_RESULT = 64;
+
+    private final Supplier<RateSnapshot> snapshots;
+    private final ConversionCache cache;
+
+    private long convertedLines;
+    private long rejectedLines;
+
+    //Output is collected here and written when buffer is full
+    private final byte[] output = new byte[BUFFER_SIZE];
+    private int outputSize;
+    private OutputStream outputStream;
+
+    /**
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     */
+    public PipeConverter(Supplier<RateSnapshot> snapshots) {
+        this(snapshots, null);
+    }
+
+    /**
+     * @param snapshots Source of rates, e.g. {@link RateReloader}
+     * @param cache Cache of converted amounts shared by users of the same source, null for no cache. It's used
+     *              only by amounts converted with BigDecimal, converting on longs is faster than lookup in cache
+     */
+    public PipeConverter(Supplier<RateSnapshot> snapshots, ConversionCache cache) {
+        this.snapshots = snapshots;
+        this.cache = cache;
+    }
+
+    /**
+     * Converts all lines from input until its end.
+     *
+     * @param input Lines with amount of Euros and currency tag
+     * @param output Stream for converted amounts, flushed at the end
+     * @param errors Stream for reports about bad lines
+     * @throws IOException If input can't be read or output can't be written
+     */
+    public void convert(InputStream input, OutputStream output, PrintStream errors) throws IOException {
+        this.outputStream = output;
+        this.outputSize = 0;
+        this.convertedLines = 0;
+        this.rejectedLines = 0;
+
+        byte[] buffer = new byte[BUFFER_SIZE];
+        int size = 0;
+        long lineNumber = 0;
+
+        int read;
+        while ((read = input.read(buffer, size, buffer.length - size)) != -1) {
+            size += read;
+
+            //Every complete line in buffer is converted, rest of last line waits for next read
+            int lineStart = 0;
+            for (int i = 0; i < size; i++) {
+                if (buffer[i] == '\n') {
+                    convertLine(buffer, lineStart, i, ++lineNumber, errors);
+                    lineStart = i + 1;
+                }
+            }
+
+            size -= lineStart;
+            System.arraycopy(buffer, lineStart, buffer, 0, size);
+
+            //Line longer than buffer
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+        }
+
+        //Last line doesn't need to end with new line character
+        if (size > 0) {
+            convertLine(buffer, 0, size, ++lineNumber, errors);
+        }
+
+        flushOutput();
+        output.flush();
+        errors.flush();
+    }
+
+    /**
+     * @return Number of lines converted by last call of {@link #convert(InputStream, OutputStream, PrintStream)}
+     */
+    public long getConvertedLines() {
+        return convertedLines;
+    }
+
+    /**
+     * @return Number of bad lines reported by last call of {@link #convert(InputStream, OutputStream, PrintStream)}
+     */
+    public long getRejectedLines() {
+        return rejectedLines;
+    }
+
+    private void convertLine(byte[] bytes, int start, int end, long lineNumber, PrintStream errors)
+            throws IOException {
+        //Line can end with \r\n and can have spaces around values
+        while (end > start && isWhitespace(bytes[end - 1])) {
+            end--;
+        }
+        while (start < end && isWhitespace(bytes[start])) {
+            start++;
+        }
+        if (start == end) {
+            return;
+        }
+
+        int amountEnd = start;
+        while (amountEnd < end && !isWhitespace(bytes[amountEnd])) {
+            amountEnd++;
+        }
+        int currencyStart = amountEnd;
+        while (currencyStart < end && isWhitespace(bytes[currencyStart])) {
+            currencyStart++;
+        }
+        if (currencyStart == end) {
+            reject(bytes, start, end, lineNumber, "expected amount and currency", errors);
+            return;
+        }
+
+        RateSnapshot snapshot = snapshots.get();
+        int ordinal = end - currencyStart == 3
+                ? snapshot.getCurrencyRegistry().ordinalOf(bytes, currencyStart) : CurrencyRegistry.NOT_FOUND;
+        if (ordinal == CurrencyRegistry.NOT_FOUND) {
+            reject(bytes, start, end, lineNumber, "unknown currency", errors);
+            return;
+        }
+
+        long cents = AmountParser.parseCents(bytes, start, amountEnd);
+        if (cents == AmountParser.INVALID) {
+            reject(bytes, start, end, lineNumber, "amount is not a number", errors);
+            return;
+        }
+
+        if (cents != AmountParser.UNSUPPORTED && cents <= 0) {
+            reject(bytes, start, end, lineNumber, "amount must be greater than zero", errors);
+            return;
+        }
+
+        //Amounts which fit in long with rate are converted without BigDecimal, like Calculator does
+        if (cents != AmountParser.UNSUPPORTED && cents <= snapshot.getAmountLimit(ordinal)) {
+            ensureOutputSpace(MAX_LONG_RESULT);
+            outputSize = FixedPoint.writeAmount(FixedPoint.multiply(cents, snapshot.getScaledRate(ordinal)),
+                    output, outputSize);
+        } else {
+            BigDecimal amount = cents != AmountParser.UNSUPPORTED ? BigDecimal.valueOf(cents, 2)
+                    : new BigDecimal(new String(bytes, start, amountEnd - start, StandardCharsets.US_ASCII));
+
+            //Exponent like 1E999999999 would make rounding build enormous number
+            if (amount.precision() - amount.scale() > AmountParser.MAX_INTEGER_DIGITS) {
+                reject(bytes, start, end, lineNumber, "amount is too big", errors);
+                return;
+            }
+
+            //And exponent like 1E-999999999 would make rounding divide by enormous number
+            if (amount.scale() > AmountParser.MAX_FRACTION_DIGITS) {
+                reject(bytes, start, end, lineNumber, "amount has too many decimal places", errors);
+                return;
+            }
+            amount = amount.setScale(2, RoundingMode.HALF_UP);
+            if (amount.signum() <= 0) {
+                reject(bytes, start, end, lineNumber, "amount must be greater than zero", errors);
+                return;
+            }
+
+            byte[] converted = convert(amount, snapshot, ordinal).toPlainString().getBytes(StandardCharsets.US_ASCII);
+            ensureOutputSpace(converted.length + 5);
+            System.arraycopy(converted, 0, output, outputSize, converted.length);
+            outputSize += converted.length;
+        }
+
+        output[outputSize++] = ' ';
+        System.arraycopy(bytes, currencyStart, output, outputSize, 3);
+        outputSize += 3;
+        output[outputSize++] = '\n';
+        convertedLines++;
+    }
+
+    private BigDecimal convert(BigDecimal amount, RateSnapshot snapshot, int ordinal) {
+        if (cache == null) {
+            return amount.multiply(snapshot.getRate(ordinal)).setScale(2, RoundingMode.HALF_UP);
+        }
+
+        //The same keys as in Calculator, so cache can be shared with calculators of the same source
+        BigDecimal converted = cache.get(amount, ordinal, snapshot.getVersion());
+        if (converted == null) {
+            converted = amount.multiply(snapshot.getRate(ordinal)).setScale(2, RoundingMode.HALF_UP);
+            cache.put(amount, ordinal, snapshot.getVersion(), converted);
+        }
+        return converted;
+    }
+
+    private void reject(byte[] bytes, int start, int end, long lineNumber, String reason, PrintStream errors) {
+        rejectedLines++;
+        errors.println("Line " + lineNumber + ": " + reason + ": "
+                + new String(bytes, start, end - start, StandardCharsets.US_ASCII));
+    }
+
+    private void ensureOutputSpace(int length) throws IOException {
+        if (outputSize + length > output.length) {
+            flushOutput();
+        }
+    }
+
+    private void flushOutput() throws IOException {
+        outputStream.write(output, 0, outputSize);
+        outputSize = 0;
+    }
+
+    private static boolean isWhitespace(byte character) {
+        return character == ' ' || character == '\t' || character == '\r';
+    }
+}
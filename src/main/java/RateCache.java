@@ -0,0 +1,273 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.zip.CRC32;
+
+/**
+ * Binary cache of rates parsed from xml file, kept next to it in file with ".rates" suffix.
+ * <p>After first parse rates are written in compact binary format. On later starts, if xml file wasn't changed,
+ * cache is memory-mapped instead of parsing xml. Xml file is treated as not changed when its size and modification
+ * time are the same as when cache was written, or when only modification time differs but checksum is the same.
+ * Touched file is parsed again if its last publication can be the day of modification, because rates without
+ * date get that day from {@link XMLParser}.</p>
+ * <p>Currencies and dates are read at once, columns of rates stay in mapped file, so system reads only pages
+ * of currencies which are really used.</p>
+ * <p>Format (big-endian):</p>
+ * <pre>
+ * int     magic "ECBR"
+ * int     format version
+ * long    size of xml file in bytes
+ * long    last modification time of xml file in milliseconds
+ * long    CRC32 checksum of xml file
+ * int     number of currencies (C)
+ * int     number of publications (P)
+ * C * 3   currencies tags in ASCII, sorted
+ * P * int epoch days of publications, sorted
+ * padding to multiple of 8 bytes
+ * C * P * long  scaled rates, column after column
+ * </pre>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class RateCache {
+
+    //Suffix added to name of xml file
+    public static final String SUFFIX = ".rates";
+
+    private static final int MAGIC = 0x45434252;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 8 + 4 + 4;
+    private static final int TAG_LENGTH = 3;
+
+    private RateCache() {
+    }
+
+    /**
+     * Loads rates from cache when it's up to date with xml file, in other case parses xml and writes new cache.
+     * <p>Problems with writing cache are ignored, then only xml file is used.</p>
+     *
+     * @param filePath String with path to xml file
+     * @return History of rates from xml file
+     * @throws RateLoadException If xml file can't be loaded
+     */
+    public static RateHistory loadRateHistory(String filePath) throws RateLoadException {
+        Path xmlFile = Paths.get(filePath);
+        Path cacheFile = cacheFileOf(xmlFile);
+
+        try {
+            RateHistory cached = read(xmlFile, cacheFile);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (IOException | RuntimeException e) {
+            //Broken cache is the same as no cache, it will be written again
+        }
+
+        //Version of xml file is taken before parsing, so cache is never written for newer file than parsed one
+        long xmlSize;
+        long xmlModified;
+        try {
+            xmlSize = Files.size(xmlFile);
+            xmlModified = Files.getLastModifiedTime(xmlFile).toMillis();
+        } catch (IOException e) {
+            //Parser reports missing or unreadable xml file
+            return XMLParser.loadRateHistory(filePath);
+        }
+
+        RateHistory rateHistory = XMLParser.loadRateHistory(filePath);
+        try {
+            write(xmlFile, cacheFile, rateHistory, xmlSize, xmlModified);
+        } catch (IOException e) {
+            System.out.println("Can't write cache of rates " + cacheFile + ", xml file will be parsed on next start.");
+        }
+        return rateHistory;
+    }
+
+    /**
+     * @param xmlFile Path to xml file
+     * @return Path to cache file of xml file
+     */
+    public static Path cacheFileOf(Path xmlFile) {
+        return xmlFile.resolveSibling(xmlFile.getFileName() + SUFFIX);
+    }
+
+    /**
+     * Memory-maps cache file if it was written for current version of xml file.
+     *
+     * @param xmlFile Path to xml file
+     * @param cacheFile Path to cache file
+     * @return History of rates or null if there is no cache or it's out of date
+     * @throws IOException If cache file can't be read
+     */
+    static RateHistory read(Path xmlFile, Path cacheFile) throws IOException {
+        if (!Files.isRegularFile(cacheFile)) {
+            return null;
+        }
+
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(cacheFile, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+            return null;
+        }
+
+        if (buffer.getLong(8) != Files.size(xmlFile)) {
+            return null;
+        }
+
+        //Checksum needs reading whole xml file, so it's checked only when file was touched or copied
+        long cachedModified = buffer.getLong(16);
+        boolean touched = cachedModified != Files.getLastModifiedTime(xmlFile).toMillis();
+        if (touched && buffer.getLong(24) != checksum(xmlFile)) {
+            return null;
+        }
+
+        int currencyCount = buffer.getInt(32);
+        int publicationCount = buffer.getInt(36);
+        int ratesOffset = ratesOffset(currencyCount, publicationCount);
+        if (currencyCount < 0 || publicationCount < 0
+                || buffer.capacity() != ratesOffset + 8L * currencyCount * publicationCount) {
+            return null;
+        }
+
+        String[] currencies = new String[currencyCount];
+        byte[] tag = new byte[TAG_LENGTH];
+        for (int i = 0; i < currencyCount; i++) {
+            for (int j = 0; j < TAG_LENGTH; j++) {
+                tag[j] = buffer.get(HEADER_SIZE + i * TAG_LENGTH + j);
+            }
+            currencies[i] = new String(tag, StandardCharsets.US_ASCII);
+        }
+
+        int daysOffset = HEADER_SIZE + currencyCount * TAG_LENGTH;
+        int[] publicationDays = new int[publicationCount];
+        for (int i = 0; i < publicationCount; i++) {
+            publicationDays[i] = buffer.getInt(daysOffset + i * 4);
+        }
+
+        //Rates without date are published on day of modification, so parser would give them new day now.
+        //Dated file whose last day is the same as day of modification is parsed again too, it's only slower
+        if (touched && publicationCount > 0
+                && publicationDays[publicationCount - 1] == modificationDay(cachedModified)) {
+            return null;
+        }
+
+        //Every column is a view of mapped file, nothing is copied
+        LongBuffer[] rates = new LongBuffer[currencyCount];
+        for (int i = 0; i < currencyCount; i++) {
+            ByteBuffer column = buffer.duplicate();
+            ((Buffer) column).position(ratesOffset + i * publicationCount * 8);
+            ((Buffer) column).limit(ratesOffset + (i + 1) * publicationCount * 8);
+            rates[i] = column.slice().order(ByteOrder.BIG_ENDIAN).asLongBuffer();
+        }
+
+        return new RateHistory(currencies, publicationDays, rates);
+    }
+
+    /**
+     * @param modified Modification time of xml file in milliseconds
+     * @return Epoch day which {@link XMLParser} gives to rates without date in file modified at that time
+     */
+    private static long modificationDay(long modified) {
+        return Instant.ofEpochMilli(modified).atZone(ZoneId.systemDefault()).toLocalDate().toEpochDay();
+    }
+
+    /**
+     * Writes cache file for xml file.
+     * <p>File is written to temporary file and moved, so mapped older cache is never changed.</p>
+     *
+     * @param xmlFile Path to xml file from which history was loaded
+     * @param cacheFile Path to cache file
+     * @param rateHistory History of rates loaded from xml file
+     * @param xmlSize Size of xml file before it was parsed
+     * @param xmlModified Modification time of xml file before it was parsed
+     * @throws IOException If cache file can't be written, or currencies tags are not 3 ASCII letters
+     */
+    static void write(Path xmlFile, Path cacheFile, RateHistory rateHistory, long xmlSize, long xmlModified)
+            throws IOException {
+        long xmlChecksum = checksum(xmlFile);
+
+        //Xml file changed during parsing, cache would describe wrong version of it
+        if (Files.size(xmlFile) != xmlSize || Files.getLastModifiedTime(xmlFile).toMillis() != xmlModified) {
+            return;
+        }
+
+        int currencyCount = rateHistory.getCurrencyCount();
+        int publicationCount = rateHistory.getPublicationCount();
+        int ratesOffset = ratesOffset(currencyCount, publicationCount);
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(ratesOffset + 8L * currencyCount * publicationCount));
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putLong(xmlSize);
+        buffer.putLong(xmlModified);
+        buffer.putLong(xmlChecksum);
+        buffer.putInt(currencyCount);
+        buffer.putInt(publicationCount);
+
+        for (int i = 0; i < currencyCount; i++) {
+            byte[] tag = rateHistory.getCurrency(i).getBytes(StandardCharsets.US_ASCII);
+            if (tag.length != TAG_LENGTH) {
+                throw new IOException("Currency tag " + rateHistory.getCurrency(i) + " can't be cached.");
+            }
+            buffer.put(tag);
+        }
+        for (int i = 0; i < publicationCount; i++) {
+            buffer.putInt(rateHistory.getPublicationDay(i));
+        }
+
+        ((Buffer) buffer).position(ratesOffset);
+        for (int i = 0; i < currencyCount; i++) {
+            for (int publication = 0; publication < publicationCount; publication++) {
+                buffer.putLong(rateHistory.getScaledRate(i, publication));
+            }
+        }
+
+        Path tempFile = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), cacheFile.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tempFile, buffer.array());
+            Files.move(tempFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * @param xmlFile Path to xml file
+     * @return CRC32 checksum of whole xml file
+     * @throws IOException If xml file can't be read
+     */
+    static long checksum(Path xmlFile) throws IOException {
+        CRC32 crc32 = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream inputStream = Files.newInputStream(xmlFile)) {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                crc32.update(buffer, 0, read);
+            }
+        }
+        return crc32.getValue();
+    }
+
+    private static int ratesOffset(int currencyCount, int publicationCount) {
+        int offset = HEADER_SIZE + currencyCount * TAG_LENGTH + publicationCount * 4;
+        return (offset + 7) & ~7;
+    }
+}
@@ -0,0 +1,136 @@
+import java.math.BigDecimal;
+import java.nio.LongBuffer;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * History of currency rates for every date given in xml file.
+ * <p>Rates are stored in columns - one buffer of scaled longs per currency, indexed by publication day.
+ * Thanks to that 25 years of 40 currencies take few MB instead of millions of BigDecimal objects.
+ * Columns are arrays on heap or parts of memory-mapped {@link RateCache} file.
+ * For even smaller heap history can be compressed into {@link CompressedRateHistory}.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class RateHistory extends RateStore {
+
+    //Scaled rates, rates[currency].get(publication)
+    private final LongBuffer[] rates;
+
+    /**
+     * Constructor for history from already prepared columns.
+     *
+     * @param currencies Sorted currencies tags
+     * @param publicationDays Sorted epoch days of publications
+     * @param rates Column of scaled rates for every currency, each with value for every publication
+     */
+    RateHistory(String[] currencies, int[] publicationDays, LongBuffer[] rates) {
+        super(currencies, publicationDays);
+        this.rates = rates;
+    }
+
+    @Override
+    long getScaledRate(int currencyIndex, int publication) {
+        return rates[currencyIndex].get(publication);
+    }
+
+    /**
+     * Checks rate the same way for every way of loading rates, so file is accepted or rejected by all of them.
+     *
+     * @param currency Currency tag, used in message
+     * @param rate Rate greater than zero with at most {@link FixedPoint#RATE_SCALE} decimal places
+     * @return Rate scaled by {@link FixedPoint#RATE_SCALE}
+     * @throws ArithmeticException If rate has more decimal places or is too big for scaled long
+     * @throws NumberFormatException If rate is not greater than zero
+     */
+    static long scaledRateOf(String currency, BigDecimal rate) {
+        if (rate.signum() <= 0) {
+            throw new NumberFormatException("Rate of " + currency + " must be greater than zero: " + rate);
+        }
+        long scaledRate = FixedPoint.toScaledRate(rate);
+        if (scaledRate == FixedPoint.NOT_SCALABLE) {
+            throw new ArithmeticException("Rate of " + currency + " can't be stored as scaled long: " + rate);
+        }
+        return scaledRate;
+    }
+
+    /**
+     * Builder collecting rates in any order, like newest-first order of ECB history file.
+     * <p>When the same currency is added twice for one day, the last added rate is kept.</p>
+     */
+    public static class Builder {
+        private final Map<String, Integer> currencyIds = new HashMap<>();
+        private final List<String> currencyTags = new ArrayList<>();
+
+        //Added entries, kept in primitive arrays growing like ArrayList
+        private int[] days = new int[1024];
+        private int[] currencyIdsOfEntries = new int[1024];
+        private long[] scaledRates = new long[1024];
+        private int size;
+
+        /**
+         * Add rate of currency published on given day.
+         *
+         * @param date Publication date
+         * @param currency Currency tag
+         * @param rate Rate greater than zero with at most {@link FixedPoint#RATE_SCALE} decimal places
+         * @return This builder
+         * @throws ArithmeticException If rate has more decimal places or is too big for scaled long
+         * @throws NumberFormatException If rate is not greater than zero
+         */
+        public Builder add(LocalDate date, String currency, BigDecimal rate) {
+            long scaledRate = scaledRateOf(currency, rate);
+
+            Integer currencyId = currencyIds.get(currency);
+            if (currencyId == null) {
+                currencyId = currencyTags.size();
+                currencyIds.put(currency, currencyId);
+                currencyTags.add(currency);
+            }
+
+            if (size == days.length) {
+                days = Arrays.copyOf(days, size * 2);
+                currencyIdsOfEntries = Arrays.copyOf(currencyIdsOfEntries, size * 2);
+                scaledRates = Arrays.copyOf(scaledRates, size * 2);
+            }
+            days[size] = Math.toIntExact(date.toEpochDay());
+            currencyIdsOfEntries[size] = currencyId;
+            scaledRates[size] = scaledRate;
+            size++;
+            return this;
+        }
+
+        /**
+         * @return History with all added rates
+         */
+        public RateHistory build() {
+            String[] currencies = currencyTags.toArray(new String[0]);
+            Arrays.sort(currencies);
+
+            //Column of currency id in built history
+            int[] columns = new int[currencies.length];
+            for (int i = 0; i < currencies.length; i++) {
+                columns[currencyIds.get(currencies[i])] = i;
+            }
+
+            int[] publicationDays = Arrays.stream(days, 0, size).sorted().distinct().toArray();
+
+            long[][] rates = new long[currencies.length][publicationDays.length];
+            for (int i = 0; i < size; i++) {
+                int publication = Arrays.binarySearch(publicationDays, days[i]);
+                rates[columns[currencyIdsOfEntries[i]]][publication] = scaledRates[i];
+            }
+
+            LongBuffer[] rateBuffers = new LongBuffer[currencies.length];
+            for (int i = 0; i < currencies.length; i++) {
+                rateBuffers[i] = LongBuffer.wrap(rates[i]);
+            }
+            return new RateHistory(currencies, publicationDays, rateBuffers);
+        }
+    }
+}
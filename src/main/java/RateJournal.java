@@ -0,0 +1,443 @@
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of every rate set loaded by application, for checking later which rates were used
+ * by calculators at given moment.
+ * <p>Every entry keeps version of snapshot, time when it was published and its latest rates (the ones used by
+ * {@link Calculator#convertEuros(BigDecimal)}). Time is taken after snapshot replaced previous one, because
+ * calculators were using previous rates while new snapshot was built. Entry is valid from its time until time
+ * of next entry, so {@link #convert(BigDecimal, String, Instant)} gives the same result as calculator gave at
+ * that moment. Versions start from 1 after every restart, so entries are found by time, not by version.</p>
+ * <p>File is memory-mapped and grows by doubling. Only offsets and times of entries are kept on heap, entry is
+ * found by binary search of times and rate of currency by binary search of tags in mapped entry.</p>
+ * <p>Entries are appended by {@link RateReloader} after new snapshot is published, calculators never touch
+ * journal, so conversions don't wait for it. Appends are synchronized, lookups read immutable index and never
+ * wait for appends.</p>
+ * <p>Format (big-endian), entry which is cut or has wrong checksum ends journal and is written over:</p>
+ * <pre>
+ * int     magic "ECBJ"
+ * int     format version
+ * entries:
+ *   int     size of entry in bytes, 0 after last entry
+ *   long    version of snapshot
+ *   long    epoch milliseconds when snapshot was published
+ *   int     number of currencies (C)
+ *   C * 12  currency tag in ASCII, scale of rate (byte) and unscaled rate (long), sorted by tag
+ *   int     CRC32 checksum of entry from version to last rate
+ * </pre>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class RateJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x4543424A;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 4;
+    private static final int TAG_LENGTH = 3;
+    private static final int RATE_SIZE = TAG_LENGTH + 1 + 8;
+
+    //Size of entry without rates - size, version, time, number of currencies and checksum
+    private static final int ENTRY_OVERHEAD = 4 + 8 + 8 + 4 + 4;
+    private static final int MIN_FILE_SIZE = 64 * 1024;
+
+    private final Path file;
+    private final FileChannel channel;
+
+    //Replaced on every append, readers take it once and see consistent set of entries
+    private volatile Index index;
+    private boolean closed;
+
+    /**
+     * Opens journal file, creating it if it doesn't exist.
+     *
+     * @param file Path to journal file
+     * @throws IOException If file can't be opened or isn't a journal
+     */
+    public RateJournal(Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            //Header is checked before mapping, because mapping makes file bigger
+            long size = channel.size();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+                //Reading until header is full or file ends
+            }
+            if (size > 0 && (size < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(4) != FORMAT_VERSION)) {
+                throw new IOException(file + " is not a rate journal.");
+            }
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, MIN_FILE_SIZE));
+            if (size == 0) {
+                buffer.putInt(0, MAGIC);
+                buffer.putInt(4, FORMAT_VERSION);
+            }
+            this.index = readIndex(buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Appends rate set and writes it to disk.
+     * <p>Time earlier than time of last entry (e.g. clock moved back) is changed to time of last entry,
+     * so times in journal never go back.</p>
+     *
+     * @param version Version of snapshot
+     * @param publishedAt Time from which rates were used, taken after snapshot was published
+     * @param rates Currencies and their rates, e.g. {@link RateSnapshot#getCurrencyRates()}
+     * @throws IOException If entry can't be written, or currency tag isn't 3 uppercase letters or rate is too precise
+     */
+    public synchronized void append(long version, Instant publishedAt, SortedMap<String, BigDecimal> rates)
+            throws IOException {
+        if (closed) {
+            throw new IOException("Journal " + file + " is closed.");
+        }
+        Index current = index;
+
+        int entrySize = ENTRY_OVERHEAD + rates.size() * RATE_SIZE;
+        ByteBuffer entry = ByteBuffer.allocate(entrySize);
+        entry.putInt(entrySize);
+        entry.putLong(version);
+        long millis = Math.max(publishedAt.toEpochMilli(),
+                current.count == 0 ? Long.MIN_VALUE : current.times[current.count - 1]);
+        entry.putLong(millis);
+        entry.putInt(rates.size());
+        for (Map.Entry<String, BigDecimal> rate : rates.entrySet()) {
+            BigInteger unscaled = rate.getValue().unscaledValue();
+            int scale = rate.getValue().scale();
+            if (CurrencyRegistry.pack(rate.getKey()) == CurrencyRegistry.NOT_PACKABLE || unscaled.bitLength() > 63
+                    || scale != (byte) scale) {
+                throw new IOException("Rate " + rate.getKey() + " " + rate.getValue() + " can't be journaled.");
+            }
+            entry.put(rate.getKey().getBytes(StandardCharsets.US_ASCII));
+            entry.put((byte) scale);
+            entry.putLong(unscaled.longValue());
+        }
+        entry.putInt((int) checksum(entry.array(), 4, entrySize - 8));
+
+        //Size of entry after this one stays 0, so journal ends here until next append
+        MappedByteBuffer buffer = current.buffer;
+        long end = current.end;
+        if (end + entrySize + 4 > buffer.capacity()) {
+            long size = Math.max((long) buffer.capacity() * 2, end + entrySize + 4);
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Journal " + file + " is full.");
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        for (int i = 0; i < entrySize; i++) {
+            buffer.put((int) end + i, entry.get(i));
+        }
+        buffer.putInt((int) end + entrySize, 0);
+        buffer.force();
+
+        index = current.add(buffer, version, millis, end, end + entrySize);
+    }
+
+    /**
+     * Finds rates used at given moment.
+     *
+     * @param asOf Moment of conversion
+     * @return Entry valid at that moment, or null if it is before first entry
+     */
+    public Entry find(Instant asOf) {
+        Index current = index;
+        int position = current.positionOf(asOf.toEpochMilli());
+        return position < 0 ? null : current.decode(position);
+    }
+
+    /**
+     * Converts euros to other currency with rates used at given moment, like calculator did then.
+     *
+     * @param amountInEuros Amount of Euros to convert, should be greater than 0 and not null
+     * @param currency Currency tag of target currency
+     * @param asOf Moment of conversion
+     * @return Converted value rounded up to 2nd decimal place. If bad value given, moment is before first entry
+     * or there was no rate for currency, return BigDecimal.ZERO
+     */
+    public BigDecimal convert(BigDecimal amountInEuros, String currency, Instant asOf) {
+        if (amountInEuros == null || amountInEuros.compareTo(BigDecimal.ZERO) < 0) {
+            return BigDecimal.ZERO;
+        }
+
+        Index current = index;
+        int position = current.positionOf(asOf.toEpochMilli());
+        int rateOffset = position < 0 ? -1 : current.rateOffset(position, CurrencyRegistry.pack(currency));
+        if (rateOffset < 0) {
+            return BigDecimal.ZERO;
+        }
+        return amountInEuros.multiply(current.rate(rateOffset)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Converts logged conversions again with rates used at their moments.
+     * <p>Every element gives the same result as {@link Calculator#convertEuros(long)} had with rates of that
+     * moment. Logs are usually sorted by time, so entry of previous element is checked before searching all
+     * entries. Rate is read straight from mapped file and converted on longs, so elements in any order take
+     * about the same time and don't create objects.</p>
+     *
+     * @param epochMillis Moments of conversions in epoch milliseconds
+     * @param amountsInEuroCents Amounts of Euros in cents
+     * @param currencies Currency tags of target currencies
+     * @return New array with converted values in minor units. Elements with negative amount, moment before first
+     * entry or currency without rate are 0
+     * @throws IllegalArgumentException If arrays have different lengths
+     * @throws ArithmeticException If any converted value is too big for long
+     */
+    public long[] replay(long[] epochMillis, long[] amountsInEuroCents, String[] currencies) {
+        if (epochMillis.length != amountsInEuroCents.length || epochMillis.length != currencies.length) {
+            throw new IllegalArgumentException("Moments, amounts and currencies must have the same length.");
+        }
+
+        Index current = index;
+        long[] converted = new long[epochMillis.length];
+        int position = -1;
+        long validFrom = Long.MAX_VALUE;
+        long validTo = Long.MIN_VALUE;
+        for (int i = 0; i < epochMillis.length; i++) {
+            long millis = epochMillis[i];
+            if (millis < validFrom || millis >= validTo) {
+                position = current.positionOf(millis);
+                validFrom = position < 0 ? Long.MIN_VALUE : current.times[position];
+                validTo = position + 1 < current.count ? current.times[position + 1] : Long.MAX_VALUE;
+            }
+            int rateOffset = position < 0 ? -1 : current.rateOffset(position, CurrencyRegistry.pack(currencies[i]));
+            if (rateOffset < 0) {
+                continue;
+            }
+
+            long unscaled = current.buffer.getLong(rateOffset + TAG_LENGTH + 1);
+            int scale = current.buffer.get(rateOffset + TAG_LENGTH);
+            long scaledRate = FixedPoint.toScaledRate(unscaled, scale);
+            long amountLimit = FixedPoint.amountLimit(scaledRate);
+            long amount = amountsInEuroCents[i];
+
+            //Rate object is needed only for amounts too big for scaled rate
+            converted[i] = Calculator.convertEuros(amount, scaledRate, amountLimit,
+                    amount > amountLimit ? BigDecimal.valueOf(unscaled, scale) : null);
+        }
+        return converted;
+    }
+
+    /**
+     * @return Number of entries in journal
+     */
+    public int getEntryCount() {
+        return index.count;
+    }
+
+    /**
+     * @return Path to journal file
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Closes journal file. Entries found before stay readable.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.out.println("There was a problem with closing rate journal " + file + ".");
+        }
+    }
+
+    /**
+     * Reads offsets and times of all entries, stopping at first cut or damaged one.
+     */
+    private static Index readIndex(MappedByteBuffer buffer) {
+        Index index = new Index(buffer, new long[16], new long[16], new long[16], 0, HEADER_SIZE);
+        long offset = HEADER_SIZE;
+        while (offset + ENTRY_OVERHEAD <= buffer.capacity()) {
+            int entrySize = buffer.getInt((int) offset);
+            if (entrySize < ENTRY_OVERHEAD || offset + entrySize > buffer.capacity()
+                    || (entrySize - ENTRY_OVERHEAD) % RATE_SIZE != 0
+                    || buffer.getInt((int) offset + 20) != (entrySize - ENTRY_OVERHEAD) / RATE_SIZE) {
+                break;
+            }
+
+            byte[] bytes = new byte[entrySize - 8];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get((int) offset + 4 + i);
+            }
+            if ((int) checksum(bytes, 0, bytes.length) != buffer.getInt((int) offset + entrySize - 4)) {
+                break;
+            }
+            index = index.add(buffer, buffer.getLong((int) offset + 4), buffer.getLong((int) offset + 12), offset,
+                    offset + entrySize);
+            offset += entrySize;
+        }
+        return index;
+    }
+
+    private static long checksum(byte[] bytes, int offset, int length) {
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return crc32.getValue();
+    }
+
+    /**
+     * Positions of entries in mapped file.
+     * <p>Arrays are shared with next indexes, append writes only after {@link #count}, which readers of this
+     * index never read. Buffer is read only by absolute methods, which don't change it, so it's shared
+     * by all readers.</p>
+     */
+    private static final class Index {
+        private final MappedByteBuffer buffer;
+        private final long[] versions;
+        private final long[] times;
+        private final long[] offsets;
+        private final int count;
+
+        //Offset after last entry, where next one is appended
+        private final long end;
+
+        Index(MappedByteBuffer buffer, long[] versions, long[] times, long[] offsets, int count, long end) {
+            this.buffer = buffer;
+            this.versions = versions;
+            this.times = times;
+            this.offsets = offsets;
+            this.count = count;
+            this.end = end;
+        }
+
+        Index add(MappedByteBuffer newBuffer, long version, long millis, long offset, long newEnd) {
+            long[] newVersions = versions;
+            long[] newTimes = times;
+            long[] newOffsets = offsets;
+            if (count == versions.length) {
+                newVersions = Arrays.copyOf(versions, count * 2);
+                newTimes = Arrays.copyOf(times, count * 2);
+                newOffsets = Arrays.copyOf(offsets, count * 2);
+            }
+            newVersions[count] = version;
+            newTimes[count] = millis;
+            newOffsets[count] = offset;
+            return new Index(newBuffer, newVersions, newTimes, newOffsets, count + 1, newEnd);
+        }
+
+        /**
+         * @return Position of last entry loaded not later than given time, -1 if there is none
+         */
+        int positionOf(long millis) {
+            //Last of entries with the same time wins, it was the one used after that moment
+            int low = 0;
+            int high = count;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (times[middle] <= millis) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low - 1;
+        }
+
+        /**
+         * @param packed Currency tag packed by {@link CurrencyRegistry#pack(CharSequence)}
+         * @return Offset of rate of currency in entry, -1 if entry doesn't have it
+         */
+        int rateOffset(int position, int packed) {
+            if (packed == CurrencyRegistry.NOT_PACKABLE) {
+                return -1;
+            }
+
+            //Tags are sorted, so their packed values are sorted too
+            int first = (int) offsets[position] + 24;
+            int low = 0;
+            int high = buffer.getInt(first - 4) - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int tag = CurrencyRegistry.pack(buffer, first + middle * RATE_SIZE);
+                if (tag < packed) {
+                    low = middle + 1;
+                } else if (tag > packed) {
+                    high = middle - 1;
+                } else {
+                    return first + middle * RATE_SIZE;
+                }
+            }
+            return -1;
+        }
+
+        BigDecimal rate(int rateOffset) {
+            return BigDecimal.valueOf(buffer.getLong(rateOffset + TAG_LENGTH + 1), buffer.get(rateOffset + TAG_LENGTH));
+        }
+
+        Entry decode(int position) {
+            int first = (int) offsets[position] + 24;
+            int currencyCount = buffer.getInt(first - 4);
+            SortedMap<String, BigDecimal> rates = new TreeMap<>();
+            byte[] tag = new byte[TAG_LENGTH];
+            for (int i = 0; i < currencyCount; i++) {
+                int rateOffset = first + i * RATE_SIZE;
+                for (int j = 0; j < TAG_LENGTH; j++) {
+                    tag[j] = buffer.get(rateOffset + j);
+                }
+                rates.put(new String(tag, StandardCharsets.US_ASCII), rate(rateOffset));
+            }
+            return new Entry(versions[position], Instant.ofEpochMilli(times[position]), rates);
+        }
+    }
+
+    /**
+     * Rate set of one journal entry.
+     */
+    public static final class Entry {
+        private final long version;
+        private final Instant publishedAt;
+        private final SortedMap<String, BigDecimal> rates;
+
+        Entry(long version, Instant publishedAt, SortedMap<String, BigDecimal> rates) {
+            this.version = version;
+            this.publishedAt = publishedAt;
+            this.rates = Collections.unmodifiableSortedMap(rates);
+        }
+
+        /**
+         * @return Version of snapshot, counted from 1 after every start of application
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        /**
+         * @return Time from which rates were used
+         */
+        public Instant getPublishedAt() {
+            return publishedAt;
+        }
+
+        /**
+         * @return Unmodifiable map of currencies and their rates
+         */
+        public SortedMap<String, BigDecimal> getRates() {
+            return rates;
+        }
+    }
+}
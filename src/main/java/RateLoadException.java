@@ -0,0 +1,28 @@
+/**
+ * Exception thrown when currency rates can't be loaded from xml file.
+ * <p>It keeps exit code used by application when it has to quit because of this problem.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class RateLoadException extends Exception {
+
+    private final int exitCode;
+
+    /**
+     * @param message Description of problem, readable for user
+     * @param exitCode Exit code of application for this problem
+     * @param cause Original exception
+     */
+    public RateLoadException(String message, int exitCode, Throwable cause) {
+        super(message, cause);
+        this.exitCode = exitCode;
+    }
+
+    /**
+     * @return Exit code of application for this problem
+     */
+    public int getExitCode() {
+        return exitCode;
+    }
+}
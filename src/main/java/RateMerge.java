@@ -0,0 +1,291 @@
+import java.math.BigDecimal;
+import java.nio.LongBuffer;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * History of rates merged from many files, e.g. one ECB daily file per day and supplementary rate files.
+ * <p>Files are parsed in parallel, each one into its own {@link RateHistory}, then histories are merged into one.
+ * When two files have rate of the same currency for the same day, rate from file with the latest publication
+ * wins, for files with the same last publication - file which is later in order of paths. Thanks to that result
+ * doesn't depend on order in which files were parsed.</p>
+ * <p>Entries found in more than one file are reported - duplicates with the same rate and conflicts with
+ * different rates.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class RateMerge {
+
+    //Conflicts kept for report, next ones are only counted
+    static final int MAX_REPORTED_CONFLICTS = 100;
+
+    private final RateHistory rateHistory;
+    private final int fileCount;
+    private final long duplicateCount;
+    private final long conflictCount;
+    private final List<Conflict> conflicts;
+
+    private RateMerge(RateHistory rateHistory, int fileCount, long duplicateCount, long conflictCount,
+                      List<Conflict> conflicts) {
+        this.rateHistory = rateHistory;
+        this.fileCount = fileCount;
+        this.duplicateCount = duplicateCount;
+        this.conflictCount = conflictCount;
+        this.conflicts = Collections.unmodifiableList(conflicts);
+    }
+
+    /**
+     * Parses files in common pool and merges them.
+     *
+     * @param files Paths of xml files
+     * @param useCache If true, files are loaded through {@link RateCache}
+     * @return Merged history with report
+     * @throws RateLoadException If any file can't be loaded
+     */
+    public static RateMerge load(List<Path> files, boolean useCache) throws RateLoadException {
+        return load(files, useCache, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses files in given pool and merges them.
+     *
+     * @param files Paths of xml files
+     * @param useCache If true, files are loaded through {@link RateCache}
+     * @param pool Pool in which files are parsed, its parallelism is number of files parsed at once
+     * @return Merged history with report
+     * @throws RateLoadException If any file can't be loaded
+     */
+    public static RateMerge load(List<Path> files, boolean useCache, ForkJoinPool pool) throws RateLoadException {
+        List<ForkJoinTask<RateHistory>> tasks = new ArrayList<>(files.size());
+        for (Path file : files) {
+            tasks.add(pool.submit(() -> useCache ? RateCache.loadRateHistory(file.toString())
+                    : XMLParser.loadRateHistory(file.toString())));
+        }
+
+        RateHistory[] histories = new RateHistory[files.size()];
+        for (int i = 0; i < histories.length; i++) {
+            try {
+                histories[i] = tasks.get(i).get();
+            } catch (ExecutionException e) {
+                for (ForkJoinTask<RateHistory> task : tasks) {
+                    task.cancel(false);
+                }
+                //Pool wraps checked exception of task in RuntimeException, so parser's one is searched in causes
+                for (Throwable cause = e.getCause(); cause != null; cause = cause.getCause()) {
+                    if (cause instanceof RateLoadException) {
+                        throw new RateLoadException(cause.getMessage() + " File: " + files.get(i) + ".",
+                                ((RateLoadException) cause).getExitCode(), cause.getCause());
+                    }
+                }
+                throw new RateLoadException("There was a problem with a file " + files.get(i) + ".", 4, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RateLoadException("Loading of rate files was interrupted.", 4, e);
+            }
+        }
+        return merge(files, histories);
+    }
+
+    /**
+     * Merges histories of files, the one with the latest publication wins conflicts.
+     *
+     * @param files Paths of files, in the same order as histories
+     * @param histories History of every file
+     * @return Merged history with report
+     */
+    static RateMerge merge(List<Path> files, RateHistory[] histories) {
+        //Files are applied from the lowest priority, so every next one replaces rates of previous ones
+        Integer[] order = new Integer[histories.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> lastPublicationDay(histories[i]))
+                .thenComparing(files::get));
+
+        TreeSet<String> currencySet = new TreeSet<>();
+        TreeSet<Integer> daySet = new TreeSet<>();
+        for (RateHistory history : histories) {
+            currencySet.addAll(history.getCurrencies());
+            for (int publication = 0; publication < history.getPublicationCount(); publication++) {
+                daySet.add(history.getPublicationDay(publication));
+            }
+        }
+        String[] currencies = currencySet.toArray(new String[0]);
+        int[] days = daySet.stream().mapToInt(Integer::intValue).toArray();
+        CurrencyRegistry registry = new CurrencyRegistry(currencySet);
+
+        long[][] rates = new long[currencies.length][days.length];
+        int[][] owners = new int[currencies.length][days.length];
+        long duplicateCount = 0;
+        long conflictCount = 0;
+        List<Conflict> conflicts = new ArrayList<>();
+
+        for (int file : order) {
+            RateHistory history = histories[file];
+            for (int column = 0; column < history.getCurrencyCount(); column++) {
+                int currency = registry.ordinalOf(history.getCurrency(column));
+                for (int publication = 0; publication < history.getPublicationCount(); publication++) {
+                    long rate = history.getScaledRate(column, publication);
+                    if (rate == RateHistory.NO_RATE) {
+                        continue;
+                    }
+
+                    int day = Arrays.binarySearch(days, history.getPublicationDay(publication));
+                    long previous = rates[currency][day];
+                    if (previous == rate) {
+                        duplicateCount++;
+                    } else if (previous != RateHistory.NO_RATE) {
+                        conflictCount++;
+                        if (conflicts.size() < MAX_REPORTED_CONFLICTS) {
+                            conflicts.add(new Conflict(LocalDate.ofEpochDay(days[day]), currencies[currency],
+                                    files.get(file), BigDecimal.valueOf(rate, FixedPoint.RATE_SCALE),
+                                    files.get(owners[currency][day] - 1),
+                                    BigDecimal.valueOf(previous, FixedPoint.RATE_SCALE)));
+                        }
+                    }
+                    rates[currency][day] = rate;
+
+                    //Owner is kept as index + 1, so 0 means no rate yet
+                    owners[currency][day] = file + 1;
+                }
+            }
+        }
+
+        LongBuffer[] columns = new LongBuffer[currencies.length];
+        for (int i = 0; i < currencies.length; i++) {
+            columns[i] = LongBuffer.wrap(rates[i]);
+        }
+        return new RateMerge(new RateHistory(currencies, days, columns), histories.length, duplicateCount,
+                conflictCount, conflicts);
+    }
+
+    /**
+     * @return History merged from all files
+     */
+    public RateHistory getRateHistory() {
+        return rateHistory;
+    }
+
+    /**
+     * @return Number of merged files
+     */
+    public int getFileCount() {
+        return fileCount;
+    }
+
+    /**
+     * @return Number of rates found again with the same value in other file
+     */
+    public long getDuplicateCount() {
+        return duplicateCount;
+    }
+
+    /**
+     * @return Number of rates found again with different value in other file
+     */
+    public long getConflictCount() {
+        return conflictCount;
+    }
+
+    /**
+     * @return First {@link #MAX_REPORTED_CONFLICTS} conflicts, in order in which they were resolved
+     */
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    /**
+     * @return Description of merge for user, with conflicts found
+     */
+    public String report() {
+        StringBuilder report = new StringBuilder("Merged " + fileCount + " rate files: " + duplicateCount
+                + " duplicate rates, " + conflictCount + " conflicting rates.");
+        for (Conflict conflict : conflicts) {
+            report.append(System.lineSeparator()).append(conflict);
+        }
+        if (conflictCount > conflicts.size()) {
+            report.append(System.lineSeparator()).append("... and ").append(conflictCount - conflicts.size())
+                    .append(" more conflicts.");
+        }
+        return report.toString();
+    }
+
+    private static int lastPublicationDay(RateHistory history) {
+        int count = history.getPublicationCount();
+        return count == 0 ? Integer.MIN_VALUE : history.getPublicationDay(count - 1);
+    }
+
+    /**
+     * Rate of currency for one day given with different values in two files.
+     */
+    public static final class Conflict {
+        private final LocalDate date;
+        private final String currency;
+        private final Path file;
+        private final BigDecimal rate;
+        private final Path rejectedFile;
+        private final BigDecimal rejectedRate;
+
+        Conflict(LocalDate date, String currency, Path file, BigDecimal rate, Path rejectedFile,
+                 BigDecimal rejectedRate) {
+            this.date = date;
+            this.currency = currency;
+            this.file = file;
+            this.rate = rate;
+            this.rejectedFile = rejectedFile;
+            this.rejectedRate = rejectedRate;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public String getCurrency() {
+            return currency;
+        }
+
+        /**
+         * @return File with rate which was used
+         */
+        public Path getFile() {
+            return file;
+        }
+
+        /**
+         * @return Rate which was used
+         */
+        public BigDecimal getRate() {
+            return rate;
+        }
+
+        /**
+         * @return File with rate which was replaced
+         */
+        public Path getRejectedFile() {
+            return rejectedFile;
+        }
+
+        /**
+         * @return Rate which was replaced
+         */
+        public BigDecimal getRejectedRate() {
+            return rejectedRate;
+        }
+
+        @Override
+        public String toString() {
+            return date + " " + currency + ": " + rate.stripTrailingZeros().toPlainString() + " from " + file
+                    + " replaced " + rejectedRate.stripTrailingZeros().toPlainString() + " from " + rejectedFile;
+        }
+    }
+}
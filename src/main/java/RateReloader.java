@@ -0,0 +1,297 @@
+import java.io.IOException;
+import java.math.RoundingMode;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Source of rate snapshots which loads xml file again every time it changes.
+ * <p>Rates can be loaded from one file or from many files given as directory or glob pattern
+ * (see {@link RateSource}), which are parsed in parallel and merged by {@link RateMerge}.</p>
+ * <p>File is watched by background thread. New snapshot is fully built before it's published with one
+ * atomic reference swap, so calculators never wait for reload and never see half-loaded rates.</p>
+ * <p>If new file can't be loaded, the last good snapshot stays in use and application keeps working.</p>
+ * <p>Every published snapshot can be recorded in {@link RateJournal}, after it's published, so calculators
+ * don't wait for writing it. Journal is closed by owner of journal, not by reloader.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public class RateReloader implements Supplier<RateSnapshot>, AutoCloseable {
+
+    //Time to wait after change of file, so file saved in parts is loaded once
+    private static final long SETTLE_MILLIS = 200;
+
+    private final RateSource source;
+    private final int crossRateScale;
+    private final RoundingMode crossRateRounding;
+    private final boolean useCache;
+    private final boolean compress;
+    private final RateJournal journal;
+    private final AtomicReference<RateSnapshot> snapshot = new AtomicReference<>();
+
+    private volatile WatchService watchService;
+    private Thread watchThread;
+
+    /**
+     * Constructor loading first snapshot from xml file.
+     *
+     * @param filePath Path to xml file with currencies and their rates, to directory of xml files or glob pattern
+     * @param crossRateScale Number of decimal places of rates between two currencies other than Euro
+     * @param crossRateRounding Rounding of rates between two currencies other than Euro
+     * @throws RateLoadException If first snapshot can't be loaded
+     */
+    public RateReloader(String filePath, int crossRateScale, RoundingMode crossRateRounding) throws RateLoadException {
+        this(filePath, crossRateScale, crossRateRounding, false);
+    }
+
+    /**
+     * Constructor loading first snapshot from xml file or its binary cache.
+     *
+     * @param filePath Path to xml file with currencies and their rates, to directory of xml files or glob pattern
+     * @param crossRateScale Number of decimal places of rates between two currencies other than Euro
+     * @param crossRateRounding Rounding of rates between two currencies other than Euro
+     * @param useCache If true, rates are loaded through {@link RateCache}, which writes cache file next to xml file
+     * @throws RateLoadException If first snapshot can't be loaded
+     */
+    public RateReloader(String filePath, int crossRateScale, RoundingMode crossRateRounding, boolean useCache)
+            throws RateLoadException {
+        this(filePath, crossRateScale, crossRateRounding, useCache, false);
+    }
+
+    /**
+     * Constructor loading first snapshot, with history kept compressed if heap is more important than speed
+     * of lookups by date.
+     *
+     * @param filePath Path to xml file with currencies and their rates, to directory of xml files or glob pattern
+     * @param crossRateScale Number of decimal places of rates between two currencies other than Euro
+     * @param crossRateRounding Rounding of rates between two currencies other than Euro
+     * @param useCache If true, rates are loaded through {@link RateCache}, which writes cache file next to xml file
+     * @param compress If true, snapshots keep history as {@link CompressedRateHistory}
+     * @throws RateLoadException If first snapshot can't be loaded
+     */
+    public RateReloader(String filePath, int crossRateScale, RoundingMode crossRateRounding, boolean useCache,
+                        boolean compress) throws RateLoadException {
+        this(filePath, crossRateScale, crossRateRounding, useCache, compress, null);
+    }
+
+    /**
+     * Constructor loading first snapshot and recording every published snapshot in journal.
+     *
+     * @param filePath Path to xml file with currencies and their rates, to directory of xml files or glob pattern
+     * @param crossRateScale Number of decimal places of rates between two currencies other than Euro
+     * @param crossRateRounding Rounding of rates between two currencies other than Euro
+     * @param useCache If true, rates are loaded through {@link RateCache}, which writes cache file next to xml file
+     * @param compress If true, snapshots keep history as {@link CompressedRateHistory}
+     * @param journal Journal of published snapshots, null for no journal
+     * @throws RateLoadException If first snapshot can't be loaded
+     */
+    public RateReloader(String filePath, int crossRateScale, RoundingMode crossRateRounding, boolean useCache,
+                        boolean compress, RateJournal journal) throws RateLoadException {
+        this.source = RateSource.of(filePath);
+        this.crossRateScale = crossRateScale;
+        this.crossRateRounding = crossRateRounding;
+        this.useCache = useCache;
+        this.compress = compress;
+        this.journal = journal;
+        this.snapshot.set(load(1));
+        record(snapshot.get());
+    }
+
+    /**
+     * Get the latest successfully loaded snapshot.
+     *
+     * @return Current snapshot, never null
+     */
+    @Override
+    public RateSnapshot get() {
+        return snapshot.get();
+    }
+
+    /**
+     * Loads xml file again and publishes it as new snapshot.
+     * <p>When file can't be loaded current snapshot is kept and problem is printed.</p>
+     *
+     * @return True if new snapshot was published
+     */
+    public boolean reload() {
+        RateSnapshot current = snapshot.get();
+        try {
+            RateSnapshot loaded = load(current.getVersion() + 1);
+
+            //Only one reload can publish snapshot with this version
+            if (!snapshot.compareAndSet(current, loaded)) {
+                return false;
+            }
+            record(loaded);
+            return true;
+        } catch (RateLoadException e) {
+            System.out.println(e.getMessage() + " Still using rates version " + current.getVersion() + ".");
+            return false;
+        }
+    }
+
+    /**
+     * Starts background thread watching xml file for changes.
+     * <p>When rates come from many files, deleting one of them reloads rates too, so its rates stop being used.
+     * Deleted single file is only replaced, so it's not watched for deletion.</p>
+     *
+     * @throws IOException If file system doesn't allow watching directory of xml file
+     */
+    public synchronized void start() throws IOException {
+        if (watchThread != null) {
+            return;
+        }
+
+        watchService = FileSystems.getDefault().newWatchService();
+        if (source.isSingleFile()) {
+            source.getDirectory().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY);
+        } else {
+            source.getDirectory().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        }
+
+        watchThread = new Thread(this::watch, "rate-reloader");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Stops watching xml file. Current snapshot is still available.
+     */
+    @Override
+    public synchronized void close() {
+        if (watchService == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException e) {
+            System.out.println("There was a problem with closing watcher of xml file.");
+        }
+        watchService = null;
+        watchThread = null;
+    }
+
+    private void watch() {
+        WatchService service = watchService;
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = isFileChanged(key);
+
+                //Events coming while file is still being written are joined with this one
+                if (changed) {
+                    Thread.sleep(SETTLE_MILLIS);
+                    WatchKey next;
+                    while ((next = service.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                        isFileChanged(next);
+                    }
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            //Watcher was closed, nothing more to do
+        }
+    }
+
+    /**
+     * Checks events of key and makes key ready for next events.
+     *
+     * @return True if any event is about watched rate file
+     */
+    private boolean isFileChanged(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            //Overflow means lost events, so file could be changed too
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || source.matches((Path) event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    /**
+     * Appends published snapshot to journal. Problem with journal doesn't stop using new rates.
+     * <p>It must be called right after snapshot is published - until then calculators used previous rates,
+     * so time of snapshot creation would be too early.</p>
+     */
+    private void record(RateSnapshot published) {
+        if (journal == null) {
+            return;
+        }
+        Instant publishedAt = Instant.now();
+        try {
+            journal.append(published.getVersion(), publishedAt, published.getCurrencyRates());
+        } catch (IOException e) {
+            System.out.println("Rates version " + published.getVersion() + " can't be written to journal: "
+                    + e.getMessage());
+        }
+    }
+
+    private RateSnapshot load(long version) throws RateLoadException {
+        RateHistory rateHistory = loadHistory();
+        return new RateSnapshot(version, compress ? new CompressedRateHistory(rateHistory) : rateHistory,
+                crossRateScale, crossRateRounding);
+    }
+
+    /**
+     * Loads rates from xml files or their cache and records load in {@link Metrics}, so metrics are the same
+     * whether file was parsed or not.
+     */
+    private RateHistory loadHistory() throws RateLoadException {
+        long start = System.nanoTime();
+        try {
+            RateHistory rateHistory = source.isSingleFile() ? loadFile(source.getSingleFile()) : loadFiles();
+
+            //Calculators can't work without any currency, so empty file is not a valid update
+            if (rateHistory.getLatestRates().isEmpty()) {
+                throw new RateLoadException("Xml file doesn't contain any rates.", 5,
+                        new IllegalStateException("No rates in " + source));
+            }
+            Metrics.INSTANCE.recordParse(System.nanoTime() - start, rateHistory.getRateCount());
+            return rateHistory;
+        } catch (RateLoadException e) {
+            Metrics.INSTANCE.recordParseFailure();
+            throw e;
+        }
+    }
+
+    private RateHistory loadFile(Path file) throws RateLoadException {
+        return useCache ? RateCache.loadRateHistory(file.toString()) : XMLParser.loadRateHistory(file.toString());
+    }
+
+    private RateHistory loadFiles() throws RateLoadException {
+        List<Path> files;
+        try {
+            files = source.listFiles();
+        } catch (IOException e) {
+            throw new RateLoadException("There was a problem with a directory of xml files.", 4, e);
+        }
+        if (files.isEmpty()) {
+            throw new RateLoadException("There are no xml files in " + source + ".", 4,
+                    new IllegalStateException("No files match " + source));
+        }
+
+        RateMerge merge = RateMerge.load(files, useCache);
+        if (merge.getDuplicateCount() > 0 || merge.getConflictCount() > 0) {
+            System.out.println(merge.report());
+        }
+        return merge.getRateHistory();
+    }
+}
@@ -0,0 +1,143 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.SortedMap;
+
+/**
+ * Immutable set of currency rates loaded from one version of xml file.
+ * <p>Snapshot is never changed after creation, so it can be shared by many threads without locking.
+ * New rates are published by replacing whole snapshot with newer one.</p>
+ * <p>Only {@link RateStatistics} are built on the first {@link #getRateStatistics()}, because they take memory
+ * of every day of history again and only statistics endpoint of server needs them.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class RateSnapshot {
+
+    private final long version;
+    private final Instant loadedAt;
+    private final RateStore rateHistory;
+    private final SortedMap<String, BigDecimal> currencyRates;
+    private final CrossRateTable crossRateTable;
+
+    //Built on first use, once per snapshot
+    private volatile RateStatistics rateStatistics;
+
+    //Latest rates indexed by ordinal of currency in registry, ready for conversions without map lookups
+    private final CurrencyRegistry currencyRegistry;
+    private final BigDecimal[] rates;
+    private final long[] scaledRates;
+    private final long[] amountLimits;
+
+    /**
+     * Constructor computing latest rates and table of rates between all currencies.
+     *
+     * @param version Number of snapshot, newer snapshots have bigger numbers
+     * @param rateHistory Rates for all dates from xml file
+     * @param crossRateScale Number of decimal places of rates between two currencies other than Euro
+     * @param crossRateRounding Rounding of rates between two currencies other than Euro
+     */
+    public RateSnapshot(long version, RateStore rateHistory, int crossRateScale, RoundingMode crossRateRounding) {
+        this.version = version;
+        this.loadedAt = Instant.now();
+        this.rateHistory = rateHistory;
+        this.currencyRates = Collections.unmodifiableSortedMap(rateHistory.getLatestRates());
+        this.crossRateTable = new CrossRateTable(currencyRates, crossRateScale, crossRateRounding);
+
+        this.currencyRegistry = new CurrencyRegistry(currencyRates.keySet());
+        this.rates = currencyRates.values().toArray(new BigDecimal[0]);
+        this.scaledRates = new long[rates.length];
+        this.amountLimits = new long[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            scaledRates[i] = FixedPoint.toScaledRate(rates[i]);
+            amountLimits[i] = FixedPoint.amountLimit(scaledRates[i]);
+        }
+    }
+
+    /**
+     * @return Number of snapshot, newer snapshots have bigger numbers
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return Time when snapshot was created
+     */
+    public Instant getLoadedAt() {
+        return loadedAt;
+    }
+
+    /**
+     * @return Rates for all dates from xml file
+     */
+    public RateStore getRateHistory() {
+        return rateHistory;
+    }
+
+    /**
+     * @return Unmodifiable map of currencies and their rates from the latest date in xml file
+     */
+    public SortedMap<String, BigDecimal> getCurrencyRates() {
+        return currencyRates;
+    }
+
+    /**
+     * @return Index of currencies from {@link #getCurrencyRates()}
+     */
+    public CurrencyRegistry getCurrencyRegistry() {
+        return currencyRegistry;
+    }
+
+    /**
+     * @param ordinal Ordinal of currency in {@link #getCurrencyRegistry()}
+     * @return The latest rate of currency
+     */
+    public BigDecimal getRate(int ordinal) {
+        return rates[ordinal];
+    }
+
+    /**
+     * @param ordinal Ordinal of currency in {@link #getCurrencyRegistry()}
+     * @return The latest rate of currency scaled for {@link FixedPoint}, or {@link FixedPoint#NOT_SCALABLE}
+     */
+    long getScaledRate(int ordinal) {
+        return scaledRates[ordinal];
+    }
+
+    /**
+     * @param ordinal Ordinal of currency in {@link #getCurrencyRegistry()}
+     * @return Biggest amount in minor units which can be converted with scaled rate, -1 if rate is not scalable
+     */
+    long getAmountLimit(int ordinal) {
+        return amountLimits[ordinal];
+    }
+
+    /**
+     * @return Table of rates between all currencies
+     */
+    public CrossRateTable getCrossRateTable() {
+        return crossRateTable;
+    }
+
+    /**
+     * Get statistics of history, built on the first call.
+     *
+     * @return Statistics of rates over ranges of dates
+     */
+    public RateStatistics getRateStatistics() {
+        RateStatistics statistics = rateStatistics;
+        if (statistics == null) {
+            synchronized (this) {
+                statistics = rateStatistics;
+                if (statistics == null) {
+                    statistics = new RateStatistics(rateHistory);
+                    rateStatistics = statistics;
+                }
+            }
+        }
+        return statistics;
+    }
+}
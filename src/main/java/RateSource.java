@@ -0,0 +1,130 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Location of rate files given in configuration ({@code app.xml.path}).
+ * <p>It can be:</p>
+ * <ul>
+ *     <li>one xml file, e.g. {@code src/main/resources/eurofxref-daily.xml},</li>
+ *     <li>directory - all {@code .xml} files directly in it, e.g. one ECB daily file per day,</li>
+ *     <li>glob pattern of file names in one directory, e.g. {@code rates/eurofxref-*.xml}.</li>
+ * </ul>
+ * <p>Cache files of {@link RateCache} are never treated as rate files, even when pattern matches them.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class RateSource {
+
+    //Characters which make location a glob pattern
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private final Path directory;
+    private final Path singleFile;
+    private final String pattern;
+    private final PathMatcher fileNameMatcher;
+
+    private RateSource(Path directory, Path singleFile, String pattern) {
+        this.directory = directory;
+        this.singleFile = singleFile;
+        this.pattern = pattern;
+        this.fileNameMatcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+    }
+
+    /**
+     * @param location Path to xml file, to directory with xml files or glob pattern of xml files
+     * @return Source of rates in given location
+     */
+    public static RateSource of(String location) {
+        int glob = indexOfGlob(location);
+        if (glob >= 0) {
+            //Only last part of path can be pattern, directory before it is watched
+            int separator = Math.max(location.lastIndexOf('/', glob), location.lastIndexOf(File.separatorChar, glob));
+            Path directory = Paths.get(separator < 0 ? "." : location.substring(0, separator + 1)).toAbsolutePath();
+            String pattern = location.substring(separator + 1);
+            return new RateSource(directory, null, pattern);
+        }
+
+        Path path = Paths.get(location).toAbsolutePath();
+        if (Files.isDirectory(path)) {
+            return new RateSource(path, null, "*.xml");
+        }
+        return new RateSource(path.getParent(), path, path.getFileName().toString());
+    }
+
+    /**
+     * @return True if source is one file, not directory or pattern
+     */
+    public boolean isSingleFile() {
+        return singleFile != null;
+    }
+
+    /**
+     * @return Path of file, null if source isn't single file
+     */
+    public Path getSingleFile() {
+        return singleFile;
+    }
+
+    /**
+     * @return Directory containing rate files, watched for changes
+     */
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @param fileName Name of file in {@link #getDirectory()}
+     * @return True if file with this name is rate file of source
+     */
+    public boolean matches(Path fileName) {
+        String name = fileName.toString();
+        return fileNameMatcher.matches(fileName) && !name.endsWith(RateCache.SUFFIX) && !name.endsWith(".tmp");
+    }
+
+    /**
+     * Lists rate files which exist now.
+     *
+     * @return Sorted paths of rate files
+     * @throws IOException If directory can't be read
+     */
+    public List<Path> listFiles() throws IOException {
+        if (singleFile != null) {
+            return Collections.singletonList(singleFile);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (Path path : stream) {
+                if (matches(path.getFileName()) && Files.isRegularFile(path)) {
+                    files.add(path);
+                }
+            }
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    @Override
+    public String toString() {
+        return singleFile != null ? singleFile.toString() : directory.resolve(pattern).toString();
+    }
+
+    private static int indexOfGlob(String location) {
+        for (int i = 0; i < location.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(location.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
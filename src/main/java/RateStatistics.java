@@ -0,0 +1,303 @@
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Statistics of rates of every currency over any range of dates, e.g. average USD rate in 3rd quarter or
+ * the highest CHF rate in last 5 years.
+ * <p>Helper structures are built once, when rates are loaded, so queries don't walk through days of range:</p>
+ * <ul>
+ *     <li>prefix sums of rates, their squares and daily log returns - count, average, standard deviation
+ *     and volatility in O(1),</li>
+ *     <li>segment trees of rates - minimum and maximum in O(log n).</li>
+ * </ul>
+ * <p>Only days on which currency was published are counted. Structures take 68 bytes per publication of currency,
+ * about 18 MB for 25 years of 40 currencies, and are built in about 15 ms.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class RateStatistics {
+
+    //Scale of averages, two more places than rates, so average of equal rates is exactly the rate
+    static final int AVERAGE_SCALE = FixedPoint.RATE_SCALE + 2;
+
+    private final RateStore rateHistory;
+    private final Column[] columns;
+
+    /**
+     * Constructor building structures for all currencies of history.
+     *
+     * @param rateHistory History of rates
+     */
+    public RateStatistics(RateStore rateHistory) {
+        this.rateHistory = rateHistory;
+        this.columns = new Column[rateHistory.getCurrencyCount()];
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new Column(rateHistory, i);
+        }
+    }
+
+    /**
+     * Computes statistics of currency rates published between two dates.
+     *
+     * @param currency Currency tag
+     * @param from First date of range
+     * @param to Last date of range, included
+     * @return Statistics of range, or null if currency is unknown or it wasn't published in range
+     */
+    public Range getStatistics(String currency, LocalDate from, LocalDate to) {
+        if (currency == null || from == null || to == null || from.isAfter(to)) {
+            return null;
+        }
+
+        int currencyIndex = rateHistory.indexOfCurrency(currency);
+        if (currencyIndex < 0) {
+            return null;
+        }
+
+        //Publications in range are from first one after day before range to last one on or before end of range
+        int first = rateHistory.publicationIndex(from.toEpochDay() - 1) + 1;
+        int last = rateHistory.publicationIndex(to);
+        if (first > last) {
+            return null;
+        }
+        return columns[currencyIndex].statistics(currency, from, to, first, last + 1);
+    }
+
+    /**
+     * Helper structures of one currency, indexed by publication.
+     */
+    private static final class Column {
+
+        //First published rate, subtracted from rates before squaring to keep sums of doubles precise
+        private final long reference;
+
+        //Sums of first n publications - number of published rates, rates, squares of (rate - reference),
+        //log returns between consecutive published rates and their squares. Sums of scaled rates fit in long
+        //for any real history, e.g. 100 years of rates about 10^6 need 10^16
+        private final int[] counts;
+        private final long[] sums;
+        private final double[] squareSums;
+        private final double[] returnSums;
+        private final double[] returnSquareSums;
+
+        //Segment trees, leaves from size to 2 * size - 1, parent of node i is i / 2
+        private final int size;
+        private final long[] minimums;
+        private final long[] maximums;
+
+        Column(RateStore rateHistory, int currencyIndex) {
+            int publications = rateHistory.getPublicationCount();
+            this.size = publications;
+            this.counts = new int[publications + 1];
+            this.sums = new long[publications + 1];
+            this.squareSums = new double[publications + 1];
+            this.returnSums = new double[publications + 1];
+            this.returnSquareSums = new double[publications + 1];
+            this.minimums = new long[2 * publications];
+            this.maximums = new long[2 * publications];
+
+            long firstRate = RateStore.NO_RATE;
+            int lastPublished = -1;
+            for (int i = 0; i < publications; i++) {
+                long rate = rateHistory.getScaledRate(currencyIndex, i);
+                if (firstRate == RateStore.NO_RATE) {
+                    firstRate = rate;
+                }
+                counts[i + 1] = counts[i];
+                sums[i + 1] = sums[i];
+                squareSums[i + 1] = squareSums[i];
+                returnSums[i + 1] = returnSums[i];
+                returnSquareSums[i + 1] = returnSquareSums[i];
+
+                if (rate == RateStore.NO_RATE) {
+                    minimums[size + i] = Long.MAX_VALUE;
+                    maximums[size + i] = Long.MIN_VALUE;
+                    continue;
+                }
+
+                double difference = rate - firstRate;
+                counts[i + 1]++;
+                sums[i + 1] += rate;
+                squareSums[i + 1] += difference * difference;
+                if (lastPublished >= 0) {
+                    double logReturn = Math.log((double) rate / rateHistory.getScaledRate(currencyIndex, lastPublished));
+                    returnSums[i + 1] += logReturn;
+                    returnSquareSums[i + 1] += logReturn * logReturn;
+                }
+                minimums[size + i] = rate;
+                maximums[size + i] = rate;
+                lastPublished = i;
+            }
+            this.reference = firstRate;
+
+            for (int i = size - 1; i > 0; i--) {
+                minimums[i] = Math.min(minimums[2 * i], minimums[2 * i + 1]);
+                maximums[i] = Math.max(maximums[2 * i], maximums[2 * i + 1]);
+            }
+        }
+
+        /**
+         * @param start Index of first publication in range
+         * @param end Index after last publication in range
+         */
+        Range statistics(String currency, LocalDate from, LocalDate to, int start, int end) {
+            int count = counts[end] - counts[start];
+            if (count == 0) {
+                return null;
+            }
+
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            for (int left = start + size, right = end + size; left < right; left >>= 1, right >>= 1) {
+                if ((left & 1) == 1) {
+                    min = Math.min(min, minimums[left]);
+                    max = Math.max(max, maximums[left]);
+                    left++;
+                }
+                if ((right & 1) == 1) {
+                    right--;
+                    min = Math.min(min, minimums[right]);
+                    max = Math.max(max, maximums[right]);
+                }
+            }
+
+            //Variance from sums of (rate - reference), which doesn't change it but keeps squares small
+            double mean = (double) (sums[end] - sums[start]) / count - reference;
+            double variance = (squareSums[end] - squareSums[start]) / count - mean * mean;
+            double standardDeviation = Math.sqrt(Math.max(0, variance)) / Math.pow(10, FixedPoint.RATE_SCALE);
+
+            //Return of first published rate in range is from rate before range, so it isn't counted
+            int returns = count - 1;
+            double returnSum = returnSums[end] - returnSums[start];
+            double returnSquareSum = returnSquareSums[end] - returnSquareSums[start];
+            int firstPublished = firstPublished(start);
+            if (counts[firstPublished] > 0) {
+                double logReturn = returnSums[firstPublished + 1] - returnSums[firstPublished];
+                returnSum -= logReturn;
+                returnSquareSum -= logReturn * logReturn;
+            }
+            double volatility = 0;
+            if (returns > 1) {
+                double returnMean = returnSum / returns;
+                volatility = Math.sqrt(Math.max(0, (returnSquareSum - returns * returnMean * returnMean) / (returns - 1)));
+            }
+
+            return new Range(currency, from, to, count,
+                    BigDecimal.valueOf(min, FixedPoint.RATE_SCALE), BigDecimal.valueOf(max, FixedPoint.RATE_SCALE),
+                    BigDecimal.valueOf(sums[end] - sums[start], FixedPoint.RATE_SCALE)
+                            .divide(BigDecimal.valueOf(count), AVERAGE_SCALE, RoundingMode.HALF_UP),
+                    standardDeviation, volatility);
+        }
+
+        /**
+         * Finds first publication with rate, binary search on counts as range surely has one.
+         */
+        private int firstPublished(int start) {
+            int low = start;
+            int high = counts.length - 2;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (counts[middle + 1] > counts[start]) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Statistics of currency rates in range of dates.
+     */
+    public static final class Range {
+        private final String currency;
+        private final LocalDate from;
+        private final LocalDate to;
+        private final int count;
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final BigDecimal average;
+        private final double standardDeviation;
+        private final double volatility;
+
+        Range(String currency, LocalDate from, LocalDate to, int count, BigDecimal min, BigDecimal max,
+              BigDecimal average, double standardDeviation, double volatility) {
+            this.currency = currency;
+            this.from = from;
+            this.to = to;
+            this.count = count;
+            this.min = min;
+            this.max = max;
+            this.average = average;
+            this.standardDeviation = standardDeviation;
+            this.volatility = volatility;
+        }
+
+        /**
+         * @return Currency tag
+         */
+        public String getCurrency() {
+            return currency;
+        }
+
+        /**
+         * @return First date of range
+         */
+        public LocalDate getFrom() {
+            return from;
+        }
+
+        /**
+         * @return Last date of range
+         */
+        public LocalDate getTo() {
+            return to;
+        }
+
+        /**
+         * @return Number of publications of currency in range
+         */
+        public int getCount() {
+            return count;
+        }
+
+        /**
+         * @return The lowest rate in range
+         */
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        /**
+         * @return The highest rate in range
+         */
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        /**
+         * @return Average rate with {@link #AVERAGE_SCALE} decimal places, rounded HALF_UP
+         */
+        public BigDecimal getAverage() {
+            return average;
+        }
+
+        /**
+         * @return Population standard deviation of rates
+         */
+        public double getStandardDeviation() {
+            return standardDeviation;
+        }
+
+        /**
+         * @return Sample standard deviation of log returns between consecutive publications in range,
+         * 0 if there are less than 3 publications
+         */
+        public double getVolatility() {
+            return volatility;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Dated rates of currencies with lookup by currency and date, independent of how rates are stored.
+ * <p>Store knows currencies and publication days, implementations only give scaled rate of currency
+ * in publication: {@link RateHistory} keeps plain columns of longs, {@link CompressedRateHistory} keeps
+ * delta encoded blocks.</p>
+ * <p>Rate for a date without publication (weekends, holidays) is taken from last publication before it.
+ * Finding publication for a date is O(1), there's table with publication index for every calendar day.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public abstract class RateStore {
+
+    //Scaled value used for currency not published on given day, real rates are always greater than 0
+    static final long NO_RATE = 0;
+
+    //Sorted tags of all currencies, index of tag is index of currency column
+    private final String[] currencies;
+    private final CurrencyRegistry currencyRegistry;
+
+    //Sorted epoch days of all publications
+    private final int[] publicationDays;
+
+    //For every calendar day from first to last publication - index of last publication on or before that day
+    private final int[] publicationIndexByDay;
+
+    /**
+     * @param currencies Sorted currencies tags
+     * @param publicationDays Sorted epoch days of publications
+     */
+    RateStore(String[] currencies, int[] publicationDays) {
+        this.currencies = currencies;
+        this.currencyRegistry = new CurrencyRegistry(Arrays.asList(currencies));
+        this.publicationDays = publicationDays;
+
+        if (publicationDays.length == 0) {
+            this.publicationIndexByDay = new int[0];
+            return;
+        }
+
+        int firstDay = publicationDays[0];
+        this.publicationIndexByDay = new int[publicationDays[publicationDays.length - 1] - firstDay + 1];
+
+        int publication = 0;
+        for (int day = 0; day < publicationIndexByDay.length; day++) {
+            if (publication + 1 < publicationDays.length && publicationDays[publication + 1] - firstDay <= day) {
+                publication++;
+            }
+            publicationIndexByDay[day] = publication;
+        }
+    }
+
+    /**
+     * Constructor sharing currencies and publication days of other store, for the same rates stored differently.
+     *
+     * @param store Store with the same currencies and publications
+     */
+    RateStore(RateStore store) {
+        this.currencies = store.currencies;
+        this.currencyRegistry = store.currencyRegistry;
+        this.publicationDays = store.publicationDays;
+        this.publicationIndexByDay = store.publicationIndexByDay;
+    }
+
+    /**
+     * Get rate scaled by 10^{@link FixedPoint#RATE_SCALE}.
+     *
+     * @param currencyIndex Index of currency from {@link #indexOfCurrency(CharSequence)}
+     * @param publication Index of publication from {@link #publicationIndex(LocalDate)}
+     * @return Scaled rate or {@link #NO_RATE} if currency wasn't published that day
+     */
+    abstract long getScaledRate(int currencyIndex, int publication);
+
+    /**
+     * Get rate of currency valid on given date.
+     *
+     * @param currency Currency tag
+     * @param date Date of rate, for days without publication rate from last publication before is returned
+     * @return Rate in BigDecimal format, or null if currency or date is unknown or currency wasn't published
+     */
+    public BigDecimal getRate(String currency, LocalDate date) {
+        if (currency == null || date == null) {
+            return null;
+        }
+
+        int currencyIndex = indexOfCurrency(currency);
+        int publication = publicationIndex(date);
+        if (currencyIndex < 0 || publication < 0) {
+            return null;
+        }
+
+        long scaledRate = getScaledRate(currencyIndex, publication);
+        return scaledRate == NO_RATE ? null : BigDecimal.valueOf(scaledRate, FixedPoint.RATE_SCALE);
+    }
+
+    /**
+     * Find index of currency column.
+     *
+     * @param currency Currency tag
+     * @return Index of currency, or negative value if currency is unknown
+     */
+    int indexOfCurrency(CharSequence currency) {
+        return currencyRegistry.ordinalOf(currency);
+    }
+
+    /**
+     * Find publication valid on given date.
+     *
+     * @param date Date of rates
+     * @return Index of last publication on or before date, -1 if date is before first publication
+     */
+    int publicationIndex(LocalDate date) {
+        return publicationIndex(date.toEpochDay());
+    }
+
+    /**
+     * Find publication valid on given day.
+     *
+     * @param epochDay Day of rates counted from 1970-01-01
+     * @return Index of last publication on or before day, -1 if day is before first publication
+     */
+    int publicationIndex(long epochDay) {
+        if (publicationDays.length == 0) {
+            return -1;
+        }
+
+        long day = epochDay - publicationDays[0];
+        if (day < 0) {
+            return -1;
+        }
+        if (day >= publicationIndexByDay.length) {
+            return publicationDays.length - 1;
+        }
+        return publicationIndexByDay[(int) day];
+    }
+
+    /**
+     * Get rates from last publication in history.
+     *
+     * @return Sorted Map of currencies published on last day and their rates, empty if history is empty
+     */
+    public SortedMap<String, BigDecimal> getLatestRates() {
+        SortedMap<String, BigDecimal> latestRates = new TreeMap<>();
+        if (publicationDays.length == 0) {
+            return latestRates;
+        }
+
+        int last = publicationDays.length - 1;
+        for (int i = 0; i < currencies.length; i++) {
+            long scaledRate = getScaledRate(i, last);
+            if (scaledRate != NO_RATE) {
+                latestRates.put(currencies[i], BigDecimal.valueOf(scaledRate, FixedPoint.RATE_SCALE));
+            }
+        }
+        return latestRates;
+    }
+
+    /**
+     * Get all currencies which were published at least once.
+     *
+     * @return Sorted set of currencies tags
+     */
+    public Set<String> getCurrencies() {
+        return currencyRegistry.getCodes();
+    }
+
+    /**
+     * @return Date of first publication, null if history is empty
+     */
+    public LocalDate getFirstDate() {
+        return publicationDays.length == 0 ? null : LocalDate.ofEpochDay(publicationDays[0]);
+    }
+
+    /**
+     * @return Date of last publication, null if history is empty
+     */
+    public LocalDate getLastDate() {
+        return publicationDays.length == 0 ? null : LocalDate.ofEpochDay(publicationDays[publicationDays.length - 1]);
+    }
+
+    /**
+     * @return Number of days with published rates
+     */
+    public int getPublicationCount() {
+        return publicationDays.length;
+    }
+
+    /**
+     * @return Number of published rates, days without rate of currency are not counted
+     */
+    long getRateCount() {
+        long rateCount = 0;
+        for (int i = 0; i < currencies.length; i++) {
+            for (int publication = 0; publication < publicationDays.length; publication++) {
+                if (getScaledRate(i, publication) != NO_RATE) {
+                    rateCount++;
+                }
+            }
+        }
+        return rateCount;
+    }
+
+    /**
+     * @return Number of currencies which were published at least once
+     */
+    int getCurrencyCount() {
+        return currencies.length;
+    }
+
+    /**
+     * @return Index of currencies, ordinal of currency is index of its column
+     */
+    CurrencyRegistry getCurrencyRegistry() {
+        return currencyRegistry;
+    }
+
+    /**
+     * @param currencyIndex Index of currency
+     * @return Currency tag
+     */
+    String getCurrency(int currencyIndex) {
+        return currencies[currencyIndex];
+    }
+
+    /**
+     * @param publication Index of publication
+     * @return Epoch day of publication
+     */
+    int getPublicationDay(int publication) {
+        return publicationDays[publication];
+    }
+
+    /**
+     * @return Bytes taken by days index, shared by stores of the same rates
+     */
+    long getIndexBytes() {
+        return 4L * (publicationDays.length + publicationIndexByDay.length);
+    }
+}
@@ -0,0 +1,245 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * End-to-end load test of application on data from {@link WorkloadGenerator}, runs without network.
+ * <p>It generates rate files and transactions, then measures the same path as application does:</p>
+ * <ul>
+ *     <li>load - parsing xml files ({@link XMLParser}, or {@link RateMerge} for daily files),</li>
+ *     <li>csv - conversion of transactions file to output file ({@link CsvConversionEngine}),</li>
+ *     <li>calculator - conversion of every transaction with {@link Calculator} and latest rates.</li>
+ * </ul>
+ * <p>For every step it prints rows/s (rates for load step), MB/s of files read and written and GC time,
+ * at the end peak resident memory of process.
+ * The same arguments always give the same data, so results of releases can be compared.</p>
+ * <p>Usage: {@code java -cp target/CurrencyCalculator-1.0-SNAPSHOT.jar WorkloadDriver [--days 6500]
+ * [--currencies 32] [--rows 5000000] [--layout history|daily] [--seed 42] [--target USD] [--dir path]}.
+ * Without {@code --dir} files are generated in temporary directory and deleted at the end.</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class WorkloadDriver {
+
+    private static final double MEGABYTE = 1024 * 1024;
+
+    private WorkloadDriver() {
+    }
+
+    /**
+     * Runs load test and prints results to standard output.
+     *
+     * @param args Options of test, see class description
+     */
+    public static void main(String[] args) {
+        try {
+            run(args, System.out);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.exit(1);
+        } catch (RateLoadException e) {
+            System.out.println(e.getMessage());
+            System.exit(e.getExitCode());
+        } catch (IOException e) {
+            System.out.println("Workload files can't be written or read: " + e.getMessage());
+            System.exit(7);
+        }
+    }
+
+    /**
+     * Runs load test.
+     *
+     * @param args Options of test, see class description
+     * @param out Stream for results
+     * @throws IllegalArgumentException If options are not valid
+     * @throws RateLoadException If generated rates can't be loaded
+     * @throws IOException If files can't be written or read
+     */
+    static void run(String[] args, PrintStream out) throws IOException, RateLoadException {
+        int days = 6500;
+        int currencyCount = WorkloadGenerator.ECB_CURRENCIES.length;
+        long rows = 5_000_000;
+        WorkloadGenerator.Layout layout = WorkloadGenerator.Layout.HISTORY;
+        long seed = 42;
+        String target = "USD";
+        Path directory = null;
+
+        for (int i = 0; i < args.length; i += 2) {
+            if (i + 1 >= args.length) {
+                throw new IllegalArgumentException("Option " + args[i] + " needs a value.");
+            }
+            String value = args[i + 1];
+            try {
+                switch (args[i]) {
+                    case "--days":
+                        days = Integer.parseInt(value);
+                        break;
+                    case "--currencies":
+                        currencyCount = Integer.parseInt(value);
+                        break;
+                    case "--rows":
+                        rows = Long.parseLong(value);
+                        break;
+                    case "--layout":
+                        layout = WorkloadGenerator.Layout.valueOf(value.toUpperCase(Locale.ROOT));
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--target":
+                        target = value;
+                        break;
+                    case "--dir":
+                        directory = Paths.get(value);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option " + args[i] + ".");
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Option " + args[i] + " needs a number: " + value);
+            }
+        }
+
+        boolean temporary = directory == null;
+        directory = temporary ? Files.createTempDirectory("workload") : Files.createDirectories(directory);
+        try {
+            run(new WorkloadGenerator(seed, days, currencyCount), layout, rows, target, directory, out);
+        } finally {
+            if (temporary) {
+                try (Stream<Path> files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(directory);
+            }
+        }
+    }
+
+    private static void run(WorkloadGenerator generator, WorkloadGenerator.Layout layout, long rows, String target,
+                            Path directory, PrintStream out) throws IOException, RateLoadException {
+        out.printf(Locale.ROOT, "Workload: %d days from %s to %s, %d currencies, %s layout, %d transactions%n",
+                generator.getPublicationCount(), generator.getFirstDate(), generator.getLastDate(),
+                generator.getCurrencies().length, layout.name().toLowerCase(Locale.ROOT), rows);
+
+        //Generation isn't part of application, it's timed only to show where time of run goes
+        Step step = new Step();
+        List<Path> rateFiles = generator.writeRates(directory, layout);
+        Path input = directory.resolve("transactions.csv");
+        long inputBytes = generator.writeTransactions(input, rows);
+        long xmlBytes = 0;
+        for (Path file : rateFiles) {
+            xmlBytes += Files.size(file);
+        }
+        step.print(out, "generate", rows, xmlBytes + inputBytes);
+
+        step = new Step();
+        RateHistory rateHistory = layout == WorkloadGenerator.Layout.HISTORY
+                ? XMLParser.loadRateHistory(rateFiles.get(0).toString())
+                : RateMerge.load(rateFiles, false).getRateHistory();
+        step.print(out, "load", (long) rateHistory.getPublicationCount() * rateHistory.getCurrencyCount(), xmlBytes);
+
+        step = new Step();
+        Path output = directory.resolve("converted.csv");
+        CsvConversionEngine.Summary summary;
+        try (PrintStream errors = new PrintStream(NullOutputStream.INSTANCE, false, StandardCharsets.UTF_8.name())) {
+            summary = new CsvConversionEngine(rateHistory, target).convert(input, output, errors);
+        }
+        step.print(out, "csv", summary.getConvertedRows() + summary.getRejectedRows(), inputBytes + Files.size(output));
+        if (summary.getRejectedRows() > 0) {
+            out.println("Rejected rows: " + summary.getRejectedRows());
+        }
+
+        step = new Step();
+        Calculator calculator = new Calculator(new RateSnapshot(1, rateHistory, CrossRateTable.DEFAULT_SCALE,
+                CrossRateTable.DEFAULT_ROUNDING));
+        WorkloadGenerator.Transactions transactions = generator.transactions();
+        BigDecimal total = BigDecimal.ZERO;
+        for (long row = 0; row < rows; row++) {
+            transactions.next();
+            total = total.add(calculator.convert(BigDecimal.valueOf(transactions.getAmountCents(), 2),
+                    transactions.getCurrency(), target));
+        }
+        step.print(out, "calculator", rows, 0);
+        out.println("Total in " + target + ": " + total.toPlainString());
+
+        out.printf(Locale.ROOT, "Peak memory: %s%n", peakMemory());
+    }
+
+    /**
+     * @return Peak resident memory of process from /proc on Linux, on other systems peak heap of JVM
+     */
+    private static String peakMemory() {
+        Path status = Paths.get("/proc/self/status");
+        if (Files.isReadable(status)) {
+            try (Stream<String> lines = Files.lines(status)) {
+                String peak = lines.filter(line -> line.startsWith("VmHWM:")).findFirst().orElse(null);
+                if (peak != null) {
+                    long kilobytes = Long.parseLong(peak.replaceAll("[^0-9]", ""));
+                    return String.format(Locale.ROOT, "%.1f MB RSS", kilobytes / 1024.0);
+                }
+            } catch (IOException | NumberFormatException e) {
+                //Heap is shown instead
+            }
+        }
+
+        long heap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heap += pool.getPeakUsage().getUsed();
+            }
+        }
+        return String.format(Locale.ROOT, "%.1f MB heap", heap / MEGABYTE);
+    }
+
+    private static long gcMillis() {
+        long millis = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            millis += Math.max(0, collector.getCollectionTime());
+        }
+        return millis;
+    }
+
+    /**
+     * Time and GC time of one step, from creation to {@link #print(PrintStream, String, long, long)}.
+     */
+    private static final class Step {
+        private final long start = System.nanoTime();
+        private final long gcStart = gcMillis();
+
+        void print(PrintStream out, String name, long items, long bytes) {
+            double seconds = Math.max(1, System.nanoTime() - start) / 1e9;
+            String throughput = bytes > 0 ? String.format(Locale.ROOT, "%8.1f", bytes / MEGABYTE / seconds) : "       -";
+            out.printf(Locale.ROOT, "%-10s %8.0f ms, %12.0f rows/s, %s MB/s, GC %d ms%n", name, seconds * 1000,
+                    items / seconds, throughput, gcMillis() - gcStart);
+        }
+    }
+
+    /**
+     * Stream dropping everything, for reports of rejected rows.
+     */
+    private static final class NullOutputStream extends OutputStream {
+        static final NullOutputStream INSTANCE = new NullOutputStream();
+
+        @Override
+        public void write(int b) {
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+        }
+    }
+}
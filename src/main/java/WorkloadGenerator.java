@@ -0,0 +1,319 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic generator of synthetic ECB rate files and transactions converted with them,
+ * for measuring application on production-size data without network.
+ * <p>The same seed and sizes always give byte-identical files, on every JVM. Rates are published on working days
+ * ending on 2022-01-28, they start from real ECB rates of that day and change by random walk with 5 significant
+ * digits, like in ECB files. Currencies after 32 real ones get synthetic codes {@code QAA}, {@code QAB}...</p>
+ * <p>Transactions are {@code amount,currency,date} rows read by {@link CsvConversionEngine}, skewed like real
+ * payments - most amounts are popular price points (9.99, 19.99...), the rest has log-normal distribution,
+ * and currencies are drawn from Zipf distribution (USD is the most popular one).</p>
+ *
+ * @author Mateusz Prill
+ * @version 1.0
+ */
+public final class WorkloadGenerator {
+
+    //Real ECB currencies in order of daily file, with their rates from 2022-01-28
+    static final String[] ECB_CURRENCIES = {"USD", "JPY", "BGN", "CZK", "DKK", "GBP", "HUF", "PLN", "RON", "SEK",
+            "CHF", "ISK", "NOK", "HRK", "RUB", "TRY", "AUD", "BRL", "CAD", "CNY", "HKD", "IDR", "ILS", "INR", "KRW",
+            "MXN", "MYR", "NZD", "PHP", "SGD", "THB", "ZAR"};
+    private static final double[] ECB_RATES = {1.1138, 128.68, 1.9558, 24.443, 7.4432, 0.83178, 358.42, 4.5755,
+            4.9463, 10.5520, 1.0378, 144.00, 10.0260, 7.5290, 86.6113, 15.1424, 1.5971, 6.0147, 1.4239, 7.0857,
+            8.6810, 16047.76, 3.5697, 83.6015, 1349.47, 23.1854, 4.6668, 1.7031, 57.028, 1.5109, 37.229, 17.3844};
+
+    //Biggest number of currencies, real ones and synthetic Q codes
+    public static final int MAX_CURRENCIES = ECB_CURRENCIES.length + 26 * 26;
+
+    static final LocalDate LAST_DAY = LocalDate.of(2022, 1, 28);
+
+    private static final MathContext SIGNIFICANT_DIGITS = new MathContext(5);
+
+    //Part of transactions in Euro and with popular price point, the rest has log-normal amount
+    private static final double EURO_SHARE = 0.05;
+    private static final double PRICE_POINT_SHARE = 0.6;
+    private static final int PRICE_POINTS = 200;
+
+    private final long seed;
+    private final String[] currencies;
+    private final int[] publicationDays;
+
+    /**
+     * @param seed Seed of all random values
+     * @param days Number of publication days
+     * @param currencyCount Number of currencies published every day
+     * @throws IllegalArgumentException If days are less than 1 or currency count is not between 1 and
+     * {@link #MAX_CURRENCIES}
+     */
+    public WorkloadGenerator(long seed, int days, int currencyCount) {
+        if (days < 1 || currencyCount < 1 || currencyCount > MAX_CURRENCIES) {
+            throw new IllegalArgumentException("Days must be greater than zero and number of currencies between 1 and "
+                    + MAX_CURRENCIES + ".");
+        }
+        this.seed = seed;
+        this.currencies = new String[currencyCount];
+        for (int i = 0; i < currencyCount; i++) {
+            int synthetic = i - ECB_CURRENCIES.length;
+            currencies[i] = synthetic < 0 ? ECB_CURRENCIES[i]
+                    : "Q" + (char) ('A' + synthetic / 26) + (char) ('A' + synthetic % 26);
+        }
+
+        //Working days back from last day, oldest first
+        this.publicationDays = new int[days];
+        LocalDate date = LAST_DAY;
+        for (int i = days - 1; i >= 0; i--) {
+            publicationDays[i] = Math.toIntExact(date.toEpochDay());
+            do {
+                date = date.minusDays(1);
+            } while (date.getDayOfWeek() == DayOfWeek.SATURDAY || date.getDayOfWeek() == DayOfWeek.SUNDAY);
+        }
+    }
+
+    /**
+     * @return Codes of generated currencies, in order of ECB daily file
+     */
+    public String[] getCurrencies() {
+        return currencies.clone();
+    }
+
+    /**
+     * @return Number of publication days
+     */
+    public int getPublicationCount() {
+        return publicationDays.length;
+    }
+
+    /**
+     * @return Date of first publication
+     */
+    public LocalDate getFirstDate() {
+        return LocalDate.ofEpochDay(publicationDays[0]);
+    }
+
+    /**
+     * @return Date of last publication
+     */
+    public LocalDate getLastDate() {
+        return LocalDate.ofEpochDay(publicationDays[publicationDays.length - 1]);
+    }
+
+    /**
+     * Writes rate files in ECB format, newest day first.
+     * <p>All rates are kept in memory while writing, 8 bytes per rate.</p>
+     *
+     * @param directory Directory of files, must exist
+     * @param layout One history file or one daily file per day
+     * @return Paths of written files, oldest first
+     * @throws IOException If file can't be written
+     */
+    public List<Path> writeRates(Path directory, Layout layout) throws IOException {
+        String[][] rates = rates();
+        List<Path> files = new ArrayList<>();
+        if (layout == Layout.HISTORY) {
+            Path file = directory.resolve("eurofxref-hist.xml");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeHeader(writer);
+                for (int day = publicationDays.length - 1; day >= 0; day--) {
+                    writeDay(writer, day, rates[day]);
+                }
+                writeFooter(writer);
+            }
+            files.add(file);
+            return files;
+        }
+
+        for (int day = 0; day < publicationDays.length; day++) {
+            Path file = directory.resolve("eurofxref-" + LocalDate.ofEpochDay(publicationDays[day]) + ".xml");
+            try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeHeader(writer);
+                writeDay(writer, day, rates[day]);
+                writeFooter(writer);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    /**
+     * Writes transactions for dates of rates, with header line.
+     *
+     * @param file Path of CSV file
+     * @param rows Number of transactions
+     * @return Size of file in bytes
+     * @throws IOException If file can't be written
+     */
+    public long writeTransactions(Path file, long rows) throws IOException {
+        Transactions transactions = transactions();
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.US_ASCII)) {
+            writer.write("amount,currency,date\n");
+            StringBuilder line = new StringBuilder(32);
+            for (long row = 0; row < rows; row++) {
+                transactions.next();
+                line.setLength(0);
+                line.append(transactions.getAmountCents() / 100).append('.');
+                long cents = transactions.getAmountCents() % 100;
+                line.append(cents < 10 ? "0" : "").append(cents).append(',')
+                        .append(transactions.getCurrency()).append(',').append(transactions.getDate()).append('\n');
+                writer.append(line);
+            }
+        }
+        return Files.size(file);
+    }
+
+    /**
+     * @return New sequence of transactions, the same as written by {@link #writeTransactions(Path, long)}
+     */
+    public Transactions transactions() {
+        return new Transactions();
+    }
+
+    /**
+     * Rates of every day as text, rates[day][currency].
+     */
+    private String[][] rates() {
+        Random random = new Random(seed);
+        double[] deviations = new double[currencies.length];
+        double[] baseRates = new double[currencies.length];
+        for (int i = 0; i < currencies.length; i++) {
+            baseRates[i] = i < ECB_RATES.length ? ECB_RATES[i]
+                    : StrictMath.pow(10, random.nextInt(5)) * (1 + random.nextDouble());
+        }
+
+        //Walk of logarithm is pulled back to base rate, so rates of long histories stay realistic
+        String[][] rates = new String[publicationDays.length][currencies.length];
+        for (int day = 0; day < publicationDays.length; day++) {
+            for (int i = 0; i < currencies.length; i++) {
+                deviations[i] = deviations[i] * 0.998 + random.nextGaussian() * 0.004;
+                rates[day][i] = new BigDecimal(baseRates[i] * StrictMath.exp(deviations[i]), SIGNIFICANT_DIGITS)
+                        .toPlainString();
+            }
+        }
+        return rates;
+    }
+
+    private static void writeHeader(BufferedWriter writer) throws IOException {
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        writer.write("<gesmes:Envelope xmlns:gesmes=\"http://www.gesmes.org/xml/2002-08-01\" "
+                + "xmlns=\"http://www.ecb.int/vocabulary/2002-08-01/eurofxref\">\n");
+        writer.write("\t<gesmes:subject>Reference rates</gesmes:subject>\n");
+        writer.write("\t<gesmes:Sender>\n\t\t<gesmes:name>European Central Bank</gesmes:name>\n\t</gesmes:Sender>\n");
+        writer.write("\t<Cube>\n");
+    }
+
+    private void writeDay(BufferedWriter writer, int day, String[] rates) throws IOException {
+        writer.write("\t\t<Cube time='" + LocalDate.ofEpochDay(publicationDays[day]) + "'>\n");
+        for (int i = 0; i < currencies.length; i++) {
+            writer.write("\t\t\t<Cube currency='" + currencies[i] + "' rate='" + rates[i] + "'/>\n");
+        }
+        writer.write("\t\t</Cube>\n");
+    }
+
+    private static void writeFooter(BufferedWriter writer) throws IOException {
+        writer.write("\t</Cube>\n");
+        writer.write("</gesmes:Envelope>\n");
+    }
+
+    /**
+     * Cumulative weights of Zipf distribution, weight of rank k is 1 / k^exponent.
+     */
+    private static double[] zipf(int size, double exponent) {
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 0; rank < size; rank++) {
+            sum += 1 / StrictMath.pow(rank + 1, exponent);
+            cumulative[rank] = sum;
+        }
+        return cumulative;
+    }
+
+    private static int draw(double[] cumulative, Random random) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble() * cumulative[cumulative.length - 1]);
+        return rank < 0 ? Math.min(-rank - 1, cumulative.length - 1) : rank;
+    }
+
+    /**
+     * Layout of generated rate files.
+     */
+    public enum Layout {
+        //One file with all days, like eurofxref-hist.xml
+        HISTORY,
+        //One file per day, like eurofxref-daily.xml downloaded every day
+        DAILY
+    }
+
+    /**
+     * Endless sequence of transactions, current one is changed by {@link #next()}.
+     */
+    public final class Transactions {
+
+        private final Random random = new Random(seed ^ 0x5DEECE66DL);
+        private final double[] currencyWeights = zipf(currencies.length, 1.0);
+        private final double[] priceWeights = zipf(PRICE_POINTS, 1.1);
+        private final long[] pricePoints = new long[PRICE_POINTS];
+        private final int firstDay = publicationDays[0];
+        private final int dayCount = publicationDays[publicationDays.length - 1] - firstDay + 1;
+
+        private long amountCents;
+        private String currency;
+        private LocalDate date;
+
+        Transactions() {
+            //Price points in order of popularity, e.g. 9.99, 4.99, 19.99, 99.99, 100.00...
+            Random prices = new Random(seed);
+            for (int i = 0; i < PRICE_POINTS; i++) {
+                long units = (long) StrictMath.pow(10, prices.nextInt(4)) * (1 + prices.nextInt(20));
+                pricePoints[i] = prices.nextInt(4) == 0 ? units * 100 : units * 100 - 1;
+            }
+        }
+
+        /**
+         * Moves to next transaction.
+         */
+        public void next() {
+            currency = random.nextDouble() < EURO_SHARE ? CrossRateTable.EURO
+                    : currencies[draw(currencyWeights, random)];
+            if (random.nextDouble() < PRICE_POINT_SHARE) {
+                amountCents = pricePoints[draw(priceWeights, random)];
+            } else {
+                //Median 50.00, most amounts from 1.00 to 2500.00
+                amountCents = Math.min(1_000_000_000L,
+                        1 + (long) StrictMath.exp(StrictMath.log(5000) + random.nextGaussian() * 1.3));
+            }
+            date = LocalDate.ofEpochDay(firstDay + random.nextInt(dayCount));
+        }
+
+        /**
+         * @return Amount of transaction in minor units
+         */
+        public long getAmountCents() {
+            return amountCents;
+        }
+
+        /**
+         * @return Currency of transaction, Euro included
+         */
+        public String getCurrency() {
+            return currency;
+        }
+
+        /**
+         * @return Date of transaction, any calendar day from first to last publication
+         */
+        public LocalDate getDate() {
+            return date;
+        }
+    }
+}
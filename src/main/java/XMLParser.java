@@ -8,11 +8,26 @@ import javax.xml.XMLConstants;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 
+import java.io.BufferedInputStream;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 
@@ -26,8 +41,13 @@ import java.util.TreeMap;
  */
 public class XMLParser {
 
+    //Size of read buffer for streaming parser, big enough for history files
+    private static final int BUFFER_SIZE = 64 * 1024;
+
     /**
      * Static method for retrieving currencies and rates from xml file.
+     * <p>File is read with streaming (StAX) parser in one pass, so memory usage doesn't depend on file size.
+     * For the same file it returns exactly the same map as {@link #getCurrenciesDom(String)}.</p>
      * <p>It can make application to quit when there are problems with xml file.</p>
      * <p>It's intentional action as Calculator application cannot work without this file</p>
      *
@@ -37,6 +57,214 @@ public class XMLParser {
     public static SortedMap<String, BigDecimal> getCurrencies (String filePath) {
         SortedMap<String, BigDecimal> currencyRateMap = new TreeMap<>();
 
+        try {
+            //Date of rate is not needed here, every next rate of currency replace previous one
+            readCubes(filePath, (time, currency, rate) -> currencyRateMap.put(currency, new BigDecimal(rate)));
+        } catch (RateLoadException e) {
+            exit(e);
+        }
+
+        return currencyRateMap;
+    }
+
+    /**
+     * Static method for retrieving rates for every date given in xml file.
+     * <p>Unlike {@link #getCurrencies(String)} it doesn't lose older rates, so it should be used for
+     * <a href="https://www.ecb.europa.eu/stats/eurofxref/eurofxref-hist.xml">history</a> files.
+     * Rates without date (before the first Cube element with time attribute) are rates of the latest date of file,
+     * unless that date has its own rate of currency. When file has no date at all, like hand-written file with
+     * rates only, they are published on the day of last modification of file.</p>
+     * <p>History keeps rates as longs with {@link FixedPoint#RATE_SCALE} decimal places, so unlike
+     * {@link #getCurrencies(String)} it doesn't accept rates which aren't greater than zero or have more decimal
+     * places - such file is reported as not formatted properly (exit code 5) instead of rounding its rates.</p>
+     * <p>It can make application to quit when there are problems with xml file.</p>
+     *
+     * @param filePath String with path to xml file
+     * @return History of rates for all dates and currencies from xml file
+     */
+    public static RateHistory getRateHistory(String filePath) {
+        long start = System.nanoTime();
+        try {
+            RateHistory rateHistory = loadRateHistory(filePath);
+            Metrics.INSTANCE.recordParse(System.nanoTime() - start, rateHistory.getRateCount());
+            return rateHistory;
+        } catch (RateLoadException e) {
+            Metrics.INSTANCE.recordParseFailure();
+            exit(e);
+            return null;
+        }
+    }
+
+    /**
+     * Static method for retrieving rates for every date given in xml file, which never quits application.
+     * <p>It should be used when application can work further without this file, e.g. when reloading rates.
+     * Load isn't recorded in {@link Metrics} here, because rates can also come from {@link RateCache} or many
+     * files - {@link RateReloader} records every load it publishes.</p>
+     *
+     * @param filePath String with path to xml file
+     * @return History of rates for all dates and currencies from xml file
+     * @throws RateLoadException If file can't be read or isn't formatted properly, also when any rate isn't greater
+     *                           than zero or has more than {@link FixedPoint#RATE_SCALE} decimal places
+     */
+    public static RateHistory loadRateHistory(String filePath) throws RateLoadException {
+        RateHistory.Builder builder = new RateHistory.Builder();
+        DatedRates datedRates = new DatedRates();
+        SortedMap<String, BigDecimal> undatedRates = new TreeMap<>();
+
+        readCubesWithoutMetrics(filePath, (time, currency, rate) -> {
+            if (time == null) {
+                //Checked even when the latest date has its own rate, like lazy reading does
+                BigDecimal undatedRate = new BigDecimal(rate);
+                RateHistory.scaledRateOf(currency, undatedRate);
+                undatedRates.put(currency, undatedRate);
+            } else {
+                LocalDate date = LocalDate.parse(time);
+                builder.add(date, currency, new BigDecimal(rate));
+                datedRates.add(date, currency);
+            }
+        });
+        if (undatedRates.isEmpty()) {
+            return builder.build();
+        }
+
+        try {
+            LocalDate latestDate = datedRates.latestDate != null ? datedRates.latestDate
+                    : Files.getLastModifiedTime(Paths.get(filePath)).toInstant().atZone(ZoneId.systemDefault())
+                    .toLocalDate();
+            for (Map.Entry<String, BigDecimal> rate : undatedRates.entrySet()) {
+                if (!datedRates.latestCurrencies.contains(rate.getKey())) {
+                    builder.add(latestDate, rate.getKey(), rate.getValue());
+                }
+            }
+        } catch (IOException e) {
+            throw new RateLoadException("There was a problem with a file. Check if XML file exist.", 4, e);
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new RateLoadException("Error during parsing data from xml file. Is it formatted properly?", 5, e);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Latest date of file and currencies published on it, so rates without date don't replace them.
+     */
+    private static class DatedRates {
+        private LocalDate latestDate;
+        private final Set<String> latestCurrencies = new HashSet<>();
+
+        private void add(LocalDate date, String currency) {
+            if (latestDate == null || date.isAfter(latestDate)) {
+                latestDate = date;
+                latestCurrencies.clear();
+            }
+            if (date.equals(latestDate)) {
+                latestCurrencies.add(currency);
+            }
+        }
+    }
+
+    /**
+     * Quits application after problem with xml file, with the same exit codes as DOM parser.
+     *
+     * @param e Exception with description of problem
+     */
+    private static void exit(RateLoadException e) {
+        System.out.println(e.getMessage());
+        e.getCause().printStackTrace();
+        System.exit(e.getExitCode());
+    }
+
+    /**
+     * Reads all Cube elements with currency from xml file and passes them to handler.
+     * <p>Duration and number of rates of every load are recorded in {@link Metrics}.</p>
+     *
+     * @param filePath String with path to xml file
+     * @param handler Handler called for every currency rate in order of file
+     * @throws RateLoadException If file can't be read or isn't formatted properly
+     */
+    private static void readCubes(String filePath, CubeHandler handler) throws RateLoadException {
+        long start = System.nanoTime();
+        try {
+            long rateCount = readCubesWithoutMetrics(filePath, handler);
+            Metrics.INSTANCE.recordParse(System.nanoTime() - start, rateCount);
+        } catch (RateLoadException e) {
+            Metrics.INSTANCE.recordParseFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * @return Number of rates passed to handler
+     * @see #readCubes(String, CubeHandler)
+     */
+    private static long readCubesWithoutMetrics(String filePath, CubeHandler handler) throws RateLoadException {
+        long rateCount = 0;
+        try (InputStream inputStream = new BufferedInputStream(new FileInputStream(filePath), BUFFER_SIZE)) {
+            XMLStreamReader reader = createXMLInputFactory().createXMLStreamReader(inputStream);
+
+            //Date from last opened Cube element with time attribute
+            String time = null;
+
+            try {
+                while (reader.hasNext()) {
+                    //Only start of Cube element can contain currency and rate
+                    if (reader.next() != XMLStreamConstants.START_ELEMENT || !reader.getLocalName().equals("Cube")) {
+                        continue;
+                    }
+
+                    String cubeTime = reader.getAttributeValue(null, "time");
+                    if (cubeTime != null) {
+                        time = cubeTime;
+                        continue;
+                    }
+
+                    String currency = reader.getAttributeValue(null, "currency");
+
+                    //There can be Cube elements without currency attribute - omit them
+                    if (currency != null && !currency.equals("")) {
+                        String rate = reader.getAttributeValue(null, "rate");
+
+                        //Missing rate attribute is treated the same way as in DOM parser - as empty String
+                        handler.onRate(time, currency, rate == null ? "" : rate);
+                        rateCount++;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return rateCount;
+        } catch (XMLStreamException e) {
+            throw new RateLoadException("There was a problem during parsing xml file. Check XML file.", 3, e);
+        } catch (IOException e) {
+            throw new RateLoadException("There was a problem with a file. Check if XML file exist.", 4, e);
+        } catch (NumberFormatException | ArithmeticException | DateTimeParseException e) {
+            throw new RateLoadException("Error during parsing data from xml file. Is it formatted properly?", 5, e);
+        }
+    }
+
+    /**
+     * Creates StAX factory that process XML securely.
+     * <p>DTDs and external entities are disabled to avoid attacks like XML External Entities (XXE).</p>
+     *
+     * @return Configured XMLInputFactory
+     */
+    static XMLInputFactory createXMLInputFactory() {
+        XMLInputFactory xmlInputFactory = XMLInputFactory.newInstance();
+        xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        xmlInputFactory.setProperty(XMLInputFactory.IS_COALESCING, false);
+        return xmlInputFactory;
+    }
+
+    /**
+     * Old method for retrieving currencies and rates from xml file, builds whole DOM tree in memory.
+     * <p>It's kept only for comparing results and performance with streaming {@link #getCurrencies(String)}.</p>
+     *
+     * @param filePath String with path to xml file
+     * @return Sorted Map of currencies as String keys and rates as their value in BigDecimal format
+     */
+    static SortedMap<String, BigDecimal> getCurrenciesDom (String filePath) {
+        SortedMap<String, BigDecimal> currencyRateMap = new TreeMap<>();
+
         DocumentBuilderFactory documentBuilderFactory = DocumentBuilderFactory.newInstance();
 
         try{
@@ -89,4 +317,18 @@ public class XMLParser {
 
         return currencyRateMap;
     }
+
+    /**
+     * Handler for rates found in xml file.
+     */
+    @FunctionalInterface
+    private interface CubeHandler {
+
+        /**
+         * @param time Date from parent Cube element in yyyy-MM-dd format, null if there is no such element
+         * @param currency Currency tag
+         * @param rate Rate of currency, not validated
+         */
+        void onRate(String time, String currency, String rate);
+    }
 }
@@ -0,0 +1,178 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.fail;
+
+public class AmountParserTest {
+
+    //parseCents() tests
+    @Test
+    public void givenAmounts_whenParseCents_thanRoundHalfUpToMinorUnits() {
+        assertEquals(10000, AmountParser.parseCents("100"));
+        assertEquals(12346, AmountParser.parseCents("123.455"));
+        assertEquals(12345, AmountParser.parseCents("123.4549"));
+        assertEquals(-12346, AmountParser.parseCents("-123.455"));
+        assertEquals(50, AmountParser.parseCents(".5"));
+        assertEquals(100, AmountParser.parseCents("+1."));
+        assertEquals(123400, AmountParser.parseCents("1.234E3"));
+        assertEquals(1, AmountParser.parseCents("5e-3"));
+        assertEquals(0, AmountParser.parseCents("4.9e-3"));
+        assertEquals(0, AmountParser.parseCents("0E+999999999"));
+        assertEquals(0, AmountParser.parseCents("1E-999999999"));
+    }
+
+    @Test
+    public void givenBadText_whenParseCents_thanReturnInvalid() {
+        for (String text : new String[]{"", "-", ".", "+.", "abc", "12a4.56", "1.2.3", "1e", "1e+", "e5", " 1", "1 ",
+                "1,5", "--1", "1e5.5", "1E2147483648", "1E99999999999", "0x10", "NaN", "Infinity"}) {
+            assertEquals(AmountParser.INVALID, AmountParser.parseCents(text), text);
+        }
+        assertEquals(AmountParser.INVALID, AmountParser.parseCents(null));
+    }
+
+    @Test
+    public void givenAmountTooBigForLong_whenParseCents_thanReturnUnsupported() {
+        assertEquals(AmountParser.UNSUPPORTED, AmountParser.parseCents("92233720368547758.07"));
+        assertEquals(AmountParser.UNSUPPORTED, AmountParser.parseCents("-1E30"));
+        assertEquals(AmountParser.UNSUPPORTED, AmountParser.parseCents("1E999999999"));
+        assertEquals(9_223_372_036_854_775_805L, AmountParser.parseCents("92233720368547758.05"));
+    }
+
+    @Test
+    public void givenNonAsciiDigits_whenParseCents_thanReturnUnsupported() {
+        //BigDecimal accepts digits of all scripts, e.g. Arabic-Indic 12
+        String arabicDigits = "\u0661\u0662";
+
+        assertEquals(new BigDecimal("12"), new BigDecimal(arabicDigits));
+        assertEquals(AmountParser.UNSUPPORTED, AmountParser.parseCents(arabicDigits));
+    }
+
+    @Test
+    public void givenPartOfText_whenParseCents_thanParseOnlyThatPart() {
+        String line = "100.005,USD";
+        byte[] bytes = line.getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(10001, AmountParser.parseCents(line, 0, 7));
+        assertEquals(10001, AmountParser.parseCents(bytes, 0, 7));
+        assertEquals(AmountParser.INVALID, AmountParser.parseCents(bytes, 0, 8));
+    }
+
+    //parseAmount() tests
+    @Test
+    public void givenAmounts_whenParseAmount_thanRoundedOrNullWhenOutOfRange() {
+        assertEquals(new BigDecimal("100.01"), AmountParser.parseAmount("100.005"));
+        assertEquals(new BigDecimal("-5.00"), AmountParser.parseAmount("-5"));
+        assertEquals(new BigDecimal("1E30").setScale(2), AmountParser.parseAmount("1E30"));
+        assertEquals(new BigDecimal("12.00"), AmountParser.parseAmount("\u0661\u0662"));
+        assertEquals(new BigDecimal("0.00"), AmountParser.parseAmount("1E-99999999"));
+        assertNull(AmountParser.parseAmount("abc"));
+        assertNull(AmountParser.parseAmount(null));
+        assertNull(AmountParser.parseAmount("1E+999999999"));
+        assertNull(AmountParser.parseAmount("\u0661E-99999999"));
+    }
+
+    //parseExactCents() tests
+    @Test
+    public void givenAmounts_whenParseExactCents_thanReturnUnsupportedOnlyWhenRoundingIsNeeded() {
+        assertEquals(12345, parseExact("123.45"));
+        assertEquals(12340, parseExact("123.4000"));
+        assertEquals(-500, parseExact("-5"));
+        assertEquals(AmountParser.UNSUPPORTED, parseExact("123.451"));
+        assertEquals(AmountParser.UNSUPPORTED, parseExact("1E-5"));
+        assertEquals(AmountParser.INVALID, parseExact("1..2"));
+    }
+
+    //Fuzz tests comparing parser with BigDecimal
+    @Test
+    public void givenRandomText_whenParseCents_thanAgreeWithBigDecimal() {
+        Random random = new Random(42);
+        String alphabet = "0123456789.+-eE x";
+        for (int i = 0; i < 500_000; i++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertAgreesWithBigDecimal(text.toString());
+        }
+    }
+
+    @Test
+    public void givenRandomNumbers_whenParseCents_thanAgreeWithBigDecimal() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500_000; i++) {
+            StringBuilder text = new StringBuilder();
+            if (random.nextInt(4) == 0) {
+                text.append(random.nextBoolean() ? '-' : '+');
+            }
+            int integerDigits = random.nextInt(22);
+            for (int j = 0; j < integerDigits; j++) {
+                text.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) {
+                text.append('.');
+                int fractionDigits = random.nextInt(8);
+                for (int j = 0; j < fractionDigits; j++) {
+                    //More fives and zeros, so rounding borders are checked often
+                    int digit = random.nextInt(13);
+                    text.append(digit >= 10 ? (digit == 10 ? '5' : '0') : (char) ('0' + digit));
+                }
+            }
+            if (random.nextInt(5) == 0) {
+                text.append(random.nextBoolean() ? 'e' : 'E').append(random.nextInt(50) - 25);
+            }
+            assertAgreesWithBigDecimal(text.toString());
+        }
+    }
+
+    /**
+     * Checks that parser gives the same result as BigDecimal for text, as String and as ASCII bytes.
+     */
+    private static void assertAgreesWithBigDecimal(String text) {
+        long parsed = AmountParser.parseCents(text);
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        assertEquals(parsed, AmountParser.parseCents(bytes, 0, bytes.length), text);
+
+        BigDecimal decimal;
+        try {
+            decimal = new BigDecimal(text);
+        } catch (NumberFormatException e) {
+            assertEquals(AmountParser.INVALID, parsed, text);
+            return;
+        }
+
+        //Rounding of amounts with huge exponents takes very long in BigDecimal, result is known without it
+        if (decimal.precision() - decimal.scale() > 40) {
+            assertEquals(decimal.signum() == 0 ? 0 : AmountParser.UNSUPPORTED, parsed, text);
+            return;
+        }
+        if (decimal.precision() - decimal.scale() < -40) {
+            assertEquals(0, parsed, text);
+            return;
+        }
+
+        BigDecimal expected = decimal.setScale(2, RoundingMode.HALF_UP);
+        if (expected.unscaledValue().abs().compareTo(BigDecimal.valueOf(Long.MAX_VALUE - 2).toBigInteger()) > 0) {
+            assertEquals(AmountParser.UNSUPPORTED, parsed, text);
+        } else if (parsed == AmountParser.INVALID || parsed == AmountParser.UNSUPPORTED) {
+            fail("Parser rejected " + text + " which is " + expected);
+        } else {
+            assertEquals(expected.unscaledValue().longValueExact(), parsed, text);
+
+            long exact = parseExact(text);
+            boolean needsRounding = decimal.compareTo(expected) != 0;
+            assertEquals(needsRounding ? AmountParser.UNSUPPORTED : parsed, exact, text);
+        }
+    }
+
+    private static long parseExact(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.US_ASCII);
+        return AmountParser.parseExactCents(bytes, 0, bytes.length);
+    }
+}
@@ -1,12 +1,21 @@
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class CalculatorTest {
 
     private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+    private static final String HISTORY_FILEPATH = "src/test/resources/eurofxref-hist-test.xml";
 
     private Calculator testCalculator;
 
@@ -35,6 +44,228 @@ public class CalculatorTest {
         assertEquals(BigDecimal.ZERO, usdValue);
     }
 
+    //convertEuros() in minor units tests
+    @Test
+    public void given10000EuroCents_whenConvertEuros_thanReturn11135UsdCents() {
+        testCalculator = new Calculator(FILEPATH);
+        testCalculator.setCurrentCurrency("USD");
+        assertEquals(11135L, testCalculator.convertEuros(10000L));
+    }
+
+    @Test
+    public void givenNegativeEuroCents_whenConvertEuros_thanReturn0() {
+        testCalculator = new Calculator(FILEPATH);
+        assertEquals(0L, testCalculator.convertEuros(-1L));
+    }
+
+    @Test
+    public void givenRandomEuroCents_whenConvertEuros_thanReturnSameAsBigDecimalPath() {
+        testCalculator = new Calculator(FILEPATH);
+        SortedMap<String, BigDecimal> rates = XMLParser.getCurrencies(FILEPATH);
+        Random random = new Random(2022);
+
+        for (String currency : testCalculator.getCurrenciesSet()) {
+            testCalculator.setCurrentCurrency(currency);
+
+            //Amounts from all magnitudes, so both fixed-point and fallback paths are checked
+            for (int i = 0; i < 20_000; i++) {
+                long cents = random.nextLong() >>> random.nextInt(64);
+                assertSameAsBigDecimalPath(cents);
+            }
+
+            //Amounts around the limit where fixed-point multiplication would overflow
+            long limit = FixedPoint.amountLimit(FixedPoint.toScaledRate(rates.get(currency)));
+            for (long cents = Math.max(0, limit - 1_000); cents <= limit + 1_000; cents++) {
+                assertSameAsBigDecimalPath(cents);
+            }
+            assertSameAsBigDecimalPath(0);
+            assertSameAsBigDecimalPath(1);
+            assertSameAsBigDecimalPath(Long.MAX_VALUE);
+        }
+    }
+
+    private void assertSameAsBigDecimalPath(long cents) {
+        BigDecimal expected = testCalculator.convertEuros(BigDecimal.valueOf(cents, 2));
+
+        if (expected.unscaledValue().bitLength() < 64) {
+            assertEquals(expected.unscaledValue().longValue(), testCalculator.convertEuros(cents),
+                    testCalculator.getCurrentCurrency() + " " + cents);
+        } else {
+            assertThrows(ArithmeticException.class, () -> testCalculator.convertEuros(cents));
+        }
+    }
+
+    //batch convertEuros() tests
+    @Test
+    public void givenRandomEuroCents_whenConvertEurosBatch_thanReturnSameAsOneByOne() {
+        testCalculator = new Calculator(FILEPATH);
+        Random random = new Random(2023);
+
+        //Big enough to be split into many parallel tasks, amounts don't overflow for any currency
+        long[] amounts = new long[Calculator.PARALLEL_CHUNK_SIZE * 5 + 123];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = (random.nextLong() >>> random.nextInt(64)) / 100_000 - 1_000;
+        }
+
+        for (String currency : testCalculator.getCurrenciesSet()) {
+            testCalculator.setCurrentCurrency(currency);
+            long[] expected = new long[amounts.length];
+            for (int i = 0; i < amounts.length; i++) {
+                expected[i] = testCalculator.convertEuros(amounts[i]);
+            }
+
+            assertArrayEquals(expected, testCalculator.convertEurosBatch(amounts), currency);
+            assertArrayEquals(expected, testCalculator.convertEurosParallel(amounts), currency);
+        }
+    }
+
+    @Test
+    public void givenRandomEuros_whenConvertEurosBatch_thanReturnSameAsOneByOne() {
+        testCalculator = new Calculator(FILEPATH);
+        testCalculator.setCurrentCurrency("JPY");
+        Random random = new Random(2024);
+
+        BigDecimal[] amounts = new BigDecimal[Calculator.PARALLEL_CHUNK_SIZE * 3 + 7];
+        for (int i = 0; i < amounts.length; i++) {
+            amounts[i] = BigDecimal.valueOf(random.nextLong() >>> random.nextInt(64), random.nextInt(6));
+        }
+        amounts[0] = null;
+        amounts[1] = new BigDecimal("-1.00");
+
+        BigDecimal[] expected = new BigDecimal[amounts.length];
+        for (int i = 0; i < amounts.length; i++) {
+            expected[i] = testCalculator.convertEuros(amounts[i]);
+        }
+
+        assertArrayEquals(expected, testCalculator.convertEurosBatch(amounts));
+        assertArrayEquals(expected, testCalculator.convertEurosParallel(amounts));
+    }
+
+    @Test
+    public void givenTooBigEuroCents_whenConvertEurosBatch_thanThrowArithmeticException() {
+        testCalculator = new Calculator(FILEPATH);
+        testCalculator.setCurrentCurrency("JPY");
+        long[] amounts = new long[Calculator.PARALLEL_CHUNK_SIZE * 2];
+        amounts[amounts.length - 1] = Long.MAX_VALUE;
+
+        assertThrows(ArithmeticException.class, () -> testCalculator.convertEurosBatch(amounts));
+        assertThrows(ArithmeticException.class, () -> testCalculator.convertEurosParallel(amounts));
+    }
+
+    @Test
+    public void givenEmptyArray_whenConvertEurosBatch_thanReturnEmptyArray() {
+        testCalculator = new Calculator(FILEPATH);
+        assertEquals(0, testCalculator.convertEurosBatch(new long[0]).length);
+        assertEquals(0, testCalculator.convertEurosParallel(new BigDecimal[0]).length);
+    }
+
+    //convertEuros() with cache tests
+    @Test
+    public void givenCache_whenConvertEurosRepeatedly_thanReturnSameAsWithoutCache() {
+        RateSnapshot snapshot = new RateSnapshot(1, XMLParser.getRateHistory(FILEPATH), 10, RoundingMode.HALF_UP);
+        ConversionCache cache = new ConversionCache(64);
+        testCalculator = new Calculator(() -> snapshot, cache);
+        Calculator uncachedCalculator = new Calculator(snapshot);
+        Random random = new Random(42);
+
+        for (String currency : new String[]{"USD", "JPY", "PLN"}) {
+            testCalculator.setCurrentCurrency(currency);
+            uncachedCalculator.setCurrentCurrency(currency);
+            for (int i = 0; i < 1000; i++) {
+                BigDecimal amount = BigDecimal.valueOf(random.nextInt(20) * 500 + 99, 2);
+                assertEquals(uncachedCalculator.convertEuros(amount), testCalculator.convertEuros(amount));
+            }
+        }
+        assertEquals(3000, cache.getHitCount() + cache.getMissCount());
+        assertTrue(cache.getHitRate() > 0.9);
+    }
+
+    @Test
+    public void givenCache_whenSnapshotReplaced_thanUseNewRates() {
+        AtomicReference<RateSnapshot> snapshots = new AtomicReference<>(
+                new RateSnapshot(1, XMLParser.getRateHistory(FILEPATH), 10, RoundingMode.HALF_UP));
+        testCalculator = new Calculator(snapshots::get, new ConversionCache(64));
+        testCalculator.setCurrentCurrency("USD");
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100.00")));
+
+        snapshots.set(new RateSnapshot(2, new RateHistory.Builder()
+                .add(LocalDate.of(2022, 1, 31), "USD", new BigDecimal("1.2")).build(), 10, RoundingMode.HALF_UP));
+
+        assertEquals(new BigDecimal("120.00"), testCalculator.convertEuros(new BigDecimal("100.00")));
+    }
+
+    @Test
+    public void givenCacheAndAmountsWithDifferentScale_whenConvertEuros_thanShareOneEntry() {
+        RateSnapshot snapshot = new RateSnapshot(1, XMLParser.getRateHistory(FILEPATH), 10, RoundingMode.HALF_UP);
+        ConversionCache cache = new ConversionCache(64);
+        testCalculator = new Calculator(() -> snapshot, cache);
+        testCalculator.setCurrentCurrency("USD");
+
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100")));
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100.0")));
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100.000")));
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2, cache.getHitCount());
+
+        //Result of amount with more decimal places depends on all of them, so it isn't cached
+        assertEquals(new BigDecimal("111.36"), testCalculator.convertEuros(new BigDecimal("100.004")));
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100.00")));
+        assertEquals(3, cache.getHitCount());
+    }
+
+    //convert() tests
+    @Test
+    public void given100Usd_whenConvertToJpy_thanReturn11555_94Jpy() {
+        testCalculator = new Calculator(FILEPATH);
+        BigDecimal jpyValue = testCalculator.convert(new BigDecimal("100.00"), "USD", "JPY");
+        assertEquals(new BigDecimal("11555.94"), jpyValue);
+    }
+
+    @Test
+    public void given100Usd_whenConvertToEur_thanReturn89_80Eur() {
+        testCalculator = new Calculator(FILEPATH);
+        BigDecimal eurValue = testCalculator.convert(new BigDecimal("100.00"), "USD", "EUR");
+        assertEquals(new BigDecimal("89.80"), eurValue);
+    }
+
+    @Test
+    public void given100Euros_whenConvertToUsd_thanReturnSameAsConvertEuros() {
+        testCalculator = new Calculator(FILEPATH);
+        testCalculator.setCurrentCurrency("USD");
+        assertEquals(testCalculator.convertEuros(new BigDecimal("100.00")),
+                testCalculator.convert(new BigDecimal("100.00"), "EUR", "USD"));
+    }
+
+    @Test
+    public void givenUnknownCurrency_whenConvert_thanReturn0() {
+        testCalculator = new Calculator(FILEPATH);
+        assertEquals(BigDecimal.ZERO, testCalculator.convert(new BigDecimal("100.00"), "XXX", "USD"));
+        assertEquals(BigDecimal.ZERO, testCalculator.convert(new BigDecimal("-1"), "EUR", "USD"));
+    }
+
+    //convertEuros() with date tests
+    @Test
+    public void given100Euros_whenConvertEurosOnSunday_thanUseRateFromFriday() {
+        testCalculator = new Calculator(HISTORY_FILEPATH);
+        BigDecimal usdValue = testCalculator.convertEuros(new BigDecimal("100.00"), "USD", LocalDate.of(2022, 1, 23));
+        assertEquals(new BigDecimal("113.48"), usdValue);
+    }
+
+    @Test
+    public void givenHistoryXml_whenConvertEuros_thanUseLatestRate() {
+        testCalculator = new Calculator(HISTORY_FILEPATH);
+        testCalculator.setCurrentCurrency("USD");
+        BigDecimal usdValue = testCalculator.convertEuros(new BigDecimal("100.00"));
+        assertEquals(new BigDecimal("111.35"), usdValue);
+    }
+
+    @Test
+    public void givenDateBeforeHistory_whenConvertEuros_thanReturn0() {
+        testCalculator = new Calculator(HISTORY_FILEPATH);
+        BigDecimal usdValue = testCalculator.convertEuros(new BigDecimal("100.00"), "USD", LocalDate.of(2000, 1, 1));
+        assertEquals(BigDecimal.ZERO, usdValue);
+    }
+
     //setCurrency() tests
     @Test
     public void givenProperCurrency_whenSetCurrentCurrency_thanReturn1() {
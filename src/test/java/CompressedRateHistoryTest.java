@@ -0,0 +1,104 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CompressedRateHistoryTest {
+
+    @TempDir
+    Path tempDir;
+
+    //getRate() tests
+    @Test
+    public void givenHistoryFile_whenCompressed_thanEveryRateTheSame() throws Exception {
+        RateHistory rateHistory = XMLParser.loadRateHistory(
+                TestData.writeHistoryFile(tempDir.resolve("hist.xml"), 500).toString());
+
+        CompressedRateHistory testHistory = new CompressedRateHistory(rateHistory);
+
+        assertTheSame(rateHistory, testHistory);
+        assertEquals(rateHistory.getLatestRates(), testHistory.getLatestRates());
+        assertEquals(rateHistory.getCurrencies(), testHistory.getCurrencies());
+        assertEquals(rateHistory.getFirstDate(), testHistory.getFirstDate());
+        assertEquals(rateHistory.getLastDate(), testHistory.getLastDate());
+    }
+
+    @Test
+    public void givenMissingAndExtremeRates_whenCompressed_thanEveryRateTheSame() {
+        RateHistory.Builder builder = new RateHistory.Builder();
+        LocalDate date = LocalDate.of(2000, 1, 3);
+        for (int day = 0; day < 100; day++) {
+            //Currency published only on some days, rates from the smallest to very big
+            if (day % 7 != 3) {
+                builder.add(date.plusDays(day), "ABC", new BigDecimal("0.000001"));
+            }
+            builder.add(date.plusDays(day), "XYZ", day % 2 == 0 ? new BigDecimal("900000000.123456")
+                    : new BigDecimal("0.1"));
+        }
+        RateHistory rateHistory = builder.build();
+
+        CompressedRateHistory testHistory = new CompressedRateHistory(rateHistory);
+
+        assertTheSame(rateHistory, testHistory);
+        assertNull(testHistory.getRate("ABC", date.plusDays(3)));
+        assertNull(testHistory.getRate("ABC", date.minusDays(1)));
+        assertNull(testHistory.getRate("DEF", date));
+    }
+
+    @Test
+    public void givenEmptyHistory_whenCompressed_thanNoRates() {
+        CompressedRateHistory testHistory = new CompressedRateHistory(new RateHistory.Builder().build());
+
+        assertEquals(0, testHistory.getPublicationCount());
+        assertTrue(testHistory.getLatestRates().isEmpty());
+        assertNull(testHistory.getRate("USD", LocalDate.of(2022, 1, 28)));
+    }
+
+    //getBytesPerRate() tests
+    @Test
+    public void givenRealisticHistory_whenCompressed_thanFewBytesPerRate() {
+        RateHistory rateHistory = realisticHistory(6500);
+        CompressedRateHistory testHistory = new CompressedRateHistory(rateHistory);
+
+        //Lookup time is measured by CompressedRateHistoryBenchmark
+        assertTheSame(rateHistory, testHistory);
+        assertTrue(testHistory.getBytesPerRate() < 3);
+    }
+
+    private static void assertTheSame(RateHistory expected, CompressedRateHistory actual) {
+        for (int currency = 0; currency < expected.getCurrencyCount(); currency++) {
+            for (int publication = 0; publication < expected.getPublicationCount(); publication++) {
+                assertEquals(expected.getScaledRate(currency, publication), actual.getScaledRate(currency, publication));
+            }
+        }
+    }
+
+    /**
+     * History with rates like in ECB files - 5 significant digits, changing a little every day.
+     */
+    private static RateHistory realisticHistory(int days) {
+        Random random = new Random(42);
+        RateHistory.Builder builder = new RateHistory.Builder();
+        LocalDate date = LocalDate.of(1999, 1, 4);
+        double[] rates = new double[TestData.CURRENCIES.length];
+        for (int i = 0; i < rates.length; i++) {
+            rates[i] = Math.pow(10, random.nextInt(5)) * (1 + random.nextDouble());
+        }
+        for (int day = 0; day < days; day++) {
+            for (int i = 0; i < rates.length; i++) {
+                rates[i] *= 1 + random.nextGaussian() * 0.005;
+                builder.add(date, TestData.CURRENCIES[i], new BigDecimal(rates[i], new MathContext(5)));
+            }
+            date = date.plusDays(date.getDayOfWeek().getValue() == 5 ? 3 : 1);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ConversionCacheTest {
+
+    //get() tests
+    @Test
+    public void givenPutResult_whenGet_thanReturnResultAndCountHit() {
+        ConversionCache testCache = new ConversionCache(16);
+
+        assertNull(testCache.get(new BigDecimal("9.99"), 3, 1));
+        testCache.put(new BigDecimal("9.99"), 3, 1, new BigDecimal("11.12"));
+
+        assertEquals(new BigDecimal("11.12"), testCache.get(new BigDecimal("9.99"), 3, 1));
+        assertNull(testCache.get(new BigDecimal("9.99"), 4, 1));
+        assertEquals(new BigDecimal("11.12"), testCache.get(new BigDecimal("9.990"), 3, 1));
+        assertEquals(2, testCache.getHitCount());
+        assertEquals(2, testCache.getMissCount());
+        assertEquals(0.5, testCache.getHitRate());
+
+        //Amount which isn't whole minor units is never cached, so it isn't counted as lookup
+        testCache.put(new BigDecimal("9.991"), 3, 1, new BigDecimal("11.13"));
+        assertNull(testCache.get(new BigDecimal("9.991"), 3, 1));
+        assertEquals(4, testCache.getHitCount() + testCache.getMissCount());
+    }
+
+    @Test
+    public void givenNewSnapshotVersion_whenGet_thanOldResultNotReturned() {
+        ConversionCache testCache = new ConversionCache(16);
+        testCache.put(new BigDecimal("100.00"), 0, 1, new BigDecimal("111.35"));
+
+        assertNull(testCache.get(new BigDecimal("100.00"), 0, 2));
+
+        testCache.put(new BigDecimal("100.00"), 0, 2, new BigDecimal("120.00"));
+        assertEquals(new BigDecimal("120.00"), testCache.get(new BigDecimal("100.00"), 0, 2));
+    }
+
+    //put() tests
+    @Test
+    public void givenFullSet_whenPut_thanUsedEntryKept() {
+        //Capacity 2 is one set, so every amount goes to the same set
+        ConversionCache testCache = new ConversionCache(2);
+        testCache.put(new BigDecimal("1.00"), 0, 1, new BigDecimal("1.11"));
+        testCache.put(new BigDecimal("2.00"), 0, 1, new BigDecimal("2.22"));
+        testCache.get(new BigDecimal("1.00"), 0, 1);
+
+        testCache.put(new BigDecimal("3.00"), 0, 1, new BigDecimal("3.33"));
+
+        assertEquals(new BigDecimal("1.11"), testCache.get(new BigDecimal("1.00"), 0, 1));
+        assertNull(testCache.get(new BigDecimal("2.00"), 0, 1));
+        assertEquals(new BigDecimal("3.33"), testCache.get(new BigDecimal("3.00"), 0, 1));
+        assertEquals(2, testCache.getCapacity());
+    }
+
+    //convert() tests
+    @Test
+    public void givenCurrencyPairs_whenConvert_thanTheSameAsCrossRateTableAndSeparateFromOrdinals() {
+        RateHistory rateHistory = XMLParser.getRateHistory("src/test/resources/eurofxref-daily-test.xml");
+        RateSnapshot snapshot = new RateSnapshot(1, rateHistory, 10, RoundingMode.HALF_UP);
+        ConversionCache testCache = new ConversionCache(64);
+        BigDecimal amount = new BigDecimal("100.00");
+        for (int ordinal = 0; ordinal < snapshot.getCurrencyRates().size(); ordinal++) {
+            testCache.put(amount, ordinal, 1, BigDecimal.ONE);
+        }
+
+        for (String from : new String[]{"EUR", "USD", "JPY"}) {
+            for (String to : new String[]{"EUR", "USD", "PLN"}) {
+                BigDecimal expected = snapshot.getCrossRateTable().convert(amount, from, to);
+                assertEquals(expected, testCache.convert(snapshot, amount, from, to));
+                assertEquals(expected, testCache.convert(snapshot, amount, from, to));
+            }
+        }
+        assertNull(testCache.convert(snapshot, amount, "XXX", "USD"));
+        assertEquals(9, testCache.getHitCount());
+    }
+
+    @Test
+    public void givenWrongCapacity_whenCreate_thanThrowIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new ConversionCache(0));
+        assertThrows(IllegalArgumentException.class, () -> new ConversionCache(Integer.MAX_VALUE));
+    }
+}
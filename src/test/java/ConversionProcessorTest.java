@@ -0,0 +1,320 @@
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConversionProcessorTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+
+    private final RateSnapshot snapshot = new RateSnapshot(1, XMLParser.getRateHistory(FILEPATH), 10, RoundingMode.HALF_UP);
+
+    @Test
+    public void givenRequestsOfManyKeys_whenProcess_thanConvertAllAndKeepOrderOfEveryKey() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 4, 256, 16, executor);
+        int count = 200_000;
+        new TestPublisher(count, i -> new ConversionProcessor.Request("account" + (i % 100),
+                BigDecimal.valueOf(i, 2), "USD", i % 2 == 0 ? "JPY" : "EUR")).subscribe(processor);
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 0);
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(60, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertNull(subscriber.error);
+        assertEquals(count, subscriber.results.size());
+
+        Map<String, Long> lastAmounts = new HashMap<>();
+        for (ConversionProcessor.Result result : subscriber.results) {
+            ConversionProcessor.Request request = result.getRequest();
+            long amount = request.getAmount().unscaledValue().longValue();
+            assertTrue(lastAmounts.getOrDefault(request.getKey(), -1L) < amount, request.getKey());
+            lastAmounts.put(request.getKey(), amount);
+
+            assertEquals(snapshot.getCrossRateTable().convert(request.getAmount(), "USD", request.getTo()),
+                    result.getConverted());
+        }
+    }
+
+    @Test
+    public void givenFastProducerAndSlowConsumer_whenProcess_thanBufferNeverExceedsCapacity() throws Exception {
+        int capacity = 64;
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 2, capacity, 8,
+                Executors.newFixedThreadPool(2, runnable -> {
+                    Thread thread = new Thread(runnable);
+                    thread.setDaemon(true);
+                    return thread;
+                }));
+
+        //Producer emits on its own thread as fast as demand allows
+        TestPublisher publisher = new TestPublisher(20_000, i -> new ConversionProcessor.Request(
+                BigDecimal.valueOf(i, 2), "USD", "PLN"));
+        publisher.subscribe(processor);
+
+        //Consumer takes one result at a time, with pauses
+        AtomicLong maxBuffered = new AtomicLong();
+        AtomicLong maxAhead = new AtomicLong();
+        TestSubscriber subscriber = new TestSubscriber(1, 1) {
+            @Override
+            public void onNext(ConversionProcessor.Result result) {
+                maxBuffered.accumulateAndGet(processor.getBuffered(), Math::max);
+                maxAhead.accumulateAndGet(publisher.emitted.get() - results.size(), Math::max);
+                super.onNext(result);
+            }
+        };
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(120, TimeUnit.SECONDS));
+        assertNull(subscriber.error);
+        assertEquals(20_000, subscriber.results.size());
+        assertTrue(maxBuffered.get() <= capacity, "Buffered " + maxBuffered.get());
+        assertTrue(maxAhead.get() <= capacity, "Producer ahead by " + maxAhead.get());
+    }
+
+    @Test
+    public void givenUnknownCurrencyAndNegativeAmount_whenProcess_thanReturnNotConvertedResults() throws Exception {
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 1, 16, 4, Runnable::run);
+        List<ConversionProcessor.Request> requests = new ArrayList<>();
+        requests.add(new ConversionProcessor.Request(new BigDecimal("100.00"), "XXX", "USD"));
+        requests.add(new ConversionProcessor.Request(new BigDecimal("-1"), "EUR", "USD"));
+        requests.add(new ConversionProcessor.Request(new BigDecimal("100.00"), "EUR", "USD"));
+        new TestPublisher(requests.size(), i -> requests.get((int) i)).subscribe(processor);
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 0);
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, subscriber.results.size());
+        assertFalse(subscriber.results.get(0).isConverted());
+        assertFalse(subscriber.results.get(1).isConverted());
+        assertEquals(new BigDecimal("111.35"), subscriber.results.get(2).getConverted());
+        assertEquals(1, subscriber.results.get(2).getVersion());
+    }
+
+    @Test
+    public void givenAmountsOutOfRange_whenProcess_thanReturnNotConvertedResultsQuickly() throws Exception {
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 1, 16, 4, Runnable::run);
+        List<ConversionProcessor.Request> requests = new ArrayList<>();
+        requests.add(new ConversionProcessor.Request(new BigDecimal("1E999999999"), "EUR", "USD"));
+        requests.add(new ConversionProcessor.Request(new BigDecimal("1E-999999999"), "EUR", "USD"));
+        requests.add(new ConversionProcessor.Request(new BigDecimal("1E+99"), "EUR", "USD"));
+        new TestPublisher(requests.size(), i -> requests.get((int) i)).subscribe(processor);
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 0);
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(3, subscriber.results.size());
+        assertFalse(subscriber.results.get(0).isConverted());
+        assertFalse(subscriber.results.get(1).isConverted());
+        assertTrue(subscriber.results.get(2).isConverted());
+    }
+
+    @Test
+    public void givenCache_whenProcessRepeatedRequests_thanResultsFromCache() throws Exception {
+        ConversionCache cache = new ConversionCache(16);
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 1, 16, 4, Runnable::run, cache);
+        new TestPublisher(3, i -> new ConversionProcessor.Request(new BigDecimal("100.00"), "EUR", "USD"))
+                .subscribe(processor);
+
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 0);
+        processor.subscribe(subscriber);
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(new BigDecimal("111.35"), subscriber.results.get(2).getConverted());
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void givenPublisherError_whenProcess_thanDeliverResultsAndError() throws Exception {
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 2, 16, 4, Runnable::run);
+        TestSubscriber subscriber = new TestSubscriber(Long.MAX_VALUE, 0);
+        processor.subscribe(subscriber);
+
+        processor.onSubscribe(new TestSubscription());
+        processor.onNext(new ConversionProcessor.Request(BigDecimal.ONE, "EUR", "USD"));
+        processor.onError(new IllegalStateException("Consumer failed"));
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertEquals(1, subscriber.results.size());
+        assertEquals("Consumer failed", subscriber.error.getMessage());
+    }
+
+    @Test
+    public void givenPublisherIgnoringDemand_whenProcess_thanCancelItAndSignalError() throws Exception {
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot, 1, 4, 4, Runnable::run);
+        TestSubscriber subscriber = new TestSubscriber(0, 0);
+        processor.subscribe(subscriber);
+
+        TestSubscription subscription = new TestSubscription();
+        processor.onSubscribe(subscription);
+        for (int i = 0; i < 100; i++) {
+            processor.onNext(new ConversionProcessor.Request(BigDecimal.ONE, "EUR", "USD"));
+        }
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, subscriber.error);
+        assertTrue(subscription.cancelled.get());
+        assertEquals(4, subscription.requested.get());
+    }
+
+    @Test
+    public void givenNotPositiveDemand_whenRequest_thanSignalIllegalArgumentException() throws Exception {
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot);
+        TestSubscriber subscriber = new TestSubscriber(0, 0);
+        processor.subscribe(subscriber);
+
+        subscriber.subscription.request(0);
+
+        assertTrue(subscriber.done.await(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, subscriber.error);
+    }
+
+    @Test
+    public void givenSecondSubscriber_whenSubscribe_thanSignalIllegalStateException() throws Exception {
+        ConversionProcessor processor = new ConversionProcessor(() -> snapshot);
+        processor.subscribe(new TestSubscriber(0, 0));
+        TestSubscriber second = new TestSubscriber(0, 0);
+        processor.subscribe(second);
+
+        assertTrue(second.done.await(10, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, second.error);
+    }
+
+    /**
+     * In-process publisher emitting requests from its own thread, only as many as were demanded.
+     */
+    private static class TestPublisher implements Publisher<ConversionProcessor.Request> {
+        private final long count;
+        private final LongFunction<ConversionProcessor.Request> requests;
+        final AtomicLong emitted = new AtomicLong();
+
+        TestPublisher(long count, LongFunction<ConversionProcessor.Request> requests) {
+            this.count = count;
+            this.requests = requests;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super ConversionProcessor.Request> subscriber) {
+            AtomicLong demand = new AtomicLong();
+            AtomicBoolean cancelled = new AtomicBoolean();
+            Thread thread = new Thread(() -> {
+                while (emitted.get() < count && !cancelled.get()) {
+                    if (demand.get() == 0) {
+                        Thread.yield();
+                        continue;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(requests.apply(emitted.getAndIncrement()));
+                }
+                if (!cancelled.get()) {
+                    subscriber.onComplete();
+                }
+            });
+            thread.setDaemon(true);
+            subscriber.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    demand.addAndGet(n);
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled.set(true);
+                }
+            });
+            thread.start();
+        }
+    }
+
+    private static class TestSubscription implements Subscription {
+        final AtomicLong requested = new AtomicLong();
+        final AtomicBoolean cancelled = new AtomicBoolean();
+
+        @Override
+        public void request(long n) {
+            requested.addAndGet(n);
+        }
+
+        @Override
+        public void cancel() {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * Subscriber requesting results in portions, optionally sleeping after every result.
+     */
+    private static class TestSubscriber implements Subscriber<ConversionProcessor.Result> {
+        private final long portion;
+        private final long pauseMillis;
+        final List<ConversionProcessor.Result> results = new ArrayList<>();
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Subscription subscription;
+        volatile Throwable error;
+        private long left;
+
+        TestSubscriber(long portion, long pauseMillis) {
+            this.portion = portion;
+            this.pauseMillis = pauseMillis;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+            left = portion;
+            if (portion > 0) {
+                subscription.request(portion);
+            }
+        }
+
+        @Override
+        public void onNext(ConversionProcessor.Result result) {
+            results.add(result);
+            if (pauseMillis > 0 && results.size() % 100 == 0) {
+                try {
+                    Thread.sleep(pauseMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (portion != Long.MAX_VALUE && --left == 0) {
+                left = portion;
+                subscription.request(portion);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            done.countDown();
+        }
+    }
+}
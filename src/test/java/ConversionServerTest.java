@@ -0,0 +1,186 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.RoundingMode;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ConversionServerTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+
+    private ConversionServer testServer;
+
+    @BeforeAll
+    public static void setNoDelay() {
+        //The same as server mode of Main, without it every response waits for delayed ACK
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        testServer = new ConversionServer(new RateReloader(FILEPATH, 10, RoundingMode.HALF_UP), 0);
+        testServer.start();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        testServer.close();
+    }
+
+    //GET /convert tests
+    @Test
+    public void given100Usd_whenGetConvertToJpy_thanReturn11555_94() throws IOException {
+        Response response = get("/convert?amount=100.00&from=USD&to=JPY");
+
+        assertEquals(200, response.status);
+        assertTrue(response.body.contains("\"result\":\"11555.94\""), response.body);
+    }
+
+    @Test
+    public void givenInvalidAmount_whenGetConvert_thanReturn400() throws IOException {
+        assertEquals(400, get("/convert?amount=abc&from=USD&to=JPY").status);
+        assertEquals(400, get("/convert?amount=-1&from=USD&to=JPY").status);
+        assertEquals(400, get("/convert?from=USD&to=JPY").status);
+    }
+
+    @Test
+    public void givenAmountWithHugeExponent_whenGetConvert_thanReturnQuickly() throws IOException {
+        assertEquals(400, get("/convert?amount=1E%2B999999999&from=USD&to=JPY").status);
+        assertEquals(400, get("/convert?amount=%D9%A1E-99999999&from=USD&to=JPY").status);
+
+        Response response = get("/convert?amount=1E-99999999&from=USD&to=JPY");
+        assertEquals(200, response.status);
+        assertTrue(response.body.contains("\"result\":\"0.00\""), response.body);
+    }
+
+    @Test
+    public void givenCache_whenGetConvertTwice_thanSecondResultFromCache() throws Exception {
+        ConversionCache cache = new ConversionCache(16);
+        try (ConversionServer cachedServer = new ConversionServer(new RateReloader(FILEPATH, 10, RoundingMode.HALF_UP),
+                0, cache)) {
+            cachedServer.start();
+            String path = "http://localhost:" + cachedServer.getPort() + "/convert?amount=100.00&from=USD&to=JPY";
+
+            assertTrue(get(new URL(path)).body.contains("\"result\":\"11555.94\""));
+            assertTrue(get(new URL(path)).body.contains("\"result\":\"11555.94\""));
+            assertTrue(get(new URL(path.replace("to=JPY", "to=EUR"))).body.contains("\"result\":\"89.80\""));
+
+            assertEquals(1, cache.getHitCount());
+            assertEquals(2, cache.getMissCount());
+        }
+    }
+
+    @Test
+    public void givenUnknownCurrency_whenGetConvert_thanReturn404() throws IOException {
+        assertEquals(404, get("/convert?amount=1&from=XXX&to=JPY").status);
+    }
+
+    //GET /currencies tests
+    @Test
+    public void givenTestXml_whenGetCurrencies_thanReturnAllCurrenciesWithEuro() throws IOException {
+        Response response = get("/currencies");
+
+        assertEquals(200, response.status);
+        assertTrue(response.body.contains("\"EUR\""));
+        assertEquals(23, response.body.split(",").length);
+    }
+
+    //GET /statistics tests
+    @Test
+    public void givenMonthOfDailyXml_whenGetStatistics_thanReturnRateOfOnlyDay() throws IOException {
+        Response response = get("/statistics?currency=USD&from=2022-01-01&to=2022-01-31");
+
+        assertEquals(200, response.status);
+        assertTrue(response.body.contains("\"count\":1,\"min\":\"1.113540\",\"max\":\"1.113540\""));
+    }
+
+    @Test
+    public void givenInvalidParameters_whenGetStatistics_thanReturn400Or404() throws IOException {
+        assertEquals(400, get("/statistics?currency=USD&from=2022-01-01").status);
+        assertEquals(400, get("/statistics?currency=USD&from=2022-13-01&to=2022-01-31").status);
+        assertEquals(400, get("/statistics?currency=USD&from=2022-01-31&to=2022-01-01").status);
+        assertEquals(404, get("/statistics?currency=USD&from=2021-01-01&to=2021-12-31").status);
+        assertEquals(404, get("/statistics?currency=XXX&from=2022-01-01&to=2022-01-31").status);
+    }
+
+    //GET /metrics tests
+    @Test
+    public void givenServer_whenGetMetrics_thanReturnPrometheusText() throws IOException {
+        Response response = get("/metrics");
+
+        assertEquals(200, response.status);
+        assertTrue(response.body.contains("currency_xml_loads_total{result=\"success\"}"));
+    }
+
+    //Many clients at once, throughput and latency are measured by ConversionServerBenchmark
+    @Test
+    public void givenManyClients_whenGetConvert_thanAllRequestsSucceed() throws Exception {
+        int clients = 8;
+        int requestsPerClient = 200;
+        String[] currencies = {"USD", "JPY", "GBP", "PLN", "CHF", "EUR"};
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        List<Future<?>> results = new ArrayList<>();
+        for (int client = 0; client < clients; client++) {
+            int seed = client;
+            results.add(executor.submit(() -> {
+                for (int i = 0; i < requestsPerClient; i++) {
+                    String path = "/convert?amount=" + (i % 1000) + ".99&from=" + currencies[(i + seed) % 6]
+                            + "&to=" + currencies[(i + seed + 1) % 6];
+                    assertEquals(200, get(path).status);
+                }
+                return null;
+            }));
+        }
+
+        for (Future<?> result : results) {
+            result.get();
+        }
+        executor.shutdown();
+    }
+
+    private Response get(String path) throws IOException {
+        return get(new URL("http://localhost:" + testServer.getPort() + path));
+    }
+
+    private static Response get(URL url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        int status = connection.getResponseCode();
+
+        //Reading whole body lets connection be reused by next request
+        InputStream inputStream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = inputStream.read(buffer)) != -1) {
+            body.write(buffer, 0, read);
+        }
+        inputStream.close();
+        return new Response(status, new String(body.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    private static class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+}
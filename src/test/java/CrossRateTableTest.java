@@ -0,0 +1,49 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class CrossRateTableTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+    private static final SortedMap<String, BigDecimal> RATES = XMLParser.getCurrencies(FILEPATH);
+
+    //getRate() tests
+    @Test
+    public void givenTestXml_whenCreateTable_thanContainsEuro() {
+        CrossRateTable testTable = new CrossRateTable(RATES, 10, RoundingMode.HALF_UP);
+
+        assertEquals(23, testTable.size());
+        assertEquals(BigDecimal.ONE, testTable.getRate("EUR", "EUR"));
+        assertEquals(new BigDecimal("1.11354"), testTable.getRate("EUR", "USD"));
+    }
+
+    @Test
+    public void givenTwoCurrencies_whenGetRate_thanReturnRateRoundedToScale() {
+        CrossRateTable testTable = new CrossRateTable(RATES, 4, RoundingMode.DOWN);
+
+        assertEquals(new BigDecimal("0.1817"), testTable.getRate("PLN", "GBP"));
+    }
+
+    @Test
+    public void givenIndexes_whenGetRate_thanReturnSameAsForTags() {
+        CrossRateTable testTable = new CrossRateTable(RATES, 10, RoundingMode.HALF_UP);
+        int usd = testTable.indexOf("USD");
+        int jpy = testTable.indexOf("JPY");
+
+        assertEquals("USD", testTable.getCurrency(usd));
+        assertEquals(testTable.getRate("USD", "JPY"), testTable.getRate(usd, jpy));
+    }
+
+    @Test
+    public void givenUnknownCurrency_whenGetRate_thanReturnNull() {
+        CrossRateTable testTable = new CrossRateTable(RATES, 10, RoundingMode.HALF_UP);
+
+        assertNull(testTable.getRate("USD", "XXX"));
+        assertNull(testTable.getRate(null, "USD"));
+    }
+}
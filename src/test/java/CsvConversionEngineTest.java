@@ -0,0 +1,242 @@
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CsvConversionEngineTest {
+
+    //Generated history has rates for every day from 2020-12-25 to 2022-01-28
+    private static final int HISTORY_DAYS = 400;
+    private static final LocalDate LAST_DAY = LocalDate.of(2022, 1, 28);
+
+    //Size of generated file for test of many chunks, can be changed with -Dcsv.test.megabytes=2048
+    private static final int TEST_MEGABYTES = Integer.getInteger("csv.test.megabytes", 20);
+
+    @TempDir
+    static Path tempDir;
+
+    private static RateHistory rateHistory;
+
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+    @BeforeAll
+    public static void loadHistory() throws Exception {
+        rateHistory = XMLParser.loadRateHistory(
+                TestData.writeHistoryFile(tempDir.resolve("hist.xml"), HISTORY_DAYS).toString());
+    }
+
+    //convert() tests
+    @Test
+    public void givenRows_whenConvert_thanAddConvertedAmountWithRatesOfTheirDates() throws IOException {
+        String input = "amount,currency,date\n"
+                + "100.00,USD,2022-01-27\n"
+                + "-12.5,JPY,2022-01-01,invoice 7\r\n"
+                + "1.005,GBP,2021-06-30\n"
+                + "250,EUR,2021-12-24\n"
+                + "\n"
+                + "0.01,PLN,2022-01-28";
+
+        String output = convert(input, "USD", DEFAULT);
+
+        String[] lines = output.split("\n", -1);
+        assertEquals("amount,currency,date,converted_USD", lines[0]);
+        assertEquals("100.00,USD,2022-01-27," + reference("100.00", "USD", "2022-01-27", "USD"), lines[1]);
+        assertEquals("100.00,USD,2022-01-27,100.00", lines[1]);
+        assertEquals("-12.5,JPY,2022-01-01,invoice 7," + reference("-12.5", "JPY", "2022-01-01", "USD"), lines[2]);
+        assertEquals("1.005,GBP,2021-06-30," + reference("1.005", "GBP", "2021-06-30", "USD"), lines[3]);
+        assertEquals("250,EUR,2021-12-24," + reference("250", "EUR", "2021-12-24", "USD"), lines[4]);
+        assertEquals("", lines[5]);
+        assertEquals("0.01,PLN,2022-01-28," + reference("0.01", "PLN", "2022-01-28", "USD"), lines[6]);
+        assertEquals(8, lines.length);
+        assertEquals("", new String(errors.toByteArray(), StandardCharsets.US_ASCII));
+    }
+
+    @Test
+    public void givenBadRows_whenConvert_thanWriteThemWithoutAmountAndReportLines() throws IOException {
+        String input = "5,USD,2022-01-27\n"
+                + "abc,USD,2022-01-27\n"
+                + "5,XXX,2022-01-27\n"
+                + "5,USD,2022-02-30\n"
+                + "5,USD,1999-01-04\n"
+                + "5,USD\n"
+                + "5,USD,2022-01-27\n";
+
+        String output = convert(input, CrossRateTable.EURO, DEFAULT);
+
+        String expected = reference("5", "USD", "2022-01-27", "EUR");
+        assertEquals("5,USD,2022-01-27," + expected + "\nabc,USD,2022-01-27,\n5,XXX,2022-01-27,\n"
+                + "5,USD,2022-02-30,\n5,USD,1999-01-04,\n5,USD,\n5,USD,2022-01-27," + expected + "\n", output);
+
+        String report = new String(errors.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(report.contains("Line 2: amount is not a number"));
+        assertTrue(report.contains("Line 3: currency is unknown"));
+        assertTrue(report.contains("Line 4: date is not valid"));
+        assertTrue(report.contains("Line 5: date is not valid or is before first rates"));
+        assertTrue(report.contains("Line 6: expected amount, currency and date"));
+    }
+
+    @Test
+    public void givenAmountsWithHugeExponent_whenConvert_thanRejectRowsQuickly() throws IOException {
+        String input = "1E-99999999,USD,2022-01-27\n"
+                + "1E+99999999,USD,2022-01-27\n"
+                + "1E-100,USD,2022-01-27\n";
+
+        String output = convert(input, "GBP", DEFAULT);
+
+        assertEquals("1E-99999999,USD,2022-01-27,\n1E+99999999,USD,2022-01-27,\n1E-100,USD,2022-01-27,"
+                + reference("1E-100", "USD", "2022-01-27", "GBP") + "\n", output);
+        String report = new String(errors.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(report.contains("Line 1: amount has too many decimal places"));
+        assertTrue(report.contains("Line 2: amount is too big"));
+    }
+
+    @Test
+    public void givenUnknownTargetCurrency_whenCreateEngine_thanThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new CsvConversionEngine(rateHistory, "XXX"));
+    }
+
+    @Test
+    public void givenTinyChunksAndLongRows_whenConvert_thanOutputIsSameAsWithOneChunk() throws IOException {
+        Path input = writeTransactions(tempDir.resolve("tiny.csv"), 2_000, new Random(7));
+        StringBuilder longRow = new StringBuilder("7.00,CHF,2021-03-03,");
+        for (int i = 0; i < 3 * CsvConversionEngine.LINE_MARGIN; i++) {
+            longRow.append('x');
+        }
+        Files.write(input, (longRow + "\n3,USD,2021-03-04\n").getBytes(StandardCharsets.US_ASCII),
+                java.nio.file.StandardOpenOption.APPEND);
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            Path oneChunk = tempDir.resolve("one-chunk.csv");
+            Path tinyChunks = tempDir.resolve("tiny-chunks.csv");
+            new CsvConversionEngine(rateHistory, "PLN", pool, Integer.MAX_VALUE).convert(input, oneChunk, nowhere());
+            CsvConversionEngine.Summary summary = new CsvConversionEngine(rateHistory, "PLN", pool, 37)
+                    .convert(input, tinyChunks, nowhere());
+
+            assertArrayEquals(Files.readAllBytes(oneChunk), Files.readAllBytes(tinyChunks));
+            assertEquals(2_002, summary.getConvertedRows());
+            assertEquals(0, summary.getRejectedRows());
+            assertNull(firstDifferenceFromReference(input, tinyChunks, "PLN"));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    //Generated file of a few chunks, output is compared row by row with sequential BigDecimal conversion.
+    //Throughput is measured by CsvConversionEngineBenchmark
+    @Test
+    public void givenLargeGeneratedFile_whenConvert_thanMatchSequentialConversion() throws IOException {
+        Path input = tempDir.resolve("ledger.csv");
+        Path output = tempDir.resolve("ledger-converted.csv");
+        Random random = new Random(42);
+        long rows = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(input, StandardCharsets.US_ASCII)) {
+            writer.write("amount,currency,date\n");
+            while (rows % 100_000 != 0 || Files.size(input) < TEST_MEGABYTES * 1024L * 1024L) {
+                writeTransaction(writer, random);
+                rows++;
+                if (rows % 100_000 == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        CsvConversionEngine.Summary summary = new CsvConversionEngine(rateHistory, "USD")
+                .convert(input, output, nowhere());
+
+        assertEquals(rows, summary.getConvertedRows());
+        assertEquals(0, summary.getRejectedRows());
+        assertNull(firstDifferenceFromReference(input, output, "USD"));
+    }
+
+    private static final int DEFAULT = 0;
+
+    private String convert(String input, String target, int chunkSize) throws IOException {
+        Path inputFile = Files.write(tempDir.resolve("input.csv"), input.getBytes(StandardCharsets.US_ASCII));
+        Path outputFile = tempDir.resolve("output.csv");
+
+        CsvConversionEngine engine = chunkSize == DEFAULT ? new CsvConversionEngine(rateHistory, target)
+                : new CsvConversionEngine(rateHistory, target, ForkJoinPool.commonPool(), chunkSize);
+        engine.convert(inputFile, outputFile, new PrintStream(errors));
+        return new String(Files.readAllBytes(outputFile), StandardCharsets.US_ASCII);
+    }
+
+    private static PrintStream nowhere() {
+        return new PrintStream(new ByteArrayOutputStream());
+    }
+
+    private static Path writeTransactions(Path path, int rows, Random random) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < rows; i++) {
+                writeTransaction(writer, random);
+            }
+        }
+        return path;
+    }
+
+    private static void writeTransaction(BufferedWriter writer, Random random) throws IOException {
+        //Mostly amounts with cents, some with more decimal places or negative
+        int kind = random.nextInt(100);
+        long value = random.nextInt(100_000_000);
+        String amount = kind < 5 ? BigDecimal.valueOf(value, 4).toPlainString()
+                : BigDecimal.valueOf(kind < 15 ? -value : value, 2).toPlainString();
+        String currency = kind < 3 ? CrossRateTable.EURO : TestData.CURRENCIES[random.nextInt(TestData.CURRENCIES.length)];
+
+        writer.write(amount);
+        writer.write(',');
+        writer.write(currency);
+        writer.write(',');
+        writer.write(LAST_DAY.minusDays(random.nextInt(HISTORY_DAYS)).toString());
+        writer.write('\n');
+    }
+
+    /**
+     * Converts rows one by one with BigDecimal and compares them with engine output.
+     *
+     * @return Description of first different row, null if all rows are the same
+     */
+    private static String firstDifferenceFromReference(Path input, Path output, String target) throws IOException {
+        try (BufferedReader inputReader = Files.newBufferedReader(input, StandardCharsets.US_ASCII);
+             BufferedReader outputReader = Files.newBufferedReader(output, StandardCharsets.US_ASCII)) {
+            String inputLine;
+            long line = 0;
+            while ((inputLine = inputReader.readLine()) != null) {
+                line++;
+                String outputLine = outputReader.readLine();
+                String expected = inputLine.startsWith("amount") ? inputLine + ",converted_" + target
+                        : inputLine + "," + reference(inputLine.split(",")[0], inputLine.split(",")[1],
+                        inputLine.split(",")[2], target);
+                if (!expected.equals(outputLine)) {
+                    return "Line " + line + ": expected " + expected + " but was " + outputLine;
+                }
+            }
+            return outputReader.readLine() == null ? null : "Output has more lines than input";
+        }
+    }
+
+    private static String reference(String amount, String currency, String date, String target) {
+        LocalDate day = LocalDate.parse(date);
+        BigDecimal sourceRate = currency.equals(CrossRateTable.EURO) ? BigDecimal.ONE : rateHistory.getRate(currency, day);
+        BigDecimal targetRate = target.equals(CrossRateTable.EURO) ? BigDecimal.ONE : rateHistory.getRate(target, day);
+        return new BigDecimal(amount).multiply(targetRate).divide(sourceRate, 2, RoundingMode.HALF_UP).toPlainString();
+    }
+}
@@ -0,0 +1,179 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CurrencyAggregatorTest {
+
+    private final CurrencyRegistry registry = new CurrencyRegistry(Arrays.asList("EUR", "JPY", "PLN", "USD"));
+
+    @Test
+    public void givenAmounts_whenAdd_thanSnapshotHasTotalsOfCurrencies() {
+        CurrencyAggregator aggregator = new CurrencyAggregator(registry);
+        aggregator.add(new BigDecimal("100.50"), "USD");
+        aggregator.add(new BigDecimal("-0.5"), "USD");
+        aggregator.add(1234, "PLN");
+        aggregator.add(7, registry.ordinalOf("JPY"));
+
+        SortedMap<String, BigDecimal> totals = aggregator.snapshot();
+        assertEquals(new BigDecimal("100.00"), totals.get("USD"));
+        assertEquals(new BigDecimal("12.34"), totals.get("PLN"));
+        assertEquals(new BigDecimal("0.07"), totals.get("JPY"));
+        assertEquals(new BigDecimal("0.00"), totals.get("EUR"));
+        assertEquals(4, totals.size());
+    }
+
+    @Test
+    public void givenUnknownCurrencyOrTooPreciseAmount_whenAdd_thanThrowException() {
+        CurrencyAggregator aggregator = new CurrencyAggregator(registry);
+        assertThrows(IllegalArgumentException.class, () -> aggregator.add(BigDecimal.ONE, "XXX"));
+        assertThrows(IndexOutOfBoundsException.class, () -> aggregator.add(1, registry.size()));
+        assertThrows(ArithmeticException.class, () -> aggregator.add(new BigDecimal("0.001"), "USD"));
+    }
+
+    @Test
+    public void givenAmountsOverflowingLong_whenAdd_thanTotalIsExact() {
+        CurrencyAggregator aggregator = new CurrencyAggregator(registry, 4);
+        BigInteger expected = BigInteger.ZERO;
+        for (int i = 0; i < 10; i++) {
+            aggregator.add(Long.MAX_VALUE, "USD");
+            aggregator.add(Long.MIN_VALUE + 1, "JPY");
+            expected = expected.add(BigInteger.valueOf(Long.MAX_VALUE));
+        }
+        BigDecimal huge = new BigDecimal("1E+30");
+        aggregator.add(huge, "USD");
+
+        SortedMap<String, BigDecimal> totals = aggregator.snapshot();
+        assertEquals(new BigDecimal(expected, 2).add(huge), totals.get("USD"));
+        assertEquals(new BigDecimal(expected.negate(), 2), totals.get("JPY"));
+    }
+
+    @Test
+    public void givenManyThreads_whenAdd_thanTotalsAreTheSameAsSequentialSum() throws Exception {
+        CurrencyAggregator aggregator = new CurrencyAggregator(registry, 8);
+        int threads = 8;
+        int addsPerThread = 200_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //Snapshots are taken all the time while threads add, every thread keeps its own sums to compare
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService snapshotExecutor = Executors.newSingleThreadExecutor();
+        Future<Integer> snapshots = snapshotExecutor.submit(() -> {
+            int count = 0;
+            while (running.get()) {
+                assertEquals(registry.size(), aggregator.snapshot().size());
+                count++;
+            }
+            return count;
+        });
+
+        Future<?>[] futures = new Future<?>[threads];
+        long[][] sums = new long[threads][registry.size()];
+        for (int t = 0; t < threads; t++) {
+            long[] threadSums = sums[t];
+            futures[t] = executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < addsPerThread; i++) {
+                    int ordinal = random.nextInt(registry.size());
+                    long amount = random.nextLong(-1_000_000, 1_000_000);
+                    aggregator.add(amount, ordinal);
+                    threadSums[ordinal] += amount;
+                }
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        running.set(false);
+        assertTrue(snapshots.get() > 0);
+        snapshotExecutor.shutdown();
+
+        SortedMap<String, BigDecimal> totals = aggregator.snapshot();
+        for (int ordinal = 0; ordinal < registry.size(); ordinal++) {
+            long expected = 0;
+            for (long[] threadSums : sums) {
+                expected += threadSums[ordinal];
+            }
+            assertEquals(BigDecimal.valueOf(expected, 2), totals.get(registry.getCode(ordinal)));
+        }
+    }
+
+    @Test
+    public void givenOverflowingAddsDuringSnapshot_whenSnapshot_thanEveryAddCountedCompletely() throws Exception {
+        CurrencyAggregator aggregator = new CurrencyAggregator(registry, 2);
+        long amount = Long.MAX_VALUE / 3;
+        int threads = 4;
+        int addsPerThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //Cells overflow every few adds, snapshot taken while cell is moved to carry must not lose it
+        Future<?>[] futures = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+            futures[t] = executor.submit(() -> {
+                for (int i = 0; i < addsPerThread; i++) {
+                    aggregator.add(amount, "USD");
+                }
+            });
+        }
+        BigInteger step = BigInteger.valueOf(amount);
+        BigInteger previous = BigInteger.ZERO;
+        boolean done = false;
+        while (!done) {
+            done = Arrays.stream(futures).allMatch(Future::isDone);
+            BigInteger total = aggregator.snapshot().get("USD").unscaledValue();
+            assertEquals(BigInteger.ZERO, total.mod(step));
+            assertTrue(total.compareTo(previous) >= 0);
+            previous = total;
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(step.multiply(BigInteger.valueOf((long) threads * addsPerThread)),
+                aggregator.snapshot().get("USD").unscaledValue());
+    }
+
+    @Test
+    public void givenAddsToTwoCurrenciesInOrder_whenSnapshot_thanTotalsAreFromOneMoment() throws Exception {
+        CurrencyAggregator aggregator = new CurrencyAggregator(registry, 4);
+        int first = registry.ordinalOf("EUR");
+        int second = registry.ordinalOf("USD");
+        int threads = 2;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        //Every thread adds to second currency only after the first one, so snapshot can't have more of second
+        Future<?>[] futures = new Future<?>[threads];
+        for (int t = 0; t < threads; t++) {
+            futures[t] = executor.submit(() -> {
+                for (int i = 0; i < 200_000; i++) {
+                    aggregator.add(1, first);
+                    aggregator.add(1, second);
+                }
+            });
+        }
+        boolean done = false;
+        while (!done) {
+            done = Arrays.stream(futures).allMatch(Future::isDone);
+            SortedMap<String, BigDecimal> totals = aggregator.snapshot();
+            long difference = totals.get("EUR").subtract(totals.get("USD")).unscaledValue().longValueExact();
+            assertTrue(difference >= 0 && difference <= threads, "Difference of totals " + difference);
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+    }
+}
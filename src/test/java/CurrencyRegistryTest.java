@@ -0,0 +1,73 @@
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class CurrencyRegistryTest {
+
+    private final CurrencyRegistry registry = new CurrencyRegistry(Arrays.asList("USD", "JPY", "PLN", "AUD", "JPY"));
+
+    //pack() tests
+    @Test
+    public void givenCodes_whenPack_thanReturnDifferentNumbersBelowLimit() {
+        assertEquals(0, CurrencyRegistry.pack("AAA"));
+        assertEquals(26 * 26 * 26 - 1, CurrencyRegistry.pack("ZZZ"));
+        assertEquals(CurrencyRegistry.pack("USD"), CurrencyRegistry.pack(new StringBuilder("USD")));
+    }
+
+    @Test
+    public void givenNotIsoCodes_whenPack_thanReturnNotPackable() {
+        for (String code : new String[]{"usd", "US", "USDX", "U$D", "@AA", "[AA", "", null}) {
+            assertEquals(CurrencyRegistry.NOT_PACKABLE, CurrencyRegistry.pack(code), String.valueOf(code));
+        }
+    }
+
+    //ordinalOf() tests
+    @Test
+    public void givenCodes_whenOrdinalOf_thanReturnAlphabeticalPosition() {
+        assertEquals(4, registry.size());
+        assertEquals(0, registry.ordinalOf("AUD"));
+        assertEquals(1, registry.ordinalOf("JPY"));
+        assertEquals(2, registry.ordinalOf("PLN"));
+        assertEquals(3, registry.ordinalOf("USD"));
+        assertEquals("PLN", registry.getCode(2));
+    }
+
+    @Test
+    public void givenUnknownCode_whenOrdinalOf_thanReturnNotFound() {
+        assertEquals(CurrencyRegistry.NOT_FOUND, registry.ordinalOf("GBP"));
+        assertEquals(CurrencyRegistry.NOT_FOUND, registry.ordinalOf("usd"));
+        assertEquals(CurrencyRegistry.NOT_FOUND, registry.ordinalOf((CharSequence) null));
+    }
+
+    @Test
+    public void givenCodeInBytes_whenOrdinalOf_thanReturnSameOrdinalAsForString() {
+        byte[] line = "2022-01-28,PLN,4.5".getBytes(StandardCharsets.US_ASCII);
+
+        assertEquals(2, registry.ordinalOf(line, 11));
+        assertEquals(2, registry.ordinalOf(ByteBuffer.wrap(line), 11));
+        assertEquals(CurrencyRegistry.NOT_FOUND, registry.ordinalOf(line, 0));
+    }
+
+    @Test
+    public void givenNotIsoCodes_whenOrdinalOf_thanFindThemToo() {
+        CurrencyRegistry mixed = new CurrencyRegistry(Arrays.asList("USD", "Btc", "EURO"));
+
+        assertEquals(0, mixed.ordinalOf("Btc"));
+        assertEquals(1, mixed.ordinalOf("EURO"));
+        assertEquals(2, mixed.ordinalOf("USD"));
+    }
+
+    //getCodes() tests
+    @Test
+    public void givenRegistry_whenGetCodes_thanIterateInOrderOfOrdinals() {
+        List<String> codes = new ArrayList<>(registry.getCodes());
+
+        assertEquals(Arrays.asList("AUD", "JPY", "PLN", "USD"), codes);
+    }
+}
@@ -0,0 +1,80 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LatencyHistogramTest {
+
+    //record() tests
+    @Test
+    public void givenDurations_whenRecord_thanPutThemIntoPowerOfTwoBuckets() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(0);
+        histogram.record(1);
+        histogram.record(1023);
+        histogram.record(1024);
+        histogram.record(-5);
+
+        long[] counts = histogram.getBucketCounts();
+        assertEquals(2, counts[0]);
+        assertEquals(1, counts[1]);
+        assertEquals(1, counts[10]);
+        assertEquals(1, counts[11]);
+        assertEquals(5, histogram.getCount());
+        assertEquals(2048, histogram.getSum());
+        assertEquals(1024, histogram.getMax());
+    }
+
+    @Test
+    public void givenVeryLongDuration_whenRecord_thanPutItIntoLastBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(1, histogram.getBucketCounts()[LatencyHistogram.BUCKET_COUNT - 1]);
+    }
+
+    //getPercentile() tests
+    @Test
+    public void givenRecordedDurations_whenGetPercentile_thanReturnUpperBoundOfBucket() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 0; i < 990; i++) {
+            histogram.record(100);
+        }
+        for (int i = 0; i < 10; i++) {
+            histogram.record(5000);
+        }
+
+        assertEquals(127, histogram.getPercentile(50));
+        assertEquals(127, histogram.getPercentile(99));
+        assertEquals(5000, histogram.getPercentile(99.9));
+    }
+
+    @Test
+    public void givenEmptyHistogram_whenGetPercentile_thanReturnZero() {
+        assertEquals(0, new LatencyHistogram().getPercentile(99));
+    }
+
+    @Test
+    public void givenManyThreads_whenRecord_thanNoDurationIsLost() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, histogram.getCount());
+        assertTrue(histogram.getPercentile(99) >= 99_000);
+    }
+}
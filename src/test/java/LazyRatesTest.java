@@ -0,0 +1,193 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LazyRatesTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+
+    @TempDir
+    Path tempDir;
+
+    //getLatestRates() tests
+    @Test
+    public void givenDailyFile_whenGetLatestRates_thanTheSameAsHistory() throws Exception {
+        SortedMap<String, BigDecimal> expected = XMLParser.loadRateHistory(FILEPATH).getLatestRates();
+
+        try (LazyRates testRates = new LazyRates(FILEPATH)) {
+            SortedMap<String, BigDecimal> latestRates = testRates.getLatestRates();
+
+            assertEquals(expected.keySet(), latestRates.keySet());
+            for (String currency : expected.keySet()) {
+                assertEquals(0, expected.get(currency).compareTo(latestRates.get(currency)));
+            }
+            assertEquals(LocalDate.of(2022, 1, 28), testRates.getDate());
+            assertTrue(testRates.isComplete());
+        }
+    }
+
+    @Test
+    public void givenHistoryFile_whenGetLatestRates_thanOnlyNewestDayRead() throws Exception {
+        Path file = TestData.writeHistoryFile(tempDir.resolve("hist.xml"), 2000);
+        SortedMap<String, BigDecimal> expected = XMLParser.loadRateHistory(file.toString()).getLatestRates();
+
+        try (LazyRates testRates = new LazyRates(file.toString())) {
+            SortedMap<String, BigDecimal> latestRates = testRates.getLatestRates();
+
+            assertEquals(expected.size(), latestRates.size());
+            for (String currency : expected.keySet()) {
+                assertEquals(0, expected.get(currency).compareTo(latestRates.get(currency)));
+            }
+            assertTrue(testRates.getBytesRead() < Files.size(file) / 50);
+        }
+    }
+
+    //getRate() tests
+    @Test
+    public void givenHistoryFile_whenGetRate_thanReadingStopsAtCurrency() throws Exception {
+        Path file = TestData.writeHistoryFile(tempDir.resolve("hist.xml"), 2000);
+        RateHistory rateHistory = XMLParser.loadRateHistory(file.toString());
+
+        try (LazyRates testRates = new LazyRates(file.toString())) {
+            assertEquals(0, rateHistory.getLatestRates().get("BGN").compareTo(testRates.getRate("BGN")));
+            assertFalse(testRates.isComplete());
+
+            //Currency later in the same day is read from the place where reading stopped
+            assertEquals(0, rateHistory.getLatestRates().get("USD").compareTo(testRates.getRate("USD")));
+            assertFalse(testRates.isComplete());
+
+            assertNull(testRates.getRate("XYZ"));
+            assertTrue(testRates.isComplete());
+            assertTrue(testRates.getBytesRead() < Files.size(file) / 50);
+        }
+    }
+
+    @Test
+    public void givenRatesWithoutDate_whenGetRate_thanTheyAreRatesOfNewestDayLikeInHistory() throws Exception {
+        Path file = tempDir.resolve("rates.xml");
+        Files.write(file, ("<Cube><Cube currency='PLN' rate='4.5'/><Cube currency='USD' rate='9.9'/>"
+                + "<Cube time='2022-01-28'><Cube currency='USD' rate='1.1'/></Cube>"
+                + "<Cube time='2022-01-27'><Cube currency='JPY' rate='128'/></Cube></Cube>")
+                .getBytes(StandardCharsets.UTF_8));
+        SortedMap<String, BigDecimal> expected = XMLParser.loadRateHistory(file.toString()).getLatestRates();
+
+        try (LazyRates testRates = new LazyRates(file.toString())) {
+            //Rate of the newest day wins over rate without date
+            assertEquals(new BigDecimal("4.5"), testRates.getRate("PLN"));
+            assertEquals(new BigDecimal("1.1"), testRates.getRate("USD"));
+            assertNull(testRates.getRate("JPY"));
+
+            SortedMap<String, BigDecimal> latestRates = testRates.getLatestRates();
+            assertEquals(expected.keySet(), latestRates.keySet());
+            for (String currency : expected.keySet()) {
+                assertEquals(0, expected.get(currency).compareTo(latestRates.get(currency)));
+            }
+        }
+    }
+
+    @Test
+    public void givenFileWithoutDates_whenGetLatestRates_thanAllRatesWithoutDate() throws Exception {
+        Path file = tempDir.resolve("rates.xml");
+        Files.write(file, "<Cube><Cube currency='PLN' rate='4.5'/><Cube currency='USD' rate='1.1'/></Cube>"
+                .getBytes(StandardCharsets.UTF_8));
+
+        try (LazyRates testRates = new LazyRates(file.toString())) {
+            assertEquals(new BigDecimal("1.1"), testRates.getRate("USD"));
+            assertEquals(2, testRates.getLatestRates().size());
+            assertNull(testRates.getDate());
+        }
+    }
+
+    @Test
+    public void givenMissingFile_whenGetRate_thanRateLoadExceptionWithExitCode4() {
+        LazyRates testRates = new LazyRates(tempDir.resolve("missing.xml").toString());
+
+        RateLoadException exception = assertThrows(RateLoadException.class, () -> testRates.getRate("USD"));
+
+        assertEquals(4, exception.getExitCode());
+    }
+
+    @Test
+    public void givenBrokenRate_whenGetRate_thanRateLoadExceptionWithExitCode5() throws Exception {
+        Path file = tempDir.resolve("rates.xml");
+        Files.write(file, "<Cube><Cube time='2022-01-28'><Cube currency='USD' rate='abc'/></Cube></Cube>"
+                .getBytes(StandardCharsets.UTF_8));
+        LazyRates testRates = new LazyRates(file.toString());
+
+        RateLoadException exception = assertThrows(RateLoadException.class, () -> testRates.getRate("USD"));
+
+        assertEquals(5, exception.getExitCode());
+        assertTrue(testRates.isComplete());
+    }
+
+    @Test
+    public void givenRateNotStorableAsScaledLong_whenGetRate_thanExitCode5LikeHistory() throws Exception {
+        Path file = tempDir.resolve("rates.xml");
+        for (String rate : new String[]{"0", "-1.1", "1.1234567", "1E+20"}) {
+            //Rate without date is checked too, even when newest day has its own rate of currency
+            for (String xml : new String[]{
+                    "<Cube><Cube time='2022-01-28'><Cube currency='USD' rate='" + rate + "'/></Cube></Cube>",
+                    "<Cube><Cube currency='USD' rate='" + rate + "'/><Cube time='2022-01-28'>"
+                            + "<Cube currency='USD' rate='1.1'/></Cube></Cube>"}) {
+                Files.write(file, xml.getBytes(StandardCharsets.UTF_8));
+                LazyRates testRates = new LazyRates(file.toString());
+
+                RateLoadException exception = assertThrows(RateLoadException.class, () -> testRates.getRate("USD"));
+                RateLoadException historyException = assertThrows(RateLoadException.class,
+                        () -> XMLParser.loadRateHistory(file.toString()));
+
+                assertEquals(5, exception.getExitCode(), xml);
+                assertEquals(historyException.getExitCode(), exception.getExitCode(), xml);
+            }
+        }
+    }
+
+    //getRates() tests
+    @Test
+    public void givenSomeCurrencies_whenGetRates_thanOnlyFoundOnes() throws Exception {
+        try (LazyRates testRates = new LazyRates(FILEPATH)) {
+            SortedMap<String, BigDecimal> rates = testRates.getRates(Arrays.asList("USD", "JPY", "XYZ"));
+
+            assertEquals(2, rates.size());
+            assertEquals(new BigDecimal("1.11354"), rates.get("USD"));
+        }
+    }
+
+    //convertEuros() tests
+    @Test
+    public void givenEveryCurrency_whenConvertEuros_thanTheSameAsCalculator() throws Exception {
+        Calculator calculator = new Calculator(FILEPATH);
+        BigDecimal amount = new BigDecimal("1234.56");
+
+        try (LazyRates testRates = new LazyRates(FILEPATH)) {
+            for (String currency : calculator.getCurrenciesSet()) {
+                calculator.setCurrentCurrency(currency);
+                assertEquals(calculator.convertEuros(amount), testRates.convertEuros(amount, currency));
+            }
+            assertEquals(BigDecimal.ZERO, testRates.convertEuros(new BigDecimal("-1"), "USD"));
+            assertNull(testRates.convertEuros(amount, "XYZ"));
+        }
+    }
+
+    @Test
+    public void givenEuro_whenConvertEuros_thanSameAmountWithoutReadingFile() throws Exception {
+        try (LazyRates testRates = new LazyRates(FILEPATH)) {
+            assertEquals(new BigDecimal("100.00"), testRates.convertEuros(new BigDecimal("100"), "EUR"));
+            assertEquals(new BigDecimal("0.13"), testRates.convertEuros(new BigDecimal("0.125"), "EUR"));
+            assertEquals(0, testRates.getBytesRead());
+        }
+    }
+}
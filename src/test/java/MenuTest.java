@@ -1,10 +1,12 @@
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 
 public class MenuTest {
 
@@ -35,4 +37,19 @@ public class MenuTest {
 
         assertFalse(returnedValue.isPresent());
     }
+
+    @Test
+    public void givenHugeExponentWithNonAsciiDigit_whenCheckInputEuros_returnEmptyOptionalQuickly() {
+        Optional<BigDecimal> returnedValue = assertTimeoutPreemptively(Duration.ofSeconds(5),
+                () -> testMenu.checkInputEuros("\u0661E999999999"));
+
+        assertFalse(returnedValue.isPresent());
+    }
+
+    @Test
+    public void givenNonAsciiDigits_whenCheckInputEuros_returnProperObject() {
+        Optional<BigDecimal> returnedValue = testMenu.checkInputEuros("\u0661\u0662.5");
+
+        assertEquals(new BigDecimal("12.50"), returnedValue.get());
+    }
 }
@@ -0,0 +1,183 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class MetricsTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+
+    //Metrics are shared by whole application, so tests check only changes of them
+    private final Metrics metrics = Metrics.INSTANCE;
+
+    @TempDir
+    Path tempDir;
+
+    //recordConversion() tests
+    @Test
+    public void givenConversions_whenGetConversionCount_thanCountThemForCurrency() {
+        Calculator calculator = new Calculator(FILEPATH);
+        calculator.setCurrentCurrency("PLN");
+        long before = metrics.getConversionCount();
+        long beforePln = metrics.getConversionCountByCurrency().getOrDefault("PLN", 0L);
+
+        calculator.convertEuros(new BigDecimal("10.00"));
+        calculator.convertEuros(1000L);
+        calculator.convertEuros(-1L);
+
+        assertTrue(metrics.getConversionCount() - before >= 3);
+        assertEquals(beforePln + 3, (long) metrics.getConversionCountByCurrency().get("PLN"));
+        assertTrue(metrics.getConversionLatencyMaxNanos() > 0);
+    }
+
+    @Test
+    public void givenManyConversionsInMinorUnits_whenGetConversionCount_thanCountAllButTimeOnlySome() {
+        Calculator calculator = new Calculator(FILEPATH);
+        calculator.setCurrentCurrency("CHF");
+        long beforeChf = metrics.getConversionCountByCurrency().getOrDefault("CHF", 0L);
+        long beforeTimed = timedConversions();
+
+        for (int i = 0; i < 10 * Calculator.TIMED_CONVERSION_INTERVAL; i++) {
+            calculator.convertEuros(1000L + i);
+        }
+
+        assertEquals(beforeChf + 10 * Calculator.TIMED_CONVERSION_INTERVAL,
+                (long) metrics.getConversionCountByCurrency().get("CHF"));
+        assertEquals(beforeTimed + 10, timedConversions());
+    }
+
+    //recordParse() tests
+    @Test
+    public void givenLoadedXml_whenGetParseMetrics_thanReturnRateCountAndTime() {
+        XMLParser.getCurrencies(FILEPATH);
+
+        assertEquals(XMLParser.getCurrencies(FILEPATH).size(), metrics.getLastParseRateCount());
+        assertTrue(metrics.getLastParseMillis() > 0);
+        assertFalse(metrics.getLastSuccessfulLoad().isEmpty());
+    }
+
+    @Test
+    public void givenMissingXml_whenReloaderCreated_thanCountFailure() {
+        long before = metrics.getParseFailureCount();
+
+        try {
+            new RateReloader("src/test/resources/missing.xml", 10, RoundingMode.HALF_UP);
+        } catch (RateLoadException e) {
+            //Expected
+        }
+
+        assertEquals(before + 1, metrics.getParseFailureCount());
+    }
+
+    @Test
+    public void givenCachedXml_whenReloaderCreated_thanLoadRecordedWithoutParsing() throws Exception {
+        Path xmlFile = Files.copy(Paths.get(FILEPATH), tempDir.resolve("rates.xml"));
+        new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP, true);
+        long before = metrics.getParseCount();
+
+        RateReloader testReloader = new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP, true);
+
+        assertEquals(before + 1, metrics.getParseCount());
+        assertEquals(testReloader.get().getCurrencyRates().size(), metrics.getLastParseRateCount());
+    }
+
+    //recordInvalidInput() and recordNonPositiveInput() tests
+    @Test
+    public void givenRejectedInputs_whenGetInputCounts_thanCountThemByReason() {
+        Menu menu = new Menu(new Calculator(FILEPATH));
+        long invalidBefore = metrics.getInvalidInputCount();
+        long nonPositiveBefore = metrics.getNonPositiveInputCount();
+
+        menu.checkInputEuros("abcd");
+        menu.checkInputEuros("-1");
+        menu.checkInputEuros("0.001");
+        menu.checkInputEuros("12.50");
+
+        assertEquals(invalidBefore + 1, metrics.getInvalidInputCount());
+        assertEquals(nonPositiveBefore + 2, metrics.getNonPositiveInputCount());
+    }
+
+    //setConversionCache() tests
+    @Test
+    public void givenConversionCache_whenDump_thanReturnHitsAndMisses() throws Exception {
+        ConversionCache cache = new ConversionCache(16);
+        metrics.setConversionCache(cache);
+        try {
+            Calculator calculator = new Calculator(new RateReloader(FILEPATH, 10, RoundingMode.HALF_UP), cache);
+            calculator.convertEuros(new BigDecimal("9.99"));
+            calculator.convertEuros(new BigDecimal("9.99"));
+
+            assertEquals(1, metrics.getConversionCacheHitCount());
+            assertEquals(1, metrics.getConversionCacheMissCount());
+            assertTrue(metrics.dump().contains("currency_conversion_cache_lookups_total{result=\"hit\"} 1\n"));
+        } finally {
+            metrics.setConversionCache(null);
+        }
+    }
+
+    //register() tests
+    @Test
+    public void givenRegisteredMetrics_whenReadThroughJmx_thanReturnSameValues() throws Exception {
+        Metrics.register();
+        Metrics.register();
+        new Calculator(FILEPATH).convertEuros(new BigDecimal("1.00"));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+
+        assertTrue((Long) server.getAttribute(name, "ConversionCount") > 0);
+        TabularData byCurrency = (TabularData) server.getAttribute(name, "ConversionCountByCurrency");
+        assertFalse(byCurrency.isEmpty());
+        CompositeData row = (CompositeData) byCurrency.values().iterator().next();
+        assertTrue(row.containsKey("key"));
+        assertTrue(((String) server.invoke(name, "dump", null, null)).contains("currency_conversions_total"));
+    }
+
+    //dump() tests
+    @Test
+    public void givenConversions_whenDump_thanReturnCumulativeHistogram() {
+        new Calculator(FILEPATH).convertEuros(new BigDecimal("1.00"));
+
+        String dump = metrics.dump();
+
+        assertTrue(dump.contains("# TYPE currency_conversion_latency_seconds histogram\n"));
+        assertTrue(dump.contains("currency_conversion_latency_seconds_bucket{le=\"+Inf\"} "));
+        assertTrue(dump.contains("\ncurrency_conversion_latency_seconds_sum "));
+        assertTrue(dump.contains("\ncurrency_conversion_latency_seconds_count "));
+        assertTrue(dump.contains("currency_input_rejections_total{reason=\"not_a_number\"} "));
+
+        //Buckets of Prometheus histogram never decrease
+        long previous = 0;
+        for (String line : dump.split("\n")) {
+            if (line.startsWith("currency_conversion_latency_seconds_bucket")) {
+                long count = Long.parseLong(line.substring(line.lastIndexOf(' ') + 1));
+                assertTrue(count >= previous);
+                previous = count;
+            }
+        }
+    }
+
+    private long timedConversions() {
+        String prefix = "currency_conversion_latency_seconds_count ";
+        for (String line : metrics.dump().split("\n")) {
+            if (line.startsWith(prefix)) {
+                return Long.parseLong(line.substring(prefix.length()));
+            }
+        }
+        throw new AssertionError("No count of latency histogram in dump");
+    }
+}
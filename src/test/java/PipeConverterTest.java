@@ -0,0 +1,166 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PipeConverterTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+    private static final RateSnapshot SNAPSHOT = new RateSnapshot(1, XMLParser.getRateHistory(FILEPATH),
+            CrossRateTable.DEFAULT_SCALE, CrossRateTable.DEFAULT_ROUNDING);
+
+    private final PipeConverter pipeConverter = new PipeConverter(() -> SNAPSHOT);
+    private final ByteArrayOutputStream errors = new ByteArrayOutputStream();
+
+    @TempDir
+    Path tempDir;
+
+    //convert() tests
+    @Test
+    public void givenProperLines_whenConvert_thanWriteConvertedAmounts() throws IOException {
+        String output = convert("100.00 USD\n1 PLN\r\n  0.005\tJPY  \n12.345 USD");
+
+        assertEquals(expected("100.00", "USD") + expected("1", "PLN") + expected("0.005", "JPY")
+                + expected("12.345", "USD"), output);
+        assertEquals(4, pipeConverter.getConvertedLines());
+        assertEquals(0, pipeConverter.getRejectedLines());
+    }
+
+    @Test
+    public void givenBadLines_whenConvert_thanReportThemAndConvertOthers() throws IOException {
+        String output = convert("abc USD\n100 XXX\n-5 USD\n0.001 USD\n100\n1E999999999 USD\n\n5 USD\n");
+
+        assertEquals(expected("5", "USD"), output);
+        assertEquals(1, pipeConverter.getConvertedLines());
+        assertEquals(6, pipeConverter.getRejectedLines());
+
+        String report = new String(errors.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(report.contains("Line 1: amount is not a number: abc USD"));
+        assertTrue(report.contains("Line 2: unknown currency: 100 XXX"));
+        assertTrue(report.contains("Line 3: amount must be greater than zero: -5 USD"));
+        assertTrue(report.contains("Line 5: expected amount and currency: 100"));
+        assertTrue(report.contains("Line 6: amount is too big"));
+    }
+
+    @Test
+    public void givenAmountTooBigForLong_whenConvert_thanUseBigDecimal() throws IOException {
+        String amount = "92233720368547758070.00";
+
+        assertEquals(expected(amount, "JPY"), convert(amount + " JPY\n"));
+    }
+
+    @Test
+    public void givenAmountsWithHugeExponent_whenConvert_thanRejectThemQuickly() throws IOException {
+        //10^17 written with more decimal places than AmountParser allows, too big for long in cents
+        StringBuilder tooPrecise = new StringBuilder("1");
+        for (int i = 0; i < 220; i++) {
+            tooPrecise.append('0');
+        }
+        tooPrecise.append("E-203");
+
+        assertEquals(expected("5", "USD"), convert("1E-999999999 USD\n1E+999999999 USD\n" + tooPrecise
+                + " USD\n5 USD\n"));
+
+        String report = new String(errors.toByteArray(), StandardCharsets.US_ASCII);
+        assertTrue(report.contains("Line 1: amount must be greater than zero"), report);
+        assertTrue(report.contains("Line 2: amount is too big"), report);
+        assertTrue(report.contains("Line 3: amount has too many decimal places"), report);
+    }
+
+    @Test
+    public void givenCacheAndRepeatedBigAmount_whenConvert_thanSecondResultFromCache() throws IOException {
+        ConversionCache cache = new ConversionCache(16);
+        String amount = "92233720368547758070.00";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        new PipeConverter(() -> SNAPSHOT, cache).convert(new ByteArrayInputStream((amount + " JPY\n" + amount
+                + " JPY\n5 USD\n").getBytes(StandardCharsets.US_ASCII)), output, new PrintStream(errors));
+
+        assertEquals(expected(amount, "JPY") + expected(amount, "JPY") + expected("5", "USD"),
+                new String(output.toByteArray(), StandardCharsets.US_ASCII));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void givenLineLongerThanBuffer_whenConvert_thanReadWholeLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            line.append(' ');
+        }
+
+        assertEquals(expected("7", "USD"), convert(line + "7 USD\n"));
+    }
+
+    //Large input piped through converter, throughput is measured by PipeConverterBenchmark
+    @Test
+    public void givenLargeGeneratedFile_whenConvert_thanConvertAllLines() throws IOException {
+        int lines = 300_000;
+        String[] currencies = SNAPSHOT.getCurrencyRegistry().getCodes().toArray(new String[0]);
+        Path inputFile = tempDir.resolve("amounts.txt");
+        Path outputFile = tempDir.resolve("converted.txt");
+
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(inputFile, StandardCharsets.US_ASCII)) {
+            for (int i = 0; i < lines; i++) {
+                writer.write(BigDecimal.valueOf(random.nextInt(10_000_000) + 1, 2).toPlainString());
+                writer.write(' ');
+                writer.write(currencies[i % currencies.length]);
+                writer.write('\n');
+            }
+        }
+
+        try (InputStream input = new BufferedInputStream(Files.newInputStream(inputFile));
+             OutputStream output = Files.newOutputStream(outputFile)) {
+            pipeConverter.convert(input, output, new PrintStream(errors));
+        }
+
+        assertEquals(lines, pipeConverter.getConvertedLines());
+        assertEquals(0, pipeConverter.getRejectedLines());
+
+        //Every 1000th line is compared with Calculator
+        Calculator calculator = new Calculator(SNAPSHOT);
+        try (BufferedReader inputReader = Files.newBufferedReader(inputFile);
+             BufferedReader outputReader = Files.newBufferedReader(outputFile)) {
+            for (int i = 0; i < lines; i++) {
+                String inputLine = inputReader.readLine();
+                String outputLine = outputReader.readLine();
+                if (i % 1000 == 0) {
+                    String[] values = inputLine.split(" ");
+                    calculator.setCurrentCurrency(values[1]);
+                    assertEquals(calculator.convertEuros(new BigDecimal(values[0])) + " " + values[1], outputLine);
+                }
+            }
+        }
+    }
+
+    private String convert(String input) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        pipeConverter.convert(new ByteArrayInputStream(input.getBytes(StandardCharsets.US_ASCII)), output,
+                new PrintStream(errors));
+        return new String(output.toByteArray(), StandardCharsets.US_ASCII);
+    }
+
+    private static String expected(String amount, String currency) {
+        Calculator calculator = new Calculator(SNAPSHOT);
+        calculator.setCurrentCurrency(currency);
+        return calculator.convertEuros(new BigDecimal(amount).setScale(2, java.math.RoundingMode.HALF_UP))
+                + " " + currency + "\n";
+    }
+}
@@ -0,0 +1,119 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateCacheTest {
+
+    private static final Path FILEPATH = Paths.get("src/test/resources/eurofxref-hist-test.xml");
+
+    @TempDir
+    Path tempDir;
+
+    //loadRateHistory() tests
+    @Test
+    public void givenXmlWithoutCache_whenLoadRateHistory_thanWriteCacheWithSameRates() throws Exception {
+        Path xmlFile = Files.copy(FILEPATH, tempDir.resolve("hist.xml"));
+        Path cacheFile = RateCache.cacheFileOf(xmlFile);
+
+        RateHistory parsed = RateCache.loadRateHistory(xmlFile.toString());
+        assertTrue(Files.exists(cacheFile));
+
+        RateHistory cached = RateCache.read(xmlFile, cacheFile);
+        assertNotNull(cached);
+        assertSameHistory(parsed, cached);
+    }
+
+    @Test
+    public void givenTouchedXml_whenReadCache_thanUseCacheWhenChecksumIsSame() throws Exception {
+        Path xmlFile = Files.copy(FILEPATH, tempDir.resolve("hist.xml"));
+        RateCache.loadRateHistory(xmlFile.toString());
+
+        Files.setLastModifiedTime(xmlFile, FileTime.fromMillis(Files.getLastModifiedTime(xmlFile).toMillis() + 5_000));
+
+        assertNotNull(RateCache.read(xmlFile, RateCache.cacheFileOf(xmlFile)));
+    }
+
+    @Test
+    public void givenTouchedXmlWithoutDates_whenLoadRateHistory_thanRatesGetNewDayOfModification() throws Exception {
+        Path xmlFile = tempDir.resolve("undated.xml");
+        Files.write(xmlFile, "<Cube><Cube currency='USD' rate='1.1'/></Cube>".getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(xmlFile, noonOf(LocalDate.of(2022, 3, 1)));
+        RateHistory first = RateCache.loadRateHistory(xmlFile.toString());
+        assertEquals(LocalDate.of(2022, 3, 1).toEpochDay(), first.getPublicationDay(0));
+
+        //Content and so checksum stay the same
+        Files.setLastModifiedTime(xmlFile, noonOf(LocalDate.of(2022, 6, 1)));
+
+        assertNull(RateCache.read(xmlFile, RateCache.cacheFileOf(xmlFile)));
+        RateHistory touched = RateCache.loadRateHistory(xmlFile.toString());
+        assertEquals(1, touched.getPublicationCount());
+        assertEquals(LocalDate.of(2022, 6, 1).toEpochDay(), touched.getPublicationDay(0));
+        assertEquals(LocalDate.of(2022, 6, 1).toEpochDay(),
+                RateCache.read(xmlFile, RateCache.cacheFileOf(xmlFile)).getPublicationDay(0));
+    }
+
+    @Test
+    public void givenChangedXml_whenLoadRateHistory_thanParseXmlAgain() throws Exception {
+        Path xmlFile = Files.copy(FILEPATH, tempDir.resolve("hist.xml"));
+        RateCache.loadRateHistory(xmlFile.toString());
+
+        //Same size, different content and modification time
+        String xml = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+        Files.write(xmlFile, xml.replace("1.1135", "1.2135").getBytes(StandardCharsets.UTF_8));
+        Files.setLastModifiedTime(xmlFile, FileTime.fromMillis(Files.getLastModifiedTime(xmlFile).toMillis() + 5_000));
+
+        assertNull(RateCache.read(xmlFile, RateCache.cacheFileOf(xmlFile)));
+        RateHistory reloaded = RateCache.loadRateHistory(xmlFile.toString());
+        assertEquals("1.213500", reloaded.getRate("USD", LocalDate.of(2022, 1, 28)).toPlainString());
+        assertNotNull(RateCache.read(xmlFile, RateCache.cacheFileOf(xmlFile)));
+    }
+
+    @Test
+    public void givenBrokenCache_whenLoadRateHistory_thanParseXml() throws Exception {
+        Path xmlFile = Files.copy(FILEPATH, tempDir.resolve("hist.xml"));
+        Files.write(RateCache.cacheFileOf(xmlFile), new byte[]{1, 2, 3});
+
+        RateHistory rateHistory = RateCache.loadRateHistory(xmlFile.toString());
+
+        assertEquals(4, rateHistory.getPublicationCount());
+    }
+
+    @Test
+    public void givenLargeHistoryXml_whenLoadFromCache_thanTheSameAsParsed() throws Exception {
+        Path xmlFile = TestData.writeHistoryFile(tempDir.resolve("eurofxref-hist.xml"), 6500);
+
+        RateHistory parsed = RateCache.loadRateHistory(xmlFile.toString());
+        RateHistory cached = RateCache.loadRateHistory(xmlFile.toString());
+
+        assertTrue(Files.exists(RateCache.cacheFileOf(xmlFile)));
+        assertSameHistory(parsed, cached);
+    }
+
+    private static FileTime noonOf(LocalDate date) {
+        return FileTime.from(date.atTime(12, 0).atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    private static void assertSameHistory(RateHistory expected, RateHistory actual) {
+        assertEquals(expected.getCurrencies(), actual.getCurrencies());
+        assertEquals(expected.getPublicationCount(), actual.getPublicationCount());
+        assertEquals(expected.getLatestRates(), actual.getLatestRates());
+        for (int publication = 0; publication < expected.getPublicationCount(); publication++) {
+            assertEquals(expected.getPublicationDay(publication), actual.getPublicationDay(publication));
+            for (int currency = 0; currency < expected.getCurrencyCount(); currency++) {
+                assertEquals(expected.getScaledRate(currency, publication), actual.getScaledRate(currency, publication));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class RateHistoryTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-hist-test.xml";
+
+    private final RateHistory testHistory = XMLParser.getRateHistory(FILEPATH);
+
+    //getRate() tests
+    @Test
+    public void givenPublicationDate_whenGetRate_thanReturnRateFromThatDay() {
+        assertEquals(0, new BigDecimal("1.1315").compareTo(testHistory.getRate("USD", LocalDate.of(2022, 1, 24))));
+        assertEquals(0, new BigDecimal("1.1135").compareTo(testHistory.getRate("USD", LocalDate.of(2022, 1, 28))));
+    }
+
+    @Test
+    public void givenWeekendDate_whenGetRate_thanReturnRateFromFriday() {
+        BigDecimal rate = testHistory.getRate("PLN", LocalDate.of(2022, 1, 23));
+
+        assertEquals(0, new BigDecimal("4.5413").compareTo(rate));
+    }
+
+    @Test
+    public void givenDateAfterLastPublication_whenGetRate_thanReturnLatestRate() {
+        BigDecimal rate = testHistory.getRate("JPY", LocalDate.of(2022, 2, 10));
+
+        assertEquals(0, new BigDecimal("128.68").compareTo(rate));
+    }
+
+    @Test
+    public void givenDateBeforeFirstPublication_whenGetRate_thanReturnNull() {
+        assertNull(testHistory.getRate("USD", LocalDate.of(2022, 1, 20)));
+    }
+
+    @Test
+    public void givenCurrencyNotPublishedThatDay_whenGetRate_thanReturnNull() {
+        assertNull(testHistory.getRate("RUB", LocalDate.of(2022, 1, 28)));
+    }
+
+    //getLatestRates() tests
+    @Test
+    public void givenHistoryXml_whenGetLatestRates_thanReturnRatesFromLastDate() {
+        assertEquals(3, testHistory.getLatestRates().size());
+        assertEquals(4, testHistory.getCurrencies().size());
+        assertEquals(LocalDate.of(2022, 1, 21), testHistory.getFirstDate());
+        assertEquals(LocalDate.of(2022, 1, 28), testHistory.getLastDate());
+        assertEquals(4, testHistory.getPublicationCount());
+    }
+}
@@ -0,0 +1,197 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RateJournalTest {
+
+    private static final Instant START = Instant.parse("2022-01-28T16:00:00Z");
+
+    @TempDir
+    Path tempDir;
+
+    //find() tests
+    @Test
+    public void givenEntries_whenFind_thanEntryValidAtThatMoment() throws Exception {
+        try (RateJournal testJournal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            testJournal.append(1, START, rates("USD", "1.1", "PLN", "4.5"));
+            testJournal.append(2, START.plusSeconds(60), rates("USD", "1.2", "PLN", "4.6"));
+
+            assertNull(testJournal.find(START.minusMillis(1)));
+            assertEquals(1, testJournal.find(START).getVersion());
+            assertEquals(1, testJournal.find(START.plusSeconds(59)).getVersion());
+            assertEquals(2, testJournal.find(START.plusSeconds(60)).getVersion());
+            assertEquals(rates("USD", "1.2", "PLN", "4.6"), testJournal.find(START.plusSeconds(3600)).getRates());
+        }
+    }
+
+    @Test
+    public void givenClockMovedBack_whenAppend_thanTimeOfLastEntryUsed() throws Exception {
+        try (RateJournal testJournal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            testJournal.append(1, START, rates("USD", "1.1"));
+            testJournal.append(2, START.minusSeconds(60), rates("USD", "1.2"));
+
+            assertEquals(2, testJournal.find(START).getVersion());
+            assertEquals(START, testJournal.find(START).getPublishedAt());
+            assertNull(testJournal.find(START.minusSeconds(1)));
+        }
+    }
+
+    //convert() tests
+    @Test
+    public void givenEntries_whenConvert_thanRatesOfThatMomentUsed() throws Exception {
+        try (RateJournal testJournal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            testJournal.append(1, START, rates("USD", "1.11354"));
+            testJournal.append(2, START.plusSeconds(60), rates("USD", "1.2"));
+
+            assertEquals(new BigDecimal("111.35"), testJournal.convert(new BigDecimal("100.00"), "USD", START));
+            assertEquals(new BigDecimal("120.00"),
+                    testJournal.convert(new BigDecimal("100.00"), "USD", START.plusSeconds(61)));
+            assertEquals(BigDecimal.ZERO, testJournal.convert(new BigDecimal("100.00"), "USD", START.minusSeconds(1)));
+            assertEquals(BigDecimal.ZERO, testJournal.convert(new BigDecimal("100.00"), "GBP", START));
+            assertEquals(BigDecimal.ZERO, testJournal.convert(new BigDecimal("-1"), "USD", START));
+        }
+    }
+
+    //RateJournal() tests
+    @Test
+    public void givenWrittenJournal_whenOpenedAgain_thanEntriesKeptAndAppendContinues() throws Exception {
+        Path file = tempDir.resolve("rates.journal");
+        try (RateJournal testJournal = new RateJournal(file)) {
+            //Enough entries to make file grow a few times
+            for (int version = 1; version <= 1000; version++) {
+                testJournal.append(version, START.plusSeconds(version), manyRates(version));
+            }
+        }
+
+        try (RateJournal testJournal = new RateJournal(file)) {
+            testJournal.append(1, START.plusSeconds(5000), rates("USD", "1.3"));
+
+            assertEquals(1001, testJournal.getEntryCount());
+            assertEquals(manyRates(500), testJournal.find(START.plusSeconds(500)).getRates());
+            assertEquals(new BigDecimal("1.3"), testJournal.find(START.plusSeconds(5000)).getRates().get("USD"));
+        }
+    }
+
+    @Test
+    public void givenDamagedLastEntry_whenOpened_thanEntriesBeforeKept() throws Exception {
+        Path file = tempDir.resolve("rates.journal");
+        try (RateJournal testJournal = new RateJournal(file)) {
+            testJournal.append(1, START, rates("USD", "1.1"));
+            testJournal.append(2, START.plusSeconds(60), rates("USD", "1.2"));
+        }
+
+        //Byte of USD rate in second entry, entries of one currency have 40 bytes
+        try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.seek(8 + 40 + 30);
+            randomAccessFile.write(0x7F);
+        }
+
+        try (RateJournal testJournal = new RateJournal(file)) {
+            assertEquals(1, testJournal.getEntryCount());
+            testJournal.append(3, START.plusSeconds(120), rates("USD", "1.3"));
+        }
+        try (RateJournal testJournal = new RateJournal(file)) {
+            assertEquals(2, testJournal.getEntryCount());
+            assertEquals(1, testJournal.find(START.plusSeconds(60)).getVersion());
+            assertEquals(3, testJournal.find(START.plusSeconds(120)).getVersion());
+        }
+    }
+
+    @Test
+    public void givenOtherFile_whenOpened_thanIOExceptionAndFileNotChanged() throws Exception {
+        Path file = tempDir.resolve("notes.txt");
+        Files.write(file, "not a journal".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> new RateJournal(file));
+        assertEquals("not a journal", new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+    }
+
+    //append() tests
+    @Test
+    public void givenTooPreciseRateOrWrongTag_whenAppend_thanIOException() throws Exception {
+        try (RateJournal testJournal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            assertThrows(IOException.class,
+                    () -> testJournal.append(1, START, rates("USD", "1.00000000000000000000001")));
+            assertThrows(IOException.class, () -> testJournal.append(1, START, rates("US1", "1.1")));
+            assertEquals(0, testJournal.getEntryCount());
+        }
+    }
+
+    //replay() tests
+    @Test
+    public void givenLoggedConversions_whenReplay_thanTheSameAsConvertOfEveryOne() throws Exception {
+        try (RateJournal testJournal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            for (int version = 1; version <= 50; version++) {
+                testJournal.append(version, START.plusSeconds(version * 60L), manyRates(version));
+            }
+
+            //Mostly sorted moments with some out of order and before first entry
+            Random random = new Random(3);
+            String[] codes = {"USD", "JPY", "CHF", "GBP", "IDR", "XYZ", "usd"};
+            int size = 10_000;
+            long[] moments = new long[size];
+            long[] amounts = new long[size];
+            String[] currencies = new String[size];
+            for (int i = 0; i < size; i++) {
+                moments[i] = START.toEpochMilli() + (random.nextInt(10) == 0 ? random.nextInt(3_100_000) : i * 300L);
+                amounts[i] = random.nextInt(10) == 0 ? -5 : random.nextInt(1_000_000);
+                currencies[i] = codes[random.nextInt(codes.length)];
+            }
+
+            long[] replayed = testJournal.replay(moments, amounts, currencies);
+
+            long[] expected = new long[size];
+            for (int i = 0; i < size; i++) {
+                expected[i] = testJournal.convert(BigDecimal.valueOf(Math.max(0, amounts[i]), 2), currencies[i],
+                        Instant.ofEpochMilli(moments[i])).unscaledValue().longValueExact();
+            }
+            assertArrayEquals(expected, replayed);
+        }
+    }
+
+    @Test
+    public void givenArraysOfDifferentLengths_whenReplay_thanIllegalArgumentException() throws Exception {
+        try (RateJournal testJournal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> testJournal.replay(new long[2], new long[2], new String[1]));
+        }
+    }
+
+    private static SortedMap<String, BigDecimal> rates(String... currenciesAndRates) {
+        SortedMap<String, BigDecimal> rates = new TreeMap<>();
+        for (int i = 0; i < currenciesAndRates.length; i += 2) {
+            rates.put(currenciesAndRates[i], new BigDecimal(currenciesAndRates[i + 1]));
+        }
+        return rates;
+    }
+
+    private static SortedMap<String, BigDecimal> manyRates(int version) {
+        SortedMap<String, BigDecimal> rates = new TreeMap<>();
+        for (int i = 0; i < TestData.CURRENCIES.length; i++) {
+            rates.put(TestData.CURRENCIES[i], BigDecimal.valueOf(100_000L + version * 37L + i * 1_000L, 5));
+        }
+        rates.put("USD", BigDecimal.valueOf(110_000L + version * 13L, 5));
+        rates.put("JPY", BigDecimal.valueOf(12_868_000L + version * 1_001L, 5));
+
+        //Rates with trailing zeros, too precise for fixed-point conversion and too big for it
+        rates.put("CHF", BigDecimal.valueOf(10_378_000L + version * 100L, 7));
+        rates.put("GBP", BigDecimal.valueOf(83_178_123L + version, 8));
+        rates.put("IDR", BigDecimal.valueOf(900_000_000_000L + version, 0));
+        return rates;
+    }
+}
@@ -0,0 +1,135 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateMergeTest {
+
+    @TempDir
+    Path tempDir;
+
+    //load() tests
+    @Test
+    public void givenDailyFiles_whenLoad_thanOneHistoryOfAllDays() throws Exception {
+        Path first = writeFile("2022-01-27.xml", "2022-01-27", "USD", "1.1", "PLN", "4.5");
+        Path second = writeFile("2022-01-28.xml", "2022-01-28", "USD", "1.2", "GBP", "0.8");
+
+        RateMerge testMerge = RateMerge.load(Arrays.asList(first, second), false);
+        RateHistory testHistory = testMerge.getRateHistory();
+
+        assertEquals(2, testMerge.getFileCount());
+        assertEquals(0, testMerge.getDuplicateCount());
+        assertEquals(0, testMerge.getConflictCount());
+        assertEquals(2, testHistory.getPublicationCount());
+        assertEquals(new BigDecimal("1.100000"), testHistory.getRate("USD", LocalDate.of(2022, 1, 27)));
+        assertEquals(new BigDecimal("1.200000"), testHistory.getRate("USD", LocalDate.of(2022, 1, 28)));
+        assertEquals(new BigDecimal("4.500000"), testHistory.getRate("PLN", LocalDate.of(2022, 1, 27)));
+        assertEquals(new BigDecimal("0.800000"), testHistory.getRate("GBP", LocalDate.of(2022, 1, 28)));
+        assertEquals(3, testHistory.getCurrencies().size());
+    }
+
+    @Test
+    public void givenConflictingRates_whenLoad_thanLatestPublicationWinsInAnyOrder() throws Exception {
+        Path history = writeFile("a-history.xml", "2022-01-28", "USD", "1.3", null, null,
+                "2022-01-27", "USD", "1.15", "PLN", "4.5");
+        Path daily = writeFile("b-daily.xml", "2022-01-27", "USD", "1.1", "PLN", "4.5");
+
+        for (List<Path> files : Arrays.asList(Arrays.asList(history, daily), Arrays.asList(daily, history))) {
+            RateMerge testMerge = RateMerge.load(files, false);
+
+            assertEquals(new BigDecimal("1.150000"),
+                    testMerge.getRateHistory().getRate("USD", LocalDate.of(2022, 1, 27)));
+            assertEquals(1, testMerge.getDuplicateCount());
+            assertEquals(1, testMerge.getConflictCount());
+
+            RateMerge.Conflict conflict = testMerge.getConflicts().get(0);
+            assertEquals(LocalDate.of(2022, 1, 27), conflict.getDate());
+            assertEquals("USD", conflict.getCurrency());
+            assertEquals(history, conflict.getFile());
+            assertEquals(daily, conflict.getRejectedFile());
+            assertEquals(new BigDecimal("1.100000"), conflict.getRejectedRate());
+            assertTrue(testMerge.report().contains("1 conflicting rates"));
+        }
+    }
+
+    @Test
+    public void givenSameLastPublication_whenLoad_thanLaterPathWins() throws Exception {
+        Path first = writeFile("a.xml", "2022-01-28", "USD", "1.1", null, null);
+        Path second = writeFile("b.xml", "2022-01-28", "USD", "1.2", null, null);
+
+        RateMerge testMerge = RateMerge.load(Arrays.asList(second, first), false);
+
+        assertEquals(new BigDecimal("1.200000"), testMerge.getRateHistory().getRate("USD", LocalDate.of(2022, 1, 28)));
+    }
+
+    @Test
+    public void givenManyFiles_whenLoadInParallel_thanTheSameAsSequential() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            LocalDate date = LocalDate.of(2022, 1, 1).plusDays(i / 2);
+            files.add(writeFile(i + ".xml", date.toString(), "USD", "1." + i, "PLN", "4." + (i / 2)));
+        }
+        Collections.shuffle(files);
+
+        ForkJoinPool parallelPool = new ForkJoinPool(4);
+        ForkJoinPool sequentialPool = new ForkJoinPool(1);
+        try {
+            RateHistory parallel = RateMerge.load(files, false, parallelPool).getRateHistory();
+            RateHistory sequential = RateMerge.load(files, false, sequentialPool).getRateHistory();
+
+            for (int day = 0; day < 20; day++) {
+                LocalDate date = LocalDate.of(2022, 1, 1).plusDays(day);
+                assertEquals(sequential.getRate("USD", date), parallel.getRate("USD", date));
+                assertEquals(sequential.getRate("PLN", date), parallel.getRate("PLN", date));
+            }
+        } finally {
+            parallelPool.shutdown();
+            sequentialPool.shutdown();
+        }
+    }
+
+    @Test
+    public void givenBrokenFile_whenLoad_thanExceptionNamesFile() throws Exception {
+        Path good = writeFile("good.xml", "2022-01-28", "USD", "1.1", null, null);
+        Path broken = tempDir.resolve("broken.xml");
+        Files.write(broken, "<Cube><Cube time='2022-01-28'>".getBytes(StandardCharsets.UTF_8));
+
+        RateLoadException exception = assertThrows(RateLoadException.class,
+                () -> RateMerge.load(Arrays.asList(good, broken), false));
+
+        assertTrue(exception.getMessage().contains("broken.xml"));
+    }
+
+    /**
+     * Writes ECB file, values are groups of date and two (currency, rate) pairs, null pair is skipped.
+     */
+    private Path writeFile(String name, String... values) throws IOException {
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<Cube>\n");
+        for (int i = 0; i < values.length; i += 5) {
+            xml.append("<Cube time='").append(values[i]).append("'>\n");
+            for (int pair = i + 1; pair < i + 5; pair += 2) {
+                if (values[pair] != null) {
+                    xml.append("<Cube currency='").append(values[pair]).append("' rate='").append(values[pair + 1])
+                            .append("'/>\n");
+                }
+            }
+            xml.append("</Cube>\n");
+        }
+        xml.append("</Cube>\n");
+        return Files.write(tempDir.resolve(name), xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
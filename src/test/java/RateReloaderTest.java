@@ -0,0 +1,221 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateReloaderTest {
+
+    private static final Path FILEPATH = Paths.get("src/test/resources/eurofxref-daily-test.xml");
+
+    @TempDir
+    Path tempDir;
+
+    //reload() tests
+    @Test
+    public void givenChangedXml_whenReload_thanCalculatorUsesNewRates() throws Exception {
+        Path xmlFile = copyTestFile();
+        RateReloader testReloader = new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP);
+        Calculator testCalculator = new Calculator(testReloader);
+        testCalculator.setCurrentCurrency("USD");
+
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100.00")));
+
+        replaceUsdRate(xmlFile, "1.2");
+        assertTrue(testReloader.reload());
+
+        assertEquals(2, testReloader.get().getVersion());
+        assertEquals(new BigDecimal("120.00"), testCalculator.convertEuros(new BigDecimal("100.00")));
+        assertEquals(12000L, testCalculator.convertEuros(10000L));
+    }
+
+    @Test
+    public void givenBrokenXml_whenReload_thanKeepLastGoodSnapshot() throws Exception {
+        Path xmlFile = copyTestFile();
+        RateReloader testReloader = new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP);
+        RateSnapshot goodSnapshot = testReloader.get();
+
+        Files.write(xmlFile, "<Cube><Cube time='2022-01-28'>".getBytes(StandardCharsets.UTF_8));
+        assertFalse(testReloader.reload());
+
+        Files.write(xmlFile, "<Cube/>".getBytes(StandardCharsets.UTF_8));
+        assertFalse(testReloader.reload());
+
+        assertEquals(goodSnapshot, testReloader.get());
+    }
+
+    @Test
+    public void givenDirectoryWithBrokenFile_whenLoad_thanParserExitCodeAndMessage() throws Exception {
+        copyTestFile();
+        Files.write(tempDir.resolve("broken.xml"), "<Cube><Cube time='2022-01-28'>".getBytes(StandardCharsets.UTF_8));
+
+        RateLoadException exception = assertThrows(RateLoadException.class,
+                () -> new RateReloader(tempDir.toString(), 10, RoundingMode.HALF_UP));
+
+        assertEquals(3, exception.getExitCode());
+        assertTrue(exception.getMessage().startsWith("There was a problem during parsing xml file."));
+        assertTrue(exception.getMessage().contains("broken.xml"));
+
+        Files.write(tempDir.resolve("broken.xml"), ("<Cube><Cube time='2022-01-28'><Cube currency='USD' rate='abc'/>"
+                + "</Cube></Cube>").getBytes(StandardCharsets.UTF_8));
+
+        exception = assertThrows(RateLoadException.class,
+                () -> new RateReloader(tempDir.toString(), 10, RoundingMode.HALF_UP));
+
+        assertEquals(5, exception.getExitCode());
+        assertTrue(exception.getMessage().startsWith("Error during parsing data from xml file."));
+    }
+
+    @Test
+    public void givenDirectory_whenFileAdded_thanReloadMergesNewFile() throws Exception {
+        Path xmlFile = copyTestFile();
+        RateReloader testReloader = new RateReloader(tempDir.toString(), 10, RoundingMode.HALF_UP);
+        Calculator testCalculator = new Calculator(testReloader);
+        testCalculator.setCurrentCurrency("USD");
+
+        assertEquals(new BigDecimal("111.35"), testCalculator.convertEuros(new BigDecimal("100.00")));
+
+        String xml = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+        Files.write(tempDir.resolve("next-day.xml"), xml.replace("2022-01-28", "2022-01-31")
+                .replace("rate='1.11354'", "rate='1.2'").getBytes(StandardCharsets.UTF_8));
+        assertTrue(testReloader.reload());
+
+        assertEquals(new BigDecimal("120.00"), testCalculator.convertEuros(new BigDecimal("100.00")));
+        assertEquals(2, testReloader.get().getRateHistory().getPublicationCount());
+    }
+
+    @Test
+    public void givenJournal_whenReload_thanEveryVersionConvertedAsOfItsTime() throws Exception {
+        Path xmlFile = copyTestFile();
+        try (RateJournal journal = new RateJournal(tempDir.resolve("rates.journal"))) {
+            RateReloader testReloader = new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP, false, false,
+                    journal);
+            Thread.sleep(5);
+            Instant beforeReload = Instant.now();
+            Thread.sleep(5);
+
+            replaceUsdRate(xmlFile, "1.2");
+            assertTrue(testReloader.reload());
+            Instant afterReload = Instant.now();
+
+            assertEquals(2, journal.getEntryCount());
+            assertEquals(new BigDecimal("111.35"), journal.convert(new BigDecimal("100.00"), "USD", beforeReload));
+            assertEquals(new BigDecimal("120.00"), journal.convert(new BigDecimal("100.00"), "USD", afterReload));
+
+            //Snapshot was created before it replaced previous one, calculators used old rates until then.
+            //Journal keeps milliseconds, so times are compared in milliseconds
+            assertTrue(journal.find(afterReload).getPublishedAt().toEpochMilli()
+                    >= testReloader.get().getLoadedAt().toEpochMilli());
+        }
+    }
+
+    //start() tests
+    @Test
+    public void givenStartedReloader_whenXmlReplaced_thanNewSnapshotPublished() throws Exception {
+        Path xmlFile = copyTestFile();
+        try (RateReloader testReloader = new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP)) {
+            testReloader.start();
+
+            //New file is written next to old one and moved over it, like most tools do
+            Path newFile = tempDir.resolve("new.xml");
+            Files.copy(xmlFile, newFile);
+            replaceUsdRate(newFile, "1.5");
+            Files.move(newFile, xmlFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (testReloader.get().getVersion() == 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(0, new BigDecimal("1.5").compareTo(testReloader.get().getCurrencyRates().get("USD")));
+        }
+    }
+
+    @Test
+    public void givenStartedReloaderOfDirectory_whenFileDeleted_thanItsRatesNoLongerUsed() throws Exception {
+        Path xmlFile = copyTestFile();
+        String xml = new String(Files.readAllBytes(xmlFile), StandardCharsets.UTF_8);
+        Path nextDay = Files.write(tempDir.resolve("next-day.xml"), xml.replace("2022-01-28", "2022-01-31")
+                .replace("rate='1.11354'", "rate='1.2'").getBytes(StandardCharsets.UTF_8));
+        try (RateReloader testReloader = new RateReloader(tempDir.toString(), 10, RoundingMode.HALF_UP)) {
+            assertEquals(2, testReloader.get().getRateHistory().getPublicationCount());
+            testReloader.start();
+
+            Files.delete(nextDay);
+
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (testReloader.get().getVersion() == 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(20);
+            }
+
+            assertEquals(1, testReloader.get().getRateHistory().getPublicationCount());
+            assertEquals(0, new BigDecimal("1.11354").compareTo(testReloader.get().getCurrencyRates().get("USD")));
+        }
+    }
+
+    @Test
+    public void givenConcurrentConversions_whenReloading_thanEveryResultMatchesOneSnapshot() throws Exception {
+        Path xmlFile = copyTestFile();
+        RateReloader testReloader = new RateReloader(xmlFile.toString(), 10, RoundingMode.HALF_UP);
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    Calculator calculator = new Calculator(testReloader);
+                    calculator.setCurrentCurrency("USD");
+                    boolean valid = true;
+                    while (running.get()) {
+                        long usdCents = calculator.convertEuros(10000L);
+                        valid &= usdCents == 11135L || usdCents == 20000L;
+                    }
+                    return valid;
+                }));
+            }
+
+            for (int i = 0; i < 20; i++) {
+                replaceUsdRate(xmlFile, i % 2 == 0 ? "2" : "1.11354");
+                testReloader.reload();
+            }
+            running.set(false);
+
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Path copyTestFile() throws IOException {
+        Path xmlFile = tempDir.resolve("eurofxref-daily.xml");
+        Files.copy(FILEPATH, xmlFile, StandardCopyOption.REPLACE_EXISTING);
+        return xmlFile;
+    }
+
+    private static void replaceUsdRate(Path xmlFile, String rate) throws IOException {
+        String xml = new String(Files.readAllBytes(FILEPATH), StandardCharsets.UTF_8);
+        xml = xml.replace("<Cube currency='USD' rate='1.11354'/>", "<Cube currency='USD' rate='" + rate + "'/>");
+        Files.write(xmlFile, xml.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,68 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateSourceTest {
+
+    @TempDir
+    Path tempDir;
+
+    //of() tests
+    @Test
+    public void givenFile_whenOf_thanSingleFileSource() throws Exception {
+        Path file = Files.createFile(tempDir.resolve("rates.xml"));
+
+        RateSource testSource = RateSource.of(file.toString());
+
+        assertTrue(testSource.isSingleFile());
+        assertEquals(file, testSource.getSingleFile());
+        assertEquals(tempDir, testSource.getDirectory());
+        assertEquals(Collections.singletonList(file), testSource.listFiles());
+    }
+
+    @Test
+    public void givenDirectory_whenListFiles_thanSortedXmlFilesWithoutCache() throws Exception {
+        Path second = Files.createFile(tempDir.resolve("2022-01-28.xml"));
+        Path first = Files.createFile(tempDir.resolve("2022-01-27.xml"));
+        Files.createFile(tempDir.resolve("2022-01-27.xml" + RateCache.SUFFIX));
+        Files.createFile(tempDir.resolve("notes.txt"));
+        Files.createDirectory(tempDir.resolve("old.xml"));
+
+        RateSource testSource = RateSource.of(tempDir.toString());
+
+        assertFalse(testSource.isSingleFile());
+        assertEquals(tempDir, testSource.getDirectory());
+        assertEquals(Arrays.asList(first, second), testSource.listFiles());
+    }
+
+    @Test
+    public void givenGlob_whenListFiles_thanOnlyMatchingFiles() throws Exception {
+        Path daily = Files.createFile(tempDir.resolve("eurofxref-daily.xml"));
+        Path history = Files.createFile(tempDir.resolve("eurofxref-hist.xml"));
+        Files.createFile(tempDir.resolve("other.xml"));
+
+        RateSource testSource = RateSource.of(tempDir + "/eurofxref-*.xml");
+
+        assertEquals(tempDir, testSource.getDirectory());
+        assertEquals(Arrays.asList(daily, history), testSource.listFiles());
+    }
+
+    //matches() tests
+    @Test
+    public void givenGlob_whenMatches_thanCacheAndTemporaryFilesIgnored() {
+        RateSource testSource = RateSource.of(tempDir + "/*");
+
+        assertTrue(testSource.matches(Paths.get("eurofxref-daily.xml")));
+        assertFalse(testSource.matches(Paths.get("eurofxref-daily.xml" + RateCache.SUFFIX)));
+        assertFalse(testSource.matches(Paths.get("eurofxref-daily.xml.tmp")));
+    }
+}
@@ -0,0 +1,163 @@
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+public class RateStatisticsTest {
+
+    private static final String HISTORY_FILEPATH = "src/test/resources/eurofxref-hist-test.xml";
+
+    private final RateStatistics testStatistics = new RateStatistics(XMLParser.getRateHistory(HISTORY_FILEPATH));
+
+    @Test
+    public void givenWholeHistory_whenGetStatistics_thanReturnMinMaxAndAverageOfUsd() {
+        RateStatistics.Range range = testStatistics.getStatistics("USD",
+                LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31));
+
+        assertEquals(4, range.getCount());
+        assertEquals(new BigDecimal("1.113500"), range.getMin());
+        assertEquals(new BigDecimal("1.134800"), range.getMax());
+        assertEquals(new BigDecimal("1.12390000"), range.getAverage());
+    }
+
+    @Test
+    public void givenCurrencyMissingOnLastDay_whenGetStatistics_thanCountOnlyPublishedDays() {
+        RateStatistics.Range range = testStatistics.getStatistics("RUB",
+                LocalDate.of(2022, 1, 21), LocalDate.of(2022, 1, 28));
+
+        assertEquals(3, range.getCount());
+        assertEquals(new BigDecimal("87.094000"), range.getMin());
+        assertEquals(new BigDecimal("88.165000"), range.getMax());
+    }
+
+    @Test
+    public void givenOneDay_whenGetStatistics_thanReturnRateOfThatDayWithoutDeviation() {
+        RateStatistics.Range range = testStatistics.getStatistics("JPY",
+                LocalDate.of(2022, 1, 27), LocalDate.of(2022, 1, 27));
+
+        assertEquals(1, range.getCount());
+        assertEquals(new BigDecimal("128.940000"), range.getMin());
+        assertEquals(new BigDecimal("128.94000000"), range.getAverage());
+        assertEquals(0, range.getStandardDeviation());
+        assertEquals(0, range.getVolatility());
+    }
+
+    @Test
+    public void givenRangeWithoutPublications_whenGetStatistics_thanReturnNull() {
+        assertNull(testStatistics.getStatistics("USD", LocalDate.of(2022, 1, 22), LocalDate.of(2022, 1, 23)));
+        assertNull(testStatistics.getStatistics("USD", LocalDate.of(2021, 1, 1), LocalDate.of(2021, 12, 31)));
+        assertNull(testStatistics.getStatistics("RUB", LocalDate.of(2022, 1, 28), LocalDate.of(2022, 2, 28)));
+    }
+
+    @Test
+    public void givenUnknownCurrencyOrReversedRange_whenGetStatistics_thanReturnNull() {
+        assertNull(testStatistics.getStatistics("XXX", LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)));
+        assertNull(testStatistics.getStatistics("USD", LocalDate.of(2022, 1, 31), LocalDate.of(2022, 1, 1)));
+        assertNull(testStatistics.getStatistics(null, LocalDate.of(2022, 1, 1), LocalDate.of(2022, 1, 31)));
+    }
+
+    @Test
+    public void givenRandomHistoryWithGaps_whenGetStatistics_thanReturnSameAsScanOfDays() {
+        Random random = new Random(2022);
+        LocalDate firstDay = LocalDate.of(1999, 1, 4);
+        int days = 3_000;
+        String[] currencies = {"USD", "CHF", "IDR"};
+
+        //Currencies start and stop being published and skip some days, like in real ECB history
+        long[][] rates = new long[currencies.length][days];
+        RateHistory.Builder builder = new RateHistory.Builder();
+        for (int currency = 0; currency < currencies.length; currency++) {
+            int start = random.nextInt(500);
+            int end = days - random.nextInt(500);
+            long rate = 1_000_000L + random.nextInt(1_000_000_000);
+            for (int day = start; day < end; day++) {
+                rate = Math.max(1, rate + random.nextInt(20_001) - 10_000);
+                if (random.nextInt(10) > 0) {
+                    rates[currency][day] = rate;
+                    builder.add(firstDay.plusDays(day), currencies[currency], BigDecimal.valueOf(rate, 6));
+                }
+            }
+        }
+        RateStatistics statistics = new RateStatistics(builder.build());
+
+        for (int i = 0; i < 20_000; i++) {
+            int currency = random.nextInt(currencies.length);
+            int from = random.nextInt(days + 20) - 10;
+            int to = from + random.nextInt(i % 10 == 0 ? days : 30);
+            RateStatistics.Range range = statistics.getStatistics(currencies[currency],
+                    firstDay.plusDays(from), firstDay.plusDays(to));
+            assertSameAsScan(rates[currency], from, to, range);
+        }
+    }
+
+    private static void assertSameAsScan(long[] rates, int from, int to, RateStatistics.Range range) {
+        int count = 0;
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        long sum = 0;
+        double squareSum = 0;
+        double returnSum = 0;
+        double returnSquareSum = 0;
+        long previous = 0;
+        for (int day = Math.max(0, from); day <= Math.min(rates.length - 1, to); day++) {
+            long rate = rates[day];
+            if (rate == 0) {
+                continue;
+            }
+            count++;
+            min = Math.min(min, rate);
+            max = Math.max(max, rate);
+            sum += rate;
+            squareSum += (double) rate * rate;
+            if (previous != 0) {
+                double logReturn = Math.log((double) rate / previous);
+                returnSum += logReturn;
+                returnSquareSum += logReturn * logReturn;
+            }
+            previous = rate;
+        }
+
+        if (count == 0) {
+            assertNull(range);
+            return;
+        }
+        assertNotNull(range);
+        assertEquals(count, range.getCount());
+        assertEquals(BigDecimal.valueOf(min, 6), range.getMin());
+        assertEquals(BigDecimal.valueOf(max, 6), range.getMax());
+        assertEquals(BigDecimal.valueOf(sum, 6).divide(BigDecimal.valueOf(count), 8, RoundingMode.HALF_UP),
+                range.getAverage());
+
+        double mean = (double) sum / count;
+        double standardDeviation = Math.sqrt(Math.max(0, squareSum / count - mean * mean)) / 1e6;
+        assertEquals(standardDeviation, range.getStandardDeviation(), 1e-6 * Math.max(1, standardDeviation));
+
+        double volatility = 0;
+        if (count > 2) {
+            double returnMean = returnSum / (count - 1);
+            volatility = Math.sqrt(Math.max(0, (returnSquareSum - (count - 1) * returnMean * returnMean) / (count - 2)));
+        }
+        assertEquals(volatility, range.getVolatility(), 1e-9);
+    }
+
+    @Test
+    public void givenSnapshot_whenGetRateStatisticsTwice_thanBuiltOnceWithSameResults() {
+        RateSnapshot snapshot = new RateSnapshot(1, XMLParser.getRateHistory(HISTORY_FILEPATH), 10,
+                RoundingMode.HALF_UP);
+        LocalDate from = LocalDate.of(2022, 1, 1);
+        LocalDate to = LocalDate.of(2022, 1, 31);
+
+        RateStatistics statistics = snapshot.getRateStatistics();
+
+        assertSame(statistics, snapshot.getRateStatistics());
+        assertEquals(testStatistics.getStatistics("USD", from, to).getAverage(),
+                statistics.getStatistics("USD", from, to).getAverage());
+    }
+}
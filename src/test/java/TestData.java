@@ -0,0 +1,53 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Random;
+
+/**
+ * Generated test files, for tests which need more data than files in test resources.
+ */
+public final class TestData {
+
+    //The same currencies as in ECB daily file
+    public static final String[] CURRENCIES = {"AUD", "BGN", "BRL", "CAD", "CHF", "CNY", "CZK", "DKK",
+            "GBP", "HKD", "HUF", "IDR", "ILS", "INR", "ISK", "JPY", "KRW", "MXN", "MYR", "NOK",
+            "NZD", "PHP", "PLN", "RON", "SEK", "SGD", "THB", "TRY", "USD", "ZAR"};
+
+    private TestData() {
+    }
+
+    /**
+     * Writes history file in ECB format (newest day first) with random rates.
+     *
+     * @param path Path of created file
+     * @param days Number of days, each one with all {@link #CURRENCIES}
+     * @return Path of created file
+     */
+    public static Path writeHistoryFile(Path path, int days) throws IOException {
+        Random random = new Random(42);
+        LocalDate date = LocalDate.of(2022, 1, 28);
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            writer.write("<gesmes:Envelope xmlns:gesmes=\"http://www.gesmes.org/xml/2002-08-01\" " +
+                    "xmlns=\"http://www.ecb.int/vocabulary/2002-08-01/eurofxref\">\n");
+            writer.write("\t<gesmes:subject>Reference rates</gesmes:subject>\n");
+            writer.write("\t<Cube>\n");
+            for (int day = 0; day < days; day++) {
+                writer.write("\t\t<Cube time='" + date.minusDays(day) + "'>\n");
+                for (String currency : CURRENCIES) {
+                    BigDecimal rate = BigDecimal.valueOf(random.nextInt(100_000_000) + 1, 5);
+                    writer.write("\t\t\t<Cube currency='" + currency + "' rate='" + rate.toPlainString() + "'/>\n");
+                }
+                writer.write("\t\t</Cube>\n");
+            }
+            writer.write("\t</Cube>\n");
+            writer.write("</gesmes:Envelope>\n");
+        }
+        return path;
+    }
+}
@@ -0,0 +1,164 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WorkloadGeneratorTest {
+
+    @TempDir
+    Path tempDir;
+
+    //WorkloadGenerator() tests
+    @Test
+    public void givenWrongSizes_whenCreated_thanIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(1, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> new WorkloadGenerator(1, 10, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WorkloadGenerator(1, 10, WorkloadGenerator.MAX_CURRENCIES + 1));
+    }
+
+    @Test
+    public void givenManyCurrencies_whenCreated_thanRealCodesFirstAndSyntheticCodesUnique() {
+        String[] currencies = new WorkloadGenerator(1, 1, 40).getCurrencies();
+
+        assertEquals("USD", currencies[0]);
+        assertEquals("ZAR", currencies[31]);
+        assertEquals("QAA", currencies[32]);
+        assertEquals("QAH", currencies[39]);
+    }
+
+    //writeRates() tests
+    @Test
+    public void givenTheSameSeed_whenWriteRates_thanTheSameFile() throws Exception {
+        Path first = Files.createDirectory(tempDir.resolve("first"));
+        Path second = Files.createDirectory(tempDir.resolve("second"));
+        Path third = Files.createDirectory(tempDir.resolve("third"));
+
+        byte[] firstBytes = Files.readAllBytes(new WorkloadGenerator(42, 50, 40)
+                .writeRates(first, WorkloadGenerator.Layout.HISTORY).get(0));
+        byte[] secondBytes = Files.readAllBytes(new WorkloadGenerator(42, 50, 40)
+                .writeRates(second, WorkloadGenerator.Layout.HISTORY).get(0));
+        byte[] thirdBytes = Files.readAllBytes(new WorkloadGenerator(43, 50, 40)
+                .writeRates(third, WorkloadGenerator.Layout.HISTORY).get(0));
+
+        assertArrayEquals(firstBytes, secondBytes);
+        assertFalse(new String(firstBytes, StandardCharsets.UTF_8).equals(
+                new String(thirdBytes, StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void givenHistoryLayout_whenLoaded_thanEveryWorkingDayAndCurrency() throws Exception {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 300, 40);
+
+        List<Path> files = generator.writeRates(tempDir, WorkloadGenerator.Layout.HISTORY);
+        RateHistory testHistory = XMLParser.loadRateHistory(files.get(0).toString());
+
+        assertEquals(1, files.size());
+        assertEquals(300, testHistory.getPublicationCount());
+        assertEquals(40, testHistory.getCurrencyCount());
+        assertEquals(WorkloadGenerator.LAST_DAY, testHistory.getLastDate());
+        assertEquals(generator.getFirstDate(), testHistory.getFirstDate());
+        assertTrue(testHistory.getFirstDate().getDayOfWeek().compareTo(DayOfWeek.FRIDAY) <= 0);
+    }
+
+    @Test
+    public void givenDailyLayout_whenMerged_thanTheSameRatesAsHistory() throws Exception {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 30, 35);
+        Path history = Files.createDirectory(tempDir.resolve("history"));
+        Path daily = Files.createDirectory(tempDir.resolve("daily"));
+
+        RateHistory expected = XMLParser.loadRateHistory(
+                generator.writeRates(history, WorkloadGenerator.Layout.HISTORY).get(0).toString());
+        List<Path> files = generator.writeRates(daily, WorkloadGenerator.Layout.DAILY);
+        RateMerge testMerge = RateMerge.load(files, false);
+
+        assertEquals(30, files.size());
+        assertEquals(0, testMerge.getConflictCount());
+        RateHistory testHistory = testMerge.getRateHistory();
+        assertEquals(expected.getPublicationCount(), testHistory.getPublicationCount());
+        for (int publication = 0; publication < expected.getPublicationCount(); publication++) {
+            for (String currency : generator.getCurrencies()) {
+                int expectedIndex = expected.indexOfCurrency(currency);
+                int actualIndex = testHistory.indexOfCurrency(currency);
+                assertEquals(expected.getScaledRate(expectedIndex, publication),
+                        testHistory.getScaledRate(actualIndex, publication));
+            }
+        }
+    }
+
+    //writeTransactions() tests
+    @Test
+    public void givenTransactions_whenConverted_thanNoRejectedRows() throws Exception {
+        WorkloadGenerator generator = new WorkloadGenerator(42, 200, 32);
+        RateHistory rateHistory = XMLParser.loadRateHistory(
+                generator.writeRates(tempDir, WorkloadGenerator.Layout.HISTORY).get(0).toString());
+        Path input = tempDir.resolve("transactions.csv");
+
+        long size = generator.writeTransactions(input, 10_000);
+        CsvConversionEngine.Summary summary = new CsvConversionEngine(rateHistory, "USD")
+                .convert(input, tempDir.resolve("output.csv"), System.err);
+
+        assertEquals(Files.size(input), size);
+        assertEquals(10_000, summary.getConvertedRows());
+        assertEquals(0, summary.getRejectedRows());
+    }
+
+    //transactions() tests
+    @Test
+    public void givenTransactions_whenCounted_thanSkewedToPopularCurrenciesAndAmounts() {
+        WorkloadGenerator.Transactions transactions = new WorkloadGenerator(42, 200, 32).transactions();
+        Map<String, Integer> currencies = new HashMap<>();
+        Map<Long, Integer> amounts = new HashMap<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            transactions.next();
+            currencies.merge(transactions.getCurrency(), 1, Integer::sum);
+            amounts.merge(transactions.getAmountCents(), 1, Integer::sum);
+        }
+
+        //Zipf distribution - the most popular currency is about 4 times more common than the 4th one
+        assertTrue(currencies.get("USD") > 3 * currencies.get("CZK"));
+        assertTrue(currencies.get("EUR") > 0);
+        int popularAmount = amounts.values().stream().max(Integer::compare).orElse(0);
+        assertTrue(popularAmount > 5_000);
+    }
+
+    //WorkloadDriver.run() tests
+    @Test
+    public void givenSmallWorkload_whenDriverRun_thanReportOfEveryStep() throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+        WorkloadDriver.run(new String[]{"--days", "20", "--currencies", "34", "--rows", "1000",
+                "--layout", "daily", "--dir", tempDir.toString()}, new PrintStream(output, true, "UTF-8"));
+        String report = new String(output.toByteArray(), StandardCharsets.UTF_8);
+
+        assertTrue(report.startsWith("Workload: 20 days from"));
+        for (String step : new String[]{"generate", "load", "csv", "calculator"}) {
+            assertTrue(report.contains(step + " "), report);
+        }
+        assertFalse(report.contains("Rejected rows"), report);
+        assertTrue(report.contains("Peak memory: "), report);
+    }
+
+    @Test
+    public void givenUnknownOption_whenDriverRun_thanIllegalArgumentException() {
+        assertThrows(IllegalArgumentException.class,
+                () -> WorkloadDriver.run(new String[]{"--size", "1"}, System.out));
+        assertThrows(IllegalArgumentException.class,
+                () -> WorkloadDriver.run(new String[]{"--rows", "many"}, System.out));
+    }
+}
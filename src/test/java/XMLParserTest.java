@@ -0,0 +1,101 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.SortedMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class XMLParserTest {
+
+    private static final String FILEPATH = "src/test/resources/eurofxref-daily-test.xml";
+
+    @TempDir
+    Path tempDir;
+
+    //getCurrencies() tests
+    @Test
+    public void givenTestXml_whenGetCurrencies_thanReturnSameMapAsDomParser() {
+        SortedMap<String, BigDecimal> streamed = XMLParser.getCurrencies(FILEPATH);
+
+        assertEquals(XMLParser.getCurrenciesDom(FILEPATH), streamed);
+        assertEquals(22, streamed.size());
+        assertEquals(new BigDecimal("1.11354"), streamed.get("USD"));
+    }
+
+    @Test
+    public void givenLargeHistoryXml_whenGetCurrencies_thanReturnSameMapAsDomParser() throws IOException {
+        Path historyFile = TestData.writeHistoryFile(tempDir.resolve("eurofxref-hist.xml"), 6000);
+
+        SortedMap<String, BigDecimal> domMap = XMLParser.getCurrenciesDom(historyFile.toString());
+        SortedMap<String, BigDecimal> staxMap = XMLParser.getCurrencies(historyFile.toString());
+
+        assertEquals(domMap, staxMap);
+        assertEquals(TestData.CURRENCIES.length, staxMap.size());
+    }
+
+    //loadRateHistory() tests
+    @Test
+    public void givenRatesWithoutDate_whenLoadRateHistory_thanTheyAreRatesOfLatestDate() throws Exception {
+        Path file = Files.write(tempDir.resolve("rates.xml"), ("<Cube><Cube currency='PLN' rate='4.5'/>"
+                + "<Cube currency='USD' rate='9.9'/><Cube time='2022-01-27'><Cube currency='JPY' rate='128'/></Cube>"
+                + "<Cube time='2022-01-28'><Cube currency='USD' rate='1.1'/></Cube></Cube>")
+                .getBytes(StandardCharsets.UTF_8));
+
+        RateHistory rateHistory = XMLParser.loadRateHistory(file.toString());
+
+        //Rate of the latest date wins over rate without date
+        LocalDate latestDate = LocalDate.of(2022, 1, 28);
+        assertEquals(2, rateHistory.getPublicationCount());
+        assertEquals(0, new BigDecimal("4.5").compareTo(rateHistory.getRate("PLN", latestDate)));
+        assertEquals(0, new BigDecimal("1.1").compareTo(rateHistory.getRate("USD", latestDate)));
+        assertNull(rateHistory.getRate("PLN", latestDate.minusDays(1)));
+    }
+
+    @Test
+    public void givenFileWithoutDates_whenLoadRateHistory_thanRatesPublishedOnModificationDay() throws Exception {
+        Path file = Files.write(tempDir.resolve("rates.xml"), ("<Cube><Cube currency='PLN' rate='4.5'/>"
+                + "<Cube currency='USD' rate='1.1'/></Cube>").getBytes(StandardCharsets.UTF_8));
+        LocalDate modified = LocalDate.of(2022, 3, 1);
+        Files.setLastModifiedTime(file, FileTime.from(modified.atTime(12, 0).atZone(ZoneId.systemDefault())
+                .toInstant()));
+
+        RateHistory rateHistory = XMLParser.loadRateHistory(file.toString());
+
+        assertEquals(modified, rateHistory.getLastDate());
+        assertEquals(2, rateHistory.getLatestRates().size());
+        assertEquals(0, new BigDecimal("4.5").compareTo(rateHistory.getLatestRates().get("PLN")));
+    }
+
+    @Test
+    public void givenRateNotStorableAsScaledLong_whenLoadRateHistory_thanExitCode5() throws Exception {
+        for (String rate : new String[]{"0", "-1.1", "1.1234567", "1E+20"}) {
+            Path file = Files.write(tempDir.resolve("rates.xml"), ("<Cube><Cube time='2022-01-28'>"
+                    + "<Cube currency='USD' rate='" + rate + "'/></Cube></Cube>").getBytes(StandardCharsets.UTF_8));
+
+            RateLoadException exception = assertThrows(RateLoadException.class,
+                    () -> XMLParser.loadRateHistory(file.toString()));
+
+            assertEquals(5, exception.getExitCode(), rate);
+        }
+    }
+
+    @Test
+    public void givenRateWithTrailingZeros_whenLoadRateHistory_thanAcceptIt() throws Exception {
+        Path file = Files.write(tempDir.resolve("rates.xml"), ("<Cube><Cube time='2022-01-28'>"
+                + "<Cube currency='USD' rate='1.123456000'/></Cube></Cube>").getBytes(StandardCharsets.UTF_8));
+
+        RateHistory rateHistory = XMLParser.loadRateHistory(file.toString());
+
+        assertEquals(0, new BigDecimal("1.123456").compareTo(rateHistory.getLatestRates().get("USD")));
+    }
+}